@@ -0,0 +1,294 @@
+package io.mosip.preregistration.booking.benchmark;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.mosip.kernel.dataaccess.hibernate.repository.impl.HibernateRepositoryImpl;
+import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.DateTimeDto;
+import io.mosip.preregistration.booking.dto.SlotTimeDto;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.booking.repository.RegistrationBookingRepository;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.AvailabilityWindowResolver;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
+
+/**
+ * BookingDAO queries against an in-memory H2 database holding
+ * {@value BookingFixtures#CENTERS} centers x {@value BookingFixtures#DAYS}
+ * days x {@value BookingFixtures#SLOTS_PER_DAY} slots and one booking per
+ * center and working day. The schema is generated from the entities.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g" })
+public class BookingDAOBenchmark {
+
+	private AnnotationConfigApplicationContext context;
+
+	private BookingDAO bookingDAO;
+
+	private RegistrationBookingRepository registrationBookingRepository;
+
+	private TransactionTemplate transactionTemplate;
+
+	private BookingServiceUtil serviceUtil;
+
+	private AvailabilityWindowResolver availabilityWindowResolver;
+
+	private int bookings;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		context = new AnnotationConfigApplicationContext(JpaConfig.class);
+		bookingDAO = context.getBean(BookingDAO.class);
+		registrationBookingRepository = context.getBean(RegistrationBookingRepository.class);
+		transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		try (Connection connection = context.getBean(DataSource.class).getConnection()) {
+			loadSlots(connection);
+		}
+		BookingFixtures.authenticate();
+		serviceUtil = BookingFixtures.serviceUtil();
+		availabilityWindowResolver = new AvailabilityWindowResolver();
+		ReflectionTestUtils.setField(availabilityWindowResolver, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(availabilityWindowResolver, "lookaheadDays", -1L);
+		transactionTemplate.execute(status -> {
+			for (int center = 0; center < BookingFixtures.CENTERS; center++) {
+				for (int day = 0; day < BookingFixtures.DAYS; day++) {
+					if (!BookingFixtures.isHoliday(BookingFixtures.FIRST_DAY.plusDays(day))) {
+						bookingDAO.saveRegistrationEntityForBooking(serviceUtil.bookingEntitySetter(
+								BookingFixtures.preRegistrationId(bookings++),
+								BookingFixtures.bookingRequest(center, day, day % BookingFixtures.SLOTS_PER_DAY)));
+					}
+				}
+			}
+			return null;
+		});
+	}
+
+	private static void loadSlots(Connection connection) throws SQLException {
+		LocalDateTime now = LocalDateTime.now();
+		try (PreparedStatement insert = connection.prepareStatement("INSERT INTO prereg.reg_available_slot "
+				+ "(regcntr_id, availability_date, slot_from_time, slot_to_time, available_kiosks, cr_by, cr_dtimes, "
+				+ "is_deleted) VALUES (?, ?, ?, ?, ?, 'benchmark', ?, false)")) {
+			for (int center = 0; center < BookingFixtures.CENTERS; center++) {
+				for (AvailibityEntity entity : BookingFixtures.availability(BookingFixtures.centerId(center))) {
+					insert.setString(1, entity.getRegcntrId());
+					insert.setDate(2, Date.valueOf(entity.getRegDate()));
+					insert.setTime(3, Time.valueOf(entity.getFromTime()));
+					insert.setTime(4, Time.valueOf(entity.getToTime()));
+					insert.setInt(5, entity.getAvailableKiosks());
+					insert.setTimestamp(6, Timestamp.valueOf(now));
+					insert.addBatch();
+				}
+				insert.executeBatch();
+			}
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	private int nextCenter() {
+		next = next + 1 == Integer.MAX_VALUE ? 0 : next + 1;
+		return next % BookingFixtures.CENTERS;
+	}
+
+	@Benchmark
+	public List<AvailibityEntity> findAvailability() {
+		return bookingDAO.findAvailability(BookingFixtures.centerId(nextCenter()), BookingFixtures.FIRST_DAY,
+				BookingFixtures.FIRST_DAY.plusDays(BookingFixtures.DAYS - 1L));
+	}
+
+	@Benchmark
+	public List<SlotAvailabilityView> findSlotAvailability() {
+		return bookingDAO.findSlotAvailability(BookingFixtures.centerId(nextCenter()), BookingFixtures.FIRST_DAY,
+				BookingFixtures.FIRST_DAY.plusDays(BookingFixtures.DAYS - 1L));
+	}
+
+	/* entity and projection reads inside a transaction, where entities are also
+	 * snapshotted by the persistence context; compare with -prof gc */
+	@Benchmark
+	public int findAvailabilityInTransaction() {
+		return transactionTemplate.execute(status -> findAvailability().size());
+	}
+
+	@Benchmark
+	public int findSlotAvailabilityInTransaction() {
+		return transactionTemplate.execute(status -> findSlotAvailability().size());
+	}
+
+	/* the display window of a center: one query, holidays extended on the calendar */
+	@Benchmark
+	public AvailabilityDto availabilityWindow() {
+		return availabilityWindowResolver.resolve(BookingFixtures.centerId(nextCenter()), BookingFixtures.FIRST_DAY,
+				BookingFixtures.FIRST_DAY.plusDays(6)).toAvailability();
+	}
+
+	/* the same window with the former query per holiday extension loop */
+	@Benchmark
+	public List<DateTimeDto> availabilityWindowLoop() {
+		String centerId = BookingFixtures.centerId(nextCenter());
+		LocalDate fromDate = BookingFixtures.FIRST_DAY;
+		LocalDate endDate = fromDate.plusDays(6);
+		List<DateTimeDto> dateTimeList = new ArrayList<>();
+		int noOfHoliday = slots(dateTimeList, bookingDAO.findAvailability(centerId, fromDate, endDate));
+		while (noOfHoliday > 0) {
+			fromDate = endDate.plusDays(1);
+			endDate = endDate.plusDays(noOfHoliday);
+			noOfHoliday = slots(dateTimeList, bookingDAO.findAvailability(centerId, fromDate, endDate));
+		}
+		return dateTimeList;
+	}
+
+	private int slots(List<DateTimeDto> dateTimeList, List<AvailibityEntity> entities) {
+		Map<LocalDate, List<AvailibityEntity>> days = entities.stream().collect(
+				Collectors.groupingBy(AvailibityEntity::getRegDate, TreeMap::new, Collectors.toList()));
+		int noOfHoliday = 0;
+		for (Map.Entry<LocalDate, List<AvailibityEntity>> day : days.entrySet()) {
+			noOfHoliday += serviceUtil.slotSetter(day.getKey(), dateTimeList, new DateTimeDto(), day.getValue());
+		}
+		return noOfHoliday;
+	}
+
+	@Benchmark
+	public AvailibityEntity findSlot() {
+		int center = nextCenter();
+		LocalTime from = BookingFixtures.slotFrom(next % BookingFixtures.SLOTS_PER_DAY);
+		return bookingDAO.findByRegDateAndRegcntrIdAndFromTimeAndToTime(
+				BookingFixtures.FIRST_DAY.plusDays(next % BookingFixtures.DAYS), BookingFixtures.centerId(center),
+				from, from.plusMinutes(15));
+	}
+
+	@Benchmark
+	public boolean findRegistrationCenterId() {
+		return bookingDAO.findRegistrationCenterId(BookingFixtures.centerId(nextCenter()));
+	}
+
+	@Benchmark
+	public RegistrationBookingEntity findByPreRegistrationId() {
+		return bookingDAO.findByPreRegistrationId(BookingFixtures.preRegistrationId(nextCenter() * 7 % bookings));
+	}
+
+	@Benchmark
+	public List<String> findBookedPreRegistrations() {
+		Map<String, Map<LocalDate, SlotTimeDto>> idsWithSlotTime = new HashMap<>();
+		return bookingDAO.findByBookingDateBetweenAndRegCenterId(BookingFixtures.FIRST_DAY,
+				BookingFixtures.FIRST_DAY.plusDays(6), BookingFixtures.centerId(nextCenter()), idsWithSlotTime);
+	}
+
+	@Benchmark
+	public int findBookedEntitiesInTransaction() {
+		return transactionTemplate.execute(status -> registrationBookingRepository
+				.findByRegDateBetweenAndRegistrationCenterId(BookingFixtures.FIRST_DAY,
+						BookingFixtures.FIRST_DAY.plusDays(6), BookingFixtures.centerId(nextCenter()))
+				.size());
+	}
+
+	@Benchmark
+	public int findBookedSlotsInTransaction() {
+		return transactionTemplate.execute(status -> registrationBookingRepository
+				.findBookedSlots(BookingFixtures.centerId(nextCenter()), BookingFixtures.FIRST_DAY,
+						BookingFixtures.FIRST_DAY.plusDays(6))
+				.size());
+	}
+
+	@Benchmark
+	public Boolean reserveAndReleaseSlot() {
+		String centerId = BookingFixtures.centerId(nextCenter());
+		/* Mondays always have free kiosks */
+		LocalDate date = BookingFixtures.FIRST_DAY
+				.plusDays((8 - BookingFixtures.FIRST_DAY.getDayOfWeek().getValue()) % 7);
+		LocalTime from = BookingFixtures.slotFrom(next % BookingFixtures.SLOTS_PER_DAY);
+		return transactionTemplate.execute(status -> bookingDAO.reserveSlot(date, centerId, from,
+				from.plusMinutes(15)) && bookingDAO.releaseSlot(date, centerId, from, from.plusMinutes(15)));
+	}
+
+	@Configuration
+	@EnableTransactionManagement
+	@EnableJpaRepositories(basePackageClasses = BookingAvailabilityRepository.class,
+			repositoryBaseClass = HibernateRepositoryImpl.class)
+	@Import(BookingDAO.class)
+	static class JpaConfig {
+
+		@Bean
+		public DataSource dataSource() {
+			return new DriverManagerDataSource(
+					"jdbc:h2:mem:bookingbenchmark;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS PREREG", "sa", "");
+		}
+
+		@Bean
+		public LocalContainerEntityManagerFactoryBean entityManagerFactory(DataSource dataSource) {
+			LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+			factory.setDataSource(dataSource);
+			factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+			factory.setPackagesToScan("io.mosip.preregistration.booking.entity",
+					"io.mosip.preregistration.core.common.entity");
+			Properties properties = new Properties();
+			properties.setProperty("hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+			properties.setProperty("hibernate.hbm2ddl.auto", "create");
+			properties.setProperty("hibernate.jdbc.batch_size", "500");
+			factory.setJpaProperties(properties);
+			return factory;
+		}
+
+		@Bean
+		public PlatformTransactionManager transactionManager(EntityManagerFactory entityManagerFactory) {
+			return new JpaTransactionManager(entityManagerFactory);
+		}
+	}
+}
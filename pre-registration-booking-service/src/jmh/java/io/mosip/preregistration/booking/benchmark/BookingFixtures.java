@@ -0,0 +1,99 @@
+package io.mosip.preregistration.booking.benchmark;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.mockito.Mockito;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.kernel.core.authmanager.authadapter.model.AuthUserDetails;
+import io.mosip.preregistration.booking.dto.BookingRequestDTO;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+
+/**
+ * Shared fixtures of the booking benchmarks: {@value #CENTERS} centers with
+ * {@value #DAYS} days of {@value #SLOTS_PER_DAY} fifteen minute slots each.
+ * Sundays are holidays with a single slot row, as slot generation writes them.
+ */
+final class BookingFixtures {
+
+	static final int CENTERS = 300;
+
+	static final int DAYS = 30;
+
+	static final int SLOTS_PER_DAY = 20;
+
+	static final int KIOSKS = 4;
+
+	static final LocalDate FIRST_DAY = LocalDate.now().plusDays(2);
+
+	private BookingFixtures() {
+	}
+
+	static String centerId(int center) {
+		return String.valueOf(10001 + center);
+	}
+
+	static String preRegistrationId(int booking) {
+		return String.valueOf(40000000000000L + booking);
+	}
+
+	static LocalTime slotFrom(int slot) {
+		return LocalTime.of(9, 0).plusMinutes(15L * slot);
+	}
+
+	static boolean isHoliday(LocalDate date) {
+		return date.getDayOfWeek().getValue() == 7;
+	}
+
+	/** Slot rows of one center ordered by slot time, as the repository returns them. */
+	static List<AvailibityEntity> availability(String centerId) {
+		List<AvailibityEntity> entities = new ArrayList<>(DAYS * SLOTS_PER_DAY);
+		for (int slot = 0; slot < SLOTS_PER_DAY; slot++) {
+			for (int day = 0; day < DAYS; day++) {
+				LocalDate date = FIRST_DAY.plusDays(day);
+				if (isHoliday(date) && slot > 0) {
+					continue;
+				}
+				AvailibityEntity entity = new AvailibityEntity();
+				entity.setRegcntrId(centerId);
+				entity.setRegDate(date);
+				entity.setFromTime(slotFrom(slot));
+				entity.setToTime(slotFrom(slot + 1));
+				entity.setAvailableKiosks(isHoliday(date) ? 0 : KIOSKS - (day + slot) % 3);
+				entities.add(entity);
+			}
+		}
+		return entities;
+	}
+
+	static BookingRequestDTO bookingRequest(int center, int day, int slot) {
+		BookingRequestDTO request = new BookingRequestDTO();
+		request.setRegistrationCenterId(centerId(center));
+		request.setRegDate(FIRST_DAY.plusDays(day).toString());
+		request.setSlotFromTime(slotFrom(slot).toString());
+		request.setSlotToTime(slotFrom(slot + 1).toString());
+		return request;
+	}
+
+	static BookingServiceUtil serviceUtil() {
+		BookingServiceUtil serviceUtil = new BookingServiceUtil();
+		ReflectionTestUtils.setField(serviceUtil, "specificZoneId", "UTC");
+		return serviceUtil;
+	}
+
+	/** Installs the authenticated user bookingEntitySetter reads. */
+	static void authenticate() {
+		AuthUserDetails user = Mockito.mock(AuthUserDetails.class);
+		Mockito.when(user.getUserId()).thenReturn("benchmark");
+		Mockito.when(user.getUsername()).thenReturn("benchmark");
+		SecurityContextHolder.setStrategyName(SecurityContextHolder.MODE_GLOBAL);
+		SecurityContextHolder.getContext()
+				.setAuthentication(new UsernamePasswordAuthenticationToken(user, null, null));
+	}
+}
@@ -0,0 +1,135 @@
+package io.mosip.preregistration.booking.benchmark;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.preregistration.booking.codes.RequestCodes;
+import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.BookingRequestDTO;
+import io.mosip.preregistration.booking.dto.DateTimeDto;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.service.BookingService;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.booking.service.util.SlotCalendar;
+import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
+
+/**
+ * CPU bound booking paths: availability rendering and request validation. The
+ * availability benchmarks pick a different center on every call so that the
+ * working set spans all fixture centers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = { "-Xms1g", "-Xmx1g" })
+public class BookingServiceBenchmark {
+
+	private BookingService bookingService;
+
+	private BookingServiceUtil serviceUtil;
+
+	private List<List<AvailibityEntity>> availabilityByCenter;
+
+	private List<Map<LocalDate, List<AvailibityEntity>>> slotsByDayByCenter;
+
+	private BookingRequestDTO[] requests;
+
+	private Map<String, String>[] dateMaps;
+
+	private int next;
+
+	@Setup(Level.Trial)
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		BookingFixtures.authenticate();
+		serviceUtil = BookingFixtures.serviceUtil();
+		bookingService = new BookingService();
+		ReflectionTestUtils.setField(bookingService, "serviceUtil", serviceUtil);
+
+		availabilityByCenter = new ArrayList<>(BookingFixtures.CENTERS);
+		slotsByDayByCenter = new ArrayList<>(BookingFixtures.CENTERS);
+		for (int center = 0; center < BookingFixtures.CENTERS; center++) {
+			List<AvailibityEntity> entities = BookingFixtures.availability(BookingFixtures.centerId(center));
+			availabilityByCenter.add(entities);
+			slotsByDayByCenter.add(entities.stream().collect(Collectors.groupingBy(AvailibityEntity::getRegDate)));
+		}
+
+		requests = new BookingRequestDTO[1024];
+		dateMaps = new Map[requests.length];
+		for (int i = 0; i < requests.length; i++) {
+			requests[i] = BookingFixtures.bookingRequest(i % BookingFixtures.CENTERS, 1 + i % 28,
+					i % BookingFixtures.SLOTS_PER_DAY);
+			Map<String, String> dateMap = new HashMap<>();
+			dateMap.put(RequestCodes.REG_DATE.getCode(), requests[i].getRegDate());
+			dateMap.put(RequestCodes.FROM_SLOT_TIME.getCode(), requests[i].getSlotFromTime());
+			dateMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), BookingFixtures.preRegistrationId(i));
+			dateMaps[i] = dateMap;
+		}
+	}
+
+	private int nextIndex(int bound) {
+		next = next + 1 == Integer.MAX_VALUE ? 0 : next + 1;
+		return next % bound;
+	}
+
+	@Benchmark
+	public int getSlot() {
+		List<DateTimeDto> dateTimeList = new ArrayList<>();
+		return bookingService.getSlot(dateTimeList, 0, availabilityByCenter.get(nextIndex(BookingFixtures.CENTERS)));
+	}
+
+	@Benchmark
+	public void slotSetter(Blackhole blackhole) {
+		Map<LocalDate, List<AvailibityEntity>> slotsByDay = slotsByDayByCenter.get(nextIndex(BookingFixtures.CENTERS));
+		LocalDate date = BookingFixtures.FIRST_DAY.plusDays(next % BookingFixtures.DAYS);
+		List<DateTimeDto> dateTimeList = new ArrayList<>(1);
+		blackhole.consume(serviceUtil.slotSetter(date, dateTimeList, new DateTimeDto(), slotsByDay.get(date)));
+		blackhole.consume(dateTimeList);
+	}
+
+	@Benchmark
+	public AvailabilityDto slotCalendar() {
+		int center = nextIndex(BookingFixtures.CENTERS);
+		return SlotCalendar.of(BookingFixtures.centerId(center), BookingFixtures.FIRST_DAY,
+				BookingFixtures.FIRST_DAY.plusDays(BookingFixtures.DAYS - 1L), availabilityByCenter.get(center))
+				.toAvailability();
+	}
+
+	@Benchmark
+	public boolean validateAppointmentDate() {
+		return serviceUtil.validateAppointmentDate(dateMaps[nextIndex(dateMaps.length)]);
+	}
+
+	@Benchmark
+	public boolean mandatoryParameterCheck() {
+		int i = nextIndex(requests.length);
+		return serviceUtil.mandatoryParameterCheck(BookingFixtures.preRegistrationId(i), requests[i]);
+	}
+
+	@Benchmark
+	public RegistrationBookingEntity bookingEntitySetter() {
+		int i = nextIndex(requests.length);
+		return serviceUtil.bookingEntitySetter(BookingFixtures.preRegistrationId(i), requests[i]);
+	}
+}
@@ -0,0 +1,464 @@
+package io.mosip.preregistration.booking.load;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.mockito.Mockito;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.authentication.AnonymousAuthenticationFilter;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.mosip.kernel.core.authmanager.authadapter.model.AuthUserDetails;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.test.BookingApplicationTest;
+import io.mosip.preregistration.core.code.StatusCodes;
+import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
+
+/**
+ * Concurrent booking load and correctness harness. It starts the booking
+ * service on a random port against an in-memory H2 database, with
+ * {@link DownstreamStubs} in place of demographic, master data, audit and
+ * notification, and fires bookings at a few hot slots of one center in two
+ * waves:
+ * <ol>
+ * <li>rush - single ({@code POST /appointment/{preRegistrationId}}) and family
+ * ({@code POST /appointment}) bookings until well past the capacity of the hot
+ * slots;</li>
+ * <li>release spike - the bookings of half of the hot slots are cancelled
+ * ({@code PUT /appointment/{preRegistrationId}}) while a new burst of bookings
+ * competes for the released kiosks.</li>
+ * </ol>
+ * After every wave it prints throughput and latency percentiles per request
+ * kind and checks, for every hot slot, that {@code available_kiosks} is not
+ * negative and that the booked rows match both the consumed capacity and the
+ * bookings the service acknowledged. A sampler watches the hot slots for
+ * negative kiosk counts while the waves run. Any violation fails the run.
+ * <p>
+ * Run with {@code mvn -Pload-test -DskipTests verify}; the load is tuned with
+ * the {@code load.*} system properties read below.
+ */
+public final class BookingLoadHarness {
+
+	private static final String CENTER = "10001";
+
+	private static final String USER = "load-user";
+
+	private static final DateTimeFormatter REQUEST_TIME = DateTimeFormatter
+			.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'");
+
+	private final int requests = Integer.getInteger("load.requests", 2000);
+
+	private final int concurrency = Integer.getInteger("load.concurrency", 64);
+
+	private final int hotSlotCount = Integer.getInteger("load.hot-slots", 4);
+
+	private final int kiosks = Integer.getInteger("load.kiosks", 25);
+
+	private final int familyPercent = Integer.getInteger("load.family-percent", 10);
+
+	private final int daysAhead = Integer.getInteger("load.days-ahead", 5);
+
+	private final long stubLatencyMillis = Long.getLong("load.stub-latency-ms", 5L);
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	private final AtomicLong nextPreRegistrationId = new AtomicLong(70000000000000L);
+
+	private final List<HotSlot> hotSlots = new ArrayList<>();
+
+	private final List<String> violations = new ArrayList<>();
+
+	private DownstreamStubs stubs;
+
+	private BookingDAO bookingDAO;
+
+	private HttpClient client;
+
+	private String baseUrl;
+
+	private String bookingId;
+
+	private LocalDate date;
+
+	private ZoneId zone;
+
+	public static void main(String[] args) throws Exception {
+		int status;
+		try {
+			status = new BookingLoadHarness().run(args) ? 0 : 1;
+		} catch (Exception | AssertionError ex) {
+			ex.printStackTrace();
+			status = 2;
+		}
+		/* the HTTP client and the embedded server leave non-daemon threads behind */
+		System.exit(status);
+	}
+
+	/**
+	 * @param args extra Spring Boot arguments
+	 * @return true when every invariant held
+	 */
+	boolean run(String[] args) throws Exception {
+		ExecutorService clientExecutor = Executors.newFixedThreadPool(concurrency);
+		client = HttpClient.newBuilder().executor(clientExecutor).connectTimeout(Duration.ofSeconds(10)).build();
+		try (DownstreamStubs downstream = new DownstreamStubs(concurrency, stubLatencyMillis);
+				ConfigurableApplicationContext context = start(downstream, args)) {
+			stubs = downstream;
+			Environment env = context.getEnvironment();
+			baseUrl = "http://localhost:" + env.getProperty("local.server.port")
+					+ env.getProperty("server.servlet.context-path", "");
+			bookingId = env.getProperty("mosip.preregistration.booking.id.book", "mosip.pre-registration.booking.book");
+			zone = ZoneId.of(env.getProperty("mosip.notification.timezone", "UTC"));
+			date = LocalDate.now(zone).plusDays(daysAhead);
+			bookingDAO = context.getBean(BookingDAO.class);
+			seed(context.getBean(BookingAvailabilityRepository.class));
+
+			System.out.printf("Booking load: %d requests, %d clients, %d hot slots x %d kiosks on %s, "
+					+ "stub latency %d ms%n", requests, concurrency, hotSlotCount, kiosks, date, stubLatencyMillis);
+
+			AtomicInteger lowestKiosks = new AtomicInteger(Integer.MAX_VALUE);
+			ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+			sampler.scheduleWithFixedDelay(() -> sample(lowestKiosks), 0, 10, TimeUnit.MILLISECONDS);
+			try {
+				rush();
+				verify("rush");
+				releaseSpike();
+				verify("release spike");
+			} finally {
+				sampler.shutdown();
+				sampler.awaitTermination(5, TimeUnit.SECONDS);
+			}
+			if (lowestKiosks.get() < 0) {
+				violations.add("available_kiosks was sampled at " + lowestKiosks.get());
+			}
+			System.out.println("Lowest sampled available_kiosks: " + lowestKiosks.get());
+			System.out.println("Downstream calls: " + downstream.calls());
+		} finally {
+			clientExecutor.shutdownNow();
+		}
+		violations.forEach(violation -> System.out.println("VIOLATION: " + violation));
+		System.out.println(violations.isEmpty() ? "All booking invariants held" : violations.size() + " violations");
+		return violations.isEmpty();
+	}
+
+	private ConfigurableApplicationContext start(DownstreamStubs downstream, String[] args) {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("server.port", 0);
+		properties.put("javax.persistence.jdbc.url",
+				"jdbc:h2:mem:bookingload;DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS PREREG");
+		properties.put("demographic.resource.url", downstream.baseUrl() + DownstreamStubs.DEMOGRAPHIC);
+		properties.put("regCenter.url", downstream.baseUrl() + DownstreamStubs.REGISTRATION_CENTERS);
+		properties.put("holiday.url", downstream.baseUrl() + DownstreamStubs.HOLIDAYS + "/");
+		properties.put("audit.url", downstream.baseUrl() + DownstreamStubs.AUDIT);
+		properties.put("notification.url", downstream.baseUrl() + DownstreamStubs.NOTIFICATION);
+		properties.put("server.tomcat.max-threads", Math.max(200, concurrency * 2));
+		return new SpringApplicationBuilder(BookingApplicationTest.class, LoadSecurityConfig.class)
+				.properties(properties).run(args);
+	}
+
+	private void seed(BookingAvailabilityRepository repository) {
+		LocalTime from = LocalTime.of(9, 0);
+		for (int i = 0; i < hotSlotCount; i++) {
+			AvailibityEntity entity = new AvailibityEntity();
+			entity.setRegcntrId(CENTER);
+			entity.setRegDate(date);
+			entity.setFromTime(from);
+			entity.setToTime(from.plusMinutes(15));
+			entity.setAvailableKiosks(kiosks);
+			entity.setCrBy(USER);
+			entity.setCrDate(LocalDateTime.now(zone));
+			repository.save(entity);
+			hotSlots.add(new HotSlot(date, from, from.plusMinutes(15)));
+			from = from.plusMinutes(15);
+		}
+	}
+
+	private void rush() throws InterruptedException {
+		Map<String, LatencyRecorder> recorders = recorders();
+		List<Runnable> tasks = new ArrayList<>(requests);
+		for (int i = 0; i < requests; i++) {
+			tasks.add(bookingTask(recorders));
+		}
+		fire("rush", tasks, recorders);
+	}
+
+	private void releaseSpike() throws InterruptedException {
+		Map<String, LatencyRecorder> recorders = recorders();
+		List<Runnable> tasks = new ArrayList<>();
+		for (HotSlot slot : hotSlots.subList(0, (hotSlots.size() + 1) / 2)) {
+			for (String preRegistrationId : new ArrayList<>(slot.acknowledged)) {
+				tasks.add(() -> cancel(slot, preRegistrationId, recorders.get("cancel")));
+			}
+		}
+		for (int i = 0; i < requests / 2; i++) {
+			tasks.add(bookingTask(recorders));
+		}
+		/* interleave releases and bookings so that they contend */
+		Collections.shuffle(tasks);
+		fire("release spike", tasks, recorders);
+	}
+
+	private static Map<String, LatencyRecorder> recorders() {
+		Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+		for (String name : new String[] { "book", "family_book", "cancel" }) {
+			recorders.put(name, new LatencyRecorder(name));
+		}
+		return recorders;
+	}
+
+	private Runnable bookingTask(Map<String, LatencyRecorder> recorders) {
+		HotSlot slot = hotSlots.get(ThreadLocalRandom.current().nextInt(hotSlots.size()));
+		if (ThreadLocalRandom.current().nextInt(100) < familyPercent) {
+			int members = 2 + ThreadLocalRandom.current().nextInt(2);
+			return () -> bookFamily(slot, members, recorders.get("family_book"));
+		}
+		return () -> book(slot, recorders.get("book"));
+	}
+
+	/** Releases all tasks at once from a start gate and waits for them. */
+	private void fire(String wave, List<Runnable> tasks, Map<String, LatencyRecorder> recorders)
+			throws InterruptedException {
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		CountDownLatch gate = new CountDownLatch(1);
+		List<Future<?>> futures = new ArrayList<>(tasks.size());
+		for (Runnable task : tasks) {
+			futures.add(workers.submit(() -> {
+				gate.await();
+				task.run();
+				return null;
+			}));
+		}
+		long start = System.nanoTime();
+		gate.countDown();
+		for (Future<?> future : futures) {
+			try {
+				future.get();
+			} catch (Exception ex) {
+				violations.add(wave + ": request task failed - " + ex);
+			}
+		}
+		long wall = System.nanoTime() - start;
+		workers.shutdown();
+		System.out.printf("%n== %s: %d requests in %d ms%n", wave, tasks.size(), TimeUnit.NANOSECONDS.toMillis(wall));
+		recorders.values().forEach(recorder -> System.out.println(recorder.report(wall)));
+	}
+
+	private void book(HotSlot slot, LatencyRecorder recorder) {
+		String preRegistrationId = String.valueOf(nextPreRegistrationId.getAndIncrement());
+		String body = "{\"id\":\"" + bookingId + "\",\"version\":\"1.0\",\"requesttime\":\"" + requestTime()
+				+ "\",\"request\":" + slot.json(null) + "}";
+		if (LatencyRecorder.SUCCESS.equals(send(post("/appointment/" + preRegistrationId, body), recorder))) {
+			slot.acknowledged.add(preRegistrationId);
+			stubs.setStatus(preRegistrationId, StatusCodes.BOOKED);
+		}
+	}
+
+	private void bookFamily(HotSlot slot, int members, LatencyRecorder recorder) {
+		List<String> preRegistrationIds = new ArrayList<>(members);
+		for (int i = 0; i < members; i++) {
+			preRegistrationIds.add(String.valueOf(nextPreRegistrationId.getAndIncrement()));
+		}
+		String body = "{\"id\":\"" + bookingId + "\",\"version\":\"1.0\",\"requesttime\":\"" + requestTime()
+				+ "\",\"request\":{\"bookingRequest\":["
+				+ preRegistrationIds.stream().map(slot::json).collect(Collectors.joining(",")) + "]}}";
+		if (LatencyRecorder.SUCCESS.equals(send(post("/appointment", body), recorder))) {
+			for (String preRegistrationId : preRegistrationIds) {
+				slot.acknowledged.add(preRegistrationId);
+				stubs.setStatus(preRegistrationId, StatusCodes.BOOKED);
+			}
+		}
+	}
+
+	private void cancel(HotSlot slot, String preRegistrationId, LatencyRecorder recorder) {
+		HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/appointment/" + preRegistrationId))
+				.header("X-Load-User", USER).PUT(HttpRequest.BodyPublishers.noBody()).build();
+		if (LatencyRecorder.SUCCESS.equals(send(request, recorder))) {
+			slot.acknowledged.remove(preRegistrationId);
+			stubs.setStatus(preRegistrationId, StatusCodes.CANCELLED);
+		}
+	}
+
+	private HttpRequest post(String path, String body) {
+		return HttpRequest.newBuilder(URI.create(baseUrl + path)).header("Content-Type", "application/json")
+				.header("X-Load-User", USER).POST(HttpRequest.BodyPublishers.ofString(body)).build();
+	}
+
+	private static String requestTime() {
+		return REQUEST_TIME.format(Instant.now().atOffset(ZoneOffset.UTC));
+	}
+
+	/**
+	 * @return "success", the first error code of the response, or the HTTP status
+	 */
+	private String send(HttpRequest request, LatencyRecorder recorder) {
+		long start = System.nanoTime();
+		String outcome;
+		try {
+			HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+			outcome = outcome(response);
+		} catch (IOException ex) {
+			outcome = "io_error";
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			outcome = "interrupted";
+		}
+		recorder.record(System.nanoTime() - start, outcome);
+		return outcome;
+	}
+
+	private String outcome(HttpResponse<String> response) throws IOException {
+		if (response.statusCode() != 200) {
+			return "http_" + response.statusCode();
+		}
+		JsonNode body = mapper.readTree(response.body());
+		JsonNode errors = body.path("errors");
+		if (errors.isArray() && errors.size() > 0) {
+			return errors.get(0).path("errorCode").asText("unknown");
+		}
+		return body.path("response").isMissingNode() || body.path("response").isNull() ? "empty_response"
+				: LatencyRecorder.SUCCESS;
+	}
+
+	private void sample(AtomicInteger lowestKiosks) {
+		try {
+			for (HotSlot slot : hotSlots) {
+				int available = availableKiosks(slot);
+				lowestKiosks.accumulateAndGet(available, Math::min);
+			}
+		} catch (RuntimeException ex) {
+			/* the next sample retries */
+		}
+	}
+
+	private int availableKiosks(HotSlot slot) {
+		return bookingDAO.findByRegDateAndRegcntrIdAndFromTimeAndToTime(date, CENTER, slot.from, slot.to)
+				.getAvailableKiosks();
+	}
+
+	/**
+	 * Per hot slot: kiosks never negative, booked rows equal consumed capacity,
+	 * and the booked rows are exactly the acknowledged bookings.
+	 */
+	private void verify(String wave) {
+		Map<LocalTime, List<String>> rowsBySlot = bookingDAO.findAllPreIds(CENTER, date).stream()
+				.collect(Collectors.groupingBy(RegistrationBookingEntity::getSlotFromTime,
+						Collectors.mapping(RegistrationBookingEntity::getPreregistrationId, Collectors.toList())));
+		for (HotSlot slot : hotSlots) {
+			int available = availableKiosks(slot);
+			List<String> rows = rowsBySlot.getOrDefault(slot.from, new ArrayList<>());
+			int consumed = kiosks - available;
+			System.out.printf("%s slot %s: available %d, consumed %d, booked rows %d, acknowledged %d%n", wave,
+					slot.from, available, consumed, rows.size(), slot.acknowledged.size());
+			if (available < 0) {
+				violations.add(wave + ": slot " + slot.from + " has " + available + " available kiosks");
+			}
+			if (rows.size() != consumed) {
+				violations.add(wave + ": slot " + slot.from + " has " + rows.size() + " booked rows for " + consumed
+						+ " consumed kiosks");
+			}
+			if (rows.size() != slot.acknowledged.size() || !slot.acknowledged.containsAll(rows)) {
+				violations.add(wave + ": slot " + slot.from + " booked rows " + rows.size()
+						+ " differ from acknowledged bookings " + slot.acknowledged.size());
+			}
+		}
+	}
+
+	private static final class HotSlot {
+
+		private final LocalDate date;
+
+		private final LocalTime from;
+
+		private final LocalTime to;
+
+		private final Set<String> acknowledged = ConcurrentHashMap.newKeySet();
+
+		private HotSlot(LocalDate date, LocalTime from, LocalTime to) {
+			this.date = date;
+			this.from = from;
+			this.to = to;
+		}
+
+		private String json(String preRegistrationId) {
+			return "{" + (preRegistrationId == null ? "" : "\"preRegistrationId\":\"" + preRegistrationId + "\",")
+					+ "\"registration_center_id\":\"" + CENTER + "\",\"appointment_date\":\"" + date
+					+ "\",\"time_slot_from\":\"" + from + ":00\",\"time_slot_to\":\"" + to + ":00\"}";
+		}
+	}
+
+	/**
+	 * Lets every request through as the load test user, in place of the token
+	 * validation of the auth adapter.
+	 */
+	@Order(1)
+	static class LoadSecurityConfig extends WebSecurityConfigurerAdapter {
+
+		@Override
+		protected void configure(HttpSecurity http) throws Exception {
+			AuthUserDetails user = Mockito.mock(AuthUserDetails.class);
+			Mockito.when(user.getUserId()).thenReturn(USER);
+			Mockito.when(user.getUsername()).thenReturn(USER);
+			Authentication authentication = new UsernamePasswordAuthenticationToken(user, null,
+					AuthorityUtils.createAuthorityList("ROLE_INDIVIDUAL"));
+			http.csrf().disable().sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS).and()
+					.authorizeRequests().anyRequest().permitAll().and()
+					.addFilterBefore(new OncePerRequestFilter() {
+						@Override
+						protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+								FilterChain chain) throws ServletException, IOException {
+							SecurityContextHolder.getContext().setAuthentication(authentication);
+							chain.doFilter(request, response);
+						}
+					}, AnonymousAuthenticationFilter.class);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package io.mosip.preregistration.booking.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import io.mosip.preregistration.core.code.StatusCodes;
+
+/**
+ * Embedded HTTP stubs of the services the booking service calls: demographic
+ * application status, master data registration centers, audit and
+ * notification. Every stub answers after a fixed latency so that the booking
+ * service holds its threads and connections as it would against the real
+ * services.
+ * <p>
+ * Application statuses default to pending appointment; the harness moves an
+ * application to booked or cancelled once the booking service acknowledged the
+ * change, as demographic would.
+ */
+final class DownstreamStubs implements AutoCloseable {
+
+	static final String DEMOGRAPHIC = "/demographic";
+
+	static final String REGISTRATION_CENTERS = "/masterdata/registrationcenters";
+
+	static final String HOLIDAYS = "/masterdata/holidays";
+
+	static final String AUDIT = "/audit";
+
+	static final String NOTIFICATION = "/notification";
+
+	private final HttpServer server;
+
+	private final ExecutorService executor;
+
+	private final long latencyMillis;
+
+	private final Map<String, String> statuses = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> calls = new ConcurrentHashMap<>();
+
+	DownstreamStubs(int threads, long latencyMillis) throws IOException {
+		this.latencyMillis = latencyMillis;
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+		executor = Executors.newFixedThreadPool(threads);
+		server.setExecutor(executor);
+		server.createContext(DEMOGRAPHIC + "/applications/status/", stub("status", this::applicationStatus));
+		server.createContext(REGISTRATION_CENTERS + "/", stub("regcenter", DownstreamStubs::registrationCenter));
+		server.createContext(HOLIDAYS + "/", stub("holiday", path -> "{\"response\":{\"holidays\":[]},\"errors\":null}"));
+		server.createContext(AUDIT, stub("audit", path -> "{\"response\":{\"status\":true},\"errors\":null}"));
+		server.createContext(NOTIFICATION, stub("notification", path -> "{\"response\":{\"status\":\"success\"},\"errors\":null}"));
+		server.start();
+	}
+
+	String baseUrl() {
+		return "http://localhost:" + server.getAddress().getPort();
+	}
+
+	void setStatus(String preRegistrationId, StatusCodes status) {
+		statuses.put(preRegistrationId, status.getCode());
+	}
+
+	/**
+	 * @return calls per stub since start
+	 */
+	Map<String, AtomicLong> calls() {
+		return calls;
+	}
+
+	private String applicationStatus(String path) {
+		String preRegistrationId = path.substring(path.lastIndexOf('/') + 1);
+		String status = statuses.getOrDefault(preRegistrationId, StatusCodes.PENDING_APPOINTMENT.getCode());
+		return "{\"response\":\"" + status + "\",\"errors\":null}";
+	}
+
+	/** Answers {@code <regCenter.url>/<id>/all} with a center of that id. */
+	private static String registrationCenter(String path) {
+		String[] segments = path.split("/");
+		String regCenterId = segments[segments.length - 2];
+		return "{\"response\":{\"registrationCenters\":[{\"id\":\"" + regCenterId
+				+ "\",\"name\":\"Load test center\",\"langCode\":\"eng\",\"isActive\":true}]},\"errors\":null}";
+	}
+
+	private HttpHandler stub(String name, Responder responder) {
+		AtomicLong counter = calls.computeIfAbsent(name, key -> new AtomicLong());
+		return exchange -> {
+			try (HttpExchange ex = exchange; InputStream body = ex.getRequestBody()) {
+				counter.incrementAndGet();
+				body.readAllBytes();
+				if (latencyMillis > 0) {
+					Thread.sleep(latencyMillis);
+				}
+				byte[] response = responder.respond(ex.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
+				ex.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+				ex.sendResponseHeaders(200, response.length);
+				try (OutputStream out = ex.getResponseBody()) {
+					out.write(response);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		};
+	}
+
+	@Override
+	public void close() throws InterruptedException {
+		server.stop(0);
+		executor.shutdown();
+		executor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@FunctionalInterface
+	private interface Responder {
+		String respond(String path);
+	}
+}
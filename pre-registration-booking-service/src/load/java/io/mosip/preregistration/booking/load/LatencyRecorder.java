@@ -0,0 +1,64 @@
+package io.mosip.preregistration.booking.load;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response times and outcomes of one kind of request. Outcomes are the error
+ * code of the first error in the response, or "success".
+ */
+final class LatencyRecorder {
+
+	static final String SUCCESS = "success";
+
+	private final String name;
+
+	private long[] nanos = new long[1024];
+
+	private int count;
+
+	private final Map<String, Integer> outcomes = new TreeMap<>();
+
+	LatencyRecorder(String name) {
+		this.name = name;
+	}
+
+	synchronized void record(long elapsedNanos, String outcome) {
+		if (count == nanos.length) {
+			nanos = Arrays.copyOf(nanos, count * 2);
+		}
+		nanos[count++] = elapsedNanos;
+		outcomes.merge(outcome, 1, Integer::sum);
+	}
+
+	synchronized int count() {
+		return count;
+	}
+
+	synchronized int successes() {
+		return outcomes.getOrDefault(SUCCESS, 0);
+	}
+
+	/**
+	 * @param wallNanos wall clock time the requests were sent in
+	 * @return one report line with throughput, latency percentiles and outcomes
+	 */
+	synchronized String report(long wallNanos) {
+		if (count == 0) {
+			return String.format("%-12s no requests", name);
+		}
+		long[] sorted = Arrays.copyOf(nanos, count);
+		Arrays.sort(sorted);
+		double throughput = count / (wallNanos / (double) TimeUnit.SECONDS.toNanos(1));
+		return String.format("%-12s n=%-6d %8.1f req/s  p50=%7.2f p90=%7.2f p99=%7.2f p99.9=%7.2f max=%7.2f ms  %s",
+				name, count, throughput, millis(sorted, 0.50), millis(sorted, 0.90), millis(sorted, 0.99),
+				millis(sorted, 0.999), sorted[count - 1] / 1e6, outcomes);
+	}
+
+	private static double millis(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, index)] / 1e6;
+	}
+}
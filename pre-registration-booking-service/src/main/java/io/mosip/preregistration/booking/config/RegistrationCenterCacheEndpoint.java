@@ -0,0 +1,53 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.config;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import io.mosip.preregistration.booking.service.util.RegistrationCenterCache;
+
+/**
+ * Actuator endpoint to inspect and evict the cached registration center master
+ * data, e.g. after a center has been edited in master data.
+ *
+ * <pre>
+ * GET    /actuator/regcentercache
+ * DELETE /actuator/regcentercache
+ * DELETE /actuator/regcentercache/{registrationCenterId}
+ * </pre>
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+@Endpoint(id = "regcentercache")
+public class RegistrationCenterCacheEndpoint {
+
+	@Autowired
+	private RegistrationCenterCache registrationCenterCache;
+
+	@ReadOperation
+	public Map<String, Object> stats() {
+		return registrationCenterCache.stats();
+	}
+
+	@DeleteOperation
+	public void evictAll() {
+		registrationCenterCache.evictAll();
+	}
+
+	@DeleteOperation
+	public boolean evict(@Selector String registrationCenterId) {
+		return registrationCenterCache.evict(registrationCenterId);
+	}
+
+}
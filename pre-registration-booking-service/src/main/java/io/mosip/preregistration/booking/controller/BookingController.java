@@ -4,8 +4,12 @@
  */
 package io.mosip.preregistration.booking.controller;
 
+import java.util.List;
+
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -20,19 +24,27 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.mosip.kernel.core.exception.ParseException;
 import io.mosip.kernel.core.logger.spi.Logger;
 import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.AvailabilitySearchRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingDataByRegIdDto;
 import io.mosip.preregistration.booking.dto.BookingRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingStatus;
 import io.mosip.preregistration.booking.dto.BookingStatusDTO;
+import io.mosip.preregistration.booking.dto.FreeSlotDTO;
 import io.mosip.preregistration.booking.dto.MultiBookingRequest;
+import io.mosip.preregistration.booking.dto.SlotHoldDTO;
 import io.mosip.preregistration.booking.service.BookingServiceIntf;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache.AvailabilityPayload;
+import io.mosip.preregistration.booking.service.util.BookedAppointmentExporter;
 import io.mosip.preregistration.core.common.dto.BookingRegistrationDTO;
 import io.mosip.preregistration.core.common.dto.CancelBookingResponseDTO;
 import io.mosip.preregistration.core.common.dto.DeleteBookingDTO;
@@ -91,7 +103,9 @@ public class BookingController {
 
 
 	/**
-	 * Get API to get availability details.
+	 * Get API to get availability details. The response is served from the
+	 * serialized payload cache, gzip compressed when the client accepts it, and
+	 * is answered with 304 when If-None-Match holds its current ETag.
 	 * 
 	 * @param registration_center_id
 	 * @return MainResponseDTO
@@ -101,15 +115,125 @@ public class BookingController {
 	@GetMapping(path = "/appointment/availability/{registrationCenterId}", produces = MediaType.APPLICATION_JSON_VALUE)
 	@Operation(summary = "Fetch availability Data", description = "Fetch availability Data", tags = "booking-controller")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Availability details fetched successfully"),
+			@ApiResponse(responseCode = "304", description = "Availability not modified since the given ETag", content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
 			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
-	public ResponseEntity<MainResponseDTO<AvailabilityDto>> getAvailability(
-			@PathVariable("registrationCenterId") String registrationCenterId) {
+	public ResponseEntity<byte[]> getAvailability(
+			@PathVariable("registrationCenterId") String registrationCenterId,
+			@RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
 		log.info("sessionId", "idType", "id",
 				"In getAvailability method of Booking controller to fetch the availability for regID: "
 						+ registrationCenterId);
-		return ResponseEntity.status(HttpStatus.OK).body(bookingService.getAvailability(registrationCenterId));
+		AvailabilityPayload payload = bookingService.getAvailabilityPayload(registrationCenterId);
+		if (payload.getEtag() == null) {
+			return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.APPLICATION_JSON_UTF8)
+					.body(payload.getBody());
+		}
+		if (payload.matches(ifNoneMatch)) {
+			return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(payload.getEtag())
+					.cacheControl(CacheControl.noCache()).build();
+		}
+		ResponseEntity.BodyBuilder response = ResponseEntity.status(HttpStatus.OK)
+				.contentType(MediaType.APPLICATION_JSON_UTF8).eTag(payload.getEtag())
+				.cacheControl(CacheControl.noCache()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (acceptsGzip(acceptEncoding)) {
+			return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzipped());
+		}
+		return response.body(payload.getBody());
+	}
+
+	private static boolean acceptsGzip(String acceptEncoding) {
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String coding : acceptEncoding.split(",")) {
+			String[] parts = coding.trim().split(";");
+			if (parts[0].trim().equalsIgnoreCase("gzip")) {
+				return parts.length == 1 || !parts[1].trim().matches("q\\s*=\\s*0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get API to stream the slot changes of a registration center as
+	 * server-sent events. Every {@code slot} event carries the remaining kiosks
+	 * of a changed slot; a {@code resync} event asks the client to fetch the
+	 * availability again.
+	 * 
+	 * @param registration_center_id
+	 * @return SseEmitter
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getGetappointmentavailability())")
+	@GetMapping(path = "/appointment/availability/{registrationCenterId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	@Operation(summary = "Stream availability changes", description = "Stream availability changes", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Availability stream opened"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "503", description = "No more streams can be opened", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<SseEmitter> getAvailabilityStream(
+			@PathVariable("registrationCenterId") String registrationCenterId) {
+		log.info("sessionId", "idType", "id",
+				"In getAvailabilityStream method of Booking controller to stream the availability for regID: "
+						+ registrationCenterId);
+		SseEmitter emitter = bookingService.getAvailabilityStream(registrationCenterId);
+		if (emitter == null) {
+			return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+		}
+		/* keeps reverse proxies from buffering the events */
+		return ResponseEntity.ok().cacheControl(CacheControl.noStore()).header("X-Accel-Buffering", "no")
+				.body(emitter);
+	}
+
+	/**
+	 * Post API to fetch the availability of several registration centers at
+	 * once, for comparing nearby centers.
+	 * 
+	 * @param MainRequestDTO
+	 * @return MainResponseDTO
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getGetappointmentavailability())")
+	@PostMapping(path = "/appointment/availability/search", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Search availability of several centers", description = "Search availability of several centers", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Availability details fetched successfully"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<MainResponseDTO<List<AvailabilityDto>>> searchAvailability(
+			@Validated @RequestBody(required = true) MainRequestDTO<AvailabilitySearchRequestDTO> searchRequest,
+			@ApiIgnore Errors errors) {
+		log.info("sessionId", "idType", "id",
+				"In searchAvailability method of Booking controller for object: " + searchRequest);
+		requestValidator.validateId(BOOKING, searchRequest.getId(), errors);
+		DataValidationUtil.validate(errors, BOOKING);
+		return ResponseEntity.status(HttpStatus.OK).body(bookingService.searchAvailability(searchRequest));
+	}
+
+	/**
+	 * Get API to find the earliest slots with a free kiosk of one registration
+	 * center, or over a list of nearby centers.
+	 * 
+	 * @param registrationCenterIds
+	 * @param count
+	 * @return MainResponseDTO
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getGetappointmentavailability())")
+	@GetMapping(path = "/appointment/availability/earliest", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Fetch earliest free slots", description = "Fetch earliest free slots", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Earliest free slots fetched successfully"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<MainResponseDTO<List<FreeSlotDTO>>> getEarliestFreeSlots(
+			@RequestParam(value = "registrationCenterId", required = true) List<String> registrationCenterIds,
+			@RequestParam(value = "count", required = false) Integer count) {
+		log.info("sessionId", "idType", "id",
+				"In getEarliestFreeSlots method of Booking controller for regIDs: " + registrationCenterIds);
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(bookingService.getEarliestFreeSlots(registrationCenterIds, count));
 	}
 
 	/**
@@ -165,6 +289,45 @@ public class BookingController {
 		return ResponseEntity.status(HttpStatus.OK).body(bookingService.bookMultiAppointment(bookingRequest));
 	}
 
+	/**
+	 * Post API to hold a slot for a short time before booking it.
+	 * 
+	 * @param MainRequestDTO
+	 * @return MainResponseDTO
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getPostappointmentpreregistrationid())")
+	@PostMapping(path = "/appointment/hold", produces = MediaType.APPLICATION_JSON_VALUE, consumes = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Hold a slot", description = "Hold a slot", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Slot held successfully"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<MainResponseDTO<SlotHoldDTO>> holdSlot(
+			@Validated @RequestBody(required = true) MainRequestDTO<BookingRequestDTO> holdDTO, @ApiIgnore Errors errors) {
+		log.info("sessionId", "idType", "id", "In holdSlot method of Booking controller to hold a slot for object: " + holdDTO);
+		requestValidator.validateId(BOOKING, holdDTO.getId(), errors);
+		DataValidationUtil.validate(errors, BOOKING);
+		return ResponseEntity.status(HttpStatus.OK).body(bookingService.holdSlot(holdDTO));
+	}
+
+	/**
+	 * Delete API to give a held slot back before the hold expires.
+	 * 
+	 * @param holdToken
+	 * @return MainResponseDTO
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getPostappointmentpreregistrationid())")
+	@DeleteMapping(path = "/appointment/hold/{holdToken}", produces = MediaType.APPLICATION_JSON_VALUE)
+	@Operation(summary = "Release a slot hold", description = "Release a slot hold", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Slot hold released successfully"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<MainResponseDTO<SlotHoldDTO>> releaseSlotHold(@PathVariable("holdToken") String holdToken) {
+		log.info("sessionId", "idType", "id", "In releaseSlotHold method of Booking controller for hold: " + holdToken);
+		return ResponseEntity.status(HttpStatus.OK).body(bookingService.releaseSlotHold(holdToken));
+	}
+
 	/**
 	 * Get API to get the booked appointment details.
 	 * 
@@ -321,4 +484,39 @@ public class BookingController {
 		return ResponseEntity.status(HttpStatus.OK)
 				.body(bookingService.getBookedPreRegistrations(fromDate, toDate, regCenterId));
 	}
+
+	/**
+	 * Get API to stream all the booked appointments of a registration center
+	 * within from-date and to-date range, one JSON document per line. A broken
+	 * export resumes after the last line read by passing its date, slot from
+	 * time and pre-registration id.
+	 *
+	 * @param fromDate
+	 *            the from date
+	 * @param toDate
+	 *            the to date
+	 * @return the booked appointments for date range
+	 */
+	@PreAuthorize("hasAnyRole(@authorizedRoles.getGetappointmentregistrationcenterid())")
+	@GetMapping(path = "/appointment/registrationCenterId/{registrationCenterId}/export", produces = BookedAppointmentExporter.NDJSON)
+	@Operation(summary = "Export booked appointments of a registration center",
+			description = "Export booked appointments of a registration center", tags = "booking-controller")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Booked appointments streamed"),
+			@ApiResponse(responseCode = "401", description = "Unauthorized", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "403", description = "Forbidden", content = @Content(schema = @Schema(hidden = true))),
+			@ApiResponse(responseCode = "404", description = "Not Found", content = @Content(schema = @Schema(hidden = true))) })
+	public ResponseEntity<StreamingResponseBody> exportBookedAppointments(
+			@RequestParam(value = "from_date", required = true) @DateTimeFormat(pattern = "yyyy-MM-dd") String fromDate,
+			@RequestParam(value = "to_date", required = false) @DateTimeFormat(pattern = "yyyy-MM-dd") String toDate,
+			@RequestParam(value = "after_date", required = false) String afterDate,
+			@RequestParam(value = "after_time", required = false) String afterTime,
+			@RequestParam(value = "after_id", required = false) String afterId,
+			@RequestParam(value = "limit", required = false) Long limit,
+			@PathVariable("registrationCenterId") String regCenterId) {
+		log.info("sessionId", "idType", "id",
+				"In booking controller for exporting booked appointments " + fromDate + " to " + toDate);
+		return ResponseEntity.status(HttpStatus.OK).contentType(MediaType.parseMediaType(BookedAppointmentExporter.NDJSON))
+				.body(bookingService.exportBookedAppointments(fromDate, toDate, regCenterId, afterDate, afterTime,
+						afterId, limit));
+	}
 }
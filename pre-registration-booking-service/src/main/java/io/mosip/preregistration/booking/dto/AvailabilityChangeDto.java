@@ -0,0 +1,56 @@
+package io.mosip.preregistration.booking.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Remaining kiosks of one slot, sent on the availability stream whenever the
+ * slot changes.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AvailabilityChangeDto implements Serializable {
+
+	private static final long serialVersionUID = -2715062330516408431L;
+
+	/**
+	 * registration Center Id
+	 */
+	@JsonProperty("registration_center_id")
+	private String registrationCenterId;
+
+	/**
+	 * slot Date
+	 */
+	@JsonProperty("appointment_date")
+	private String regDate;
+
+	/**
+	 * from Time of the Slot
+	 */
+	@JsonProperty("time_slot_from")
+	private String slotFromTime;
+
+	/**
+	 * to Time of the Slot
+	 */
+	@JsonProperty("time_slot_to")
+	private String slotToTime;
+
+	/**
+	 * remaining kiosks
+	 */
+	@JsonProperty("availability")
+	private int availability;
+}
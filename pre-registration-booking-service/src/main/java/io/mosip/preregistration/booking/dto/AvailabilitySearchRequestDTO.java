@@ -0,0 +1,50 @@
+package io.mosip.preregistration.booking.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * Registration centers and days of a multi-center availability search. Without
+ * dates every center is searched over the same window as the availability
+ * API.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class AvailabilitySearchRequestDTO implements Serializable {
+
+	private static final long serialVersionUID = 8841650926131548706L;
+
+	/**
+	 * registration Center Ids
+	 */
+	@JsonProperty("registration_center_ids")
+	@ApiModelProperty(value = "Registration Center IDs", position = 1)
+	private List<String> registrationCenterIds;
+
+	/**
+	 * first Date of the search
+	 */
+	@JsonProperty("from_date")
+	@ApiModelProperty(value = "From Date", position = 2)
+	private String fromDate;
+
+	/**
+	 * last Date of the search
+	 */
+	@JsonProperty("to_date")
+	@ApiModelProperty(value = "To Date", position = 3)
+	private String toDate;
+}
@@ -0,0 +1,69 @@
+package io.mosip.preregistration.booking.dto;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * One booked appointment of a registration center, written per line by the
+ * booked appointment export. The last line read is the keyset to resume the
+ * export after.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class BookedAppointmentDto implements Serializable {
+
+	private static final long serialVersionUID = 3902174786235018865L;
+
+	/**
+	 * pre-registration Id
+	 */
+	@JsonProperty("pre_registration_id")
+	private String preRegistrationId;
+
+	/**
+	 * appointment Date
+	 */
+	@JsonProperty("appointment_date")
+	private String regDate;
+
+	/**
+	 * from Time of the Slot
+	 */
+	@JsonProperty("time_slot_from")
+	private String slotFromTime;
+
+	/**
+	 * to Time of the Slot
+	 */
+	@JsonProperty("time_slot_to")
+	private String slotToTime;
+
+	/**
+	 * Used by the export query to build one line per row.
+	 * 
+	 * @param preRegistrationId
+	 * @param regDate
+	 * @param slotFromTime
+	 * @param slotToTime
+	 */
+	public BookedAppointmentDto(String preRegistrationId, LocalDate regDate, LocalTime slotFromTime,
+			LocalTime slotToTime) {
+		this.preRegistrationId = preRegistrationId;
+		this.regDate = regDate.toString();
+		this.slotFromTime = slotFromTime.toString();
+		this.slotToTime = slotToTime.toString();
+	}
+}
@@ -0,0 +1,61 @@
+package io.mosip.preregistration.booking.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A slot with a free kiosk, as returned by the earliest free slots search.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class FreeSlotDTO implements Serializable {
+
+	private static final long serialVersionUID = -6271734470918360451L;
+
+	/**
+	 * registration Center Id
+	 */
+	@JsonProperty("registration_center_id")
+	@ApiModelProperty(value = "Registration Center ID", position = 1)
+	private String registrationCenterId;
+
+	/**
+	 * appointment Date
+	 */
+	@JsonProperty("appointment_date")
+	@ApiModelProperty(value = "Appointment Date", position = 2)
+	private String regDate;
+
+	/**
+	 * from Time of the Slot
+	 */
+	@JsonProperty("time_slot_from")
+	@ApiModelProperty(value = "Time Slot From", position = 3)
+	private String slotFromTime;
+
+	/**
+	 * to Time of the Slot
+	 */
+	@JsonProperty("time_slot_to")
+	@ApiModelProperty(value = "Time Slot To", position = 4)
+	private String slotToTime;
+
+	/**
+	 * free kiosks of the Slot
+	 */
+	@JsonProperty("availability")
+	@ApiModelProperty(value = "Free Kiosks", position = 5)
+	private int availability;
+}
@@ -51,5 +51,11 @@ public class MultiBookingRequestDTO implements Serializable{
 	@JsonProperty("time_slot_to")
 	@ApiModelProperty(value = "To Time Slot", position = 4)
 	private String slotToTime;
+	/**
+	 * token of a hold on the slot, optional
+	 */
+	@JsonProperty("hold_token")
+	@ApiModelProperty(value = "Slot Hold Token", position = 5)
+	private String holdToken;
 
 }
\ No newline at end of file
@@ -0,0 +1,69 @@
+package io.mosip.preregistration.booking.dto;
+
+import java.io.Serializable;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import io.swagger.annotations.ApiModelProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * A kiosk held for the user until the hold expires; the hold token is passed
+ * in the booking request to book the held kiosk.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SlotHoldDTO implements Serializable {
+
+	private static final long serialVersionUID = 5217305561874962310L;
+
+	/**
+	 * hold Token
+	 */
+	@JsonProperty("hold_token")
+	@ApiModelProperty(value = "Hold Token", position = 1)
+	private String holdToken;
+
+	/**
+	 * registration Center Id
+	 */
+	@JsonProperty("registration_center_id")
+	@ApiModelProperty(value = "Registration Center ID", position = 2)
+	private String registrationCenterId;
+
+	/**
+	 * held Date
+	 */
+	@JsonProperty("appointment_date")
+	@ApiModelProperty(value = "Appointment Date", position = 3)
+	private String regDate;
+
+	/**
+	 * held from Time Slot
+	 */
+	@JsonProperty("time_slot_from")
+	@ApiModelProperty(value = "From Time Slot", position = 4)
+	private String slotFromTime;
+
+	/**
+	 * held to Time Slot
+	 */
+	@JsonProperty("time_slot_to")
+	@ApiModelProperty(value = "To Time Slot", position = 5)
+	private String slotToTime;
+
+	/**
+	 * expiry Date Time of the hold
+	 */
+	@JsonProperty("expires_at")
+	@ApiModelProperty(value = "Hold Expiry Date Time", position = 6)
+	private String expiresAt;
+}
@@ -44,7 +44,7 @@ import lombok.ToString;
 @ToString
 @IdClass(AvailabilityPK.class)
 @NamedQuery(name = "AvailibityEntity.findDate", query = "SELECT DISTINCT regDate FROM AvailibityEntity where regcntrId=:regcntrId and regDate>=:fromDate and regDate<=:toDate order by regDate ASC")
-public class AvailibityEntity implements Serializable {
+public class AvailibityEntity implements Serializable, SlotAvailabilityView {
 	
 	/** The Constant serialVersionUID. */
 	private static final long serialVersionUID = 1L;
@@ -0,0 +1,38 @@
+/* 
+ * Copyright
+ * 
+ */
+package io.mosip.preregistration.booking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Read-only view of the slot an application is booked on. Queries returning it
+ * select only these columns and leave nothing in the persistence context.
+ * 
+ * @since 1.2.0
+ *
+ */
+public interface BookedSlotView {
+
+	/**
+	 * @return pre-registration id
+	 */
+	String getPreregistrationId();
+
+	/**
+	 * @return appointment date
+	 */
+	LocalDate getRegDate();
+
+	/**
+	 * @return slot from time
+	 */
+	LocalTime getSlotFromTime();
+
+	/**
+	 * @return slot to time
+	 */
+	LocalTime getSlotToTime();
+}
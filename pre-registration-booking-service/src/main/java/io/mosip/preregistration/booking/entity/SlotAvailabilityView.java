@@ -0,0 +1,39 @@
+/* 
+ * Copyright
+ * 
+ */
+package io.mosip.preregistration.booking.entity;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * Read-only view of the columns of a slot the availability is computed from.
+ * Queries returning it select only these columns and leave nothing in the
+ * persistence context.
+ * 
+ * @since 1.2.0
+ *
+ */
+public interface SlotAvailabilityView {
+
+	/**
+	 * @return slot date
+	 */
+	LocalDate getRegDate();
+
+	/**
+	 * @return slot from time
+	 */
+	LocalTime getFromTime();
+
+	/**
+	 * @return slot to time
+	 */
+	LocalTime getToTime();
+
+	/**
+	 * @return kiosks left
+	 */
+	int getAvailableKiosks();
+}
@@ -0,0 +1,75 @@
+/* 
+ * Copyright
+ * 
+ */
+package io.mosip.preregistration.booking.entity;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+/**
+ * This entity class defines a temporary hold on one kiosk of a slot. The kiosk
+ * is taken from reg_available_slot when the hold is created; the row is
+ * deleted either by the booking confirming the hold or by the sweeper giving
+ * the kiosk back once the hold expired.
+ * 
+ * @since 1.2.0
+ *
+ */
+@Entity
+@Table(name = "reg_slot_hold", schema = "prereg")
+@Getter
+@Setter
+@NoArgsConstructor
+@ToString
+public class SlotHoldEntity implements Serializable {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = 4620213452207624383L;
+
+	/** Hold token. */
+	@Id
+	@Column(name = "hold_id")
+	private String holdId;
+
+	/** Registration center Id. */
+	@Column(name = "regcntr_id")
+	private String regcntrId;
+
+	/** Slot date. */
+	@Column(name = "availability_date")
+	private LocalDate regDate;
+
+	/** Slot from time. */
+	@Column(name = "slot_from_time")
+	private LocalTime fromTime;
+
+	/** Slot to time. */
+	@Column(name = "slot_to_time")
+	private LocalTime toTime;
+
+	/** User holding the kiosk. */
+	@Column(name = "user_id")
+	private String userId;
+
+	/** Created date time. */
+	@Column(name = "cr_dtimes")
+	private LocalDateTime crDate;
+
+	/** Expiry date time. */
+	@Column(name = "expires_dtimes")
+	private LocalDateTime expiresDate;
+
+}
@@ -50,7 +50,13 @@ public enum ErrorCodes {
 	PRG_BOOK_RCI_033("PRG_BOOK_RCI_033"),// notification failed exception
 	PRG_BOOK_RCI_034("PRG_BOOK_RCI_034"),
 	PRG_BOOK_RCI_035("PRG_BOOK_RCI_035"),// reg center id not found
-	PRG_BOOK_RCI_036("PRG_BOOK_RCI_036"); //Appointmnet cannot be booked for incomplete application
+	PRG_BOOK_RCI_036("PRG_BOOK_RCI_036"), //Appointmnet cannot be booked for incomplete application
+	PRG_BOOK_RCI_037("PRG_BOOK_RCI_037"), // TOO_MANY_SLOT_HOLDS
+	PRG_BOOK_RCI_038("PRG_BOOK_RCI_038"), // SLOT_HOLD_NOT_FOUND
+	PRG_BOOK_RCI_039("PRG_BOOK_RCI_039"), // INVALID_EXPORT_CURSOR
+	PRG_BOOK_RCI_040("PRG_BOOK_RCI_040"), // INVALID_FREE_SLOT_SEARCH
+	PRG_BOOK_RCI_041("PRG_BOOK_RCI_041"), // INVALID_AVAILABILITY_SEARCH
+	PRG_BOOK_RCI_042("PRG_BOOK_RCI_042"); // SLOT_BUSY
 	
 
 	/**
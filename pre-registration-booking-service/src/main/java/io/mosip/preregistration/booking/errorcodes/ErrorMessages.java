@@ -179,7 +179,21 @@ public enum ErrorMessages {
 	
 	APPOINTMENT_CANNOT_BE_BOOKED_FOR_PREFETCHED_APPLICATION("Appointment cannot be booked for prefetched application"),
 
-	CANCEL_BOOKING_CANNOT_BE_DONE("Appointment cancelling cannot be done within");
+	CANCEL_BOOKING_CANNOT_BE_DONE("Appointment cancelling cannot be done within"),
+
+	HOLD_TABLE_NOT_ACCESSIBLE("Slot hold table not accessible"),
+
+	TOO_MANY_SLOT_HOLDS("Maximum number of slots held by the user reached"),
+
+	SLOT_HOLD_NOT_FOUND("Slot hold not found or expired"),
+
+	INVALID_EXPORT_CURSOR("after_date, after_time and after_id must be given together, as yyyy-MM-dd and HH:mm"),
+
+	INVALID_FREE_SLOT_SEARCH("Too many registration centers or slots requested in the free slot search"),
+
+	INVALID_AVAILABILITY_SEARCH("Too many registration centers or days requested in the availability search"),
+
+	SLOT_BUSY("Selected slot is being booked by other requests, please try again");
 	/**
 	 * @param code
 	 */
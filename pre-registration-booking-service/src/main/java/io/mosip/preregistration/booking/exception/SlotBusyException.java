@@ -0,0 +1,48 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.exception;
+
+import io.mosip.kernel.core.exception.BaseUncheckedException;
+import io.mosip.preregistration.core.common.dto.MainResponseDTO;
+import lombok.Getter;
+
+/**
+ * This class defines the SlotBusyException, thrown when the lock of a slot
+ * could not be taken in time because other bookings of it were in progress.
+ * The slot may still be free, so the request can be retried.
+ *
+ * @since 1.2.0
+ *
+ */
+@Getter
+public class SlotBusyException extends BaseUncheckedException {
+
+	/** The Constant serialVersionUID. */
+	private static final long serialVersionUID = -6284513017764539218L;
+
+	private MainResponseDTO<?> mainResponseDTO;
+
+	/**
+	 * @param errorCode    pass the error code
+	 * @param errorMessage pass the error message
+	 */
+	public SlotBusyException(String errorCode, String errorMessage) {
+		super(errorCode, errorMessage, null);
+	}
+
+	public SlotBusyException(String errorCode, String errorMessage, MainResponseDTO<?> response) {
+		super(errorCode, errorMessage, null);
+		this.mainResponseDTO = response;
+	}
+
+	/**
+	 * @param errorCode    pass the error code
+	 * @param errorMessage pass the error message
+	 * @param rootCause    pass the cause
+	 */
+	public SlotBusyException(String errorCode, String errorMessage, Throwable rootCause) {
+		super(errorCode, errorMessage, rootCause);
+	}
+}
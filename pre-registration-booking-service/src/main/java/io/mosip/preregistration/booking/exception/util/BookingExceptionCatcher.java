@@ -35,6 +35,7 @@ import io.mosip.preregistration.booking.exception.InvalidDateTimeFormatException
 import io.mosip.preregistration.booking.exception.JsonException;
 import io.mosip.preregistration.booking.exception.OperationNotAllowedException;
 import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.exception.SlotBusyException;
 import io.mosip.preregistration.booking.exception.TimeSpanException;
 import io.mosip.preregistration.core.common.dto.MainResponseDTO;
 import io.mosip.preregistration.core.exception.AppointmentBookException;
@@ -119,6 +120,9 @@ public class BookingExceptionCatcher {
 		} else if (ex instanceof CancelAppointmentFailedException) {
 			throw new CancelAppointmentFailedException(((CancelAppointmentFailedException) ex).getErrorCode(),
 					((CancelAppointmentFailedException) ex).getErrorText(), mainResponseDTO);
+		} else if (ex instanceof SlotBusyException) {
+			throw new SlotBusyException(((SlotBusyException) ex).getErrorCode(),
+					((SlotBusyException) ex).getErrorText(), mainResponseDTO);
 		} else if (ex instanceof AvailablityNotFoundException) {
 			throw new AvailablityNotFoundException(((AvailablityNotFoundException) ex).getErrorCode(),
 					((AvailablityNotFoundException) ex).getErrorText(), mainResponseDTO);
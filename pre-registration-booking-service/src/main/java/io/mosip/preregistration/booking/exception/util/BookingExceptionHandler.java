@@ -58,6 +58,7 @@ import io.mosip.preregistration.booking.exception.InvalidDateTimeFormatException
 import io.mosip.preregistration.booking.exception.JsonException;
 import io.mosip.preregistration.booking.exception.OperationNotAllowedException;
 import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.exception.SlotBusyException;
 import io.mosip.preregistration.booking.exception.TimeSpanException;
 import io.mosip.preregistration.core.common.dto.ExceptionJSONInfoDTO;
 import io.mosip.preregistration.core.common.dto.MainResponseDTO;
@@ -366,6 +367,12 @@ public class BookingExceptionHandler {
 
 	}
 
+	@ExceptionHandler(SlotBusyException.class)
+	public ResponseEntity<MainResponseDTO<?>> slotBusyException(final SlotBusyException e) {
+		return GenericUtil.errorResponse(e, e.getMainResponseDTO());
+
+	}
+
 	@ExceptionHandler(JsonException.class)
 	public ResponseEntity<MainResponseDTO<?>> jsonException(final JsonException e) {
 		return GenericUtil.errorResponse(e, e.getMainResponseDTO());
@@ -10,14 +10,18 @@ import java.util.List;
 
 import javax.transaction.Transactional;
 import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import io.mosip.kernel.core.dataaccess.spi.repository.BaseRepository;
 import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
 
 /**
  * This repository interface is used to define the JPA methods for Booking application.
@@ -89,6 +93,81 @@ public interface BookingAvailabilityRepository extends BaseRepository<Availibity
 			@Param("slot_from_time") LocalTime slotFromTime, @Param("slot_to_time") LocalTime slotToTime );
 	
 
+	/**
+	 * Takes one kiosk from the slot if any is left, in a single guarded update.
+	 * 
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return number of updated rows, 0 when the slot is full or does not exist
+	 */
+	@Modifying
+	@Query("UPDATE AvailibityEntity e SET e.availableKiosks = e.availableKiosks - 1 WHERE e.regDate = ?1 and e.regcntrId = ?2 and e.fromTime = ?3 and e.toTime = ?4 and e.availableKiosks > 0")
+	public int decrementAvailableKiosks(LocalDate regDate, String regcntrId, LocalTime slotFromTime,
+			LocalTime slotToTime);
+
+	/**
+	 * Gives one kiosk back to the slot in a single update.
+	 * 
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return number of updated rows, 0 when the slot does not exist
+	 */
+	@Modifying
+	@Query("UPDATE AvailibityEntity e SET e.availableKiosks = e.availableKiosks + 1 WHERE e.regDate = ?1 and e.regcntrId = ?2 and e.fromTime = ?3 and e.toTime = ?4")
+	public int incrementAvailableKiosks(LocalDate regDate, String regcntrId, LocalTime slotFromTime,
+			LocalTime slotToTime);
+
+	/**
+	 * Takes several kiosks from the slot if enough are left, in a single guarded
+	 * update.
+	 * 
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param kiosks
+	 * @return number of updated rows, 0 when fewer kiosks are left or the slot
+	 *         does not exist
+	 */
+	@Modifying
+	@Query("UPDATE AvailibityEntity e SET e.availableKiosks = e.availableKiosks - ?5 WHERE e.regDate = ?1 and e.regcntrId = ?2 and e.fromTime = ?3 and e.toTime = ?4 and e.availableKiosks >= ?5")
+	public int decrementAvailableKiosksBy(LocalDate regDate, String regcntrId, LocalTime slotFromTime,
+			LocalTime slotToTime, int kiosks);
+
+	/**
+	 * Gives several kiosks back to the slot in a single update.
+	 * 
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param kiosks
+	 * @return number of updated rows, 0 when the slot does not exist
+	 */
+	@Modifying
+	@Query("UPDATE AvailibityEntity e SET e.availableKiosks = e.availableKiosks + ?5 WHERE e.regDate = ?1 and e.regcntrId = ?2 and e.fromTime = ?3 and e.toTime = ?4")
+	public int incrementAvailableKiosksBy(LocalDate regDate, String regcntrId, LocalTime slotFromTime,
+			LocalTime slotToTime, int kiosks);
+
+	/**
+	 * Sets the kiosks left of the slot to a value counted elsewhere.
+	 * 
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param kiosks
+	 * @return number of updated rows, 0 when the slot does not exist
+	 */
+	@Modifying
+	@Query("UPDATE AvailibityEntity e SET e.availableKiosks = ?5 WHERE e.regDate = ?1 and e.regcntrId = ?2 and e.fromTime = ?3 and e.toTime = ?4")
+	public int setAvailableKiosks(LocalDate regDate, String regcntrId, LocalTime slotFromTime, LocalTime slotToTime,
+			int kiosks);
+
 	/**
 	 * 
 	 * @param regDate
@@ -98,6 +177,15 @@ public interface BookingAvailabilityRepository extends BaseRepository<Availibity
 	public List<LocalDate> findAvaialableDate(LocalDate regDate);
 	
 	public List<AvailibityEntity> findByRegcntrId(String regCenterId);
+
+	/**
+	 * Checks for a slot of the center without loading any, reading at most one
+	 * row.
+	 * 
+	 * @param regCenterId
+	 * @return true when at least one slot is generated for the center
+	 */
+	public boolean existsByRegcntrId(String regCenterId);
 	
 	/**
 	 * 
@@ -150,4 +238,18 @@ public interface BookingAvailabilityRepository extends BaseRepository<Availibity
 	 */
 	public List<AvailibityEntity> findByRegcntrIdAndRegDateGreaterThanEqualAndRegDateLessThanEqualOrderByFromTimeAsc(String regcntrId, LocalDate starteDate,LocalDate endDate); 
 
+	/**
+	 * Reads the availability columns of the slots of a center between two dates,
+	 * without loading entities and without flushing the persistence context.
+	 * 
+	 * @param regcntrId
+	 * @param startDate
+	 * @param endDate
+	 * @return availability of the slots ordered by from time
+	 */
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "MANUAL") })
+	@Query("SELECT e.regDate AS regDate, e.fromTime AS fromTime, e.toTime AS toTime, e.availableKiosks AS availableKiosks FROM AvailibityEntity e WHERE e.regcntrId = ?1 and e.regDate >= ?2 and e.regDate <= ?3 ORDER BY e.fromTime ASC")
+	public List<SlotAvailabilityView> findSlotAvailability(String regcntrId, LocalDate startDate, LocalDate endDate);
+
 }
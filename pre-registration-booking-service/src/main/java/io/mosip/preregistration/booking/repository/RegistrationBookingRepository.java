@@ -5,15 +5,23 @@
 package io.mosip.preregistration.booking.repository;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import javax.persistence.QueryHint;
 
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.mosip.kernel.core.dataaccess.spi.repository.BaseRepository;
+import io.mosip.preregistration.booking.dto.BookedAppointmentDto;
+import io.mosip.preregistration.booking.entity.BookedSlotView;
 import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
 
 /**
@@ -33,6 +41,10 @@ public interface RegistrationBookingRepository extends BaseRepository<Registrati
 	public static final String preIdQuery = "SELECT u FROM RegistrationBookingEntity u WHERE u.preregistrationId = ?1";
 	public static final String deletePreIdQuery = "delete from RegistrationBookingEntity u where u.preregistrationId = ?1";
 	public static final String getPreIdQuery = "select u from RegistrationBookingEntity u where u.registrationCenterId=?3 and u.regDate between ?1 and ?2";
+	public static final String exportQuery = "SELECT new io.mosip.preregistration.booking.dto.BookedAppointmentDto(u.preregistrationId, u.regDate, u.slotFromTime, u.slotToTime) FROM RegistrationBookingEntity u WHERE u.registrationCenterId = ?1 and u.regDate between ?2 and ?3";
+	public static final String exportOrder = " ORDER BY u.regDate, u.slotFromTime, u.preregistrationId";
+	/** Rows fetched per round trip by the export cursor */
+	public static final String EXPORT_FETCH_SIZE = "500";
 
 	@Query(preIdQuery)
 	RegistrationBookingEntity getDemographicEntityPreRegistrationId(@Param("preRegId") String preRegId);
@@ -69,5 +81,79 @@ public interface RegistrationBookingRepository extends BaseRepository<Registrati
 
 	@Query("SELECT e FROM RegistrationBookingEntity e  WHERE e.registrationCenterId= ?1 and e.regDate>=?2")
 	public List<RegistrationBookingEntity> findByRegId(String registrationCenterId, LocalDate regDate);
+
+	/**
+	 * Reads the slots booked at a center between two dates, without loading
+	 * entities and without flushing the persistence context.
+	 * 
+	 * @param registrationCenterId
+	 * @param start
+	 * @param end
+	 * @return booked slots
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints({ @QueryHint(name = org.hibernate.jpa.QueryHints.HINT_READONLY, value = "true"),
+			@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FLUSH_MODE, value = "MANUAL") })
+	@Query("SELECT u.preregistrationId AS preregistrationId, u.regDate AS regDate, u.slotFromTime AS slotFromTime, u.slotToTime AS slotToTime FROM RegistrationBookingEntity u WHERE u.registrationCenterId = ?1 and u.regDate between ?2 and ?3")
+	public List<BookedSlotView> findBookedSlots(String registrationCenterId, LocalDate start, LocalDate end);
+
+	/**
+	 * Streams the booked appointments of a center in keyset order, over a
+	 * forward-only cursor. Must be consumed and closed within a transaction.
+	 * 
+	 * @param registrationCenterId
+	 * @param fromDate
+	 * @param toDate
+	 * @return booked appointments ordered by date, slot and pre-registration id
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+	@Query(exportQuery + exportOrder)
+	public Stream<BookedAppointmentDto> streamBookedAppointments(String registrationCenterId, LocalDate fromDate,
+			LocalDate toDate);
+
+	/**
+	 * Streams the booked appointments of a center following the given keyset,
+	 * over a forward-only cursor. Must be consumed and closed within a
+	 * transaction.
+	 * 
+	 * @param registrationCenterId
+	 * @param fromDate
+	 * @param toDate
+	 * @param afterDate
+	 * @param afterFromTime
+	 * @param afterPreregistrationId
+	 * @return booked appointments after the keyset, ordered by date, slot and
+	 *         pre-registration id
+	 */
+	@Transactional(readOnly = true)
+	@QueryHints(@QueryHint(name = org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE))
+	@Query(exportQuery
+			+ " and (u.regDate > ?4 or (u.regDate = ?4 and (u.slotFromTime > ?5 or (u.slotFromTime = ?5 and u.preregistrationId > ?6))))"
+			+ exportOrder)
+	public Stream<BookedAppointmentDto> streamBookedAppointmentsAfter(String registrationCenterId, LocalDate fromDate,
+			LocalDate toDate, LocalDate afterDate, LocalTime afterFromTime, String afterPreregistrationId);
+
+	/**
+	 * Moves a booking to another slot in place, provided it is still on the slot
+	 * it is moved from.
+	 * 
+	 * @param preregistrationId
+	 * @param oldRegDate
+	 * @param oldRegCenterId
+	 * @param oldSlotFromTime
+	 * @param regDate
+	 * @param registrationCenterId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param bookingDateTime
+	 * @return number of updated rows, 0 when the booking is no longer on the old
+	 *         slot
+	 */
+	@Modifying
+	@Query("UPDATE RegistrationBookingEntity u SET u.regDate = ?5, u.registrationCenterId = ?6, u.slotFromTime = ?7, u.slotToTime = ?8, u.bookingDateTime = ?9 WHERE u.preregistrationId = ?1 and u.regDate = ?2 and u.registrationCenterId = ?3 and u.slotFromTime = ?4")
+	public int moveBooking(String preregistrationId, LocalDate oldRegDate, String oldRegCenterId,
+			LocalTime oldSlotFromTime, LocalDate regDate, String registrationCenterId, LocalTime slotFromTime,
+			LocalTime slotToTime, LocalDateTime bookingDateTime);
 	
 }
@@ -0,0 +1,80 @@
+/* 
+ * Copyright
+ * 
+ */
+package io.mosip.preregistration.booking.repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+
+import javax.transaction.Transactional;
+
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import io.mosip.kernel.core.dataaccess.spi.repository.BaseRepository;
+import io.mosip.preregistration.booking.entity.SlotHoldEntity;
+
+/**
+ * This repository interface is used to define the JPA methods for slot holds.
+ * Every hold ends with exactly one successful delete of its row, which decides
+ * whether the kiosk goes to a booking or back to the slot.
+ * 
+ * @since 1.2.0
+ *
+ */
+@Repository("slotHoldRepository")
+@Transactional
+public interface SlotHoldRepository extends BaseRepository<SlotHoldEntity, String> {
+
+	/**
+	 * Consumes a hold which is not expired, held by the user on the slot.
+	 * 
+	 * @param holdId
+	 * @param userId
+	 * @param regDate
+	 * @param regcntrId
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param now
+	 * @return number of deleted rows, 0 when no such hold is active
+	 */
+	@Modifying
+	@Query("DELETE FROM SlotHoldEntity h WHERE h.holdId = ?1 and h.userId = ?2 and h.regDate = ?3 and h.regcntrId = ?4 and h.fromTime = ?5 and h.toTime = ?6 and h.expiresDate > ?7")
+	public int deleteActiveHold(String holdId, String userId, LocalDate regDate, String regcntrId,
+			LocalTime slotFromTime, LocalTime slotToTime, LocalDateTime now);
+
+	/**
+	 * @param holdId
+	 * @return number of deleted rows
+	 */
+	@Modifying
+	@Query("DELETE FROM SlotHoldEntity h WHERE h.holdId = ?1")
+	public int deleteHold(String holdId);
+
+	/**
+	 * @param holdId
+	 * @param userId
+	 * @return number of deleted rows
+	 */
+	@Modifying
+	@Query("DELETE FROM SlotHoldEntity h WHERE h.holdId = ?1 and h.userId = ?2")
+	public int deleteHoldOfUser(String holdId, String userId);
+
+	/**
+	 * @param userId
+	 * @param now
+	 * @return number of holds of the user not expired yet
+	 */
+	public long countByUserIdAndExpiresDateAfter(String userId, LocalDateTime now);
+
+	/**
+	 * @param before
+	 * @return oldest holds expired before the given time
+	 */
+	public List<SlotHoldEntity> findTop500ByExpiresDateBeforeOrderByExpiresDateAsc(LocalDateTime before);
+
+}
@@ -5,22 +5,34 @@
 package io.mosip.preregistration.booking.repository.impl;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import javax.annotation.PostConstruct;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import io.mosip.kernel.core.dataaccess.exception.DataAccessLayerException;
+import io.mosip.preregistration.booking.dto.BookedAppointmentDto;
 import io.mosip.preregistration.booking.dto.SlotTimeDto;
 import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.BookedSlotView;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.entity.SlotHoldEntity;
 import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
 import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
 import io.mosip.preregistration.booking.exception.AvailabilityUpdationFailedException;
@@ -30,6 +42,7 @@ import io.mosip.preregistration.booking.exception.RecordNotFoundException;
 import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
 import io.mosip.preregistration.booking.repository.DemographicRepository;
 import io.mosip.preregistration.booking.repository.RegistrationBookingRepository;
+import io.mosip.preregistration.booking.repository.SlotHoldRepository;
 import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
 import io.mosip.preregistration.core.exception.InvalidRequestParameterException;
 import io.mosip.preregistration.core.exception.RecordFailedToDeleteException;
@@ -60,6 +73,45 @@ public class BookingDAO {
 	@Qualifier("demographicRepository")
 	private DemographicRepository demographicRepository;
 
+	@Autowired
+	@Qualifier("slotHoldRepository")
+	private SlotHoldRepository slotHoldRepository;
+
+	/** modes that may own the slot counters, none when no mode is enabled */
+	@Autowired(required = false)
+	private List<SlotCounters> slotCounterModes;
+
+	/** the enabled mode owning the slot counters, null when the slot rows are updated directly */
+	private SlotCounters slotCounters;
+
+	/**
+	 * Reference for ${preregistration.booking.known-centers.ttl} (seconds) from
+	 * property file
+	 */
+	@Value("${preregistration.booking.known-centers.ttl:300}")
+	private long knownCentersTtlSeconds;
+
+	/** Centers known to have slots, with the time they are known until */
+	private final Map<String, Long> knownCenters = new ConcurrentHashMap<>();
+
+	@PostConstruct
+	public void init() {
+		if (slotCounterModes == null) {
+			return;
+		}
+		for (SlotCounters mode : slotCounterModes) {
+			if (!mode.isEnabled()) {
+				continue;
+			}
+			if (slotCounters != null) {
+				throw new IllegalStateException("Slot counters can be owned by one mode only, "
+						+ slotCounters.getClass().getSimpleName() + " and " + mode.getClass().getSimpleName()
+						+ " are both enabled");
+			}
+			slotCounters = mode;
+		}
+	}
+
 	/**
 	 * @param Registration center id
 	 * @param Registration date
@@ -148,6 +200,34 @@ public class BookingDAO {
 		return entity;
 	}
 
+	/**
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return kiosks left in the slot, as counted by the slot counters when a
+	 *         mode owns them
+	 */
+	public int findAvailableKiosks(LocalDate regDate, String regcntrd, LocalTime slotFromTime,
+			LocalTime slotToTime) {
+		if (slotCounters == null) {
+			return findByRegDateAndRegcntrIdAndFromTimeAndToTime(regDate, regcntrd, slotFromTime, slotToTime)
+					.getAvailableKiosks();
+		}
+		Integer available = null;
+		try {
+			available = slotCounters.available(regDate, regcntrd, slotFromTime, slotToTime);
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		if (available == null) {
+			throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
+					ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
+		}
+		return available;
+	}
+
 	/**
 	 * @param slotFromTime
 	 * @param slotToTime
@@ -175,6 +255,212 @@ public class BookingDAO {
 		return entity;
 	}
 
+	/**
+	 * Reserves one kiosk of the slot with a single conditional update.
+	 * 
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return true once the kiosk is reserved
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean reserveSlot(LocalDate regDate, String regcntrd, LocalTime slotFromTime, LocalTime slotToTime) {
+		int updated = 0;
+		try {
+			if (slotCounters != null) {
+				updated = slotCounters.reserve(regDate, regcntrd, slotFromTime, slotToTime, 1) ? 1 : 0;
+			} else {
+				updated = bookingAvailabilityRepository.decrementAvailableKiosks(regDate, regcntrd, slotFromTime,
+						slotToTime);
+			}
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		if (updated == 0) {
+			throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
+					ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Returns one kiosk to the slot with a single update.
+	 * 
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return true once the kiosk is released
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean releaseSlot(LocalDate regDate, String regcntrd, LocalTime slotFromTime, LocalTime slotToTime) {
+		int updated = 0;
+		try {
+			if (slotCounters != null) {
+				updated = slotCounters.release(regDate, regcntrd, slotFromTime, slotToTime, 1) ? 1 : 0;
+			} else {
+				updated = bookingAvailabilityRepository.incrementAvailableKiosks(regDate, regcntrd, slotFromTime,
+						slotToTime);
+			}
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		if (updated == 0) {
+			throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
+					ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Reserves several kiosks of the slot with a single conditional update, all
+	 * or none.
+	 * 
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param kiosks
+	 * @return true once the kiosks are reserved
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean reserveSlots(LocalDate regDate, String regcntrd, LocalTime slotFromTime, LocalTime slotToTime,
+			int kiosks) {
+		int updated = 0;
+		try {
+			if (slotCounters != null) {
+				updated = slotCounters.reserve(regDate, regcntrd, slotFromTime, slotToTime, kiosks) ? 1 : 0;
+			} else {
+				updated = bookingAvailabilityRepository.decrementAvailableKiosksBy(regDate, regcntrd, slotFromTime,
+						slotToTime, kiosks);
+			}
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		if (updated == 0) {
+			throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
+					ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Returns several kiosks to the slot with a single update.
+	 * 
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @param kiosks
+	 * @return true once the kiosks are released
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean releaseSlots(LocalDate regDate, String regcntrd, LocalTime slotFromTime, LocalTime slotToTime,
+			int kiosks) {
+		int updated = 0;
+		try {
+			if (slotCounters != null) {
+				updated = slotCounters.release(regDate, regcntrd, slotFromTime, slotToTime, kiosks) ? 1 : 0;
+			} else {
+				updated = bookingAvailabilityRepository.incrementAvailableKiosksBy(regDate, regcntrd, slotFromTime,
+						slotToTime, kiosks);
+			}
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		if (updated == 0) {
+			throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
+					ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Moves a booking from its slot to another one in the surrounding
+	 * transaction: one guarded update taking a kiosk of the new slot, one update
+	 * giving the kiosk of the old slot back, and one update moving the booking
+	 * row. The two slot rows are always updated in the same order, whichever way
+	 * the booking moves, so that two transfers between the same slots cannot
+	 * deadlock on each other's row locks.
+	 * 
+	 * @param booking      current booking
+	 * @param regDate      new slot date
+	 * @param regcntrd     new registration center id
+	 * @param slotFromTime new slot from time
+	 * @param slotToTime   new slot to time
+	 * @param held         true when the kiosk of the new slot is already taken by
+	 *                     a hold consumed in the same transaction
+	 * @return true once the booking is moved
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean transferBooking(RegistrationBookingEntity booking, LocalDate regDate, String regcntrd,
+			LocalTime slotFromTime, LocalTime slotToTime, boolean held) {
+		int order = slotOrder(booking.getRegistrationCenterId(), booking.getRegDate(), booking.getSlotFromTime(),
+				regcntrd, regDate, slotFromTime);
+		if (held) {
+			releaseSlot(booking.getRegDate(), booking.getRegistrationCenterId(), booking.getSlotFromTime(),
+					booking.getSlotToTime());
+		} else if (order < 0) {
+			releaseSlot(booking.getRegDate(), booking.getRegistrationCenterId(), booking.getSlotFromTime(),
+					booking.getSlotToTime());
+			reserveSlot(regDate, regcntrd, slotFromTime, slotToTime);
+		} else if (order > 0) {
+			reserveSlot(regDate, regcntrd, slotFromTime, slotToTime);
+			releaseSlot(booking.getRegDate(), booking.getRegistrationCenterId(), booking.getSlotFromTime(),
+					booking.getSlotToTime());
+		}
+		/* a booking re-booked onto its own slot keeps its kiosk */
+		return moveBooking(booking, regDate, regcntrd, slotFromTime, slotToTime);
+	}
+
+	/**
+	 * Moves the booking row to another slot in place, leaving the slot counters
+	 * to the caller.
+	 * 
+	 * @param booking      current booking
+	 * @param regDate      new slot date
+	 * @param regcntrd     new registration center id
+	 * @param slotFromTime new slot from time
+	 * @param slotToTime   new slot to time
+	 * @return true once the booking is moved
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean moveBooking(RegistrationBookingEntity booking, LocalDate regDate, String regcntrd,
+			LocalTime slotFromTime, LocalTime slotToTime) {
+		int updated = 0;
+		try {
+			updated = registrationBookingRepository.moveBooking(booking.getPreregistrationId(), booking.getRegDate(),
+					booking.getRegistrationCenterId(), booking.getSlotFromTime(), regDate, regcntrd, slotFromTime,
+					slotToTime, LocalDateTime.now());
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.BOOKING_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+		if (updated == 0) {
+			/* moved or cancelled meanwhile; the slot updates roll back with the transaction */
+			throw new BookingDataNotFoundException(ErrorCodes.PRG_BOOK_RCI_013.getCode(),
+					ErrorMessages.BOOKING_DATA_NOT_FOUND.getMessage());
+		}
+		return true;
+	}
+
+	private static int slotOrder(String regcntrId, LocalDate regDate, LocalTime fromTime, String otherRegcntrId,
+			LocalDate otherRegDate, LocalTime otherFromTime) {
+		int order = regcntrId.compareTo(otherRegcntrId);
+		if (order == 0) {
+			order = regDate.compareTo(otherRegDate);
+		}
+		if (order == 0) {
+			order = fromTime.compareTo(otherFromTime);
+		}
+		return order;
+	}
+
 	/**
 	 * This method find entity for status other then CANCEL.
 	 * 
@@ -284,10 +570,10 @@ public class BookingDAO {
 		List<String> listOfPreIds = new ArrayList<>();
 		try {
 			if (regCenterId != null && !regCenterId.isEmpty()) {
-				List<RegistrationBookingEntity> entities = registrationBookingRepository
-						.findByRegDateBetweenAndRegistrationCenterId(fromLocaldate, toLocaldate, regCenterId);
+				List<BookedSlotView> entities = registrationBookingRepository.findBookedSlots(regCenterId,
+						fromLocaldate, toLocaldate);
 				if (entities != null && !entities.isEmpty()) {
-					for (RegistrationBookingEntity entity : entities) {
+					for (BookedSlotView entity : entities) {
 						Map<LocalDate, SlotTimeDto> appointmentDate = new HashMap<LocalDate, SlotTimeDto>();
 						appointmentDate.put(entity.getRegDate(),
 								new SlotTimeDto(entity.getSlotFromTime(), entity.getSlotToTime()));
@@ -309,21 +595,66 @@ public class BookingDAO {
 		return listOfPreIds;
 	}
 
+	/**
+	 * Hands the booked appointments of a center to the consumer one by one, read
+	 * over a forward-only cursor in keyset order, so that memory does not grow
+	 * with the date range.
+	 * 
+	 * @param regCenterId   registration center id
+	 * @param fromDate      first appointment date
+	 * @param toDate        last appointment date
+	 * @param afterDate     date of the keyset to resume after, or null
+	 * @param afterFromTime slot from time of the keyset to resume after
+	 * @param afterPreId    pre-registration id of the keyset to resume after
+	 * @param limit         maximum number of appointments
+	 * @param consumer      receives each appointment
+	 * @return number of appointments handed to the consumer
+	 */
+	@Transactional(readOnly = true)
+	public long exportBookedAppointments(String regCenterId, LocalDate fromDate, LocalDate toDate,
+			LocalDate afterDate, LocalTime afterFromTime, String afterPreId, long limit,
+			Consumer<BookedAppointmentDto> consumer) {
+		try (Stream<BookedAppointmentDto> appointments = afterDate == null
+				? registrationBookingRepository.streamBookedAppointments(regCenterId, fromDate, toDate)
+				: registrationBookingRepository.streamBookedAppointmentsAfter(regCenterId, fromDate, toDate,
+						afterDate, afterFromTime, afterPreId)) {
+			long[] count = new long[1];
+			appointments.limit(limit).forEach(appointment -> {
+				consumer.accept(appointment);
+				count[0]++;
+			});
+			return count[0];
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.BOOKING_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
+	/**
+	 * Checks that slots are generated for the center, answering from the known
+	 * centers while they are fresh.
+	 * 
+	 * @param regCenterId
+	 * @return true when the center has slots
+	 */
 	public boolean findRegistrationCenterId(String regCenterId) {
-		List<AvailibityEntity> entityList = null;
+		Long knownUntil = knownCenters.get(regCenterId);
+		if (knownUntil != null && knownUntil > System.currentTimeMillis()) {
+			return true;
+		}
 		try {
-			entityList = bookingAvailabilityRepository.findByRegcntrId(regCenterId);
-			if (entityList == null || entityList.isEmpty()) {
+			if (!bookingAvailabilityRepository.existsByRegcntrId(regCenterId)) {
+				knownCenters.remove(regCenterId);
 				throw new RecordNotFoundException(ErrorCodes.PRG_BOOK_RCI_015.getCode(),
 						ErrorMessages.NO_TIME_SLOTS_ASSIGNED_TO_THAT_REG_CENTER.getMessage());
 			}
-			return true;
-
 		} catch (DataAccessLayerException e) {
 			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
 					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
 		}
-
+		/* slots are generated by the batch job, so a center is only remembered for a while */
+		knownCenters.put(regCenterId, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(knownCentersTtlSeconds));
+		return true;
 	}
 
 	/**
@@ -385,7 +716,13 @@ public class BookingDAO {
 	public int deleteSlots(String regId, LocalDate regDate) {
 		int deletedSlots = 0;
 		try {
+			if (slotCounters != null) {
+				/* before the rows are locked by the delete, which the counters are written to */
+				slotCounters.evict(regId, regDate, regDate);
+			}
 			deletedSlots = bookingAvailabilityRepository.deleteByRegcntrIdAndRegDate(regId, regDate);
+			/* the center may have no slot left */
+			knownCenters.remove(regId);
 		} catch (DataAccessLayerException e) {
 			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
 					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
@@ -438,7 +775,13 @@ public class BookingDAO {
 	public int deleteAllSlotsByRegId(String regId, LocalDate regDate) {
 		int deletedSlots = 0;
 		try {
+			if (slotCounters != null) {
+				/* before the rows are locked by the delete, which the counters are written to */
+				slotCounters.evict(regId, regDate, null);
+			}
 			deletedSlots = bookingAvailabilityRepository.deleteByRegcntrIdAndRegDateGreaterThanEqual(regId, regDate);
+			/* the center may have no slot left */
+			knownCenters.remove(regId);
 		} catch (DataAccessLayerException e) {
 			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
 					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
@@ -465,4 +808,145 @@ public class BookingDAO {
 		return entityList;
 	}
 
+	/**
+	 * @param regcntrId
+	 * @param startDate
+	 * @param endDate
+	 * @return availability of the slots of the center between the dates, read
+	 *         without loading entities
+	 */
+	public List<SlotAvailabilityView> findSlotAvailability(String regcntrId, LocalDate startDate,
+			LocalDate endDate) {
+		try {
+			List<SlotAvailabilityView> slots = bookingAvailabilityRepository.findSlotAvailability(regcntrId,
+					startDate, endDate);
+			return slotCounters != null ? slotCounters.overlay(regcntrId, slots) : slots;
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+	}
+
+	/**
+	 * Takes one kiosk from the slot and records the hold on it, in a transaction
+	 * of its own.
+	 * 
+	 * @param hold
+	 * @return saved hold
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public SlotHoldEntity createHold(SlotHoldEntity hold) {
+		reserveSlot(hold.getRegDate(), hold.getRegcntrId(), hold.getFromTime(), hold.getToTime());
+		try {
+			return slotHoldRepository.save(hold);
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
+	/**
+	 * Consumes an active hold of the user on the slot; the kiosk it took goes to
+	 * the booking of the surrounding transaction.
+	 * 
+	 * @param holdId
+	 * @param userId
+	 * @param regDate
+	 * @param regcntrd
+	 * @param slotFromTime
+	 * @param slotToTime
+	 * @return true when the hold was active and is consumed
+	 */
+	@Transactional(propagation = Propagation.MANDATORY)
+	public boolean confirmHold(String holdId, String userId, LocalDate regDate, String regcntrd,
+			LocalTime slotFromTime, LocalTime slotToTime) {
+		try {
+			return slotHoldRepository.deleteActiveHold(holdId, userId, regDate, regcntrd, slotFromTime, slotToTime,
+					LocalDateTime.now()) > 0;
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
+	/**
+	 * Deletes an expired hold and gives its kiosk back, unless a booking consumed
+	 * the hold first.
+	 * 
+	 * @param hold
+	 * @return true when the kiosk was given back
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public boolean expireHold(SlotHoldEntity hold) {
+		try {
+			if (slotHoldRepository.deleteHold(hold.getHoldId()) == 0) {
+				return false;
+			}
+			/* a slot deleted meanwhile has nothing to give back to */
+			giveBack(hold);
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+		return true;
+	}
+
+	/**
+	 * Deletes a hold of the user and gives its kiosk back.
+	 * 
+	 * @param holdId
+	 * @param userId
+	 * @return the released hold, or null when the user holds no such hold
+	 */
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public SlotHoldEntity releaseHold(String holdId, String userId) {
+		try {
+			SlotHoldEntity hold = slotHoldRepository.findById(holdId).orElse(null);
+			if (hold == null || slotHoldRepository.deleteHoldOfUser(holdId, userId) == 0) {
+				return null;
+			}
+			giveBack(hold);
+			return hold;
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
+	private void giveBack(SlotHoldEntity hold) {
+		if (slotCounters != null) {
+			slotCounters.release(hold.getRegDate(), hold.getRegcntrId(), hold.getFromTime(),
+					hold.getToTime(), 1);
+		} else {
+			bookingAvailabilityRepository.incrementAvailableKiosks(hold.getRegDate(), hold.getRegcntrId(),
+					hold.getFromTime(), hold.getToTime());
+		}
+	}
+
+	/**
+	 * @param userId
+	 * @return number of holds of the user not expired yet
+	 */
+	public long countActiveHolds(String userId) {
+		try {
+			return slotHoldRepository.countByUserIdAndExpiresDateAfter(userId, LocalDateTime.now());
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
+	/**
+	 * @param before
+	 * @return oldest holds expired before the given time, at most 500
+	 */
+	public List<SlotHoldEntity> findExpiredHolds(LocalDateTime before) {
+		try {
+			return slotHoldRepository.findTop500ByExpiresDateBeforeOrderByExpiresDateAsc(before);
+		} catch (DataAccessLayerException e) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.HOLD_TABLE_NOT_ACCESSIBLE.getMessage());
+		}
+	}
+
 }
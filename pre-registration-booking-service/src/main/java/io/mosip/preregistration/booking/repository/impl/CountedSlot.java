@@ -0,0 +1,48 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+
+/**
+ * A slot read from the slot rows with the kiosks left counted elsewhere.
+ *
+ * @since 1.2.0
+ *
+ */
+final class CountedSlot implements SlotAvailabilityView {
+
+	private final SlotAvailabilityView slot;
+
+	private final int availableKiosks;
+
+	CountedSlot(SlotAvailabilityView slot, int availableKiosks) {
+		this.slot = slot;
+		this.availableKiosks = availableKiosks;
+	}
+
+	@Override
+	public LocalDate getRegDate() {
+		return slot.getRegDate();
+	}
+
+	@Override
+	public LocalTime getFromTime() {
+		return slot.getFromTime();
+	}
+
+	@Override
+	public LocalTime getToTime() {
+		return slot.getToTime();
+	}
+
+	@Override
+	public int getAvailableKiosks() {
+		return availableKiosks;
+	}
+}
@@ -0,0 +1,536 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+import com.hazelcast.core.MembershipAdapter;
+import com.hazelcast.core.MembershipEvent;
+import com.hazelcast.core.MigrationEvent;
+import com.hazelcast.core.MigrationListener;
+import com.hazelcast.core.PartitionAware;
+import com.hazelcast.map.AbstractEntryProcessor;
+import com.hazelcast.query.PartitionPredicate;
+import com.hazelcast.query.Predicates;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+/**
+ * This class partitions the kiosk counters of the slots across the booking
+ * nodes by registration center, using the partitions of the Hazelcast cluster
+ * the nodes are members of. The counters live in a distributed map whose keys
+ * are partitioned by registration center, so all slots of a center belong to
+ * one partition and to the member owning it. Reservations and releases are
+ * sent to that member as entry processors, which Hazelcast runs one at a time
+ * on the thread of the partition: whichever node a booking lands on, the
+ * kiosks of a center are counted by a single thread without locking a slot
+ * row.
+ * <p>
+ * A counter is read from its slot row the first time it is used. Each member
+ * writes the changed counters of the partitions it owns to the slot rows every
+ * flush interval, in one transaction. When a member joins or leaves, Hazelcast
+ * migrates the partitions with their counters, and with the backups kept by
+ * the map configuration, so the new owner writes whatever the previous one had
+ * not written yet. The booking rows are still written in the booking
+ * transaction of the node the booking landed on.
+ * <p>
+ * Before slots are deleted, the changed counters of their days are written
+ * by the node deleting them, whichever member owns them, and only counters
+ * with no change left to write are removed.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+@ConditionalOnProperty(value = "preregistration.booking.partitioning.enabled", havingValue = "true")
+public class PartitionedSlotCounters implements SlotCounters {
+
+	private Logger log = LoggerConfiguration.logConfig(PartitionedSlotCounters.class);
+
+	/**
+	 * Reference for ${preregistration.booking.partitioning.map} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.partitioning.map:prereg-booking-slot-counters}")
+	private String mapName;
+
+	/**
+	 * Reference for ${preregistration.booking.partitioning.flush-interval}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.partitioning.flush-interval:200}")
+	private long flushIntervalMillis;
+
+	@Autowired
+	private HazelcastInstance hazelcastInstance;
+
+	@Autowired
+	@Qualifier("bookingAvailabilityRepository")
+	private BookingAvailabilityRepository bookingAvailabilityRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private IMap<CenterSlotKey, SlotCount> counters;
+
+	private TransactionTemplate transactionTemplate;
+
+	private ScheduledThreadPoolExecutor flusher;
+
+	private String migrationListener;
+
+	private String membershipListener;
+
+	private long lastEviction;
+
+	private Counter flushed;
+
+	private Counter failed;
+
+	private Counter written;
+
+	private Counter migrations;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		flushed = Counter.builder("prereg.booking.partitioning.flushes").tag("outcome", "flushed")
+				.register(meterRegistry);
+		failed = Counter.builder("prereg.booking.partitioning.flushes").tag("outcome", "failed")
+				.register(meterRegistry);
+		written = Counter.builder("prereg.booking.partitioning.slots-written")
+				.description("Slot rows written by flushes of this member").register(meterRegistry);
+		migrations = Counter.builder("prereg.booking.partitioning.migrations")
+				.description("Partitions migrated to this member").register(meterRegistry);
+		counters = hazelcastInstance.getMap(mapName);
+		Gauge.builder("prereg.booking.partitioning.owned-slots", counters,
+				map -> map.getLocalMapStats().getOwnedEntryCount())
+				.description("Slot counters owned by this member").register(meterRegistry);
+		/* also used by evictions on booking threads, whose transaction must not take the writes along */
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		migrationListener = hazelcastInstance.getPartitionService().addMigrationListener(new MigrationListener() {
+			@Override
+			public void migrationStarted(MigrationEvent event) {
+				/* counted once completed */
+			}
+
+			@Override
+			public void migrationCompleted(MigrationEvent event) {
+				if (event.getNewOwner() != null && event.getNewOwner().localMember()) {
+					migrations.increment();
+				}
+			}
+
+			@Override
+			public void migrationFailed(MigrationEvent event) {
+				log.warn("sessionId", "idType", "id",
+						"Migration of slot counter partition " + event.getPartitionId() + " failed");
+			}
+		});
+		membershipListener = hazelcastInstance.getCluster().addMembershipListener(new MembershipAdapter() {
+			@Override
+			public void memberAdded(MembershipEvent event) {
+				log.info("sessionId", "idType", "id", "Booking member " + event.getMember()
+						+ " joined, registration centers are moving to it");
+			}
+
+			@Override
+			public void memberRemoved(MembershipEvent event) {
+				log.info("sessionId", "idType", "id", "Booking member " + event.getMember()
+						+ " left, its registration centers are taken over from the backups");
+			}
+		});
+		flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "slot-partition-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flusher.shutdownNow();
+		try {
+			flusher.awaitTermination(flushIntervalMillis * 10, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		/* whatever is left is written by the members taking the partitions over */
+		flushQuietly();
+		hazelcastInstance.getPartitionService().removeMigrationListener(migrationListener);
+		hazelcastInstance.getCluster().removeMembershipListener(membershipListener);
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public boolean reserve(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		CenterSlotKey key = new CenterSlotKey(regcntrId, regDate, fromTime, toTime);
+		if (!Boolean.TRUE.equals(apply(key, new TakeKiosks(kiosks)))) {
+			return false;
+		}
+		SlotCounterTransactions.onRollback(() -> giveBack(key, kiosks));
+		return true;
+	}
+
+	@Override
+	public boolean release(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		CenterSlotKey key = new CenterSlotKey(regcntrId, regDate, fromTime, toTime);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return apply(key, new GiveKiosks(kiosks)) != null;
+		}
+		if (count(key) == null) {
+			return false;
+		}
+		SlotCounterTransactions.onCommit(() -> giveBack(key, kiosks));
+		return true;
+	}
+
+	@Override
+	public Integer available(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime) {
+		SlotCount count = count(new CenterSlotKey(regcntrId, regDate, fromTime, toTime));
+		return count == null ? null : count.getAvailable();
+	}
+
+	@Override
+	public List<SlotAvailabilityView> overlay(String regcntrId, List<SlotAvailabilityView> slots) {
+		Map<CenterSlotKey, SlotCount> held = new HashMap<>();
+		/* only looks at the one partition of the center, without loading anything */
+		counters.entrySet(new PartitionPredicate<>(regcntrId, Predicates.equal("__key.regcntrId", regcntrId)))
+				.forEach(entry -> held.put(entry.getKey(), entry.getValue()));
+		if (held.isEmpty()) {
+			return slots;
+		}
+		List<SlotAvailabilityView> overlaid = new ArrayList<>(slots.size());
+		for (SlotAvailabilityView slot : slots) {
+			SlotCount count = held
+					.get(new CenterSlotKey(regcntrId, slot.getRegDate(), slot.getFromTime(), slot.getToTime()));
+			overlaid.add(count == null || count.getAvailable() == slot.getAvailableKiosks() ? slot
+					: new CountedSlot(slot, count.getAvailable()));
+		}
+		return overlaid;
+	}
+
+	@Override
+	public void evict(String regcntrId, LocalDate fromDate, LocalDate toDate) {
+		Map<CenterSlotKey, SlotCount> evicted = new HashMap<>();
+		counters.entrySet(new PartitionPredicate<>(regcntrId, Predicates.equal("__key.regcntrId", regcntrId)))
+				.forEach(entry -> {
+					if (entry.getKey().isBetween(fromDate, toDate)) {
+						evicted.put(entry.getKey(), entry.getValue());
+					}
+				});
+		if (evicted.isEmpty()) {
+			return;
+		}
+		Map<CenterSlotKey, SlotCount> changed = new HashMap<>();
+		evicted.forEach((key, count) -> {
+			if (count.isDirty()) {
+				changed.put(key, count);
+			}
+		});
+		if (!changed.isEmpty()) {
+			try {
+				write(changed);
+			} catch (RuntimeException ex) {
+				log.error("sessionId", "idType", "id", "Slot counters could not be written- " + ex.getMessage());
+				throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+						ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+			}
+		}
+		/* a counter changed again meanwhile is kept for the flush of its owner */
+		counters.executeOnKeys(evicted.keySet(), new RemoveWritten());
+	}
+
+	/**
+	 * Writes the changed counters of the partitions owned by this member to the
+	 * slot rows in one transaction.
+	 */
+	public synchronized void flush() {
+		Set<CenterSlotKey> keys = counters.localKeySet(Predicates.equal("dirty", true));
+		if (!keys.isEmpty()) {
+			write(counters.getAll(keys));
+		}
+		evictPast();
+	}
+
+	/** writes counters to the slot rows in one transaction and clears their change flag */
+	private void write(Map<CenterSlotKey, SlotCount> values) {
+		try {
+			transactionTemplate.execute(status -> {
+				values.forEach((key, count) -> bookingAvailabilityRepository.setAvailableKiosks(
+						key.getRegDate(), key.getRegcntrId(), key.getFromTime(), key.getToTime(), count.getAvailable()));
+				return null;
+			});
+		} catch (RuntimeException ex) {
+			failed.increment();
+			throw ex;
+		}
+		Map<CenterSlotKey, Long> versions = new HashMap<>();
+		values.forEach((key, count) -> versions.put(key, count.getVersion()));
+		counters.executeOnKeys(values.keySet(), new MarkWritten(versions));
+		flushed.increment();
+		written.increment(values.size());
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException ex) {
+			log.error("sessionId", "idType", "id", "Slot counters could not be written- " + ex.getMessage());
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+		}
+	}
+
+	private void giveBack(CenterSlotKey key, int kiosks) {
+		if (apply(key, new GiveKiosks(kiosks)) == null) {
+			log.warn("sessionId", "idType", "id", "Kiosks of deleted slot " + key + " not given back");
+		}
+	}
+
+	/** runs the processor on the owner of the center, reading the slot row first when needed */
+	private Object apply(CenterSlotKey key, AbstractEntryProcessor<CenterSlotKey, SlotCount> processor) {
+		Object result = counters.executeOnKey(key, processor);
+		if (result == null && load(key)) {
+			result = counters.executeOnKey(key, processor);
+		}
+		return result;
+	}
+
+	private SlotCount count(CenterSlotKey key) {
+		SlotCount count = counters.get(key);
+		if (count == null && load(key)) {
+			count = counters.get(key);
+		}
+		return count;
+	}
+
+	private boolean load(CenterSlotKey key) {
+		AvailibityEntity entity = bookingAvailabilityRepository.findByRegDateAndRegcntrIdAndFromTimeAndToTime(
+				key.getRegDate(), key.getRegcntrId(), key.getFromTime(), key.getToTime());
+		if (entity == null) {
+			return false;
+		}
+		/* a counter loaded meanwhile, maybe already changed, is kept */
+		counters.putIfAbsent(key, new SlotCount(entity.getAvailableKiosks()));
+		return true;
+	}
+
+	/** drops the written counters of past days owned here, at most once a minute */
+	private void evictPast() {
+		long now = System.currentTimeMillis();
+		if (now - lastEviction < TimeUnit.MINUTES.toMillis(1)) {
+			return;
+		}
+		lastEviction = now;
+		LocalDate today = LocalDate.now();
+		Set<CenterSlotKey> past = new HashSet<>();
+		for (CenterSlotKey key : counters.localKeySet(Predicates.equal("dirty", false))) {
+			if (key.getRegDate().isBefore(today)) {
+				past.add(key);
+			}
+		}
+		if (!past.isEmpty()) {
+			counters.executeOnKeys(past, new RemoveWritten());
+		}
+	}
+
+	/**
+	 * {@link SlotKey} partitioned by its registration center.
+	 */
+	public static final class CenterSlotKey extends SlotKey implements PartitionAware<String> {
+
+		private static final long serialVersionUID = 5169034877612430598L;
+
+		CenterSlotKey(String regcntrId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+			super(regcntrId, regDate, fromTime, toTime);
+		}
+
+		@Override
+		public String getPartitionKey() {
+			return getRegcntrId();
+		}
+	}
+
+	/**
+	 * Kiosks left in a slot, with whether and which change of them is not
+	 * written to the slot row yet.
+	 */
+	public static final class SlotCount implements Serializable {
+
+		private static final long serialVersionUID = 6402978514215590263L;
+
+		private int available;
+
+		private boolean dirty;
+
+		private long version;
+
+		SlotCount(int available) {
+			this.available = available;
+		}
+
+		public int getAvailable() {
+			return available;
+		}
+
+		public boolean isDirty() {
+			return dirty;
+		}
+
+		public long getVersion() {
+			return version;
+		}
+
+		void change(int delta) {
+			available += delta;
+			dirty = true;
+			version++;
+		}
+	}
+
+	/** takes kiosks if enough are left; null when the counter is not loaded */
+	private static final class TakeKiosks extends AbstractEntryProcessor<CenterSlotKey, SlotCount> {
+
+		private static final long serialVersionUID = 2214780956418842337L;
+
+		private final int kiosks;
+
+		TakeKiosks(int kiosks) {
+			super(true);
+			this.kiosks = kiosks;
+		}
+
+		@Override
+		public Object process(Map.Entry<CenterSlotKey, SlotCount> entry) {
+			SlotCount count = entry.getValue();
+			if (count == null) {
+				return null;
+			}
+			if (count.available < kiosks) {
+				return Boolean.FALSE;
+			}
+			count.change(-kiosks);
+			entry.setValue(count);
+			return Boolean.TRUE;
+		}
+	}
+
+	/** gives kiosks back; null when the counter is not loaded */
+	private static final class GiveKiosks extends AbstractEntryProcessor<CenterSlotKey, SlotCount> {
+
+		private static final long serialVersionUID = -5830377467470985722L;
+
+		private final int kiosks;
+
+		GiveKiosks(int kiosks) {
+			super(true);
+			this.kiosks = kiosks;
+		}
+
+		@Override
+		public Object process(Map.Entry<CenterSlotKey, SlotCount> entry) {
+			SlotCount count = entry.getValue();
+			if (count == null) {
+				return null;
+			}
+			count.change(kiosks);
+			entry.setValue(count);
+			return Boolean.TRUE;
+		}
+	}
+
+	/** clears the change flag of counters not changed again since they were written */
+	private static final class MarkWritten extends AbstractEntryProcessor<CenterSlotKey, SlotCount> {
+
+		private static final long serialVersionUID = 7751260338120914546L;
+
+		private final Map<CenterSlotKey, Long> versions;
+
+		MarkWritten(Map<CenterSlotKey, Long> versions) {
+			super(true);
+			this.versions = versions;
+		}
+
+		@Override
+		public Object process(Map.Entry<CenterSlotKey, SlotCount> entry) {
+			SlotCount count = entry.getValue();
+			Long version = versions.get(entry.getKey());
+			if (count != null && count.dirty && version != null && version == count.version) {
+				count.dirty = false;
+				entry.setValue(count);
+			}
+			return null;
+		}
+	}
+
+	/** removes counters with no change left to write */
+	private static final class RemoveWritten extends AbstractEntryProcessor<CenterSlotKey, SlotCount> {
+
+		private static final long serialVersionUID = -1120480853520394162L;
+
+		RemoveWritten() {
+			super(true);
+		}
+
+		@Override
+		public Object process(Map.Entry<CenterSlotKey, SlotCount> entry) {
+			SlotCount count = entry.getValue();
+			if (count != null && !count.dirty) {
+				entry.setValue(null);
+			}
+			return null;
+		}
+	}
+
+}
@@ -0,0 +1,621 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+/**
+ * This class keeps the kiosk counters of the slots in Redis, shared by all
+ * replicas of the booking service, on the connection of the Redis template of
+ * cache-provider-redis. Kiosks are taken and given back by Lua scripts run by
+ * the Redis server, so a reservation is one atomic decrement-if-enough-left
+ * whichever replica it comes from, and hot slots no longer queue on the lock of
+ * their slot row.
+ * <p>
+ * A counter is copied from its slot row the first time it is used, and
+ * expires some days after the slot. The set of the counters of its center
+ * marks it loaded: a counter missing from Redis while still marked was lost,
+ * possibly with changes not reconciled yet, so it is not copied again and its
+ * slot fails as not accessible until the slots of the center are evicted.
+ * Whole centers lost cannot be told from centers never used, so the inventory
+ * requires a Redis with append-only persistence and the noeviction policy. Every change adds the counter to a set of
+ * counters to reconcile, which each replica drains in the background. A
+ * replica moves the counters it takes into a processing set of its own,
+ * writes them to the slot rows in one transaction, and only then lets them go,
+ * putting back those changed again while they were written. Replicas beat in a
+ * hash of replicas, and the processing sets of a replica that stopped beating
+ * are put back to be reconciled by the others, so that counters taken by a
+ * replica dying before its commit are not lost. The booking rows are still
+ * written in the booking transaction.
+ * <p>
+ * The keys of a center carry the prefix and the center as their hash tag, so
+ * that on Redis Cluster its counters, its set to reconcile and the set of its
+ * counters are in one hash slot, as the scripts touching them together
+ * require, while the centers spread over the shards. The centers with
+ * counters are listed in a set of their own, which the reconciler walks.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+@ConditionalOnProperty(value = "preregistration.booking.redis-inventory.enabled", havingValue = "true")
+public class RedisSlotCounters implements SlotCounters {
+
+	/** KEYS: counter, to reconcile; ARGV: kiosks. -1 when not loaded, -2 when too few left */
+	private static final RedisScript<Long> RESERVE = new DefaultRedisScript<>(
+			"-- reserve\n"
+					+ "local available = redis.call('GET', KEYS[1])\n"
+					+ "if not available then return -1 end\n"
+					+ "local kiosks = tonumber(ARGV[1])\n"
+					+ "if tonumber(available) < kiosks then return -2 end\n"
+					+ "redis.call('SADD', KEYS[2], KEYS[1])\n"
+					+ "return redis.call('DECRBY', KEYS[1], kiosks)\n",
+			Long.class);
+
+	/** KEYS: counter, to reconcile; ARGV: kiosks. -1 when not loaded */
+	private static final RedisScript<Long> RELEASE = new DefaultRedisScript<>(
+			"-- release\n"
+					+ "if redis.call('EXISTS', KEYS[1]) == 0 then return -1 end\n"
+					+ "redis.call('SADD', KEYS[2], KEYS[1])\n"
+					+ "return redis.call('INCRBY', KEYS[1], tonumber(ARGV[1]))\n",
+			Long.class);
+
+	/**
+	 * KEYS: counter, counters of the center; ARGV: kiosks, expiry epoch second.
+	 * 0 when past its expiry, -2 when lost since it was loaded
+	 */
+	private static final RedisScript<Long> LOAD = new DefaultRedisScript<>(
+			"-- load\n"
+					+ "redis.replicate_commands()\n"
+					+ "if redis.call('EXISTS', KEYS[1]) == 1 then return 1 end\n"
+					+ "local ttl = tonumber(ARGV[2]) - tonumber(redis.call('TIME')[1])\n"
+					+ "if ttl <= 0 then return 0 end\n"
+					+ "if redis.call('SISMEMBER', KEYS[2], KEYS[1]) == 1 then return -2 end\n"
+					+ "redis.call('SET', KEYS[1], ARGV[1], 'EX', ttl)\n"
+					+ "redis.call('SADD', KEYS[2], KEYS[1])\n"
+					+ "if redis.call('TTL', KEYS[2]) < ttl then redis.call('EXPIRE', KEYS[2], ttl) end\n"
+					+ "return 1\n",
+			Long.class);
+
+	/**
+	 * KEYS: to reconcile, counters of the center, counters; ARGV: values written.
+	 * Counters changed since are kept
+	 */
+	private static final RedisScript<Long> EVICT = new DefaultRedisScript<>(
+			"-- evict\n"
+					+ "local kept = 0\n"
+					+ "for i = 3, #KEYS do\n"
+					+ "  local available = redis.call('GET', KEYS[i])\n"
+					+ "  if not available or available == ARGV[i - 2] then\n"
+					+ "    redis.call('DEL', KEYS[i])\n"
+					+ "    redis.call('SREM', KEYS[1], KEYS[i])\n"
+					+ "    redis.call('SREM', KEYS[2], KEYS[i])\n"
+					+ "  else\n"
+					+ "    kept = kept + 1\n"
+					+ "  end\n"
+					+ "end\n"
+					+ "return kept\n",
+			Long.class);
+
+	/**
+	 * KEYS: to reconcile, processing; ARGV: batch. Moves a batch to the
+	 * processing set and returns all of it, with counters left by a failed
+	 * write
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static final RedisScript<List<String>> CLAIM = new DefaultRedisScript(
+			"-- claim\n"
+					+ "redis.replicate_commands()\n"
+					+ "local claimed = redis.call('SRANDMEMBER', KEYS[1], tonumber(ARGV[1]))\n"
+					+ "for i = 1, #claimed do\n"
+					+ "  redis.call('SMOVE', KEYS[1], KEYS[2], claimed[i])\n"
+					+ "end\n"
+					+ "return redis.call('SMEMBERS', KEYS[2])\n",
+			List.class);
+
+	/**
+	 * KEYS: to reconcile, processing, counters written; ARGV: values written.
+	 * Counters changed since go back, the processing set goes
+	 */
+	private static final RedisScript<Long> WRITTEN = new DefaultRedisScript<>(
+			"-- written\n"
+					+ "local changed = 0\n"
+					+ "for i = 3, #KEYS do\n"
+					+ "  local available = redis.call('GET', KEYS[i])\n"
+					+ "  if available and available ~= ARGV[i - 2] then\n"
+					+ "    redis.call('SADD', KEYS[1], KEYS[i])\n"
+					+ "    changed = changed + 1\n"
+					+ "  end\n"
+					+ "end\n"
+					+ "redis.call('DEL', KEYS[2])\n"
+					+ "return changed\n",
+			Long.class);
+
+	/** KEYS: to reconcile, processing of a stopped replica. Number of counters put back */
+	private static final RedisScript<Long> REQUEUE = new DefaultRedisScript<>(
+			"-- requeue\n"
+					+ "local requeued = redis.call('SCARD', KEYS[2])\n"
+					+ "if requeued > 0 then\n"
+					+ "  redis.call('SUNIONSTORE', KEYS[1], KEYS[1], KEYS[2])\n"
+					+ "  redis.call('DEL', KEYS[2])\n"
+					+ "end\n"
+					+ "return requeued\n",
+			Long.class);
+
+	private Logger log = LoggerConfiguration.logConfig(RedisSlotCounters.class);
+
+	/**
+	 * Reference for ${preregistration.booking.redis-inventory.prefix} from
+	 * property file
+	 */
+	@Value("${preregistration.booking.redis-inventory.prefix:prereg:booking:slot}")
+	private String prefix;
+
+	/**
+	 * Reference for ${preregistration.booking.redis-inventory.reconcile-interval}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.redis-inventory.reconcile-interval:500}")
+	private long reconcileIntervalMillis;
+
+	/**
+	 * Reference for ${preregistration.booking.redis-inventory.reconcile-batch}
+	 * from property file
+	 */
+	@Value("${preregistration.booking.redis-inventory.reconcile-batch:1000}")
+	private int reconcileBatch;
+
+	/**
+	 * Reference for ${preregistration.booking.redis-inventory.retention-days}
+	 * from property file
+	 */
+	@Value("${preregistration.booking.redis-inventory.retention-days:2}")
+	private int retentionDays;
+
+	/**
+	 * Reference for ${preregistration.booking.redis-inventory.replica-lease}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.redis-inventory.replica-lease:60000}")
+	private long replicaLeaseMillis;
+
+	@Autowired
+	@Qualifier("redisTemplate")
+	private RedisTemplate<String, Object> redisTemplate;
+
+	@Autowired
+	@Qualifier("bookingAvailabilityRepository")
+	private BookingAvailabilityRepository bookingAvailabilityRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	/** counters are plain numbers the scripts can do arithmetic on */
+	private StringRedisTemplate redis;
+
+	/** centers with counters, outside of the hash slots of the centers */
+	private String centersKey;
+
+	/** last beat of each replica, by replica */
+	private String replicasKey;
+
+	/** names the processing sets of this replica */
+	private String replicaId;
+
+	private TransactionTemplate transactionTemplate;
+
+	private ScheduledThreadPoolExecutor reconciler;
+
+	private Counter reconciled;
+
+	private Counter failed;
+
+	private Counter requeued;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		reconciled = Counter.builder("prereg.booking.redis-inventory.reconciled")
+				.description("Slot rows written from Redis").register(meterRegistry);
+		failed = Counter.builder("prereg.booking.redis-inventory.reconcile-failures").register(meterRegistry);
+		requeued = Counter.builder("prereg.booking.redis-inventory.requeued")
+				.description("Counters changed while they were written").register(meterRegistry);
+		redis = new StringRedisTemplate(redisTemplate.getConnectionFactory());
+		redis.afterPropertiesSet();
+		centersKey = prefix + ":centers";
+		replicasKey = prefix + ":replicas";
+		replicaId = UUID.randomUUID().toString();
+		/* an eviction runs on the thread deleting the slots, outside of its transaction */
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		reconciler = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "slot-inventory-reconciler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		reconciler.scheduleWithFixedDelay(this::reconcileQuietly, reconcileIntervalMillis, reconcileIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		reconciler.shutdownNow();
+		/* counters left to reconcile are written by the other replicas, or after the restart */
+		try {
+			requeue(centers(), replicaId);
+			redis.opsForHash().delete(replicasKey, replicaId);
+		} catch (RuntimeException ex) {
+			log.warn("sessionId", "idType", "id", "Slot counters being reconciled left to the other replicas- "
+					+ ex.getMessage());
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public boolean reserve(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		String key = key(regcntrId, regDate, fromTime, toTime);
+		long result = run(RESERVE, regcntrId, key, kiosks);
+		if (result == -1 && load(key, regcntrId, regDate, fromTime, toTime)) {
+			result = run(RESERVE, regcntrId, key, kiosks);
+		}
+		if (result < 0) {
+			return false;
+		}
+		SlotCounterTransactions.onRollback(() -> giveBack(key, regcntrId, regDate, fromTime, toTime, kiosks));
+		return true;
+	}
+
+	@Override
+	public boolean release(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		String key = key(regcntrId, regDate, fromTime, toTime);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return giveBack(key, regcntrId, regDate, fromTime, toTime, kiosks);
+		}
+		if (available(regDate, regcntrId, fromTime, toTime) == null) {
+			return false;
+		}
+		SlotCounterTransactions.onCommit(() -> {
+			if (!giveBack(key, regcntrId, regDate, fromTime, toTime, kiosks)) {
+				log.warn("sessionId", "idType", "id", "Kiosks of deleted slot " + key + " not given back");
+			}
+		});
+		return true;
+	}
+
+	@Override
+	public Integer available(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime) {
+		String key = key(regcntrId, regDate, fromTime, toTime);
+		String available = call(() -> redis.opsForValue().get(key));
+		if (available == null && load(key, regcntrId, regDate, fromTime, toTime)) {
+			available = call(() -> redis.opsForValue().get(key));
+		}
+		return available == null ? null : Integer.valueOf(available);
+	}
+
+	@Override
+	public List<SlotAvailabilityView> overlay(String regcntrId, List<SlotAvailabilityView> slots) {
+		if (slots.isEmpty()) {
+			return slots;
+		}
+		List<String> keys = new ArrayList<>(slots.size());
+		for (SlotAvailabilityView slot : slots) {
+			keys.add(key(regcntrId, slot.getRegDate(), slot.getFromTime(), slot.getToTime()));
+		}
+		List<String> counted = call(() -> redis.opsForValue().multiGet(keys));
+		List<SlotAvailabilityView> overlaid = new ArrayList<>(slots.size());
+		for (int i = 0; i < slots.size(); i++) {
+			SlotAvailabilityView slot = slots.get(i);
+			String available = counted == null ? null : counted.get(i);
+			overlaid.add(available == null || Integer.parseInt(available) == slot.getAvailableKiosks() ? slot
+					: new CountedSlot(slot, Integer.parseInt(available)));
+		}
+		return overlaid;
+	}
+
+	@Override
+	public void evict(String regcntrId, LocalDate fromDate, LocalDate toDate) {
+		String centerKey = centerKey(regcntrId);
+		Set<String> members = call(() -> redis.opsForSet().members(centerKey));
+		List<String> keys = new ArrayList<>();
+		if (members != null) {
+			for (String key : members) {
+				LocalDate regDate = LocalDate.parse(slot(key)[1]);
+				if (!regDate.isBefore(fromDate) && (toDate == null || !regDate.isAfter(toDate))) {
+					keys.add(key);
+				}
+			}
+		}
+		if (keys.isEmpty()) {
+			return;
+		}
+		List<String> values = call(() -> redis.opsForValue().multiGet(keys));
+		List<String> evicted = new ArrayList<>(keys.size() + 2);
+		List<String> writtenValues = new ArrayList<>(keys.size());
+		evicted.add(reconcileKey(regcntrId));
+		evicted.add(centerKey);
+		try {
+			/* changes not reconciled yet are written before their counters go */
+			transactionTemplate.execute(status -> {
+				for (int i = 0; i < keys.size(); i++) {
+					String value = values == null ? null : values.get(i);
+					if (value != null) {
+						String[] slot = slot(keys.get(i));
+						bookingAvailabilityRepository.setAvailableKiosks(LocalDate.parse(slot[1]), slot[0],
+								LocalTime.ofSecondOfDay(Long.parseLong(slot[2])),
+								LocalTime.ofSecondOfDay(Long.parseLong(slot[3])), Integer.parseInt(value));
+					}
+					evicted.add(keys.get(i));
+					writtenValues.add(value == null ? "" : value);
+				}
+				return null;
+			});
+		} catch (RuntimeException ex) {
+			failed.increment();
+			log.error("sessionId", "idType", "id", "Slot inventory could not be written- " + ex.getMessage());
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		Long kept = call(() -> redis.execute(EVICT, evicted, writtenValues.toArray()));
+		if (kept != null && kept > 0) {
+			log.warn("sessionId", "idType", "id", kept + " slot counters of center " + regcntrId
+					+ " changed while they were evicted, kept for reconciliation");
+		}
+	}
+
+	/**
+	 * Writes a batch of the counters of each center changed since they were
+	 * last written to the slot rows, in one transaction per center.
+	 *
+	 * @return number of slot rows written
+	 */
+	public int reconcile() {
+		Set<String> centers = centers();
+		requeueStopped(centers);
+		int written = 0;
+		for (String regcntrId : centers) {
+			written += reconcile(regcntrId);
+		}
+		return written;
+	}
+
+	/** counters taken stay in the processing set of this replica until written */
+	private int reconcile(String regcntrId) {
+		String reconcileKey = reconcileKey(regcntrId);
+		String processingKey = processingKey(regcntrId, replicaId);
+		List<String> keys = call(() -> redis.execute(CLAIM, Arrays.asList(reconcileKey, processingKey),
+				String.valueOf(reconcileBatch)));
+		if (keys == null || keys.isEmpty()) {
+			return 0;
+		}
+		List<String> values = call(() -> redis.opsForValue().multiGet(keys));
+		List<String> written = new ArrayList<>(keys.size() + 2);
+		List<String> writtenValues = new ArrayList<>(keys.size());
+		written.add(reconcileKey);
+		written.add(processingKey);
+		try {
+			transactionTemplate.execute(status -> {
+				for (int i = 0; i < keys.size(); i++) {
+					String value = values.get(i);
+					if (value == null) {
+						/* expired with its past slot */
+						continue;
+					}
+					String[] slot = slot(keys.get(i));
+					bookingAvailabilityRepository.setAvailableKiosks(LocalDate.parse(slot[1]), slot[0],
+							LocalTime.ofSecondOfDay(Long.parseLong(slot[2])),
+							LocalTime.ofSecondOfDay(Long.parseLong(slot[3])), Integer.parseInt(value));
+					written.add(keys.get(i));
+					writtenValues.add(value);
+				}
+				return null;
+			});
+		} catch (RuntimeException ex) {
+			/* left in the processing set, taken again by the next pass */
+			failed.increment();
+			throw ex;
+		}
+		Long changed = call(() -> redis.execute(WRITTEN, written, writtenValues.toArray()));
+		requeued.increment(changed == null ? 0 : changed);
+		reconciled.increment(writtenValues.size());
+		return writtenValues.size();
+	}
+
+	/**
+	 * Beats for this replica and puts the counters being reconciled by
+	 * replicas that stopped beating back to be reconciled. A replica only
+	 * slower than the lease writes its counters again, with their latest value.
+	 */
+	private void requeueStopped(Set<String> centers) {
+		long now = System.currentTimeMillis();
+		call(() -> {
+			redis.opsForHash().put(replicasKey, replicaId, String.valueOf(now));
+			return null;
+		});
+		Map<Object, Object> replicas = call(() -> redis.opsForHash().entries(replicasKey));
+		if (replicas == null) {
+			return;
+		}
+		for (Map.Entry<Object, Object> replica : replicas.entrySet()) {
+			if (now - Long.parseLong((String) replica.getValue()) > replicaLeaseMillis) {
+				requeue(centers, (String) replica.getKey());
+				call(() -> redis.opsForHash().delete(replicasKey, replica.getKey()));
+			}
+		}
+	}
+
+	private void requeue(Set<String> centers, String replica) {
+		long requeuedKeys = 0;
+		for (String regcntrId : centers) {
+			Long count = call(() -> redis.execute(REQUEUE,
+					Arrays.asList(reconcileKey(regcntrId), processingKey(regcntrId, replica))));
+			requeuedKeys += count == null ? 0 : count;
+		}
+		if (requeuedKeys > 0) {
+			log.warn("sessionId", "idType", "id",
+					requeuedKeys + " slot counters being reconciled by replica " + replica + " put back");
+		}
+	}
+
+	private void reconcileQuietly() {
+		Set<String> centers;
+		try {
+			centers = centers();
+			requeueStopped(centers);
+		} catch (RuntimeException ex) {
+			log.error("sessionId", "idType", "id", "Slot inventory could not be reconciled- " + ex.getMessage());
+			return;
+		}
+		for (String regcntrId : centers) {
+			try {
+				/* drains a backlog batch by batch rather than a batch per interval */
+				while (reconcile(regcntrId) >= reconcileBatch) {
+					if (Thread.currentThread().isInterrupted()) {
+						return;
+					}
+				}
+			} catch (RuntimeException ex) {
+				log.error("sessionId", "idType", "id",
+						"Slot inventory of center " + regcntrId + " could not be reconciled- " + ex.getMessage());
+				log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			}
+		}
+	}
+
+	private Set<String> centers() {
+		Set<String> centers = call(() -> redis.opsForSet().members(centersKey));
+		return centers == null ? Collections.emptySet() : centers;
+	}
+
+	private boolean giveBack(String key, String regcntrId, LocalDate regDate, LocalTime fromTime, LocalTime toTime,
+			int kiosks) {
+		long result = run(RELEASE, regcntrId, key, kiosks);
+		if (result == -1 && load(key, regcntrId, regDate, fromTime, toTime)) {
+			result = run(RELEASE, regcntrId, key, kiosks);
+		}
+		return result >= 0;
+	}
+
+	private long run(RedisScript<Long> script, String regcntrId, String key, int kiosks) {
+		Long result = call(() -> redis.execute(script, Arrays.asList(key, reconcileKey(regcntrId)),
+				String.valueOf(kiosks)));
+		return result == null ? -1 : result;
+	}
+
+	/**
+	 * copies the slot row to Redis unless another replica did first, failing
+	 * when the counter was lost since it was copied
+	 */
+	private boolean load(String key, String regcntrId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		AvailibityEntity entity = bookingAvailabilityRepository.findByRegDateAndRegcntrIdAndFromTimeAndToTime(regDate,
+				regcntrId, fromTime, toTime);
+		if (entity == null) {
+			return false;
+		}
+		long expiry = regDate.plusDays(retentionDays).atStartOfDay(ZoneId.systemDefault()).toEpochSecond();
+		/* listed before its first counter, so that no change is left out of reconciliation */
+		call(() -> redis.opsForSet().add(centersKey, regcntrId));
+		Long loaded = call(() -> redis.execute(LOAD, Arrays.asList(key, centerKey(regcntrId)),
+				String.valueOf(entity.getAvailableKiosks()), String.valueOf(expiry)));
+		if (loaded != null && loaded == -2) {
+			log.error("sessionId", "idType", "id", "Slot counter " + key + " lost by Redis, not loaded again");
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		return loaded != null && loaded > 0;
+	}
+
+	private String key(String regcntrId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		return tag(regcntrId) + ":" + regDate + ":" + fromTime.toSecondOfDay() + ":" + toTime.toSecondOfDay();
+	}
+
+	/** counters of the center */
+	private String centerKey(String regcntrId) {
+		return tag(regcntrId) + ":counters";
+	}
+
+	/** counters of the center changed since they were last written */
+	private String reconcileKey(String regcntrId) {
+		return tag(regcntrId) + ":reconcile";
+	}
+
+	/** counters of the center being written by the replica */
+	private String processingKey(String regcntrId, String replica) {
+		return tag(regcntrId) + ":processing:" + replica;
+	}
+
+	/** prefix and center as hash tag, keeping the keys of a center in one cluster slot */
+	private String tag(String regcntrId) {
+		return "{" + prefix + ":" + regcntrId + "}";
+	}
+
+	/** center, date, from and to second of day of a counter key */
+	private String[] slot(String key) {
+		int tagEnd = key.indexOf('}');
+		String[] slot = key.substring(tagEnd + 2).split(":");
+		return new String[] { key.substring(prefix.length() + 2, tagEnd), slot[0], slot[1], slot[2] };
+	}
+
+	private static <T> T call(Supplier<T> command) {
+		try {
+			return command.get();
+		} catch (DataAccessException ex) {
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+	}
+
+}
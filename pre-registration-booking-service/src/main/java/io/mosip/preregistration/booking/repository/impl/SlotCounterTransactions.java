@@ -0,0 +1,72 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Ties kiosks given back by the {@link SlotCounters} modes to the booking
+ * transaction: kiosks taken by a reservation return if it rolls back, and
+ * kiosks released return only once it has committed. A mode that must make a
+ * change durable before the booking rows are can do so before the commit.
+ *
+ * @since 1.2.0
+ *
+ */
+final class SlotCounterTransactions {
+
+	private SlotCounterTransactions() {
+	}
+
+	/**
+	 * @param giveBack gives the reserved kiosks back; run if the surrounding
+	 *                 transaction, if any, rolls back
+	 */
+	static void onRollback(Runnable giveBack) {
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					if (status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+						giveBack.run();
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * @param durable makes a change durable; run before the surrounding
+	 *                transaction commits, failing it when it throws, or at once
+	 *                without a transaction
+	 */
+	static void beforeCommit(Runnable durable) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			durable.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void beforeCommit(boolean readOnly) {
+				durable.run();
+			}
+		});
+	}
+
+	/**
+	 * @param giveBack gives the released kiosks back; run once the surrounding
+	 *                 transaction has committed
+	 */
+	static void onCommit(Runnable giveBack) {
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+			@Override
+			public void afterCommit() {
+				giveBack.run();
+			}
+		});
+	}
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+
+/**
+ * Kiosk counters of the slots kept outside the slot rows. When a mode holding
+ * them is enabled, {@link BookingDAO} reserves and releases kiosks through it
+ * instead of updating the slot rows, which are written behind.
+ * <p>
+ * Kiosks taken by a reservation inside a transaction are given back if it
+ * rolls back, and kiosks given back inside a transaction are only handed out
+ * again once it has committed.
+ *
+ * @since 1.2.0
+ *
+ */
+public interface SlotCounters {
+
+	/**
+	 * @return true when the slot counters are owned by this mode
+	 */
+	boolean isEnabled();
+
+	/**
+	 * Takes kiosks from the slot if enough are left.
+	 *
+	 * @param regDate   slot date
+	 * @param regcntrId registration center id
+	 * @param fromTime  slot from time
+	 * @param toTime    slot to time
+	 * @param kiosks    kiosks to take
+	 * @return false when the slot does not exist or has fewer kiosks left
+	 */
+	boolean reserve(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks);
+
+	/**
+	 * Gives kiosks back to the slot.
+	 *
+	 * @param regDate   slot date
+	 * @param regcntrId registration center id
+	 * @param fromTime  slot from time
+	 * @param toTime    slot to time
+	 * @param kiosks    kiosks to give back
+	 * @return false when the slot does not exist
+	 */
+	boolean release(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks);
+
+	/**
+	 * @param regDate   slot date
+	 * @param regcntrId registration center id
+	 * @param fromTime  slot from time
+	 * @param toTime    slot to time
+	 * @return kiosks left in the slot, or null when the slot does not exist
+	 */
+	Integer available(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime);
+
+	/**
+	 * Replaces the kiosks left read from the slot rows of a center with the
+	 * counters not written to them yet.
+	 *
+	 * @param regcntrId registration center id
+	 * @param slots     slots read from the slot rows
+	 * @return the slots with their current kiosks left
+	 */
+	List<SlotAvailabilityView> overlay(String regcntrId, List<SlotAvailabilityView> slots);
+
+	/**
+	 * Drops the counters of slots about to be deleted, after writing the changes
+	 * not written to the slot rows yet. Counters of other days are kept.
+	 *
+	 * @param regcntrId registration center id
+	 * @param fromDate  first day whose slots are deleted
+	 * @param toDate    last day whose slots are deleted, null for every later
+	 *                  day
+	 */
+	void evict(String regcntrId, LocalDate fromDate, LocalDate toDate);
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Objects;
+
+/**
+ * Identity of a slot: registration center, date, from and to time, as the
+ * slot rows are keyed.
+ *
+ * @since 1.2.0
+ *
+ */
+public class SlotKey implements Serializable {
+
+	private static final long serialVersionUID = 4870121398226549153L;
+
+	private final String regcntrId;
+
+	private final LocalDate regDate;
+
+	private final LocalTime fromTime;
+
+	private final LocalTime toTime;
+
+	public SlotKey(String regcntrId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		this.regcntrId = regcntrId;
+		this.regDate = regDate;
+		this.fromTime = fromTime;
+		this.toTime = toTime;
+	}
+
+	public String getRegcntrId() {
+		return regcntrId;
+	}
+
+	public LocalDate getRegDate() {
+		return regDate;
+	}
+
+	public LocalTime getFromTime() {
+		return fromTime;
+	}
+
+	public LocalTime getToTime() {
+		return toTime;
+	}
+
+	/**
+	 * @param fromDate first day
+	 * @param toDate   last day, null for every later day
+	 * @return true when the slot is on one of the days
+	 */
+	public boolean isBetween(LocalDate fromDate, LocalDate toDate) {
+		return !regDate.isBefore(fromDate) && (toDate == null || !regDate.isAfter(toDate));
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) {
+			return true;
+		}
+		if (!(obj instanceof SlotKey)) {
+			return false;
+		}
+		SlotKey other = (SlotKey) obj;
+		return regcntrId.equals(other.regcntrId) && regDate.equals(other.regDate) && fromTime.equals(other.fromTime)
+				&& toTime.equals(other.toTime);
+	}
+
+	@Override
+	public int hashCode() {
+		return Objects.hash(regcntrId, regDate, fromTime, toTime);
+	}
+
+	@Override
+	public String toString() {
+		return regcntrId + " " + regDate + " " + fromTime + "-" + toTime;
+	}
+}
@@ -0,0 +1,696 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.repository.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+/**
+ * This class owns the kiosk counters of the slots in memory when write-behind
+ * is enabled, so that a reservation no longer waits for an update of the slot
+ * row. A counter is read from the slot row the first time it is used. Every
+ * change is appended to a memory-mapped local journal as the new number of
+ * kiosks left, and the counters changed since the last flush are written to
+ * the slot rows together in one transaction every flush interval, however
+ * many bookings changed them meanwhile. The booking rows are still written in
+ * the booking transaction.
+ * <p>
+ * The journal is made of two segments. A flush seals the segment being
+ * appended to and appends to the other one from then on; once the counters
+ * are written, the sealed segment is emptied. On start the records of both
+ * segments are replayed, the last value of each slot winning, before anything
+ * is reserved. Records hold absolute values, so replaying a segment whose
+ * values are already written does no harm.
+ * <p>
+ * A reservation takes its kiosks at once and gives them back if the booking
+ * transaction rolls back; a release gives its kiosks back once the booking
+ * transaction has committed. The record of a reservation is forced to disk
+ * before the booking transaction commits, bookings committing at the same
+ * time sharing one force, so a booking row never outlives the journal record
+ * of its kiosk, even on power loss. A node crashing between commit and
+ * release can therefore lose a kiosk, but never hand the same kiosk out
+ * twice. The counters of a center
+ * must only be changed by one node at a time, and availability read from the
+ * slot rows lags the counters by up to a flush interval, which is why the
+ * availability reads of {@link BookingDAO} overlay the counters held here.
+ * <p>
+ * The journal has no default location: it must be set to durable storage of
+ * the one node running the booking service when write-behind is enabled. The
+ * node locks the journal on start and refuses to start when another process
+ * holds it, so that two nodes sharing a volume cannot both own the counters.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+@ConditionalOnProperty(value = "preregistration.booking.write-behind.enabled", havingValue = "true")
+public class WriteBehindSlotCounters implements SlotCounters {
+
+	private static final int MAGIC = 0x50525743;
+
+	/** magic and generation */
+	private static final int HEADER_BYTES = 12;
+
+	/** length and checksum of a record */
+	private static final int RECORD_HEADER_BYTES = 8;
+
+	/** zero length closing the records of a segment */
+	private static final int TERMINATOR_BYTES = 4;
+
+	private Logger log = LoggerConfiguration.logConfig(WriteBehindSlotCounters.class);
+
+	/**
+	 * Reference for ${preregistration.booking.write-behind.journal} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.write-behind.journal:}")
+	private String journalFile;
+
+	/**
+	 * Reference for ${preregistration.booking.write-behind.segment-size} (bytes)
+	 * from property file
+	 */
+	@Value("${preregistration.booking.write-behind.segment-size:16777216}")
+	private int segmentSize;
+
+	/**
+	 * Reference for ${preregistration.booking.write-behind.flush-interval}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.write-behind.flush-interval:200}")
+	private long flushIntervalMillis;
+
+	/**
+	 * Reference for ${preregistration.booking.write-behind.append-timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.write-behind.append-timeout:5000}")
+	private long appendTimeoutMillis;
+
+	@Autowired
+	@Qualifier("bookingAvailabilityRepository")
+	private BookingAvailabilityRepository bookingAvailabilityRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<SlotKey, SlotCounter> counters = new ConcurrentHashMap<>();
+
+	/** counters whose value may not be in the slot row yet, guarded by the journal lock */
+	private final Set<SlotCounter> dirty = ConcurrentHashMap.newKeySet();
+
+	/** guards the counter values, the dirty set and the segments */
+	private final Object journalLock = new Object();
+
+	/** one flush at a time */
+	private final Object flushLock = new Object();
+
+	/** one force of the journal at a time, the bookings waiting meanwhile share the next */
+	private final Object syncLock = new Object();
+
+	/** records appended so far, changed under the journal lock */
+	private volatile long appended;
+
+	/** records known to be on disk */
+	private volatile long synced;
+
+	private final List<Segment> segments = new ArrayList<>(2);
+
+	private Segment active;
+
+	private Segment standby;
+
+	/** segment whose records are being written to the slot rows, if any */
+	private Segment sealed;
+
+	private TransactionTemplate transactionTemplate;
+
+	/** held while this node owns the journal */
+	private FileChannel lockChannel;
+
+	private ScheduledThreadPoolExecutor flusher;
+
+	private long lastEviction;
+
+	private Counter flushed;
+
+	private Counter failed;
+
+	private Counter written;
+
+	private Counter waits;
+
+	private Counter syncs;
+
+	@PostConstruct
+	public void init() throws IOException {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		flushed = Counter.builder("prereg.booking.write-behind.flushes").tag("outcome", "flushed")
+				.register(meterRegistry);
+		failed = Counter.builder("prereg.booking.write-behind.flushes").tag("outcome", "failed")
+				.register(meterRegistry);
+		written = Counter.builder("prereg.booking.write-behind.slots-written")
+				.description("Slot rows written by flushes").register(meterRegistry);
+		waits = Counter.builder("prereg.booking.write-behind.journal-waits")
+				.description("Changes that waited for a flush to make room in the journal").register(meterRegistry);
+		syncs = Counter.builder("prereg.booking.write-behind.journal-syncs")
+				.description("Forces of the journal to disk before bookings commit").register(meterRegistry);
+		Gauge.builder("prereg.booking.write-behind.dirty", dirty, Set::size)
+				.description("Counters not written to the slot rows yet").register(meterRegistry);
+		Gauge.builder("prereg.booking.write-behind.counters", counters, Map::size)
+				.description("Counters held in memory").register(meterRegistry);
+		if (journalFile == null || journalFile.trim().isEmpty()) {
+			throw new IllegalStateException("preregistration.booking.write-behind.journal must name a file on durable "
+					+ "storage when write-behind is enabled");
+		}
+		/* also used by evictions on booking threads, whose transaction must not take the writes along */
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		Path path = Paths.get(journalFile);
+		lock(path.resolveSibling(path.getFileName() + ".lock"));
+		Segment first = Segment.open(path.resolveSibling(path.getFileName() + ".0"), segmentSize);
+		Segment second = Segment.open(path.resolveSibling(path.getFileName() + ".1"), segmentSize);
+		segments.add(first);
+		segments.add(second);
+		replay(first, second);
+		flusher = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "slot-counter-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis,
+				TimeUnit.MILLISECONDS);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		flusher.shutdownNow();
+		try {
+			flusher.awaitTermination(appendTimeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		/* whatever is not written now is replayed on the next start */
+		flushQuietly();
+		segments.forEach(Segment::close);
+		try {
+			lockChannel.close();
+		} catch (IOException ex) {
+			/* released with the process */
+		}
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return true;
+	}
+
+	@Override
+	public boolean reserve(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		SlotKey key = new SlotKey(regcntrId, regDate, fromTime, toTime);
+		if (!change(key, -kiosks)) {
+			return false;
+		}
+		long record = appended;
+		SlotCounterTransactions.onRollback(() -> restore(key, kiosks));
+		SlotCounterTransactions.beforeCommit(() -> sync(record));
+		return true;
+	}
+
+	@Override
+	public boolean release(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime, int kiosks) {
+		SlotKey key = new SlotKey(regcntrId, regDate, fromTime, toTime);
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			return change(key, kiosks);
+		}
+		if (counter(key) == null) {
+			return false;
+		}
+		SlotCounterTransactions.onCommit(() -> restore(key, kiosks));
+		return true;
+	}
+
+	@Override
+	public Integer available(LocalDate regDate, String regcntrId, LocalTime fromTime, LocalTime toTime) {
+		SlotCounter counter = counter(new SlotKey(regcntrId, regDate, fromTime, toTime));
+		return counter == null ? null : counter.available;
+	}
+
+	@Override
+	public List<SlotAvailabilityView> overlay(String regcntrId, List<SlotAvailabilityView> slots) {
+		if (counters.isEmpty()) {
+			return slots;
+		}
+		List<SlotAvailabilityView> overlaid = new ArrayList<>(slots.size());
+		for (SlotAvailabilityView slot : slots) {
+			SlotCounter counter = counters
+					.get(new SlotKey(regcntrId, slot.getRegDate(), slot.getFromTime(), slot.getToTime()));
+			overlaid.add(counter == null || counter.available == slot.getAvailableKiosks() ? slot
+					: new CountedSlot(slot, counter.available));
+		}
+		return overlaid;
+	}
+
+	@Override
+	public void evict(String regcntrId, LocalDate fromDate, LocalDate toDate) {
+		/* changes made so far are written first, so that dropping the counters loses none */
+		try {
+			flush();
+		} catch (RuntimeException ex) {
+			log.error("sessionId", "idType", "id", "Slot counters could not be written- " + ex.getMessage());
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		}
+		synchronized (journalLock) {
+			for (Iterator<SlotCounter> it = counters.values().iterator(); it.hasNext();) {
+				SlotCounter counter = it.next();
+				if (counter.key.getRegcntrId().equals(regcntrId) && counter.key.isBetween(fromDate, toDate)) {
+					counter.removed = true;
+					dirty.remove(counter);
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Forces the journal to disk unless a force since the record was appended
+	 * already did. Callers arriving during a force wait for it and are then
+	 * covered by the next one together.
+	 *
+	 * @param record records appended up to and including the caller's change
+	 */
+	private void sync(long record) {
+		if (synced >= record) {
+			return;
+		}
+		synchronized (syncLock) {
+			if (synced >= record) {
+				return;
+			}
+			long upTo;
+			List<Segment> unwritten = new ArrayList<>(2);
+			synchronized (journalLock) {
+				upTo = appended;
+				unwritten.add(active);
+				if (sealed != null) {
+					/* records of the sealed segment are not in the slot rows yet */
+					unwritten.add(sealed);
+				}
+			}
+			unwritten.forEach(Segment::force);
+			synced = upTo;
+			syncs.increment();
+		}
+	}
+
+	/**
+	 * Writes the counters changed since the last flush to the slot rows in one
+	 * transaction and empties the sealed journal segment.
+	 */
+	public void flush() {
+		synchronized (flushLock) {
+			flushOnce();
+		}
+	}
+
+	private void flushOnce() {
+		Map<SlotCounter, Integer> values = new HashMap<>();
+		Segment writing;
+		synchronized (journalLock) {
+			if (sealed == null) {
+				if (dirty.isEmpty()) {
+					return;
+				}
+				seal();
+			}
+			writing = sealed;
+			for (SlotCounter counter : dirty) {
+				values.put(counter, counter.available);
+			}
+		}
+		try {
+			transactionTemplate.execute(status -> {
+				values.forEach((counter, value) -> bookingAvailabilityRepository.setAvailableKiosks(
+						counter.key.getRegDate(), counter.key.getRegcntrId(), counter.key.getFromTime(),
+						counter.key.getToTime(), value));
+				return null;
+			});
+		} catch (RuntimeException ex) {
+			/* the sealed segment is kept and written again with the next flush */
+			failed.increment();
+			throw ex;
+		}
+		synchronized (journalLock) {
+			values.forEach((counter, value) -> {
+				if (counter.available == value) {
+					dirty.remove(counter);
+				}
+			});
+			writing.reset();
+			standby = writing;
+			sealed = null;
+			journalLock.notifyAll();
+		}
+		writing.force();
+		active.force();
+		flushed.increment();
+		written.increment(values.size());
+		evictPast();
+	}
+
+	private void flushQuietly() {
+		try {
+			flush();
+		} catch (RuntimeException ex) {
+			log.error("sessionId", "idType", "id", "Slot counters could not be written- " + ex.getMessage());
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+		}
+	}
+
+	/** appends to the standby segment from now on, journal lock held */
+	private void seal() {
+		long generation = active.generation + 1;
+		sealed = active;
+		active = standby;
+		standby = null;
+		active.start(generation);
+		journalLock.notifyAll();
+	}
+
+	private void restore(SlotKey key, int kiosks) {
+		if (!change(key, kiosks)) {
+			log.warn("sessionId", "idType", "id", "Kiosks of deleted slot " + key + " not given back");
+		}
+	}
+
+	private boolean change(SlotKey key, int delta) {
+		int length = RECORD_HEADER_BYTES + Segment.encodedLength(key);
+		for (;;) {
+			SlotCounter counter = counter(key);
+			if (counter == null) {
+				return false;
+			}
+			synchronized (journalLock) {
+				awaitRoom(length);
+				if (counter.removed) {
+					/* evicted meanwhile, read it again */
+					continue;
+				}
+				int value = counter.available + delta;
+				if (value < 0) {
+					return false;
+				}
+				/* dirty before appended, so a flush sealing the record also writes the value */
+				dirty.add(counter);
+				active.append(key, value);
+				appended++;
+				counter.available = value;
+				return true;
+			}
+		}
+	}
+
+	/** waits until the active segment has room for a record, journal lock held */
+	private void awaitRoom(int length) {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(appendTimeoutMillis);
+		boolean waited = false;
+		while (!active.hasRoom(length)) {
+			if (sealed == null) {
+				seal();
+				continue;
+			}
+			if (!waited) {
+				waits.increment();
+				waited = true;
+				flusher.execute(this::flushQuietly);
+			}
+			long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+			if (remaining <= 0) {
+				throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+						ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+			}
+			try {
+				journalLock.wait(remaining);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+						ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+			}
+		}
+	}
+
+	private SlotCounter counter(SlotKey key) {
+		SlotCounter counter = counters.get(key);
+		if (counter != null) {
+			return counter;
+		}
+		AvailibityEntity entity = bookingAvailabilityRepository.findByRegDateAndRegcntrIdAndFromTimeAndToTime(
+				key.getRegDate(), key.getRegcntrId(), key.getFromTime(), key.getToTime());
+		if (entity == null) {
+			return null;
+		}
+		counter = new SlotCounter(key, entity.getAvailableKiosks());
+		SlotCounter loaded = counters.putIfAbsent(key, counter);
+		return loaded == null ? counter : loaded;
+	}
+
+	/** drops the written counters of past days, at most once a minute */
+	private void evictPast() {
+		long now = System.currentTimeMillis();
+		if (now - lastEviction < TimeUnit.MINUTES.toMillis(1)) {
+			return;
+		}
+		lastEviction = now;
+		LocalDate today = LocalDate.now();
+		synchronized (journalLock) {
+			for (Iterator<SlotCounter> it = counters.values().iterator(); it.hasNext();) {
+				SlotCounter counter = it.next();
+				if (counter.key.getRegDate().isBefore(today) && !dirty.contains(counter)) {
+					counter.removed = true;
+					it.remove();
+				}
+			}
+		}
+	}
+
+	/** fails the start when another process owns the journal */
+	private void lock(Path lockFile) throws IOException {
+		lockChannel = FileChannel.open(lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+		FileLock lock;
+		try {
+			lock = lockChannel.tryLock();
+		} catch (OverlappingFileLockException ex) {
+			lock = null;
+		}
+		if (lock == null) {
+			lockChannel.close();
+			throw new IllegalStateException("Slot counter journal " + journalFile
+					+ " is owned by another process, write-behind must run on one node only");
+		}
+	}
+
+	private void replay(Segment first, Segment second) {
+		Segment older = first.generation <= second.generation ? first : second;
+		Segment newer = older == first ? second : first;
+		Map<SlotKey, Integer> values = new LinkedHashMap<>();
+		older.readInto(values);
+		newer.readInto(values);
+		if (!values.isEmpty()) {
+			/* a start that cannot write the journal must not serve counters read from older rows */
+			transactionTemplate.execute(status -> {
+				values.forEach((key, value) -> bookingAvailabilityRepository.setAvailableKiosks(key.getRegDate(),
+						key.getRegcntrId(), key.getFromTime(), key.getToTime(), value));
+				return null;
+			});
+			log.info("sessionId", "idType", "id", values.size() + " slot counters replayed from " + journalFile);
+		}
+		long generation = Math.max(first.generation, second.generation) + 1;
+		first.reset();
+		second.reset();
+		first.start(generation);
+		first.force();
+		second.force();
+		active = first;
+		standby = second;
+	}
+
+	private static final class SlotCounter {
+
+		private final SlotKey key;
+
+		/** kiosks left, changed under the journal lock */
+		private volatile int available;
+
+		/** evicted from the counters, changed under the journal lock */
+		private boolean removed;
+
+		SlotCounter(SlotKey key, int available) {
+			this.key = key;
+			this.available = available;
+		}
+	}
+
+	/**
+	 * One memory-mapped journal file: a header of magic and generation, then
+	 * records of length, checksum and payload, closed by a zero length.
+	 */
+	private static final class Segment {
+
+		private final FileChannel channel;
+
+		private final MappedByteBuffer buffer;
+
+		private long generation;
+
+		private int position = HEADER_BYTES;
+
+		private Segment(FileChannel channel, MappedByteBuffer buffer) {
+			this.channel = channel;
+			this.buffer = buffer;
+			this.generation = buffer.getInt(0) == MAGIC ? buffer.getLong(4) : -1L;
+		}
+
+		static Segment open(Path path, int size) throws IOException {
+			FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+					StandardOpenOption.WRITE);
+			return new Segment(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(size, channel.size())));
+		}
+
+		/** center length and bytes, day, from and to second of day, value */
+		static int encodedLength(SlotKey key) {
+			return 2 + key.getRegcntrId().getBytes(StandardCharsets.UTF_8).length + 8 + 4 + 4 + 4;
+		}
+
+		void start(long generation) {
+			this.generation = generation;
+			buffer.putLong(4, generation);
+			buffer.putInt(0, MAGIC);
+		}
+
+		void reset() {
+			buffer.putInt(0, 0);
+			buffer.putInt(HEADER_BYTES, 0);
+			position = HEADER_BYTES;
+		}
+
+		boolean hasRoom(int length) {
+			return position + length + TERMINATOR_BYTES <= buffer.capacity();
+		}
+
+		void append(SlotKey key, int value) {
+			byte[] center = key.getRegcntrId().getBytes(StandardCharsets.UTF_8);
+			int payload = position + RECORD_HEADER_BYTES;
+			ByteBuffer record = buffer.duplicate();
+			record.position(payload);
+			record.putShort((short) center.length).put(center).putLong(key.getRegDate().toEpochDay())
+					.putInt(key.getFromTime().toSecondOfDay()).putInt(key.getToTime().toSecondOfDay()).putInt(value);
+			int end = record.position();
+			record.position(payload).limit(end);
+			CRC32 crc = new CRC32();
+			crc.update(record);
+			buffer.putInt(end, 0);
+			buffer.putInt(position + 4, (int) crc.getValue());
+			/* the length goes last, a record is not there before it is whole */
+			buffer.putInt(position, end - payload);
+			position = end;
+		}
+
+		void readInto(Map<SlotKey, Integer> values) {
+			if (generation < 0) {
+				return;
+			}
+			int at = HEADER_BYTES;
+			while (at + RECORD_HEADER_BYTES <= buffer.capacity()) {
+				int length = buffer.getInt(at);
+				if (length <= 0 || at + RECORD_HEADER_BYTES + length > buffer.capacity()) {
+					return;
+				}
+				ByteBuffer record = buffer.duplicate();
+				record.position(at + RECORD_HEADER_BYTES).limit(at + RECORD_HEADER_BYTES + length);
+				CRC32 crc = new CRC32();
+				crc.update(record.duplicate());
+				if ((int) crc.getValue() != buffer.getInt(at + 4)) {
+					/* torn by a crash in the middle of the append */
+					return;
+				}
+				byte[] center = new byte[record.getShort()];
+				record.get(center);
+				SlotKey key = new SlotKey(new String(center, StandardCharsets.UTF_8),
+						LocalDate.ofEpochDay(record.getLong()), LocalTime.ofSecondOfDay(record.getInt()),
+						LocalTime.ofSecondOfDay(record.getInt()));
+				values.remove(key);
+				values.put(key, record.getInt());
+				at += RECORD_HEADER_BYTES + length;
+			}
+		}
+
+		void force() {
+			buffer.force();
+		}
+
+		void close() {
+			try {
+				channel.close();
+			} catch (IOException ex) {
+				/* the mapping stays valid until collected */
+			}
+		}
+	}
+
+}
@@ -4,7 +4,10 @@ import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
@@ -22,21 +25,27 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.mosip.kernel.core.authmanager.authadapter.model.AuthUserDetails;
 import io.mosip.kernel.core.logger.spi.Logger;
 import io.mosip.preregistration.booking.codes.RequestCodes;
 import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.AvailabilitySearchRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingDataByRegIdDto;
 import io.mosip.preregistration.booking.dto.BookingRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingStatus;
 import io.mosip.preregistration.booking.dto.BookingStatusDTO;
 import io.mosip.preregistration.booking.dto.DateTimeDto;
+import io.mosip.preregistration.booking.dto.FreeSlotDTO;
 import io.mosip.preregistration.booking.dto.MultiBookingRequest;
 import io.mosip.preregistration.booking.dto.MultiBookingRequestDTO;
+import io.mosip.preregistration.booking.dto.SlotHoldDTO;
 import io.mosip.preregistration.booking.dto.RegistrationCenterDto;
 import io.mosip.preregistration.booking.dto.SlotTimeDto;
 import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotHoldEntity;
 import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
 import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
 import io.mosip.preregistration.booking.exception.AvailablityNotFoundException;
@@ -44,8 +53,30 @@ import io.mosip.preregistration.booking.exception.DemographicGetStatusException;
 import io.mosip.preregistration.booking.exception.RecordNotFoundException;
 import io.mosip.preregistration.booking.exception.util.BookingExceptionCatcher;
 import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.ApplicationStatusResolver;
+import io.mosip.preregistration.booking.service.util.ApplicationStatusResolver.StatusLookup;
+import io.mosip.preregistration.booking.service.util.AvailabilityCache;
+import io.mosip.preregistration.booking.service.util.AvailabilityCoalescer;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache.AvailabilityPayload;
+import io.mosip.preregistration.booking.service.util.AvailabilitySearch;
+import io.mosip.preregistration.booking.service.util.AvailabilityStream;
+import io.mosip.preregistration.booking.service.util.AvailabilityWindowResolver;
+import io.mosip.preregistration.booking.service.util.BookedAppointmentExporter;
+import io.mosip.preregistration.booking.service.util.BookingAuditWriter;
 import io.mosip.preregistration.booking.service.util.BookingLock;
+import io.mosip.preregistration.booking.service.util.BookingLockManager;
+import io.mosip.preregistration.booking.service.util.BookingLockManager.SlotLockHandle;
+import io.mosip.preregistration.booking.service.util.BookingMetrics;
+import io.mosip.preregistration.booking.service.util.BookingMetrics.Phase;
 import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.booking.service.util.NextAvailableSlotIndex;
+import io.mosip.preregistration.booking.service.util.SlotCalendar;
+import io.mosip.preregistration.booking.service.util.SlotCalendar.FreeSlot;
+import io.mosip.preregistration.booking.service.util.SlotChangeNotifier;
+import io.mosip.preregistration.booking.service.util.SlotDemands;
+import io.mosip.preregistration.booking.service.util.SlotDemands.Demand;
+import io.mosip.preregistration.booking.service.util.SlotHoldManager;
 import io.mosip.preregistration.core.code.AuditLogVariables;
 import io.mosip.preregistration.core.code.EventId;
 import io.mosip.preregistration.core.code.EventName;
@@ -60,7 +91,7 @@ import io.mosip.preregistration.core.common.dto.MainResponseDTO;
 import io.mosip.preregistration.core.common.dto.PreRegIdsByRegCenterIdResponseDTO;
 import io.mosip.preregistration.core.common.entity.RegistrationBookingEntity;
 import io.mosip.preregistration.core.config.LoggerConfiguration;
-import io.mosip.preregistration.core.util.AuditLogUtil;
+import io.mosip.preregistration.core.exception.InvalidRequestParameterException;
 import io.mosip.preregistration.core.util.UUIDGeneratorUtil;
 import io.mosip.preregistration.core.util.ValidationUtil;
 
@@ -100,11 +131,82 @@ public class BookingService implements BookingServiceIntf {
 	@Value("${preregistration.booking.offset}")
 	int availabilityOffset;
 
+	/**
+	 * Reference for ${preregistration.availability.search.max-centers} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.search.max-centers:20}")
+	int availabilitySearchMaxCenters;
+
+	/**
+	 * Reference for ${preregistration.availability.search.max-days} from property
+	 * file
+	 */
+	@Value("${preregistration.availability.search.max-days:31}")
+	long availabilitySearchMaxDays;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.default-count} from
+	 * property file
+	 */
+	@Value("${preregistration.booking.next-available.default-count:5}")
+	int freeSlotDefaultCount;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.max-count} from
+	 * property file
+	 */
+	@Value("${preregistration.booking.next-available.max-count:50}")
+	int freeSlotMaxCount;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.max-search-centers}
+	 * from property file
+	 */
+	@Value("${preregistration.booking.next-available.max-search-centers:10}")
+	int freeSlotMaxCenters;
+
 	@Autowired
 	private BookingDAO bookingDAO;
 
 	@Autowired
-	private BookingLock bookingLock;
+	private BookingLockManager bookingLockManager;
+
+	@Autowired
+	private AvailabilityCache availabilityCache;
+
+	@Autowired
+	private ApplicationStatusResolver statusResolver;
+
+	@Autowired
+	private AvailabilityWindowResolver availabilityWindowResolver;
+
+	@Autowired
+	private AvailabilityCoalescer availabilityCoalescer;
+
+	@Autowired
+	private AvailabilityPayloadCache availabilityPayloadCache;
+
+	@Autowired
+	private AvailabilityStream availabilityStream;
+
+	@Autowired
+	private SlotHoldManager slotHoldManager;
+
+	@Autowired
+	private SlotChangeNotifier slotChangeNotifier;
+
+	@Autowired
+	private NextAvailableSlotIndex nextAvailableSlotIndex;
+
+	@Autowired
+	private AvailabilitySearch availabilitySearch;
+
+	@Autowired
+	private BookedAppointmentExporter bookedAppointmentExporter;
+
+	@Autowired
+	private BookingMetrics bookingMetrics;
 
 	@Value("${version}")
 	String versionUrl;
@@ -150,7 +252,7 @@ public class BookingService implements BookingServiceIntf {
 	private Logger log = LoggerConfiguration.logConfig(BookingService.class);
 
 	@Autowired
-	private AuditLogUtil auditLogUtil;
+	private BookingAuditWriter auditWriter;
 
 	public AuthUserDetails authUserDetails() {
 		return (AuthUserDetails) SecurityContextHolder.getContext().getAuthentication().getPrincipal();
@@ -174,32 +276,9 @@ public class BookingService implements BookingServiceIntf {
 		LocalDate fromDate = LocalDate.now().plusDays(availabilityOffset);
 		AvailabilityDto availability = new AvailabilityDto();
 		try {
-			if (serviceUtil.isValidRegCenter(regID)) {
-				int noOfHoliday = 0;
-				List<AvailibityEntity> availableEntity = bookingDAO.findAvailability(regID, fromDate, endDate);
-				List<DateTimeDto> dateTimeList = new ArrayList<>();
-				if (availableEntity == null) {
-					throw new RecordNotFoundException(ErrorCodes.PRG_BOOK_RCI_015.getCode(),
-							ErrorMessages.NO_TIME_SLOTS_ASSIGNED_TO_THAT_REG_CENTER.getMessage());
-				}
-
-				noOfHoliday = getSlot(dateTimeList, noOfHoliday, availableEntity);
-				while (noOfHoliday > 0) {
-					fromDate = endDate.plusDays(1);
-					endDate = endDate.plusDays(noOfHoliday);
-					availableEntity = bookingDAO.findAvailability(regID, fromDate, endDate);
-					if (availableEntity == null) {
-						log.info("sessionId", "idType", "id",
-								"There no slots available in case of holidays present in the given date range and no of Holidays is  "
-										+ noOfHoliday);
-						noOfHoliday = 0;
-					} else {
-						noOfHoliday = 0;
-						noOfHoliday = getSlot(dateTimeList, noOfHoliday, availableEntity);
-					}
-				}
-				availability.setCenterDetails(dateTimeList);
-				availability.setRegCenterId(regID);
+			SlotCalendar calendar = availabilityCalendar(regID, fromDate, endDate, false);
+			if (calendar != null) {
+				availability = calendar.toAvailability();
 				isSaveSuccess = true;
 			}
 		} catch (Exception ex) {
@@ -222,6 +301,348 @@ public class BookingService implements BookingServiceIntf {
 		return response;
 	}
 
+	/**
+	 * Returns the calendar of the display window of a center from the cache or,
+	 * on a miss, computes it once for all concurrent readers.
+	 * 
+	 * @param regID     registration center id
+	 * @param fromDate  first day of the display window
+	 * @param endDate   last day of the display window
+	 * @param validated true when the caller has validated the center already
+	 * @return calendar, or null for an invalid center
+	 */
+	private SlotCalendar availabilityCalendar(String regID, LocalDate fromDate, LocalDate endDate,
+			boolean validated) {
+		SlotCalendar calendar = availabilityCache.get(regID, fromDate);
+		if (calendar != null) {
+			return calendar;
+		}
+		/* concurrent readers of the same center share one computation */
+		return availabilityCoalescer.load(regID, fromDate, endDate, () -> {
+			if (!validated && !serviceUtil.isValidRegCenter(regID)) {
+				return null;
+			}
+			long version = availabilityCache.version(regID);
+			SlotCalendar resolved = availabilityWindowResolver.resolve(regID, fromDate, endDate);
+			availabilityCache.put(regID, fromDate, version, resolved);
+			return resolved;
+		});
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * searchAvailability(io.mosip.preregistration.core.common.dto.MainRequestDTO)
+	 */
+	@Override
+	public MainResponseDTO<List<AvailabilityDto>> searchAvailability(
+			MainRequestDTO<AvailabilitySearchRequestDTO> searchRequest) {
+		log.info("sessionId", "idType", "id", "In searchAvailability method of Booking Service");
+		MainResponseDTO<List<AvailabilityDto>> response = new MainResponseDTO<>();
+		response.setId(idUrlAvailability);
+		response.setVersion(versionUrl);
+		List<AvailabilityDto> availabilities = new ArrayList<>();
+		List<String> regCenterIds = null;
+		boolean isSaveSuccess = false;
+		try {
+			AvailabilitySearchRequestDTO search = searchRequest.getRequest();
+			regCenterIds = search == null ? null : search.getRegistrationCenterIds();
+			if (regCenterIds == null || regCenterIds.isEmpty() || regCenterIds.stream().anyMatch(serviceUtil::isNull)) {
+				throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_007.getCode(),
+						ErrorMessages.REGISTRATION_CENTER_ID_NOT_ENTERED.getMessage(), null);
+			}
+			LocalDate windowFrom = LocalDate.now().plusDays(availabilityOffset);
+			LocalDate windowEnd = LocalDate.now().plusDays(displayDays + availabilityOffset).minusDays(1);
+			LocalDate fromDate = null;
+			LocalDate toDate = null;
+			if (!serviceUtil.isNull(search.getFromDate())) {
+				serviceUtil.validateFromDateAndToDate(search.getFromDate(), search.getToDate(), "yyyy-MM-dd");
+				LocalDate requestedFrom = LocalDate.parse(search.getFromDate());
+				/* nothing before the booking offset can be booked */
+				fromDate = requestedFrom.isBefore(windowFrom) ? windowFrom : requestedFrom;
+				toDate = serviceUtil.isNull(search.getToDate()) ? fromDate.plusDays(displayDays - 1)
+						: LocalDate.parse(search.getToDate());
+			}
+			if (regCenterIds.stream().distinct().count() > availabilitySearchMaxCenters || (fromDate != null
+					&& ChronoUnit.DAYS.between(fromDate, toDate) >= availabilitySearchMaxDays)) {
+				throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_041.getCode(),
+						ErrorMessages.INVALID_AVAILABILITY_SEARCH.getMessage(), null);
+			}
+			availabilitySearch.validate(regCenterIds);
+			LocalDate from = fromDate;
+			LocalDate to = toDate;
+			Map<String, AvailabilityDto> found = availabilitySearch.search(regCenterIds, regID -> {
+				if (from == null) {
+					return availabilityCalendar(regID, windowFrom, windowEnd, true).toAvailability();
+				}
+				if (to.isBefore(from)) {
+					AvailabilityDto none = new AvailabilityDto();
+					none.setRegCenterId(regID);
+					none.setCenterDetails(new ArrayList<>());
+					return none;
+				}
+				if (!from.isAfter(windowEnd)) {
+					SlotCalendar calendar = availabilityCalendar(regID, windowFrom, windowEnd, true);
+					if (!to.isAfter(calendar.getLastDay())) {
+						return calendar.toAvailability(from, to);
+					}
+				}
+				return SlotCalendar.of(regID, from, to, bookingDAO.findSlotAvailability(regID, from, to))
+						.toAvailability();
+			});
+			availabilities.addAll(found.values());
+			isSaveSuccess = true;
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id",
+					"In searchAvailability method of Booking Service- " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, response);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_401.toString(), EventName.RETRIEVE.toString(), EventType.BUSINESS.toString(),
+						"Availability searched successfully for booking", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), String.join(",", regCenterIds));
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Availability search failed", AuditLogVariables.NO_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), null);
+			}
+		}
+		response.setResponsetime(serviceUtil.getCurrentResponseTime());
+		response.setResponse(availabilities);
+		return response;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * getAvailabilityPayload(java.lang.String)
+	 */
+	@Override
+	public AvailabilityPayload getAvailabilityPayload(String regID) {
+		LocalDate fromDate = LocalDate.now().plusDays(availabilityOffset);
+		/* read before computing, so that a change made meanwhile is not cached */
+		long version = availabilityPayloadCache.version(regID);
+		AvailabilityPayload payload = availabilityPayloadCache.get(regID, fromDate,
+				serviceUtil.getCurrentResponseTime());
+		if (payload != null) {
+			setAuditValues(EventId.PRE_401.toString(), EventName.RETRIEVE.toString(), EventType.BUSINESS.toString(),
+					"Availability retrieved successfully for booking", AuditLogVariables.MULTIPLE_ID.toString(),
+					authUserDetails().getUserId(), authUserDetails().getUsername(), regID);
+			return payload;
+		}
+		return availabilityPayloadCache.put(regID, fromDate, version, getAvailability(regID));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * getAvailabilityStream(java.lang.String)
+	 */
+	@Override
+	public SseEmitter getAvailabilityStream(String regID) {
+		log.info("sessionId", "idType", "id", "In getAvailabilityStream method of Booking Service");
+		MainResponseDTO<AvailabilityDto> response = new MainResponseDTO<>();
+		response.setId(idUrlAvailability);
+		response.setVersion(versionUrl);
+		SseEmitter emitter = null;
+		boolean isSaveSuccess = false;
+		try {
+			serviceUtil.isValidRegCenter(regID);
+			emitter = availabilityStream.subscribe(regID);
+			isSaveSuccess = true;
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id",
+					"In getAvailabilityStream method of Booking Service- " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, response);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_401.toString(), EventName.RETRIEVE.toString(), EventType.BUSINESS.toString(),
+						"Availability stream opened for booking", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), regID);
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Availability stream failed to open", AuditLogVariables.NO_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), regID);
+			}
+		}
+		return emitter;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * getEarliestFreeSlots(java.util.List, java.lang.Integer)
+	 */
+	@Override
+	public MainResponseDTO<List<FreeSlotDTO>> getEarliestFreeSlots(List<String> regCenterIds, Integer count) {
+		log.info("sessionId", "idType", "id", "In getEarliestFreeSlots method of Booking Service");
+		MainResponseDTO<List<FreeSlotDTO>> response = new MainResponseDTO<>();
+		response.setId(idUrlAvailability);
+		response.setVersion(versionUrl);
+		List<FreeSlotDTO> freeSlots = new ArrayList<>();
+		boolean isSaveSuccess = false;
+		try {
+			if (regCenterIds == null || regCenterIds.isEmpty() || regCenterIds.stream().anyMatch(serviceUtil::isNull)) {
+				throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_007.getCode(),
+						ErrorMessages.REGISTRATION_CENTER_ID_NOT_ENTERED.getMessage(), null);
+			}
+			int limit = count == null ? freeSlotDefaultCount : count;
+			if (limit <= 0 || limit > freeSlotMaxCount || regCenterIds.size() > freeSlotMaxCenters) {
+				throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_040.getCode(),
+						ErrorMessages.INVALID_FREE_SLOT_SEARCH.getMessage(), null);
+			}
+			availabilitySearch.validate(regCenterIds);
+			LocalDate fromDate = LocalDate.now().plusDays(availabilityOffset);
+			for (Entry<String, List<FreeSlot>> center : nextAvailableSlotIndex
+					.earliest(regCenterIds, fromDate, limit).entrySet()) {
+				for (FreeSlot slot : center.getValue()) {
+					freeSlots.add(freeSlotSetter(center.getKey(), slot));
+				}
+			}
+			/* earliest first over all centers, ties in request order */
+			freeSlots.sort(Comparator.comparing(FreeSlotDTO::getRegDate).thenComparing(FreeSlotDTO::getSlotFromTime));
+			if (freeSlots.size() > limit) {
+				freeSlots = new ArrayList<>(freeSlots.subList(0, limit));
+			}
+			isSaveSuccess = true;
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id",
+					"In getEarliestFreeSlots method of Booking Service- " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, response);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_401.toString(), EventName.RETRIEVE.toString(), EventType.BUSINESS.toString(),
+						"Earliest free slots retrieved successfully for booking", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), String.join(",", regCenterIds));
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Earliest free slots failed to get", AuditLogVariables.NO_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), null);
+			}
+		}
+		response.setResponsetime(serviceUtil.getCurrentResponseTime());
+		response.setResponse(freeSlots);
+		return response;
+	}
+
+	private static FreeSlotDTO freeSlotSetter(String regCenterId, FreeSlot slot) {
+		FreeSlotDTO freeSlot = new FreeSlotDTO();
+		freeSlot.setRegistrationCenterId(regCenterId);
+		freeSlot.setRegDate(slot.getDate().toString());
+		freeSlot.setSlotFromTime(slot.getFromTime().toString());
+		freeSlot.setSlotToTime(slot.getToTime().toString());
+		freeSlot.setAvailability(slot.getFreeKiosks());
+		return freeSlot;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * holdSlot(io.mosip.preregistration.core.common.dto.MainRequestDTO)
+	 */
+	@Override
+	public MainResponseDTO<SlotHoldDTO> holdSlot(MainRequestDTO<BookingRequestDTO> holdRequestDTO) {
+		log.info("sessionId", "idType", "id", "In holdSlot method of Booking Service");
+		MainResponseDTO<SlotHoldDTO> responseDTO = new MainResponseDTO<>();
+		responseDTO.setId(idUrlBookAppointment);
+		responseDTO.setVersion(versionUrl);
+		boolean isSaveSuccess = false;
+		SlotHoldDTO response = null;
+		BookingRequestDTO bookingRequestDTO = holdRequestDTO.getRequest();
+		try {
+			String userId = authUserDetails().getUserId();
+			Map<String, String> dateMap = new HashMap<>();
+			dateMap.put(RequestCodes.REG_DATE.getCode(), bookingRequestDTO.getRegDate());
+			dateMap.put(RequestCodes.FROM_SLOT_TIME.getCode(), bookingRequestDTO.getSlotFromTime());
+			if (serviceUtil.mandatoryParameterCheck(userId, bookingRequestDTO)
+					&& serviceUtil.slotTimeValidCheck(userId, bookingRequestDTO)
+					&& serviceUtil.validateAppointmentDate(dateMap)
+					&& serviceUtil.isValidRegCenter(bookingRequestDTO.getRegistrationCenterId())) {
+				response = slotHoldSetter(slotHoldManager.hold(userId, bookingRequestDTO.getRegistrationCenterId(),
+						LocalDate.parse(bookingRequestDTO.getRegDate()),
+						LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
+						LocalTime.parse(bookingRequestDTO.getSlotToTime())));
+			}
+			isSaveSuccess = true;
+			bookingMetrics.outcome("hold", null);
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id", "In holdSlot method of Booking Service- " + ex.getMessage());
+			bookingMetrics.outcome("hold", ex);
+			new BookingExceptionCatcher().handle(ex, responseDTO);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_407.toString(), EventName.PERSIST.toString(), EventType.BUSINESS.toString(),
+						"Slot held successfully", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(),
+						bookingRequestDTO.getRegistrationCenterId());
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Slot failed to hold", AuditLogVariables.NO_ID.toString(), authUserDetails().getUserId(),
+						authUserDetails().getUsername(), bookingRequestDTO.getRegistrationCenterId());
+			}
+		}
+		responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
+		responseDTO.setResponse(response);
+		return responseDTO;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * releaseSlotHold(java.lang.String)
+	 */
+	@Override
+	public MainResponseDTO<SlotHoldDTO> releaseSlotHold(String holdToken) {
+		log.info("sessionId", "idType", "id", "In releaseSlotHold method of Booking Service");
+		MainResponseDTO<SlotHoldDTO> responseDTO = new MainResponseDTO<>();
+		responseDTO.setId(idUrlCancel);
+		responseDTO.setVersion(versionUrl);
+		boolean isSaveSuccess = false;
+		SlotHoldDTO response = null;
+		try {
+			response = slotHoldSetter(slotHoldManager.release(holdToken, authUserDetails().getUserId()));
+			isSaveSuccess = true;
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id", "In releaseSlotHold method of Booking Service- " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, responseDTO);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_402.toString(), EventName.UPDATE.toString(), EventType.BUSINESS.toString(),
+						"Slot hold released successfully", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), null);
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Slot hold failed to release", AuditLogVariables.NO_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(), null);
+			}
+		}
+		responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
+		responseDTO.setResponse(response);
+		return responseDTO;
+	}
+
+	private static SlotHoldDTO slotHoldSetter(SlotHoldEntity hold) {
+		SlotHoldDTO slotHold = new SlotHoldDTO();
+		slotHold.setHoldToken(hold.getHoldId());
+		slotHold.setRegistrationCenterId(hold.getRegcntrId());
+		slotHold.setRegDate(hold.getRegDate().toString());
+		slotHold.setSlotFromTime(hold.getFromTime().toString());
+		slotHold.setSlotToTime(hold.getToTime().toString());
+		slotHold.setExpiresAt(hold.getExpiresDate().toString());
+		return slotHold;
+	}
+
 	/**
 	 * Retrieve number of holidays based on date Time, number of holidays and
 	 * available slots
@@ -254,269 +675,355 @@ public class BookingService implements BookingServiceIntf {
 	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
 	public MainResponseDTO<BookingStatusDTO> bookAppointment(MainRequestDTO<BookingRequestDTO> bookingRequestDTOs,
 			String preRegistrationId) {
-		bookingLock.setDate(bookingRequestDTOs.getRequest().getRegDate());
-		bookingLock.setRegistrationCenter(bookingRequestDTOs.getRequest().getRegDate());
-		bookingLock.setTimeslot(bookingRequestDTOs.getRequest().getSlotFromTime());
 		log.info("sessionId", "idType", "id", "In bookAppointment method of Booking Service");
 		MainResponseDTO<BookingStatusDTO> responseDTO = new MainResponseDTO<>();
 		responseDTO.setId(idUrlBookAppointment);
 		responseDTO.setVersion(versionUrl);
 		boolean isSaveSuccess = false;
-		synchronized (bookingLock) {
+		BookingStatusDTO response = new BookingStatusDTO();
+		try {
 
-			log.info("Sync block :", preRegistrationId, " Start", "");
+			BookingRequestDTO bookingRequestDTO = bookingRequestDTOs.getRequest();
+			Map<String, String> dateMap = new HashMap<>();
+			dateMap.put(RequestCodes.REG_DATE.getCode(), bookingRequestDTO.getRegDate());
+			dateMap.put(RequestCodes.FROM_SLOT_TIME.getCode(), bookingRequestDTO.getSlotFromTime());
+			dateMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), preRegistrationId);
+			if (serviceUtil.validateAppointmentDate(dateMap)) {
+				/* Getting Status From Demographic */
+				String preRegStatusCode = bookingMetrics.time(Phase.STATUS_CALL,
+						() -> serviceUtil.getApplicationBookingStatus(preRegistrationId));
+				log.info("preRegStatusCode : {}", preRegStatusCode);
+
+				checkBookableStatus(preRegStatusCode);
+
+				if (serviceUtil.mandatoryParameterCheck(preRegistrationId, bookingRequestDTO)
+						&& serviceUtil.slotTimeValidCheck(preRegistrationId, bookingRequestDTO)) {
+					BookingStatusDTO status = bookForStatus(preRegistrationId, bookingRequestDTO, preRegStatusCode,
+							bookingRequestDTOs.getRequesttime());
+					if (status != null) {
+						response = status;
+					}
+				}
+
+			}
+			isSaveSuccess = true;
+			bookingMetrics.outcome("book", null);
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id", "In bookAppointment method of Booking Service- " + ex.getMessage());
+			bookingMetrics.outcome("book", ex);
+			new BookingExceptionCatcher().handle(ex, responseDTO);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_407.toString(), EventName.PERSIST.toString(), EventType.BUSINESS.toString(),
+						"Appointment booked successfully", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(),
+						bookingRequestDTOs.getRequest().getRegistrationCenterId());
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Appointment failed to book", AuditLogVariables.NO_ID.toString(), authUserDetails().getUserId(),
+						authUserDetails().getUsername(), bookingRequestDTOs.getRequest().getRegistrationCenterId());
+			}
+		}
+		responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
+		responseDTO.setResponse(response);
+		return responseDTO;
+	}
 
-			BookingStatusDTO response = new BookingStatusDTO();
-			try {
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
+	 * bookMultiAppointment(io.mosip.preregistration.core.common.dto.MainRequestDTO)
+	 */
+	@Override
+	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
+	public MainResponseDTO<BookingStatus> bookMultiAppointment(MainRequestDTO<MultiBookingRequest> bookingRequestDTOs) {
 
-				BookingRequestDTO bookingRequestDTO = bookingRequestDTOs.getRequest();
+		log.info("sessionId", "idType", "id", "In bookMultiAppointment method of Booking Service");
+		MainResponseDTO<BookingStatus> responseDTO = new MainResponseDTO<>();
+		BookingStatus response = new BookingStatus();
+		responseDTO.setId(idUrlBookAppointment);
+		responseDTO.setVersion(versionUrl);
+		boolean isSaveSuccess = false;
+		List<BookingStatusDTO> respList = new ArrayList<>();
+		try {
+			/* Getting Status From Demographic for all applications before booking any slot */
+			List<String> preRegistrationIds = bookingRequestDTOs.getRequest().getBookingRequest().stream()
+					.map(MultiBookingRequestDTO::getPreRegistrationId).collect(Collectors.toList());
+			Map<String, StatusLookup> statuses = bookingMetrics.time(Phase.STATUS_CALL,
+					() -> statusResolver.resolve(preRegistrationIds));
+			List<String> bookingIds = new ArrayList<>();
+			List<BookingRequestDTO> bookingRequests = new ArrayList<>();
+			List<String> bookingStatusCodes = new ArrayList<>();
+			for (MultiBookingRequestDTO bookingRequestDTO : bookingRequestDTOs.getRequest().getBookingRequest()) {
 				Map<String, String> dateMap = new HashMap<>();
 				dateMap.put(RequestCodes.REG_DATE.getCode(), bookingRequestDTO.getRegDate());
 				dateMap.put(RequestCodes.FROM_SLOT_TIME.getCode(), bookingRequestDTO.getSlotFromTime());
-				dateMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), preRegistrationId);
+				dateMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), bookingRequestDTO.getPreRegistrationId());
 				if (serviceUtil.validateAppointmentDate(dateMap)) {
-					/* Getting Status From Demographic */
-					String preRegStatusCode = serviceUtil.getApplicationBookingStatus(preRegistrationId);
-					log.info("preRegStatusCode : {}", preRegStatusCode);
-
-					if (preRegStatusCode.equals(StatusCodes.APPLICATION_INCOMPLETE.getCode())
-							|| preRegStatusCode.equals(StatusCodes.PREFETCHED.getCode())) {
-
-						if (preRegStatusCode.equals(StatusCodes.APPLICATION_INCOMPLETE.getCode())) {
-							throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
-									ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_INCOMPLETE_APPLICATION.getMessage());
-						} else {
-							throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
-									ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_PREFETCHED_APPLICATION.getMessage());
-						}
-
+					String preRegStatusCode = statuses.get(bookingRequestDTO.getPreRegistrationId()).get();
+					log.debug("preRegStatusCode" + preRegStatusCode);
+
+					checkBookableStatus(preRegStatusCode);
+
+					// Taking one booking request from multiple
+					BookingRequestDTO bookingRequest = new BookingRequestDTO();
+					bookingRequest.setRegDate(bookingRequestDTO.getRegDate());
+					bookingRequest.setRegistrationCenterId(bookingRequestDTO.getRegistrationCenterId());
+					bookingRequest.setSlotFromTime(bookingRequestDTO.getSlotFromTime());
+					bookingRequest.setSlotToTime(bookingRequestDTO.getSlotToTime());
+					bookingRequest.setHoldToken(bookingRequestDTO.getHoldToken());
+
+					if (serviceUtil.mandatoryParameterCheck(bookingRequestDTO.getPreRegistrationId(), bookingRequest)
+							&& serviceUtil.slotTimeValidCheck(bookingRequestDTO.getPreRegistrationId(),
+									bookingRequest)
+							&& isBookableStatus(preRegStatusCode)) {
+						bookingIds.add(bookingRequestDTO.getPreRegistrationId());
+						bookingRequests.add(bookingRequest);
+						bookingStatusCodes.add(preRegStatusCode);
 					}
+				}
+			}
+			respList.addAll(bookAll(bookingIds, bookingRequests, bookingStatusCodes,
+					bookingRequestDTOs.getRequesttime()));
+			isSaveSuccess = true;
+			bookingMetrics.outcome("multi_book", null);
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id",
+					"In bookMultiAppointment method of Booking Service- " + ex.getMessage());
+			bookingMetrics.outcome("multi_book", ex);
+			new BookingExceptionCatcher().handle(ex, responseDTO);
+		} finally {
+			if (isSaveSuccess) {
+				setAuditValues(EventId.PRE_407.toString(), EventName.PERSIST.toString(), EventType.BUSINESS.toString(),
+						"Appointment booked successfully", AuditLogVariables.MULTIPLE_ID.toString(),
+						authUserDetails().getUserId(), authUserDetails().getUsername(),
+						bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegistrationCenterId());
+			} else {
+				setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(), EventType.SYSTEM.toString(),
+						"Appointment failed to book", AuditLogVariables.NO_ID.toString(), authUserDetails().getUserId(),
+						authUserDetails().getUsername(),
+						bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegistrationCenterId());
+			}
+		}
+		responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
+		response.setBookingStatusResponse(respList);
+		responseDTO.setResponse(response);
+		return responseDTO;
+	}
 
-					if (serviceUtil.mandatoryParameterCheck(preRegistrationId, bookingRequestDTO)
-							&& serviceUtil.slotTimeValidCheck(preRegistrationId, bookingRequestDTO)) {
-
-						/* Checking the availability of slots */
-						checkSlotAvailability(bookingRequestDTO);
-
-						if (preRegStatusCode.equals(StatusCodes.PENDING_APPOINTMENT.getCode())
-								|| preRegStatusCode.equals(StatusCodes.CANCELLED.getCode())) {
-
-							/* Creating new booking */
-							response = book(preRegistrationId, bookingRequestDTO);
-
-						} else if (preRegStatusCode.equals(StatusCodes.BOOKED.getCode())) {
+	/**
+	 * Books the applications of a family booking together. Every slot they take
+	 * a kiosk from or give one back to is locked at once and updated once, by
+	 * the net number of kiosks, in lock order; the booking rows are written
+	 * afterwards. Entries for the same slot therefore cost one slot update
+	 * however many there are, and family bookings neither deadlock with other
+	 * bookings nor hold the slot locks of one entry while waiting for the next.
+	 * Holds are confirmed before the locks are chosen, so that the slot of a
+	 * missed hold is checked and locked like any other.
+	 * 
+	 * @param preRegistrationIds pre-registration ids
+	 * @param bookingRequests    requested slot of each application
+	 * @param preRegStatusCodes  application status of each application
+	 * @param requestTime        request time used for the re-book time span check
+	 * @return booking status of each application
+	 */
+	private List<BookingStatusDTO> bookAll(List<String> preRegistrationIds, List<BookingRequestDTO> bookingRequests,
+			List<String> preRegStatusCodes, Date requestTime) {
+		SlotDemands demands = new SlotDemands();
+		List<RegistrationBookingEntity> oldBookings = new ArrayList<>(bookingRequests.size());
+		for (int i = 0; i < bookingRequests.size(); i++) {
+			BookingRequestDTO bookingRequestDTO = bookingRequests.get(i);
+			/*
+			 * A consumed hold already took its kiosk from the slot; a missed hold
+			 * competes for the remaining kiosks like the single booking does
+			 */
+			if (!confirmHold(preRegistrationIds.get(i), bookingRequestDTO)
+					&& take(demands, bookingRequestDTO) == 1) {
+				/* Checking the availability of each slot once */
+				bookingMetrics.time(Phase.SLOT_CHECK, () -> checkSlotAvailability(bookingRequestDTO));
+			}
+			RegistrationBookingEntity oldBooking = null;
+			if (preRegStatusCodes.get(i).equals(StatusCodes.BOOKED.getCode())) {
+				oldBooking = bookingDAO.findByPreRegistrationId(preRegistrationIds.get(i));
+				/* Time span check for re-book */
+				serviceUtil.timeSpanCheckForRebook(LocalDateTime.of(oldBooking.getRegDate(),
+						oldBooking.getSlotFromTime()), requestTime);
+				demands.giveBack(oldBooking.getRegistrationCenterId(), oldBooking.getRegDate(),
+						oldBooking.getSlotFromTime(), oldBooking.getSlotToTime());
+			}
+			oldBookings.add(oldBooking);
+		}
 
-							/* Concatenating Booking date and slot from time */
-							RegistrationBookingEntity bookingEntity = bookingDAO
-									.findByPreRegistrationId(preRegistrationId);
+		List<BookingStatusDTO> statuses = new ArrayList<>(bookingRequests.size());
+		try (SlotLockHandle handle = bookingLockManager.acquireAll(demands.locks())) {
+			bookingMetrics.time(Phase.RESERVATION, () -> {
+				for (Demand demand : demands.demands()) {
+					if (demand.getDelta() < 0) {
+						bookingDAO.reserveSlots(demand.getRegDate(), demand.getRegistrationCenterId(),
+								demand.getFromTime(), demand.getToTime(), -demand.getDelta());
+					} else if (demand.getDelta() > 0) {
+						bookingDAO.releaseSlots(demand.getRegDate(), demand.getRegistrationCenterId(),
+								demand.getFromTime(), demand.getToTime(), demand.getDelta());
+					}
+				}
+				for (int i = 0; i < bookingRequests.size(); i++) {
+					saveBooking(preRegistrationIds.get(i), bookingRequests.get(i), preRegStatusCodes.get(i),
+							oldBookings.get(i));
+				}
+			});
+		}
+		for (Demand demand : demands.demands()) {
+			if (demand.getDelta() != 0) {
+				slotChangeNotifier.slotChanged(demand.getRegistrationCenterId(), demand.getRegDate(),
+						demand.getFromTime(), demand.getToTime());
+			}
+		}
+		for (BookingRequestDTO bookingRequestDTO : bookingRequests) {
+			bookingMetrics.booked(bookingRequestDTO.getRegistrationCenterId());
+			BookingStatusDTO bookingStatusDTO = new BookingStatusDTO();
+			bookingStatusDTO.setBookingMessage("Appointment booked successfully");
+			statuses.add(bookingStatusDTO);
+		}
+		return statuses;
+	}
 
-							System.out.println("Booking Entity " + bookingEntity);
+	private static int take(SlotDemands demands, BookingRequestDTO bookingRequestDTO) {
+		return demands.take(bookingRequestDTO.getRegistrationCenterId(),
+				LocalDate.parse(bookingRequestDTO.getRegDate()), LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
+				LocalTime.parse(bookingRequestDTO.getSlotToTime()));
+	}
 
-							BookingRequestDTO oldBooking = new BookingRequestDTO();
-							oldBooking.setRegDate(bookingEntity.getRegDate().toString());
-							oldBooking.setRegistrationCenterId(bookingEntity.getRegistrationCenterId());
-							oldBooking.setSlotFromTime(bookingEntity.getSlotFromTime().toString());
-							oldBooking.setSlotToTime(bookingEntity.getSlotToTime().toString());
+	/**
+	 * Writes the booking row of one application of a family booking; its slot
+	 * counters are already updated.
+	 * 
+	 * @param preRegistrationId pre-registration id
+	 * @param bookingRequestDTO requested slot
+	 * @param preRegStatusCode  application status
+	 * @param oldBooking        current booking of a booked application
+	 */
+	private void saveBooking(String preRegistrationId, BookingRequestDTO bookingRequestDTO, String preRegStatusCode,
+			RegistrationBookingEntity oldBooking) {
+		if (oldBooking != null) {
+			bookingDAO.moveBooking(oldBooking, LocalDate.parse(bookingRequestDTO.getRegDate()),
+					bookingRequestDTO.getRegistrationCenterId(), LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
+					LocalTime.parse(bookingRequestDTO.getSlotToTime()));
+			return;
+		}
+		if (preRegStatusCode.equals(StatusCodes.EXPIRED.getCode())) {
+			/* Deleting old booking */
+			deleteOldBooking(preRegistrationId);
+		}
+		bookingDAO.saveRegistrationEntityForBooking(
+				serviceUtil.bookingEntitySetter(preRegistrationId, bookingRequestDTO));
+	}
 
-							String str = bookingEntity.getRegDate() + " " + bookingEntity.getSlotFromTime();
-							DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-							LocalDateTime bookedDateTime = LocalDateTime.parse(str, formatter);
+	/**
+	 * @param preRegStatusCode application status from demographic
+	 * @return true when the application can be booked, re-booked or replace an
+	 *         expired booking
+	 */
+	private static boolean isBookableStatus(String preRegStatusCode) {
+		return preRegStatusCode.equals(StatusCodes.PENDING_APPOINTMENT.getCode())
+				|| preRegStatusCode.equals(StatusCodes.CANCELLED.getCode())
+				|| preRegStatusCode.equals(StatusCodes.BOOKED.getCode())
+				|| preRegStatusCode.equals(StatusCodes.EXPIRED.getCode());
+	}
 
-							log.info("sessionId", "idType", "id",
-									"In bookAppointment method of Booking Service for booking Date Time- "
-											+ bookedDateTime);
-							/* Time span check for re-book */
-							serviceUtil.timeSpanCheckForRebook(bookedDateTime, bookingRequestDTOs.getRequesttime());
+	/**
+	 * Rejects applications which are not in a bookable state.
+	 * 
+	 * @param preRegStatusCode application status from demographic
+	 */
+	private void checkBookableStatus(String preRegStatusCode) {
+		if (preRegStatusCode.equals(StatusCodes.APPLICATION_INCOMPLETE.getCode())) {
+			throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
+					ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_INCOMPLETE_APPLICATION.getMessage());
+		} else if (preRegStatusCode.equals(StatusCodes.PREFETCHED.getCode())) {
+			throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
+					ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_PREFETCHED_APPLICATION.getMessage());
+		}
+	}
 
-							/* Deleting old booking */
-							deleteOldBooking(preRegistrationId);
+	/**
+	 * Books, re-books or replaces an expired booking depending on the application
+	 * status. Only the slot mutations run under the slot locks; the status and
+	 * master data lookups happen before them.
+	 * 
+	 * @param preRegistrationId pre-registration id
+	 * @param bookingRequestDTO requested slot
+	 * @param preRegStatusCode  application status from demographic
+	 * @param requestTime       request time used for the re-book time span check
+	 * @return booking status, or null when the status does not allow booking
+	 */
+	private BookingStatusDTO bookForStatus(String preRegistrationId, BookingRequestDTO bookingRequestDTO,
+			String preRegStatusCode, Date requestTime) {
+
+		List<BookingLock> slots = new ArrayList<>();
+		/*
+		 * A consumed hold already took its kiosk from the slot, so the slot is
+		 * neither checked nor locked; a missed hold books like a request without one
+		 */
+		boolean held = isBookableStatus(preRegStatusCode) && confirmHold(preRegistrationId, bookingRequestDTO);
+		if (!held) {
+			/* Checking the availability of slots */
+			bookingMetrics.time(Phase.SLOT_CHECK, () -> checkSlotAvailability(bookingRequestDTO));
+
+			slots.add(new BookingLock(bookingRequestDTO.getRegistrationCenterId(), bookingRequestDTO.getRegDate(),
+					bookingRequestDTO.getSlotFromTime()));
+		}
+		BookingRequestDTO oldBooking = null;
+		RegistrationBookingEntity bookingEntity = null;
+		if (preRegStatusCode.equals(StatusCodes.BOOKED.getCode())) {
+
+			/* Concatenating Booking date and slot from time */
+			bookingEntity = bookingDAO.findByPreRegistrationId(preRegistrationId);
+			oldBooking = new BookingRequestDTO();
+			oldBooking.setRegDate(bookingEntity.getRegDate().toString());
+			oldBooking.setRegistrationCenterId(bookingEntity.getRegistrationCenterId());
+			oldBooking.setSlotFromTime(bookingEntity.getSlotFromTime().toString());
+			oldBooking.setSlotToTime(bookingEntity.getSlotToTime().toString());
+
+			String str = bookingEntity.getRegDate() + " " + bookingEntity.getSlotFromTime();
+			DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+			LocalDateTime bookedDateTime = LocalDateTime.parse(str, formatter);
+
+			log.info("sessionId", "idType", "id",
+					"In bookAppointment method of Booking Service for booking Date Time- " + bookedDateTime);
+			/* Time span check for re-book */
+			serviceUtil.timeSpanCheckForRebook(bookedDateTime, requestTime);
+
+			slots.add(new BookingLock(oldBooking.getRegistrationCenterId(), oldBooking.getRegDate(),
+					oldBooking.getSlotFromTime()));
+		}
 
-							/* Increase availability */
-							increaseAvailability(oldBooking);
+		try (SlotLockHandle handle = bookingLockManager.acquireAll(slots)) {
+			log.info("Sync block :", preRegistrationId, " Start", "");
+			if (preRegStatusCode.equals(StatusCodes.PENDING_APPOINTMENT.getCode())
+					|| preRegStatusCode.equals(StatusCodes.CANCELLED.getCode())) {
 
-							/* Creating new booking */
-							response = book(preRegistrationId, bookingRequestDTO);
+				/* Creating new booking */
+				return book(preRegistrationId, bookingRequestDTO, held);
 
-						} else if (preRegStatusCode.equals(StatusCodes.EXPIRED.getCode())) {
+			} else if (oldBooking != null) {
 
-							/* Deleting old booking */
-							deleteOldBooking(preRegistrationId);
+				/* Moving the booking to the new slot */
+				return rebook(preRegistrationId, bookingEntity, bookingRequestDTO, held);
 
-							/* Creating new booking */
-							response = book(preRegistrationId, bookingRequestDTO);
-						}
+			} else if (preRegStatusCode.equals(StatusCodes.EXPIRED.getCode())) {
 
-					}
+				/* Deleting old booking */
+				deleteOldBooking(preRegistrationId);
 
-				}
-				isSaveSuccess = true;
-			} catch (Exception ex) {
-				log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
-				log.error("sessionId", "idType", "id",
-						"In bookAppointment method of Booking Service- " + ex.getMessage());
-				new BookingExceptionCatcher().handle(ex, responseDTO);
-			} finally {
-				if (isSaveSuccess) {
-					setAuditValues(EventId.PRE_407.toString(), EventName.PERSIST.toString(),
-							EventType.BUSINESS.toString(), "Appointment booked successfully",
-							AuditLogVariables.MULTIPLE_ID.toString(), authUserDetails().getUserId(),
-							authUserDetails().getUsername(), bookingRequestDTOs.getRequest().getRegistrationCenterId());
-				} else {
-					setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(),
-							EventType.SYSTEM.toString(), "Appointment failed to book",
-							AuditLogVariables.NO_ID.toString(), authUserDetails().getUserId(),
-							authUserDetails().getUsername(), bookingRequestDTOs.getRequest().getRegistrationCenterId());
-				}
+				/* Creating new booking */
+				return book(preRegistrationId, bookingRequestDTO, held);
 			}
-			responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
-			responseDTO.setResponse(response);
+			return null;
+		} finally {
 			log.info("Sync block :", preRegistrationId, " End", "");
-			return responseDTO;
-		}
-	}
-
-	/*
-	 * (non-Javadoc)
-	 * 
-	 * @see io.mosip.preregistration.booking.serviceimpl.service.BookingServiceIntf#
-	 * bookMultiAppointment(io.mosip.preregistration.core.common.dto.MainRequestDTO)
-	 */
-	@Override
-	@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
-	public MainResponseDTO<BookingStatus> bookMultiAppointment(MainRequestDTO<MultiBookingRequest> bookingRequestDTOs) {
-
-		log.info("sessionId", "idType", "id", "In bookMultiAppointment method of Booking Service");
-
-		bookingLock.setDate(bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegDate());
-		bookingLock.setRegistrationCenter(bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegDate());
-		bookingLock.setTimeslot(bookingRequestDTOs.getRequest().getBookingRequest().get(0).getSlotFromTime());
-
-		synchronized (bookingLock) {
-			log.info("Sync block :", bookingRequestDTOs.getRequest().getBookingRequest().get(0).getPreRegistrationId(),
-					" Start", "");
-			MainResponseDTO<BookingStatus> responseDTO = new MainResponseDTO<>();
-			BookingStatus response = new BookingStatus();
-			responseDTO.setId(idUrlBookAppointment);
-			responseDTO.setVersion(versionUrl);
-			boolean isSaveSuccess = false;
-			List<BookingStatusDTO> respList = new ArrayList<>();
-			try {
-				for (MultiBookingRequestDTO bookingRequestDTO : bookingRequestDTOs.getRequest().getBookingRequest()) {
-					Map<String, String> dateMap = new HashMap<>();
-					dateMap.put(RequestCodes.REG_DATE.getCode(), bookingRequestDTO.getRegDate());
-					dateMap.put(RequestCodes.FROM_SLOT_TIME.getCode(), bookingRequestDTO.getSlotFromTime());
-					dateMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), bookingRequestDTO.getPreRegistrationId());
-					if (serviceUtil.validateAppointmentDate(dateMap)) {
-						/* Getting Status From Demographic */
-						String preRegStatusCode = serviceUtil
-								.getApplicationBookingStatus(bookingRequestDTO.getPreRegistrationId());
-						log.debug("preRegStatusCode" + preRegStatusCode);
-
-						if (preRegStatusCode.equals(StatusCodes.APPLICATION_INCOMPLETE.getCode())
-								|| preRegStatusCode.equals(StatusCodes.PREFETCHED.getCode())) {
-
-							if (preRegStatusCode.equals(StatusCodes.APPLICATION_INCOMPLETE.getCode())) {
-								throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
-										ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_INCOMPLETE_APPLICATION
-												.getMessage());
-							} else {
-								throw new DemographicGetStatusException(ErrorCodes.PRG_BOOK_RCI_036.getCode(),
-										ErrorMessages.APPOINTMENT_CANNOT_BE_BOOKED_FOR_PREFETCHED_APPLICATION
-												.getMessage());
-							}
-
-						}
-
-						// Taking one booking request from multiple
-						BookingRequestDTO bookingRequest = new BookingRequestDTO();
-						bookingRequest.setRegDate(bookingRequestDTO.getRegDate());
-						bookingRequest.setRegistrationCenterId(bookingRequestDTO.getRegistrationCenterId());
-						bookingRequest.setSlotFromTime(bookingRequestDTO.getSlotFromTime());
-						bookingRequest.setSlotToTime(bookingRequestDTO.getSlotToTime());
-
-						if (serviceUtil.mandatoryParameterCheck(bookingRequestDTO.getPreRegistrationId(),
-								bookingRequest)
-								&& serviceUtil.slotTimeValidCheck(bookingRequestDTO.getPreRegistrationId(),
-										bookingRequest)) {
-
-							/* Checking the availability of slots */
-							checkSlotAvailability(bookingRequest);
-
-							if (preRegStatusCode.equals(StatusCodes.PENDING_APPOINTMENT.getCode())
-									|| preRegStatusCode.equals(StatusCodes.CANCELLED.getCode())) {
-
-								/* Creating new booking */
-								respList.add(book(bookingRequestDTO.getPreRegistrationId(), bookingRequest));
-
-							} else if (preRegStatusCode.equals(StatusCodes.BOOKED.getCode())) {
-
-								/* Concatenating Booking date and slot from time */
-								RegistrationBookingEntity bookingEntity = bookingDAO
-										.findByPreRegistrationId(bookingRequestDTO.getPreRegistrationId());
-								BookingRequestDTO oldBooking = new BookingRequestDTO();
-								oldBooking.setRegDate(bookingEntity.getRegDate().toString());
-								oldBooking.setRegistrationCenterId(bookingEntity.getRegistrationCenterId());
-								oldBooking.setSlotFromTime(bookingEntity.getSlotFromTime().toString());
-								oldBooking.setSlotToTime(bookingEntity.getSlotToTime().toString());
-
-								String str = bookingEntity.getRegDate() + " " + bookingEntity.getSlotFromTime();
-								DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-								LocalDateTime bookedDateTime = LocalDateTime.parse(str, formatter);
-
-								log.info("sessionId", "idType", "id",
-										"In bookMultiAppointment method of Booking Service for booking Date Time- "
-												+ bookedDateTime);
-								/* Time span check for re-book */
-								serviceUtil.timeSpanCheckForRebook(bookedDateTime, bookingRequestDTOs.getRequesttime());
-
-								/* Deleting old booking */
-								deleteOldBooking(bookingRequestDTO.getPreRegistrationId());
-
-								/* Increase availability */
-								increaseAvailability(oldBooking);
-
-								/* Creating new booking */
-								respList.add(book(bookingRequestDTO.getPreRegistrationId(), bookingRequest));
-
-							} else if (preRegStatusCode.equals(StatusCodes.EXPIRED.getCode())) {
-
-								/* Deleting old booking */
-								deleteOldBooking(bookingRequestDTO.getPreRegistrationId());
-
-								/* Creating new booking */
-								respList.add(book(bookingRequestDTO.getPreRegistrationId(), bookingRequest));
-							}
-
-						}
-					}
-				}
-				isSaveSuccess = true;
-			} catch (Exception ex) {
-				log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
-				log.error("sessionId", "idType", "id",
-						"In bookMultiAppointment method of Booking Service- " + ex.getMessage());
-				new BookingExceptionCatcher().handle(ex, responseDTO);
-			} finally {
-				if (isSaveSuccess) {
-					setAuditValues(EventId.PRE_407.toString(), EventName.PERSIST.toString(),
-							EventType.BUSINESS.toString(), "Appointment booked successfully",
-							AuditLogVariables.MULTIPLE_ID.toString(), authUserDetails().getUserId(),
-							authUserDetails().getUsername(),
-							bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegistrationCenterId());
-				} else {
-					setAuditValues(EventId.PRE_405.toString(), EventName.EXCEPTION.toString(),
-							EventType.SYSTEM.toString(), "Appointment failed to book",
-							AuditLogVariables.NO_ID.toString(), authUserDetails().getUserId(),
-							authUserDetails().getUsername(),
-							bookingRequestDTOs.getRequest().getBookingRequest().get(0).getRegistrationCenterId());
-				}
-			}
-			responseDTO.setResponsetime(serviceUtil.getCurrentResponseTime());
-			response.setBookingStatusResponse(respList);
-			responseDTO.setResponse(response);
-			log.info("Sync block :", bookingRequestDTOs.getRequest().getBookingRequest().get(0).getPreRegistrationId(),
-					" End", "");
-			return responseDTO;
 		}
 	}
 
@@ -612,51 +1119,128 @@ public class BookingService implements BookingServiceIntf {
 	//Please note that this method is NOT creating a new transaction.
 	//@Transactional(propagation = Propagation.REQUIRES_NEW, rollbackFor = Exception.class)
 	public BookingStatusDTO book(String preRegistrationId, BookingRequestDTO bookingRequestDTO) {
+		return book(preRegistrationId, bookingRequestDTO, confirmHold(preRegistrationId, bookingRequestDTO));
+	}
+
+	/**
+	 * Books the requested slot in the surrounding transaction.
+	 * 
+	 * @param preRegistrationId pre-registration id
+	 * @param bookingRequestDTO requested slot
+	 * @param held              true when the hold of the request is already
+	 *                          consumed and its kiosk is the booking's
+	 * @return booking status
+	 */
+	private BookingStatusDTO book(String preRegistrationId, BookingRequestDTO bookingRequestDTO, boolean held) {
 		log.info("sessionId", "idType", "id", "In book method of Booking Service");
 		BookingStatusDTO bookingStatusDTO = new BookingStatusDTO();
 		MainResponseDTO<?> response = new MainResponseDTO<>();
 		response.setId(idUrlBookAppointment);
 		response.setVersion(versionUrl);
 		try {
-			AvailibityEntity availableEntity;
+			bookingMetrics.time(Phase.RESERVATION, () -> {
+				if (!held) {
+					/* Reduce Availability, fails when no kiosk is left */
+					bookingDAO.reserveSlot(LocalDate.parse(bookingRequestDTO.getRegDate()),
+							bookingRequestDTO.getRegistrationCenterId(),
+							LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
+							LocalTime.parse(bookingRequestDTO.getSlotToTime()));
+					slotChangeNotifier.slotChanged(bookingRequestDTO.getRegistrationCenterId(),
+							LocalDate.parse(bookingRequestDTO.getRegDate()),
+							LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
+							LocalTime.parse(bookingRequestDTO.getSlotToTime()));
+					log.info("In Availablity of book method", "reserved one kiosk",
+							" for Reg center" + bookingRequestDTO.getRegistrationCenterId(), " and Date and Time "
+									+ bookingRequestDTO.getRegDate() + " " + bookingRequestDTO.getSlotFromTime());
+				}
 
-			availableEntity = bookingDAO.findFirstByRegDateAndRegcntrIdAndFromTimeAndToTime(
-					LocalDate.parse(bookingRequestDTO.getRegDate()), bookingRequestDTO.getRegistrationCenterId(),
-					LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
-					LocalTime.parse(bookingRequestDTO.getSlotToTime()));
-			log.info("In Availablity of book method",
-					"available slots before update :" + availableEntity.getAvailableKiosks(),
-					" for Reg center" + availableEntity.getRegcntrId(),
-					" and Date and Time " + availableEntity.getRegDate() + " " + availableEntity.getFromTime());
-			if (serviceUtil.isKiosksAvailable(availableEntity)) {
 				/* Updating booking */
 				bookingDAO.saveRegistrationEntityForBooking(
 						serviceUtil.bookingEntitySetter(preRegistrationId, bookingRequestDTO));
-				/* Reduce Availability */
-				availableEntity.setAvailableKiosks(availableEntity.getAvailableKiosks() - 1);
-				AvailibityEntity availableUpdate = bookingDAO.updateAvailibityEntity(availableEntity);
+			});
+			bookingMetrics.booked(bookingRequestDTO.getRegistrationCenterId());
 
-				log.info("In Availablity of book method",
-						"available slots after upadate :" + availableUpdate.getAvailableKiosks(),
-						" for Reg center" + availableUpdate.getRegcntrId(),
-						" and Date and Time " + availableUpdate.getRegDate() + " " + availableUpdate.getFromTime());
+			/* Updating demographic */
+			// serviceUtil.updateDemographicStatus(preRegistrationId,
+			// StatusCodes.BOOKED.getCode());
+			bookingStatusDTO.setBookingMessage("Appointment booked successfully");
 
-				/* Updating demographic */
-				// serviceUtil.updateDemographicStatus(preRegistrationId,
-				// StatusCodes.BOOKED.getCode());
-				bookingStatusDTO.setBookingMessage("Appointment booked successfully");
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id", "In book method of Booking Service- " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, response);
+		}
 
-			}
+		return bookingStatusDTO;
+	}
+
+	/**
+	 * Moves a booked application to the requested slot in the surrounding
+	 * transaction, instead of deleting the booking, giving its kiosk back and
+	 * booking again.
+	 * 
+	 * @param preRegistrationId pre-registration id
+	 * @param bookingEntity     current booking
+	 * @param bookingRequestDTO requested slot
+	 * @param held              true when the hold of the request is already
+	 *                          consumed and its kiosk is the booking's
+	 * @return booking status
+	 */
+	private BookingStatusDTO rebook(String preRegistrationId, RegistrationBookingEntity bookingEntity,
+			BookingRequestDTO bookingRequestDTO, boolean held) {
+		log.info("sessionId", "idType", "id", "In rebook method of Booking Service");
+		BookingStatusDTO bookingStatusDTO = new BookingStatusDTO();
+		MainResponseDTO<?> response = new MainResponseDTO<>();
+		response.setId(idUrlBookAppointment);
+		response.setVersion(versionUrl);
+		try {
+			LocalDate regDate = LocalDate.parse(bookingRequestDTO.getRegDate());
+			LocalTime slotFromTime = LocalTime.parse(bookingRequestDTO.getSlotFromTime());
+			LocalTime slotToTime = LocalTime.parse(bookingRequestDTO.getSlotToTime());
+			bookingMetrics.time(Phase.RESERVATION,
+					() -> bookingDAO.transferBooking(bookingEntity, regDate,
+							bookingRequestDTO.getRegistrationCenterId(), slotFromTime, slotToTime, held));
+			slotChangeNotifier.slotChanged(bookingEntity.getRegistrationCenterId(), bookingEntity.getRegDate(),
+					bookingEntity.getSlotFromTime(), bookingEntity.getSlotToTime());
+			slotChangeNotifier.slotChanged(bookingRequestDTO.getRegistrationCenterId(), regDate, slotFromTime,
+					slotToTime);
+			bookingMetrics.booked(bookingRequestDTO.getRegistrationCenterId());
+			log.info("In rebook method", "moved booking of " + preRegistrationId,
+					" to Reg center" + bookingRequestDTO.getRegistrationCenterId(), " and Date and Time "
+							+ bookingRequestDTO.getRegDate() + " " + bookingRequestDTO.getSlotFromTime());
+			bookingStatusDTO.setBookingMessage("Appointment booked successfully");
 
 		} catch (Exception ex) {
 			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
-			log.error("sessionId", "idType", "id", "In book method of Booking Service- " + ex.getMessage());
+			log.error("sessionId", "idType", "id", "In rebook method of Booking Service- " + ex.getMessage());
 			new BookingExceptionCatcher().handle(ex, response);
 		}
 
 		return bookingStatusDTO;
 	}
 
+	/**
+	 * Consumes the hold named in the booking request, if any.
+	 * 
+	 * @param preRegistrationId pre-registration id
+	 * @param bookingRequestDTO requested slot
+	 * @return true when the request carried an active hold of the user on its
+	 *         slot, whose kiosk the booking now takes
+	 */
+	private boolean confirmHold(String preRegistrationId, BookingRequestDTO bookingRequestDTO) {
+		if (serviceUtil.isNull(bookingRequestDTO.getHoldToken())) {
+			return false;
+		}
+		boolean confirmed = slotHoldManager.confirm(bookingRequestDTO.getHoldToken(), authUserDetails().getUserId(),
+				bookingRequestDTO.getRegistrationCenterId(), LocalDate.parse(bookingRequestDTO.getRegDate()),
+				LocalTime.parse(bookingRequestDTO.getSlotFromTime()), LocalTime.parse(bookingRequestDTO.getSlotToTime()));
+		if (!confirmed) {
+			log.info("sessionId", "idType", "id", "Hold " + bookingRequestDTO.getHoldToken() + " is not active for "
+					+ preRegistrationId + ", booking from the remaining kiosks");
+		}
+		return confirmed;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -673,7 +1257,6 @@ public class BookingService implements BookingServiceIntf {
 		response.setId(idUrlCancel);
 		response.setVersion(versionUrl);
 		boolean isSaveSuccess = false;
-		AvailibityEntity availableEntity;
 		RegistrationBookingEntity bookingEntity;
 		try {
 			if (serviceUtil.mandatoryParameterCheckforCancel(preRegistrationId)) {
@@ -681,10 +1264,6 @@ public class BookingService implements BookingServiceIntf {
 					/* Getting Booking details */
 					bookingEntity = bookingDAO.findByPreRegistrationId(preRegistrationId);
 
-					availableEntity = bookingDAO.findFirstByRegDateAndRegcntrIdAndFromTimeAndToTime(
-							bookingEntity.getRegDate(), bookingEntity.getRegistrationCenterId(),
-							bookingEntity.getSlotFromTime(), bookingEntity.getSlotToTime());
-
 					/* For batch condition will skip */
 					if (!isBatchUser) {
 						String str = bookingEntity.getRegDate() + " " + bookingEntity.getSlotFromTime();
@@ -702,9 +1281,10 @@ public class BookingService implements BookingServiceIntf {
 					// StatusCodes.CANCELLED.getCode());
 
 					/* No. of Availability. update */
-					availableEntity.setAvailableKiosks(availableEntity.getAvailableKiosks() + 1);
-
-					bookingDAO.updateAvailibityEntity(availableEntity);
+					bookingDAO.releaseSlot(bookingEntity.getRegDate(), bookingEntity.getRegistrationCenterId(),
+							bookingEntity.getSlotFromTime(), bookingEntity.getSlotToTime());
+					slotChangeNotifier.slotChanged(bookingEntity.getRegistrationCenterId(),
+							bookingEntity.getRegDate(), bookingEntity.getSlotFromTime(), bookingEntity.getSlotToTime());
 
 					cancelBookingResponseDTO.setTransactionId(UUIDGeneratorUtil.generateId());
 					cancelBookingResponseDTO
@@ -713,9 +1293,11 @@ public class BookingService implements BookingServiceIntf {
 				}
 			}
 			isSaveSuccess = true;
+			bookingMetrics.outcome("cancel", null);
 		} catch (Exception ex) {
 			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
 			log.error("sessionId", "idType", "id", "In cancelBooking method of Booking Service- " + ex.getMessage());
+			bookingMetrics.outcome("cancel", ex);
 			new BookingExceptionCatcher().handle(ex, response);
 		} finally {
 
@@ -747,7 +1329,6 @@ public class BookingService implements BookingServiceIntf {
 		response.setVersion(versionUrl);
 		DeleteBookingDTO deleteDto = new DeleteBookingDTO();
 		Map<String, String> requestParamMap = new HashMap<>();
-		AvailibityEntity availableEntity;
 		boolean isSaveSuccess = false;
 		try {
 			requestParamMap.put(RequestCodes.PRE_REGISTRAION_ID.getCode(), preregId);
@@ -759,16 +1340,14 @@ public class BookingService implements BookingServiceIntf {
 				LocalDateTime bookedDateTime = LocalDateTime.parse(str, formatter);
 				serviceUtil.timeSpanCheckForCancle(bookedDateTime);
 				bookingDAO.deleteByPreRegistrationId(preregId);
-				availableEntity = bookingDAO.findFirstByRegDateAndRegcntrIdAndFromTimeAndToTime(
-						LocalDate.parse(registrationEntityList.getRegDate().toString()),
-						registrationEntityList.getRegistrationCenterId(),
-						LocalTime.parse(registrationEntityList.getSlotFromTime().toString()),
-						LocalTime.parse(registrationEntityList.getSlotToTime().toString()));
-				/* No. of Availability. update */
-				availableEntity.setAvailableKiosks(availableEntity.getAvailableKiosks() + 1);
 
-				/* Updating slot in DB */
-				bookingDAO.updateAvailibityEntity(availableEntity);
+				/* No. of Availability. update */
+				bookingDAO.releaseSlot(registrationEntityList.getRegDate(),
+						registrationEntityList.getRegistrationCenterId(), registrationEntityList.getSlotFromTime(),
+						registrationEntityList.getSlotToTime());
+				slotChangeNotifier.slotChanged(registrationEntityList.getRegistrationCenterId(),
+						registrationEntityList.getRegDate(), registrationEntityList.getSlotFromTime(),
+						registrationEntityList.getSlotToTime());
 
 				deleteDto.setPreRegistrationId(registrationEntityList.getPreregistrationId());
 				deleteDto.setDeletedBy(registrationEntityList.getCrBy());
@@ -822,16 +1401,26 @@ public class BookingService implements BookingServiceIntf {
 			}
 
 			bookingDAO.findRegistrationCenterId(bookingRequestDTO.getRegistrationCenterId());
-			AvailibityEntity entity = bookingDAO.findByRegDateAndRegcntrIdAndFromTimeAndToTime(
-					LocalDate.parse(bookingRequestDTO.getRegDate()), bookingRequestDTO.getRegistrationCenterId(),
-					LocalTime.parse(bookingRequestDTO.getSlotFromTime()),
-					LocalTime.parse(bookingRequestDTO.getSlotToTime()));
-			log.info("In Availablity", "available slots :" + entity.getAvailableKiosks(),
-					" for Reg center" + entity.getRegcntrId(),
-					" and Date and Time " + entity.getRegDate() + " " + entity.getFromTime());
+			LocalDate regDate = LocalDate.parse(bookingRequestDTO.getRegDate());
+			LocalTime slotFromTime = LocalTime.parse(bookingRequestDTO.getSlotFromTime());
+			LocalTime slotToTime = LocalTime.parse(bookingRequestDTO.getSlotToTime());
+			/*
+			 * A cached calendar showing a free kiosk spares the slot read; the guarded
+			 * decrement while booking stays the authoritative check.
+			 */
+			SlotCalendar calendar = availabilityCache.peek(bookingRequestDTO.getRegistrationCenterId());
+			if (calendar != null && calendar.freeKiosks(regDate, slotFromTime, slotToTime) > 0) {
+				return;
+			}
+			/* the slot row lags the slot counters when a mode owns them, so they are read through */
+			int availableKiosks = bookingDAO.findAvailableKiosks(regDate, bookingRequestDTO.getRegistrationCenterId(),
+					slotFromTime, slotToTime);
+			log.info("In Availablity", "available slots :" + availableKiosks,
+					" for Reg center" + bookingRequestDTO.getRegistrationCenterId(),
+					" and Date and Time " + regDate + " " + slotFromTime);
 
 			log.info("sessionId", "idType", "id", "In checkSlotAvailability method of Booking Service");
-			if (entity.getAvailableKiosks() < 1) {
+			if (availableKiosks < 1) {
 				throw new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(),
 						ErrorMessages.AVAILABILITY_NOT_FOUND_FOR_THE_SELECTED_TIME.getMessage());
 			}
@@ -884,12 +1473,11 @@ public class BookingService implements BookingServiceIntf {
 		response.setId(idUrlIncreaseAvailability);
 		response.setVersion(versionUrl);
 		try {
-			AvailibityEntity availableEntity;
-			availableEntity = bookingDAO.findByRegDateAndRegcntrIdAndFromTimeAndToTime(
-					LocalDate.parse(oldBooking.getRegDate()), oldBooking.getRegistrationCenterId(),
+			bookingDAO.releaseSlot(LocalDate.parse(oldBooking.getRegDate()), oldBooking.getRegistrationCenterId(),
 					LocalTime.parse(oldBooking.getSlotFromTime()), LocalTime.parse(oldBooking.getSlotToTime()));
-			availableEntity.setAvailableKiosks(availableEntity.getAvailableKiosks() + 1);
-			bookingDAO.updateAvailibityEntity(availableEntity);
+			slotChangeNotifier.slotChanged(oldBooking.getRegistrationCenterId(),
+					LocalDate.parse(oldBooking.getRegDate()), LocalTime.parse(oldBooking.getSlotFromTime()),
+					LocalTime.parse(oldBooking.getSlotToTime()));
 			log.info("sessionId", "idType", "id", "In increaseAvailability method of Booking Service");
 
 		} catch (Exception ex) {
@@ -924,7 +1512,7 @@ public class BookingService implements BookingServiceIntf {
 		auditRequestDto.setModuleId(AuditLogVariables.BOOK.toString());
 		auditRequestDto.setModuleName(AuditLogVariables.BOOKING_SERVICE.toString());
 		auditRequestDto.setId(ref_id);
-		auditLogUtil.saveAuditDetails(auditRequestDto);
+		bookingMetrics.time(Phase.AUDIT, () -> auditWriter.submit(auditRequestDto));
 	}
 
 	/*
@@ -1011,4 +1599,59 @@ public class BookingService implements BookingServiceIntf {
 		return response;
 
 	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see io.mosip.preregistration.booking.service.BookingServiceIntf#
+	 * exportBookedAppointments(java.lang.String, java.lang.String,
+	 * java.lang.String, java.lang.String, java.lang.String, java.lang.String,
+	 * java.lang.Long)
+	 */
+	@Override
+	public StreamingResponseBody exportBookedAppointments(String fromDateStr, String toDateStr, String regCenterId,
+			String afterDateStr, String afterTimeStr, String afterPreId, Long limit) {
+		log.info("sessionId", "idType", "id", "In exportBookedAppointments method of booking service ");
+		MainResponseDTO<?> response = new MainResponseDTO<>();
+		response.setId(idUrlBookingByDate);
+		response.setVersion(versionUrl);
+		StreamingResponseBody body = null;
+		try {
+			if (toDateStr == null || toDateStr.isEmpty()) {
+				toDateStr = fromDateStr;
+			}
+			String format = "yyyy-MM-dd";
+			if (serviceUtil.validateFromDateAndToDate(fromDateStr, toDateStr, format)) {
+				if (serviceUtil.isNull(regCenterId)) {
+					throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_007.getCode(),
+							ErrorMessages.REGISTRATION_CENTER_ID_NOT_ENTERED.getMessage(), null);
+				}
+				LocalDate afterDate = null;
+				LocalTime afterTime = null;
+				boolean resumed = !serviceUtil.isNull(afterDateStr);
+				if (resumed != !serviceUtil.isNull(afterTimeStr) || resumed != !serviceUtil.isNull(afterPreId)) {
+					throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_039.getCode(),
+							ErrorMessages.INVALID_EXPORT_CURSOR.getMessage(), null);
+				}
+				if (resumed) {
+					try {
+						afterDate = LocalDate.parse(afterDateStr);
+						afterTime = LocalTime.parse(afterTimeStr);
+					} catch (DateTimeParseException ex) {
+						throw new InvalidRequestParameterException(ErrorCodes.PRG_BOOK_RCI_039.getCode(),
+								ErrorMessages.INVALID_EXPORT_CURSOR.getMessage(), null);
+					}
+				}
+				body = bookedAppointmentExporter.export(regCenterId, LocalDate.parse(fromDateStr),
+						LocalDate.parse(toDateStr), afterDate, afterTime, afterPreId,
+						limit == null || limit <= 0 ? Long.MAX_VALUE : limit);
+			}
+		} catch (Exception ex) {
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			log.error("sessionId", "idType", "id",
+					"In exportBookedAppointments method of booking service - " + ex.getMessage());
+			new BookingExceptionCatcher().handle(ex, response);
+		}
+		return body;
+	}
 }
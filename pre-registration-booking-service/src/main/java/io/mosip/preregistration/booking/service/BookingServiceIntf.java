@@ -1,14 +1,22 @@
 package io.mosip.preregistration.booking.service;
 
 
+import java.util.List;
+
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.AvailabilitySearchRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingDataByRegIdDto;
 import io.mosip.preregistration.booking.dto.BookingRequestDTO;
 import io.mosip.preregistration.booking.dto.BookingStatus;
 import io.mosip.preregistration.booking.dto.BookingStatusDTO;
+import io.mosip.preregistration.booking.dto.FreeSlotDTO;
 import io.mosip.preregistration.booking.dto.MultiBookingRequest;
+import io.mosip.preregistration.booking.dto.SlotHoldDTO;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache.AvailabilityPayload;
 import io.mosip.preregistration.core.common.dto.BookingRegistrationDTO;
 import io.mosip.preregistration.core.common.dto.CancelBookingResponseDTO;
 import io.mosip.preregistration.core.common.dto.DeleteBookingDTO;
@@ -27,6 +35,63 @@ public interface BookingServiceIntf {
 	 */
 	MainResponseDTO<AvailabilityDto> getAvailability(String regID);
 
+	/**
+	 * Gives the availability details of a registration center serialized and
+	 * gzip compressed, from the payload cache when the center has not changed.
+	 * 
+	 * @param regID pass the RegistartionId
+	 * @return AvailabilityPayload serialized availability response with its ETag
+	 */
+	AvailabilityPayload getAvailabilityPayload(String regID);
+
+	/**
+	 * Opens a server-sent event stream on the slot changes of a registration
+	 * center. Clients open the stream first and then fetch the availability,
+	 * applying the changes received on top of it.
+	 * 
+	 * @param regID pass the RegistartionId
+	 * @return SseEmitter the stream, or null when no more streams can be opened
+	 */
+	SseEmitter getAvailabilityStream(String regID);
+
+	/**
+	 * Finds the earliest slots with a free kiosk of one registration center, or
+	 * over several nearby centers searched concurrently.
+	 * 
+	 * @param regCenterIds registration center ids
+	 * @param count        number of slots to return, or null for the default
+	 * @return MainResponseDTO the free slots, earliest first
+	 */
+	MainResponseDTO<List<FreeSlotDTO>> getEarliestFreeSlots(List<String> regCenterIds, Integer count);
+
+	/**
+	 * Fetches the availability of several registration centers at once, either
+	 * over the window of the availability API or over the given dates.
+	 * 
+	 * @param searchRequest registration center ids and optional date range
+	 * @return MainResponseDTO the availability per center in request order
+	 */
+	MainResponseDTO<List<AvailabilityDto>> searchAvailability(
+			MainRequestDTO<AvailabilitySearchRequestDTO> searchRequest);
+
+	/**
+	 * Holds one kiosk of a slot for the user for a short time. The returned hold
+	 * token, passed in the booking request of the same slot, books the held
+	 * kiosk; unconfirmed holds are given back when they expire.
+	 * 
+	 * @param holdRequestDTO pass the slot to hold
+	 * @return SlotHoldDTO the hold and its expiry
+	 */
+	MainResponseDTO<SlotHoldDTO> holdSlot(MainRequestDTO<BookingRequestDTO> holdRequestDTO);
+
+	/**
+	 * Gives the kiosk of a hold of the user back before it expires.
+	 * 
+	 * @param holdToken pass the hold token
+	 * @return SlotHoldDTO the released hold
+	 */
+	MainResponseDTO<SlotHoldDTO> releaseSlotHold(String holdToken);
+
 
 	/**
 	 * This method use to book the appointment.
@@ -166,5 +231,22 @@ public interface BookingServiceIntf {
 	MainResponseDTO<BookingDataByRegIdDto> getBookedPreRegistrations(String fromDateStr,
 			String toDateStr, String regCenterId);
 
+	/**
+	 * This Method is used to stream the booked appointments of a registration
+	 * center as one JSON document per line, optionally resuming after the last
+	 * line already read.
+	 * 
+	 * @param fromDateStr  first appointment date
+	 * @param toDateStr    last appointment date
+	 * @param regCenterId  registration center id
+	 * @param afterDateStr appointment date of the last line already read
+	 * @param afterTimeStr slot from time of the last line already read
+	 * @param afterPreId   pre-registration id of the last line already read
+	 * @param limit        maximum number of lines
+	 * @return body writing the export
+	 */
+	StreamingResponseBody exportBookedAppointments(String fromDateStr, String toDateStr, String regCenterId,
+			String afterDateStr, String afterTimeStr, String afterPreId, Long limit);
+
 
 }
\ No newline at end of file
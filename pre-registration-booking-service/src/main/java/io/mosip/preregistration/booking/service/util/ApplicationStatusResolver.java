@@ -0,0 +1,172 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class resolves the demographic status of several applications at once.
+ * The lookups run concurrently on a bounded pool; each id keeps the exact
+ * outcome {@link BookingServiceUtil#getApplicationBookingStatus(String)} would
+ * have produced, which is only surfaced when the caller reads that id.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class ApplicationStatusResolver {
+
+	private Logger log = LoggerConfiguration.logConfig(ApplicationStatusResolver.class);
+
+	@Autowired
+	private BookingServiceUtil serviceUtil;
+
+	/**
+	 * Reference for ${preregistration.booking.status.parallelism} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.status.parallelism:8}")
+	private int parallelism;
+
+	/**
+	 * Reference for ${preregistration.booking.status.timeout} (milliseconds) from
+	 * property file
+	 */
+	@Value("${preregistration.booking.status.timeout:10000}")
+	private long timeoutMillis;
+
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(parallelism * 16), runnable -> {
+					Thread thread = new Thread(runnable, "booking-status-lookup");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Looks up the status of every given application.
+	 *
+	 * @param preRegistrationIds application ids, duplicates are looked up once
+	 * @return lookup result per id in request order
+	 */
+	public Map<String, StatusLookup> resolve(Collection<String> preRegistrationIds) {
+		Set<String> ids = new LinkedHashSet<>(preRegistrationIds);
+		Map<String, StatusLookup> statuses = new LinkedHashMap<>();
+		if (ids.size() == 1) {
+			String preId = ids.iterator().next();
+			statuses.put(preId, lookup(preId));
+			return statuses;
+		}
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		Map<String, Future<StatusLookup>> pending = new LinkedHashMap<>();
+		for (String preId : ids) {
+			pending.put(preId, executor.submit(() -> {
+				RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+				SecurityContext previousContext = SecurityContextHolder.getContext();
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				SecurityContextHolder.setContext(securityContext);
+				try {
+					return lookup(preId);
+				} finally {
+					RequestContextHolder.setRequestAttributes(previousAttributes);
+					SecurityContextHolder.setContext(previousContext);
+				}
+			}));
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		for (Map.Entry<String, Future<StatusLookup>> entry : pending.entrySet()) {
+			statuses.put(entry.getKey(), await(entry.getKey(), entry.getValue(), deadline));
+		}
+		return statuses;
+	}
+
+	private StatusLookup lookup(String preId) {
+		try {
+			return new StatusLookup(serviceUtil.getApplicationBookingStatus(preId), null);
+		} catch (RuntimeException ex) {
+			return new StatusLookup(null, ex);
+		}
+	}
+
+	private StatusLookup await(String preId, Future<StatusLookup> future, long deadline) {
+		try {
+			return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException ex) {
+			future.cancel(true);
+			log.error("sessionId", "idType", "id", "Timed out fetching application status of " + preId);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			future.cancel(true);
+		} catch (ExecutionException ex) {
+			log.error("sessionId", "idType", "id",
+					"Application status lookup of " + preId + " failed- " + ex.getCause().getMessage());
+		}
+		/* same outcome as a failed call in BookingServiceUtil#getApplicationStatus */
+		return new StatusLookup(null, new RestClientException("rest call failed"));
+	}
+
+	/**
+	 * Status of one application, or the exception its lookup raised.
+	 */
+	public static final class StatusLookup {
+
+		private final String status;
+
+		private final RuntimeException failure;
+
+		private StatusLookup(String status, RuntimeException failure) {
+			this.status = status;
+			this.failure = failure;
+		}
+
+		/**
+		 * @return the application status
+		 * @throws RuntimeException the exception raised by the lookup of this id
+		 */
+		public String get() {
+			if (failure != null) {
+				throw failure;
+			}
+			return status;
+		}
+	}
+
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * This class keeps the computed {@link SlotCalendar} of each registration
+ * center so that repeated availability reads do not hit the database. Entries
+ * expire after a TTL, the number of centers held is bounded, and every slot
+ * mutation evicts the entry of its center both immediately and again after the
+ * surrounding transaction commits. Every eviction also moves the version of
+ * the center on, so that anything derived from an older calendar can tell it
+ * is stale. A calendar is put with the version read before it was computed,
+ * and is neither kept nor served once the center has moved past it.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilityCache {
+
+	/**
+	 * Reference for ${preregistration.availability.cache.enabled} from property
+	 * file
+	 */
+	@Value("${preregistration.availability.cache.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Reference for ${preregistration.availability.cache.ttl} (seconds) from
+	 * property file
+	 */
+	@Value("${preregistration.availability.cache.ttl:30}")
+	private long ttlSeconds;
+
+	/**
+	 * Reference for ${preregistration.availability.cache.max-centers} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.cache.max-centers:2000}")
+	private int maxCenters;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, CachedAvailability> entries = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+	private final AtomicLong epoch = new AtomicLong();
+
+	private Counter hits;
+
+	private Counter misses;
+
+	private Counter evictions;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		hits = Counter.builder("prereg.booking.availability.cache").tag("result", "hit").register(meterRegistry);
+		misses = Counter.builder("prereg.booking.availability.cache").tag("result", "miss").register(meterRegistry);
+		evictions = Counter.builder("prereg.booking.availability.cache.evictions").register(meterRegistry);
+		Gauge.builder("prereg.booking.availability.cache.size", entries, Map::size).register(meterRegistry);
+	}
+
+	/**
+	 * @param regCenterId registration center id
+	 * @param fromDate    first day of the requested window
+	 * @return cached calendar or null on miss
+	 */
+	public SlotCalendar get(String regCenterId, LocalDate fromDate) {
+		if (!enabled) {
+			return null;
+		}
+		CachedAvailability cached = entries.get(regCenterId);
+		if (cached == null || !cached.fromDate.equals(fromDate) || !isCurrent(regCenterId, cached)) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return cached.calendar;
+	}
+
+	/**
+	 * Returns the cached calendar of a center whatever window it starts at,
+	 * without counting a hit or miss. Used for booking checks.
+	 *
+	 * @param regCenterId registration center id
+	 * @return cached calendar or null
+	 */
+	public SlotCalendar peek(String regCenterId) {
+		if (!enabled) {
+			return null;
+		}
+		CachedAvailability cached = entries.get(regCenterId);
+		return cached == null || !isCurrent(regCenterId, cached) ? null : cached.calendar;
+	}
+
+	/**
+	 * Keeps a calendar unless the center changed while it was computed.
+	 *
+	 * @param regCenterId registration center id
+	 * @param fromDate    first day of the computed window
+	 * @param version     version of the center read before computing the
+	 *                    calendar
+	 * @param calendar    computed calendar
+	 */
+	public void put(String regCenterId, LocalDate fromDate, long version, SlotCalendar calendar) {
+		if (!enabled || version != version(regCenterId)) {
+			return;
+		}
+		if (entries.size() >= maxCenters && !entries.containsKey(regCenterId)) {
+			evictOldest();
+		}
+		entries.put(regCenterId, new CachedAvailability(fromDate, version, calendar,
+				System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds)));
+	}
+
+	/**
+	 * Drops the entry of a center now and, when called inside a transaction,
+	 * once more after commit so that a read racing the commit cannot leave a
+	 * stale calendar behind.
+	 *
+	 * @param regCenterId registration center id
+	 */
+	public void evict(String regCenterId) {
+		if (regCenterId == null) {
+			return;
+		}
+		invalidate(regCenterId);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					invalidate(regCenterId);
+				}
+			});
+		}
+	}
+
+	/**
+	 * Drops every cached center.
+	 */
+	public void evictAll() {
+		epoch.incrementAndGet();
+		entries.clear();
+	}
+
+	/**
+	 * @param regCenterId registration center id
+	 * @return version of the slots of the center, increasing on every eviction
+	 */
+	public long version(String regCenterId) {
+		AtomicLong version = versions.get(regCenterId);
+		return epoch.get() + (version == null ? 0 : version.get());
+	}
+
+	/* an entry put just after a racing eviction still carries the older version */
+	private boolean isCurrent(String regCenterId, CachedAvailability cached) {
+		return !cached.isExpired(System.nanoTime()) && cached.version == version(regCenterId);
+	}
+
+	private void invalidate(String regCenterId) {
+		versions.computeIfAbsent(regCenterId, key -> new AtomicLong()).incrementAndGet();
+		remove(regCenterId);
+	}
+
+	private void remove(String regCenterId) {
+		if (entries.remove(regCenterId) != null) {
+			evictions.increment();
+		}
+	}
+
+	private void evictOldest() {
+		entries.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().expiresAt))
+				.ifPresent(e -> remove(e.getKey()));
+	}
+
+	private static final class CachedAvailability {
+
+		private final LocalDate fromDate;
+
+		private final long version;
+
+		private final SlotCalendar calendar;
+
+		private final long expiresAt;
+
+		CachedAvailability(LocalDate fromDate, long version, SlotCalendar calendar, long expiresAt) {
+			this.fromDate = fromDate;
+			this.version = version;
+			this.calendar = calendar;
+			this.expiresAt = expiresAt;
+		}
+
+		boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+	}
+
+}
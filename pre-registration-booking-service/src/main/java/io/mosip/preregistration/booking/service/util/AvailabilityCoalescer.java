@@ -0,0 +1,196 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class coalesces concurrent availability computations: callers asking
+ * for the same center and window while a computation is in flight wait for
+ * and share its result (or its exception) instead of running the master data
+ * and slot queries again. The first caller computes on its own thread; a
+ * caller that waits longer than the configured timeout computes for itself.
+ * <p>
+ * {@code prereg.booking.availability.inflight} shows the callers computing or
+ * waiting per center, for the first centers seen up to a configured number;
+ * the rest are summed under "other".
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilityCoalescer {
+
+	private Logger log = LoggerConfiguration.logConfig(AvailabilityCoalescer.class);
+
+	/**
+	 * Reference for ${preregistration.availability.coalesce.timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.availability.coalesce.timeout:10000}")
+	private long timeoutMillis;
+
+	/**
+	 * Reference for ${preregistration.availability.coalesce.max-centers} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.coalesce.max-centers:100}")
+	private int maxCenters;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<Flight, CompletableFuture<SlotCalendar>> flights = new ConcurrentHashMap<>();
+
+	private final Map<String, AtomicInteger> inFlight = new ConcurrentHashMap<>();
+
+	private AtomicInteger otherInFlight;
+
+	private Counter coalesced;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		otherInFlight = register(BookingMetrics.OTHER);
+		coalesced = Counter.builder("prereg.booking.availability.coalesced")
+				.description("Availability reads served by another caller's computation").register(meterRegistry);
+	}
+
+	/**
+	 * @param regCenterId registration center id
+	 * @param fromDate    first day of the window
+	 * @param endDate     last day of the window
+	 * @param loader      computes the calendar of the window
+	 * @return calendar computed by this or a concurrent caller
+	 */
+	public SlotCalendar load(String regCenterId, LocalDate fromDate, LocalDate endDate,
+			Supplier<SlotCalendar> loader) {
+		AtomicInteger gauge = gaugeOf(regCenterId);
+		gauge.incrementAndGet();
+		try {
+			Flight flight = new Flight(regCenterId, fromDate, endDate);
+			CompletableFuture<SlotCalendar> mine = new CompletableFuture<>();
+			CompletableFuture<SlotCalendar> running = flights.putIfAbsent(flight, mine);
+			if (running == null) {
+				return lead(flight, mine, loader);
+			}
+			coalesced.increment();
+			return follow(regCenterId, running, loader);
+		} finally {
+			gauge.decrementAndGet();
+		}
+	}
+
+	private SlotCalendar lead(Flight flight, CompletableFuture<SlotCalendar> mine, Supplier<SlotCalendar> loader) {
+		try {
+			SlotCalendar calendar = loader.get();
+			mine.complete(calendar);
+			return calendar;
+		} catch (RuntimeException | Error ex) {
+			mine.completeExceptionally(ex);
+			throw ex;
+		} finally {
+			flights.remove(flight, mine);
+		}
+	}
+
+	private SlotCalendar follow(String regCenterId, CompletableFuture<SlotCalendar> running,
+			Supplier<SlotCalendar> loader) {
+		try {
+			return running.get(timeoutMillis, TimeUnit.MILLISECONDS);
+		} catch (ExecutionException ex) {
+			Throwable cause = ex.getCause();
+			if (cause instanceof RuntimeException) {
+				throw (RuntimeException) cause;
+			}
+			if (cause instanceof Error) {
+				throw (Error) cause;
+			}
+			throw new IllegalStateException(cause);
+		} catch (TimeoutException ex) {
+			log.warn("sessionId", "idType", "id", "Availability computation of center " + regCenterId
+					+ " still running after " + timeoutMillis + " ms, computing separately");
+			return loader.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted waiting for availability of center " + regCenterId, ex);
+		}
+	}
+
+	private AtomicInteger gaugeOf(String regCenterId) {
+		AtomicInteger gauge = inFlight.get(regCenterId);
+		if (gauge == null) {
+			gauge = inFlight.size() < maxCenters ? inFlight.computeIfAbsent(regCenterId, this::register)
+					: otherInFlight;
+		}
+		return gauge;
+	}
+
+	private AtomicInteger register(String regCenterId) {
+		AtomicInteger count = new AtomicInteger();
+		Gauge.builder("prereg.booking.availability.inflight", count, AtomicInteger::get)
+				.description("Availability reads computing or waiting per center").tag("center", regCenterId)
+				.register(meterRegistry);
+		return count;
+	}
+
+	private static final class Flight {
+
+		private final String regCenterId;
+
+		private final LocalDate fromDate;
+
+		private final LocalDate endDate;
+
+		Flight(String regCenterId, LocalDate fromDate, LocalDate endDate) {
+			this.regCenterId = regCenterId;
+			this.fromDate = fromDate;
+			this.endDate = endDate;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof Flight)) {
+				return false;
+			}
+			Flight other = (Flight) obj;
+			return regCenterId.equals(other.regCenterId) && fromDate.equals(other.fromDate)
+					&& endDate.equals(other.endDate);
+		}
+
+		@Override
+		public int hashCode() {
+			return Objects.hash(regCenterId, fromDate, endDate);
+		}
+	}
+
+}
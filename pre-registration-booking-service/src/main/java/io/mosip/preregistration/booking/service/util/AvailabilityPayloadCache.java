@@ -0,0 +1,438 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.exception.JsonException;
+import io.mosip.preregistration.core.common.dto.MainResponseDTO;
+
+/**
+ * This class keeps the availability response of each registration center
+ * serialized and gzip compressed, so that polling clients are answered without
+ * rendering or serializing the calendar again. An entry is served only while
+ * the {@link AvailabilityCache#version(String) version} of its center is the
+ * one read before the response was computed, so any booking, cancellation or
+ * slot change of the center invalidates it.
+ * <p>
+ * Only the availability is kept compressed. The response envelope, with the
+ * responsetime of the request, is compressed per request around it into one
+ * gzip stream, so a cached answer is never dated at its first computation.
+ * <p>
+ * The ETag of a payload is a digest of the availability alone, not of the
+ * response envelope, so nodes computing the same availability hand out the
+ * same tag.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilityPayloadCache {
+
+	/**
+	 * Reference for ${preregistration.availability.payload-cache.enabled} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.payload-cache.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Reference for ${preregistration.availability.payload-cache.ttl} (seconds)
+	 * from property file
+	 */
+	@Value("${preregistration.availability.payload-cache.ttl:30}")
+	private long ttlSeconds;
+
+	/**
+	 * Reference for ${preregistration.availability.payload-cache.max-centers}
+	 * from property file
+	 */
+	@Value("${preregistration.availability.payload-cache.max-centers:2000}")
+	private int maxCenters;
+
+	private static final String RESPONSE = "response";
+
+	private static final String RESPONSETIME = "responsetime";
+
+	/** stands in for the availability while the envelope is serialized */
+	private static final String AVAILABILITY_MARKER = "\u0000availability\u0000";
+
+	private static final byte[] MARKER_JSON = "\"\\u0000availability\\u0000\"".getBytes(StandardCharsets.UTF_8);
+
+	/** gzip member header: deflate, no flags, no time, unknown OS */
+	private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, 8, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	@Autowired
+	private AvailabilityCache availabilityCache;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, CachedPayload> entries = new ConcurrentHashMap<>();
+
+	private Counter hits;
+
+	private Counter misses;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		hits = Counter.builder("prereg.booking.availability.payload").tag("result", "hit").register(meterRegistry);
+		misses = Counter.builder("prereg.booking.availability.payload").tag("result", "miss")
+				.register(meterRegistry);
+	}
+
+	/**
+	 * @param regCenterId registration center id
+	 * @return current version of the center, to be passed to
+	 *         {@link #put(String, LocalDate, long, MainResponseDTO)}
+	 */
+	public long version(String regCenterId) {
+		return availabilityCache.version(regCenterId);
+	}
+
+	/**
+	 * @param regCenterId  registration center id
+	 * @param fromDate     first day of the requested window
+	 * @param responsetime responsetime of the request
+	 * @return cached payload, or null when missing or stale
+	 */
+	public AvailabilityPayload get(String regCenterId, LocalDate fromDate, String responsetime) {
+		if (!enabled) {
+			return null;
+		}
+		CachedPayload cached = entries.get(regCenterId);
+		if (cached == null || !cached.fromDate.equals(fromDate) || cached.version != version(regCenterId)
+				|| System.nanoTime() - cached.expiresAt >= 0) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		return render(cached, responsetime);
+	}
+
+	/**
+	 * Serializes a response and keeps it when it carries no errors.
+	 *
+	 * @param regCenterId registration center id
+	 * @param fromDate    first day of the computed window
+	 * @param version     version of the center read before computing the
+	 *                    response
+	 * @param response    availability response
+	 * @return serialized response
+	 */
+	public AvailabilityPayload put(String regCenterId, LocalDate fromDate, long version,
+			MainResponseDTO<AvailabilityDto> response) {
+		if (response.getErrors() != null && !response.getErrors().isEmpty()) {
+			return new AvailabilityPayload(null, gzip(serialize(response)));
+		}
+		byte[] availability = serialize(response.getResponse());
+		CRC32 crc = new CRC32();
+		crc.update(availability);
+		ObjectNode envelope = objectMapper.valueToTree(response);
+		/* replaced in place, keeping the field order of the response */
+		envelope.put(RESPONSE, AVAILABILITY_MARKER);
+		CachedPayload cached = new CachedPayload(fromDate, version, etag(availability), envelope,
+				deflate(availability, false), crc.getValue(), availability.length,
+				System.nanoTime() + TimeUnit.SECONDS.toNanos(ttlSeconds));
+		if (enabled) {
+			if (entries.size() >= maxCenters && !entries.containsKey(regCenterId)) {
+				entries.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().expiresAt))
+						.ifPresent(e -> entries.remove(e.getKey()));
+			}
+			entries.put(regCenterId, cached);
+		}
+		return render(cached, response.getResponsetime());
+	}
+
+	/*
+	 * A gzip stream is a header, deflate blocks, and the CRC32 and length of the
+	 * uncompressed data. The envelope before and after the availability is
+	 * deflated here, and the blocks of the cached availability, which end on a
+	 * byte boundary without being final, are spliced in between.
+	 */
+	private AvailabilityPayload render(CachedPayload cached, String responsetime) {
+		ObjectNode envelope = cached.envelope.deepCopy();
+		envelope.put(RESPONSETIME, responsetime);
+		byte[] json = serialize(envelope);
+		int at = indexOf(json, MARKER_JSON);
+		int tailAt = at + MARKER_JSON.length;
+		CRC32 crc = new CRC32();
+		crc.update(json, 0, at);
+		long headCrc = crc.getValue();
+		crc.reset();
+		crc.update(json, tailAt, json.length - tailAt);
+		long tailLength = (long) json.length - tailAt;
+		long total = crc32Combine(crc32Combine(headCrc, cached.availabilityCrc, cached.availabilityLength),
+				crc.getValue(), tailLength);
+		long length = at + cached.availabilityLength + tailLength;
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream(cached.deflated.length + 256);
+		out.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+		byte[] head = deflate(Arrays.copyOfRange(json, 0, at), false);
+		out.write(head, 0, head.length);
+		out.write(cached.deflated, 0, cached.deflated.length);
+		byte[] tail = deflate(Arrays.copyOfRange(json, tailAt, json.length), true);
+		out.write(tail, 0, tail.length);
+		writeIntLE(out, total);
+		writeIntLE(out, length);
+		return new AvailabilityPayload(cached.etag, out.toByteArray());
+	}
+
+	private byte[] serialize(Object value) {
+		try {
+			return objectMapper.writeValueAsBytes(value);
+		} catch (JsonProcessingException ex) {
+			throw new JsonException(ErrorCodes.PRG_BOOK_RCI_034.getCode(),
+					ErrorMessages.JSON_PROCESSING_EXCEPTION.getMessage(), ex);
+		}
+	}
+
+	/** raw deflate blocks; all but the last part end on a byte boundary, unfinished */
+	private static byte[] deflate(byte[] data, boolean last) {
+		Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		try {
+			deflater.setInput(data);
+			if (last) {
+				deflater.finish();
+			}
+			ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+			byte[] buffer = new byte[8192];
+			int written;
+			do {
+				written = last ? deflater.deflate(buffer) : deflater.deflate(buffer, 0, buffer.length,
+						Deflater.SYNC_FLUSH);
+				out.write(buffer, 0, written);
+			} while (last ? !deflater.finished() : written == buffer.length);
+			return out.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static int indexOf(byte[] data, byte[] part) {
+		outer: for (int i = 0; i <= data.length - part.length; i++) {
+			for (int j = 0; j < part.length; j++) {
+				if (data[i + j] != part[j]) {
+					continue outer;
+				}
+			}
+			return i;
+		}
+		throw new IllegalStateException("Availability marker not found in response envelope");
+	}
+
+	private static void writeIntLE(ByteArrayOutputStream out, long value) {
+		for (int i = 0; i < 4; i++) {
+			out.write((int) (value >>> (8 * i)) & 0xFF);
+		}
+	}
+
+	/* CRC32 of two concatenated parts from the CRC32 of each, as zlib's crc32_combine */
+	private static long crc32Combine(long crc1, long crc2, long length2) {
+		if (length2 <= 0) {
+			return crc1;
+		}
+		long[] even = new long[32];
+		long[] odd = new long[32];
+		odd[0] = 0xEDB88320L;
+		long row = 1;
+		for (int n = 1; n < 32; n++) {
+			odd[n] = row;
+			row <<= 1;
+		}
+		gf2MatrixSquare(even, odd);
+		gf2MatrixSquare(odd, even);
+		long crc = crc1;
+		long length = length2;
+		do {
+			gf2MatrixSquare(even, odd);
+			if ((length & 1) != 0) {
+				crc = gf2MatrixTimes(even, crc);
+			}
+			length >>= 1;
+			if (length == 0) {
+				break;
+			}
+			gf2MatrixSquare(odd, even);
+			if ((length & 1) != 0) {
+				crc = gf2MatrixTimes(odd, crc);
+			}
+			length >>= 1;
+		} while (length != 0);
+		return crc ^ crc2;
+	}
+
+	private static long gf2MatrixTimes(long[] matrix, long vector) {
+		long sum = 0;
+		for (int i = 0; vector != 0; i++, vector >>>= 1) {
+			if ((vector & 1) != 0) {
+				sum ^= matrix[i];
+			}
+		}
+		return sum;
+	}
+
+	private static void gf2MatrixSquare(long[] square, long[] matrix) {
+		for (int n = 0; n < 32; n++) {
+			square[n] = gf2MatrixTimes(matrix, matrix[n]);
+		}
+	}
+
+	private static String etag(byte[] availability) {
+		try {
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(availability);
+			StringBuilder etag = new StringBuilder("\"");
+			for (int i = 0; i < 16; i++) {
+				etag.append(Character.forDigit((digest[i] >> 4) & 0xF, 16))
+						.append(Character.forDigit(digest[i] & 0xF, 16));
+			}
+			return etag.append('"').toString();
+		} catch (NoSuchAlgorithmException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	private static byte[] gzip(byte[] body) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(body.length / 4 + 64);
+		try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+			gzip.write(body);
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * A serialized availability response.
+	 */
+	public static final class AvailabilityPayload {
+
+		private final String etag;
+
+		private final byte[] gzipped;
+
+		AvailabilityPayload(String etag, byte[] gzipped) {
+			this.etag = etag;
+			this.gzipped = gzipped;
+		}
+
+		/**
+		 * @return strong entity tag, quoted; null for error responses
+		 */
+		public String getEtag() {
+			return etag;
+		}
+
+		/**
+		 * @return gzip compressed JSON body; not to be modified
+		 */
+		public byte[] getGzipped() {
+			return gzipped;
+		}
+
+		/**
+		 * @return uncompressed JSON body, for clients not accepting gzip
+		 */
+		public byte[] getBody() {
+			try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+				return in.readAllBytes();
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		}
+
+		/**
+		 * @param ifNoneMatch value of the If-None-Match header, may be null
+		 * @return true when the client already holds this payload
+		 */
+		public boolean matches(String ifNoneMatch) {
+			if (ifNoneMatch == null || etag == null) {
+				return false;
+			}
+			for (String tag : ifNoneMatch.split(",")) {
+				String candidate = tag.trim();
+				if (candidate.startsWith("W/")) {
+					candidate = candidate.substring(2);
+				}
+				if (candidate.equals("*") || candidate.equals(etag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+	}
+
+	private static final class CachedPayload {
+
+		private final LocalDate fromDate;
+
+		private final long version;
+
+		private final String etag;
+
+		/** the response with a marker in place of its availability */
+		private final ObjectNode envelope;
+
+		private final byte[] deflated;
+
+		private final long availabilityCrc;
+
+		private final long availabilityLength;
+
+		private final long expiresAt;
+
+		CachedPayload(LocalDate fromDate, long version, String etag, ObjectNode envelope, byte[] deflated,
+				long availabilityCrc, long availabilityLength, long expiresAt) {
+			this.fromDate = fromDate;
+			this.version = version;
+			this.etag = etag;
+			this.envelope = envelope;
+			this.deflated = deflated;
+			this.availabilityCrc = availabilityCrc;
+			this.availabilityLength = availabilityLength;
+			this.expiresAt = expiresAt;
+		}
+	}
+
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.MasterDataNotAvailableException;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+/**
+ * This class runs the per-center lookups of a multi-center availability
+ * search on a bounded pool. The registration centers of a search are first
+ * validated together as one batch, served from the master data cache where it
+ * can and otherwise fetched concurrently, and the availability lookups then
+ * run without validating each center again. A search fails as a whole with
+ * the first failure of any of its centers.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilitySearch {
+
+	private Logger log = LoggerConfiguration.logConfig(AvailabilitySearch.class);
+
+	@Autowired
+	private BookingServiceUtil serviceUtil;
+
+	/**
+	 * Reference for ${preregistration.availability.search.parallelism} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.search.parallelism:8}")
+	private int parallelism;
+
+	/**
+	 * Reference for ${preregistration.availability.search.timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.availability.search.timeout:10000}")
+	private long timeoutMillis;
+
+	private ThreadPoolExecutor executor;
+
+	@PostConstruct
+	public void init() {
+		executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(parallelism * 16), runnable -> {
+					Thread thread = new Thread(runnable, "booking-availability-search");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Validates every registration center of a search in one batch.
+	 *
+	 * @param regCenterIds registration center ids
+	 * @throws RuntimeException what {@link BookingServiceUtil#isValidRegCenter}
+	 *                          raised for the first invalid center
+	 */
+	public void validate(Collection<String> regCenterIds) {
+		runAll(regCenterIds, serviceUtil::isValidRegCenter,
+				() -> new MasterDataNotAvailableException(ErrorCodes.PRG_BOOK_RCI_020.getCode(),
+						ErrorMessages.MASTER_DATA_NOT_FOUND.getMessage()));
+	}
+
+	/**
+	 * Looks up every registration center of a search concurrently.
+	 *
+	 * @param regCenterIds registration center ids, duplicates are looked up once
+	 * @param lookup       lookup of one center
+	 * @return result per center in request order
+	 */
+	public <T> Map<String, T> search(Collection<String> regCenterIds, Function<String, T> lookup) {
+		return runAll(regCenterIds, lookup,
+				() -> new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+						ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage()));
+	}
+
+	private <T> Map<String, T> runAll(Collection<String> regCenterIds, Function<String, T> lookup,
+			Supplier<RuntimeException> timedOut) {
+		Set<String> ids = new LinkedHashSet<>(regCenterIds);
+		Map<String, T> results = new LinkedHashMap<>();
+		if (ids.size() == 1) {
+			String regCenterId = ids.iterator().next();
+			results.put(regCenterId, lookup.apply(regCenterId));
+			return results;
+		}
+		RequestAttributes requestAttributes = RequestContextHolder.getRequestAttributes();
+		SecurityContext securityContext = SecurityContextHolder.getContext();
+		Map<String, Future<T>> pending = new LinkedHashMap<>();
+		for (String regCenterId : ids) {
+			pending.put(regCenterId, executor.submit(() -> {
+				RequestAttributes previousAttributes = RequestContextHolder.getRequestAttributes();
+				SecurityContext previousContext = SecurityContextHolder.getContext();
+				RequestContextHolder.setRequestAttributes(requestAttributes);
+				SecurityContextHolder.setContext(securityContext);
+				try {
+					return lookup.apply(regCenterId);
+				} finally {
+					RequestContextHolder.setRequestAttributes(previousAttributes);
+					SecurityContextHolder.setContext(previousContext);
+				}
+			}));
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		try {
+			for (Map.Entry<String, Future<T>> entry : pending.entrySet()) {
+				results.put(entry.getKey(), await(entry.getKey(), entry.getValue(), deadline, timedOut));
+			}
+		} finally {
+			/* nothing left running once the search has failed */
+			for (Future<T> future : pending.values()) {
+				future.cancel(true);
+			}
+		}
+		return results;
+	}
+
+	private <T> T await(String regCenterId, Future<T> future, long deadline, Supplier<RuntimeException> timedOut) {
+		try {
+			return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException ex) {
+			log.error("sessionId", "idType", "id", "Timed out searching registration center " + regCenterId);
+			throw timedOut.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw timedOut.get();
+		} catch (ExecutionException ex) {
+			/* lookups are functions, so only unchecked exceptions get here */
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw (RuntimeException) ex.getCause();
+		}
+	}
+
+}
@@ -0,0 +1,551 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.dto.AvailabilityChangeDto;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.exception.AvailablityNotFoundException;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.repository.impl.SlotKey;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class pushes slot level availability changes of a registration center
+ * to its server-sent event subscribers, so that UIs keep their slot counts
+ * fresh without polling the availability API.
+ * <p>
+ * Slot changes made on this node are collected after their transaction
+ * commits and, once per flush interval, the remaining kiosks of each changed
+ * slot are read back; a burst of bookings on one slot becomes one read and one
+ * event. Changes made on other nodes are picked up by periodically reading the
+ * window of every watched center and sending the slots that differ from the
+ * last known value.
+ * <p>
+ * Every connection is written by at most one sender thread at a time. While a
+ * client is slow, its pending changes are coalesced per slot; when more
+ * distinct slots are pending than the buffer limit, they are dropped and the
+ * client gets a {@code resync} event asking it to fetch the availability
+ * again. Idle connections get a heartbeat comment.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilityStream {
+
+	/** Event carrying an {@link AvailabilityChangeDto}. */
+	public static final String SLOT_EVENT = "slot";
+
+	/** Event telling the client to fetch the availability again. */
+	public static final String RESYNC_EVENT = "resync";
+
+	private Logger log = LoggerConfiguration.logConfig(AvailabilityStream.class);
+
+	/**
+	 * Reference for ${preregistration.availability.stream.enabled} from property
+	 * file
+	 */
+	@Value("${preregistration.availability.stream.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.max-connections} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.stream.max-connections:5000}")
+	private int maxConnections;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.buffer} (slots pending
+	 * per connection) from property file
+	 */
+	@Value("${preregistration.availability.stream.buffer:256}")
+	private int bufferLimit;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.availability.stream.timeout:1800000}")
+	private long timeoutMillis;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.heartbeat} (seconds)
+	 * from property file
+	 */
+	@Value("${preregistration.availability.stream.heartbeat:15}")
+	private long heartbeatSeconds;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.flush-interval}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.availability.stream.flush-interval:250}")
+	private long flushMillis;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.reconcile-interval}
+	 * (seconds) from property file; 0 turns the reconciliation off
+	 */
+	@Value("${preregistration.availability.stream.reconcile-interval:5}")
+	private long reconcileSeconds;
+
+	/**
+	 * Reference for ${preregistration.availability.stream.sender-threads} from
+	 * property file
+	 */
+	@Value("${preregistration.availability.stream.sender-threads:4}")
+	private int senderThreads;
+
+	/**
+	 * Reference for ${preregistration.availability.noOfDays} from property file
+	 */
+	@Value("${preregistration.availability.noOfDays:7}")
+	private long displayDays;
+
+	/**
+	 * Reference for ${preregistration.booking.offset} from property file
+	 */
+	@Value("${preregistration.booking.offset:0}")
+	private int availabilityOffset;
+
+	@Autowired
+	private BookingDAO bookingDAO;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, CenterFeed> feeds = new ConcurrentHashMap<>();
+
+	private final Set<SlotKey> pending = ConcurrentHashMap.newKeySet();
+
+	private final AtomicInteger connections = new AtomicInteger();
+
+	private ScheduledThreadPoolExecutor timer;
+
+	private ThreadPoolExecutor sender;
+
+	private Counter changes;
+
+	private Counter resyncs;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		Gauge.builder("prereg.booking.availability.stream.connections", connections, AtomicInteger::get)
+				.description("Open availability streams").register(meterRegistry);
+		changes = Counter.builder("prereg.booking.availability.stream.changes")
+				.description("Slot changes sent to availability streams").register(meterRegistry);
+		resyncs = Counter.builder("prereg.booking.availability.stream.resyncs")
+				.description("Availability streams that overflowed their buffer").register(meterRegistry);
+		timer = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "availability-stream-timer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		/* at most one drain per connection is queued, so the queue is bounded by the connections */
+		sender = new ThreadPoolExecutor(senderThreads, senderThreads, 60L, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<>(), runnable -> {
+					Thread thread = new Thread(runnable, "availability-stream-sender");
+					thread.setDaemon(true);
+					return thread;
+				});
+		sender.allowCoreThreadTimeOut(true);
+		timer.scheduleWithFixedDelay(guarded(this::flush), flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+		timer.scheduleWithFixedDelay(guarded(this::heartbeat), heartbeatSeconds, heartbeatSeconds, TimeUnit.SECONDS);
+		if (reconcileSeconds > 0) {
+			timer.scheduleWithFixedDelay(guarded(this::reconcile), reconcileSeconds, reconcileSeconds,
+					TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		timer.shutdownNow();
+		sender.shutdownNow();
+		feeds.values().forEach(feed -> feed.subscribers.forEach(subscriber -> subscriber.close(null)));
+	}
+
+	/**
+	 * Opens a stream on the changes of a center.
+	 *
+	 * @param regCenterId registration center id
+	 * @return emitter of the stream, or null when streaming is disabled or the
+	 *         node holds the maximum number of connections
+	 */
+	public SseEmitter subscribe(String regCenterId) {
+		SseEmitter emitter = new SseEmitter(timeoutMillis);
+		return subscribe(regCenterId, emitter) ? emitter : null;
+	}
+
+	/**
+	 * @param regCenterId registration center id
+	 * @param emitter     emitter to send the changes of the center to
+	 * @return false when streaming is disabled or the node holds the maximum
+	 *         number of connections
+	 */
+	public boolean subscribe(String regCenterId, SseEmitter emitter) {
+		if (!enabled) {
+			return false;
+		}
+		if (connections.incrementAndGet() > maxConnections) {
+			connections.decrementAndGet();
+			return false;
+		}
+		Subscriber subscriber = new Subscriber(regCenterId, emitter);
+		emitter.onTimeout(emitter::complete);
+		emitter.onCompletion(() -> unsubscribe(subscriber));
+		AtomicBoolean created = new AtomicBoolean();
+		CenterFeed feed = feeds.compute(regCenterId, (center, existing) -> {
+			CenterFeed current = existing;
+			if (current == null) {
+				current = new CenterFeed(center);
+				created.set(true);
+			}
+			current.subscribers.add(subscriber);
+			return current;
+		});
+		if (created.get()) {
+			/*
+			 * learn the current slots before the stream opens, so that every change
+			 * after the client's next availability read is sent; only the new feed
+			 * is locked while its window is read
+			 */
+			try {
+				reconcile(feed);
+			} catch (RuntimeException ex) {
+				unsubscribe(subscriber);
+				throw ex;
+			}
+		}
+		/* an immediate comment commits the response through proxies */
+		subscriber.heartbeat();
+		return true;
+	}
+
+	/**
+	 * Records a change of a slot. Inside a transaction the change is recorded
+	 * after commit; nothing is recorded when nobody watches the center.
+	 *
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 */
+	public void changed(String regCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		if (regCenterId == null || !feeds.containsKey(regCenterId)) {
+			return;
+		}
+		SlotKey key = new SlotKey(regCenterId, regDate, fromTime, toTime);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					pending.add(key);
+				}
+			});
+		} else {
+			pending.add(key);
+		}
+	}
+
+	/**
+	 * Reads back the slots changed since the last flush and sends those whose
+	 * remaining kiosks differ from the last sent value.
+	 */
+	public void flush() {
+		for (Iterator<SlotKey> it = pending.iterator(); it.hasNext();) {
+			SlotKey key = it.next();
+			it.remove();
+			CenterFeed feed = feeds.get(key.getRegcntrId());
+			if (feed == null) {
+				continue;
+			}
+			int available;
+			try {
+				available = bookingDAO.findAvailableKiosks(key.getRegDate(), key.getRegcntrId(), key.getFromTime(),
+						key.getToTime());
+			} catch (AvailablityNotFoundException ex) {
+				available = 0;
+			} catch (RuntimeException ex) {
+				log.warn("sessionId", "idType", "id",
+						"Availability stream could not read slot " + key + ", retrying: " + ex.getMessage());
+				pending.add(key);
+				return;
+			}
+			synchronized (feed) {
+				feed.update(key, available, true);
+			}
+		}
+	}
+
+	/**
+	 * Reads the window of every watched center and sends the slots changed by
+	 * other nodes.
+	 */
+	public void reconcile() {
+		for (CenterFeed feed : feeds.values()) {
+			reconcile(feed);
+		}
+	}
+
+	/**
+	 * Sends a heartbeat comment on every connection idle for a heartbeat
+	 * interval.
+	 */
+	public void heartbeat() {
+		long idleSince = System.nanoTime() - TimeUnit.SECONDS.toNanos(heartbeatSeconds);
+		for (CenterFeed feed : feeds.values()) {
+			for (Subscriber subscriber : feed.subscribers) {
+				if (subscriber.lastSent - idleSince <= 0) {
+					subscriber.heartbeat();
+				}
+			}
+		}
+	}
+
+	private void reconcile(CenterFeed feed) {
+		synchronized (feed) {
+			reconcileLocked(feed);
+		}
+	}
+
+	private void reconcileLocked(CenterFeed feed) {
+		if (feeds.get(feed.regCenterId) != feed) {
+			return;
+		}
+		LocalDate fromDate = LocalDate.now().plusDays(availabilityOffset);
+		/* holidays push the displayed window out, so twice its length is watched */
+		LocalDate toDate = fromDate.plusDays(displayDays * 2);
+		List<SlotAvailabilityView> entities = bookingDAO.findSlotAvailability(feed.regCenterId, fromDate, toDate);
+		Set<SlotKey> seen = new HashSet<>();
+		if (entities != null) {
+			for (SlotAvailabilityView entity : entities) {
+				SlotKey key = new SlotKey(feed.regCenterId, entity.getRegDate(), entity.getFromTime(),
+						entity.getToTime());
+				seen.add(key);
+				feed.update(key, entity.getAvailableKiosks(), feed.seeded);
+			}
+		}
+		for (Iterator<Map.Entry<SlotKey, Integer>> it = feed.known.entrySet().iterator(); it.hasNext();) {
+			Map.Entry<SlotKey, Integer> entry = it.next();
+			SlotKey key = entry.getKey();
+			if (key.getRegDate().isBefore(fromDate)) {
+				it.remove();
+			} else if (!key.getRegDate().isAfter(toDate) && !seen.contains(key)) {
+				/* slot deleted */
+				it.remove();
+				if (feed.seeded && entry.getValue() != 0) {
+					feed.send(key, 0);
+				}
+			}
+		}
+		feed.seeded = true;
+	}
+
+	private void unsubscribe(Subscriber subscriber) {
+		if (!subscriber.closed.compareAndSet(false, true)) {
+			return;
+		}
+		connections.decrementAndGet();
+		feeds.computeIfPresent(subscriber.regCenterId, (center, feed) -> {
+			feed.subscribers.remove(subscriber);
+			return feed.subscribers.isEmpty() ? null : feed;
+		});
+	}
+
+	private Runnable guarded(Runnable task) {
+		return () -> {
+			try {
+				task.run();
+			} catch (RuntimeException ex) {
+				log.error("sessionId", "idType", "id", "Availability stream task failed: " + ex.getMessage());
+			}
+		};
+	}
+
+	/**
+	 * Subscribers of one center and the last known kiosks of its slots. The
+	 * known values are only touched while holding the feed's monitor, so that
+	 * seeding a new center does not hold up the other centers.
+	 */
+	private final class CenterFeed {
+
+		private final String regCenterId;
+
+		private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+		private final Map<SlotKey, Integer> known = new HashMap<>();
+
+		private boolean seeded;
+
+		CenterFeed(String regCenterId) {
+			this.regCenterId = regCenterId;
+		}
+
+		void update(SlotKey key, int available, boolean notify) {
+			Integer previous = known.put(key, available);
+			if (notify && (previous == null || previous != available)) {
+				send(key, available);
+			}
+		}
+
+		void send(SlotKey key, int available) {
+			AvailabilityChangeDto change = new AvailabilityChangeDto();
+			change.setRegistrationCenterId(key.getRegcntrId());
+			change.setRegDate(key.getRegDate().toString());
+			change.setSlotFromTime(key.getFromTime().toString());
+			change.setSlotToTime(key.getToTime().toString());
+			change.setAvailability(available);
+			changes.increment();
+			for (Subscriber subscriber : subscribers) {
+				subscriber.offer(key, change);
+			}
+		}
+	}
+
+	private final class Subscriber {
+
+		private final String regCenterId;
+
+		private final SseEmitter emitter;
+
+		private final AtomicBoolean closed = new AtomicBoolean();
+
+		private final Map<SlotKey, AvailabilityChangeDto> buffer = new LinkedHashMap<>();
+
+		private boolean resync;
+
+		private boolean heartbeat;
+
+		private boolean draining;
+
+		private volatile long lastSent = System.nanoTime();
+
+		Subscriber(String regCenterId, SseEmitter emitter) {
+			this.regCenterId = regCenterId;
+			this.emitter = emitter;
+		}
+
+		synchronized void offer(SlotKey key, AvailabilityChangeDto change) {
+			if (closed.get()) {
+				return;
+			}
+			if (!buffer.containsKey(key) && buffer.size() >= bufferLimit) {
+				buffer.clear();
+				if (!resync) {
+					resync = true;
+					resyncs.increment();
+				}
+			}
+			buffer.put(key, change);
+			schedule();
+		}
+
+		synchronized void heartbeat() {
+			heartbeat = true;
+			schedule();
+		}
+
+		private void schedule() {
+			if (draining) {
+				return;
+			}
+			draining = true;
+			try {
+				sender.execute(this::drain);
+			} catch (RejectedExecutionException ex) {
+				draining = false;
+			}
+		}
+
+		private void drain() {
+			while (true) {
+				boolean sendResync;
+				boolean sendHeartbeat;
+				List<AvailabilityChangeDto> batch;
+				synchronized (this) {
+					if (closed.get() || (buffer.isEmpty() && !resync && !heartbeat)) {
+						draining = false;
+						return;
+					}
+					sendResync = resync;
+					sendHeartbeat = heartbeat;
+					batch = new ArrayList<>(buffer.values());
+					buffer.clear();
+					resync = false;
+					heartbeat = false;
+				}
+				try {
+					if (sendResync) {
+						emitter.send(SseEmitter.event().name(RESYNC_EVENT).data(regCenterId));
+					}
+					for (AvailabilityChangeDto change : batch) {
+						emitter.send(SseEmitter.event().name(SLOT_EVENT).data(change, MediaType.APPLICATION_JSON));
+					}
+					if (sendHeartbeat && batch.isEmpty() && !sendResync) {
+						emitter.send(SseEmitter.event().comment("heartbeat"));
+					}
+					lastSent = System.nanoTime();
+				} catch (IOException | IllegalStateException ex) {
+					close(ex);
+					return;
+				}
+			}
+		}
+
+		void close(Exception cause) {
+			if (cause != null) {
+				log.info("sessionId", "idType", "id",
+						"Closing availability stream of center " + regCenterId + ": " + cause.getMessage());
+			}
+			unsubscribe(this);
+			try {
+				emitter.complete();
+			} catch (IllegalStateException ex) {
+				/* already completed */
+			}
+		}
+	}
+
+}
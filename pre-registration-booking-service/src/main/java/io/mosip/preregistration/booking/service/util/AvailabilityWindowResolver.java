@@ -0,0 +1,105 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class builds the availability calendar of a registration center. A day
+ * with a single slot row is a holiday and pushes the window out by one more
+ * day. Instead of querying every extension separately, the slots of the
+ * display window plus a look-ahead are fetched with one query into a
+ * {@link SlotCalendar} and the extensions are worked out on it, giving the same
+ * calendar as querying them one by one.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class AvailabilityWindowResolver {
+
+	private Logger log = LoggerConfiguration.logConfig(AvailabilityWindowResolver.class);
+
+	@Autowired
+	private BookingDAO bookingDAO;
+
+	/**
+	 * Reference for ${preregistration.availability.window.lookahead-days} from
+	 * property file; by default as many days as the display window
+	 */
+	@Value("${preregistration.availability.window.lookahead-days:-1}")
+	private long lookaheadDays;
+
+	/**
+	 * @param regID    registration center id
+	 * @param fromDate first day of the display window
+	 * @param endDate  last day of the display window
+	 * @return calendar from fromDate to the last day the holidays extend to
+	 */
+	public SlotCalendar resolve(String regID, LocalDate fromDate, LocalDate endDate) {
+		long lookahead = lookaheadDays >= 0 ? lookaheadDays : ChronoUnit.DAYS.between(fromDate, endDate) + 1;
+		LocalDate fetchedTo = endDate.plusDays(lookahead);
+		List<SlotAvailabilityView> availableEntity = bookingDAO.findSlotAvailability(regID, fromDate, fetchedTo);
+		if (availableEntity == null) {
+			throw new RecordNotFoundException(ErrorCodes.PRG_BOOK_RCI_015.getCode(),
+					ErrorMessages.NO_TIME_SLOTS_ASSIGNED_TO_THAT_REG_CENTER.getMessage());
+		}
+		List<SlotAvailabilityView> entities = new ArrayList<>(availableEntity);
+		SlotCalendar calendar = SlotCalendar.of(regID, fromDate, fetchedTo, entities);
+
+		LocalDate chunkFrom = fromDate;
+		LocalDate chunkTo = endDate;
+		LocalDate lastDay = endDate;
+		while (true) {
+			if (chunkTo.isAfter(fetchedTo)) {
+				/* more holidays than the look-ahead covers */
+				LocalDate from = fetchedTo.plusDays(1);
+				fetchedTo = chunkTo.plusDays(lookahead);
+				log.info("sessionId", "idType", "id", "Extending availability window of " + regID + " to " + fetchedTo);
+				List<SlotAvailabilityView> more = bookingDAO.findSlotAvailability(regID, from, fetchedTo);
+				if (more != null) {
+					entities.addAll(more);
+				}
+				calendar = SlotCalendar.of(regID, fromDate, fetchedTo, entities);
+			}
+			boolean present = false;
+			int noOfHoliday = 0;
+			for (LocalDate date = chunkFrom; !date.isAfter(chunkTo); date = date.plusDays(1)) {
+				if (calendar.isPresent(date)) {
+					present = true;
+					if (calendar.isHoliday(date)) {
+						noOfHoliday++;
+					}
+				}
+			}
+			if (!present) {
+				break;
+			}
+			lastDay = chunkTo;
+			if (noOfHoliday == 0) {
+				break;
+			}
+			chunkFrom = chunkTo.plusDays(1);
+			chunkTo = chunkTo.plusDays(noOfHoliday);
+		}
+		return calendar.truncate(lastDay);
+	}
+
+}
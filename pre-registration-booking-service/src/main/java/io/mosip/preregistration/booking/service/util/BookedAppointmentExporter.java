@@ -0,0 +1,126 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.dto.BookedAppointmentDto;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class writes the booked appointments of a registration center as
+ * newline delimited JSON, one appointment per line, straight from the database
+ * cursor to the response. Nothing but the current row and the output buffer is
+ * held, whatever the date range, and a client whose transfer broke resumes
+ * after the last line it read.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class BookedAppointmentExporter {
+
+	/** Media type of the export */
+	public static final String NDJSON = "application/x-ndjson";
+
+	private Logger log = LoggerConfiguration.logConfig(BookedAppointmentExporter.class);
+
+	/**
+	 * Reference for ${preregistration.booking.export.buffer} (bytes) from property
+	 * file
+	 */
+	@Value("${preregistration.booking.export.buffer:65536}")
+	private int bufferSize;
+
+	@Autowired
+	private BookingDAO bookingDAO;
+
+	@Autowired
+	private ObjectMapper objectMapper;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private ObjectWriter writer;
+
+	private Counter rows;
+
+	private Counter failures;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		writer = objectMapper.writerFor(BookedAppointmentDto.class);
+		rows = Counter.builder("prereg.booking.export.rows").register(meterRegistry);
+		failures = Counter.builder("prereg.booking.export.failures").register(meterRegistry);
+	}
+
+	/**
+	 * @param regCenterId   registration center id
+	 * @param fromDate      first appointment date
+	 * @param toDate        last appointment date
+	 * @param afterDate     date of the last line already read, or null
+	 * @param afterFromTime slot from time of the last line already read
+	 * @param afterPreId    pre-registration id of the last line already read
+	 * @param limit         maximum number of lines
+	 * @return body writing the export when the response is sent
+	 */
+	public StreamingResponseBody export(String regCenterId, LocalDate fromDate, LocalDate toDate,
+			LocalDate afterDate, LocalTime afterFromTime, String afterPreId, long limit) {
+		return output -> {
+			OutputStream out = new BufferedOutputStream(output, bufferSize);
+			try {
+				long written = bookingDAO.exportBookedAppointments(regCenterId, fromDate, toDate, afterDate,
+						afterFromTime, afterPreId, limit, appointment -> writeLine(out, appointment));
+				out.flush();
+				rows.increment(written);
+				log.info("sessionId", "idType", "id",
+						"Exported " + written + " booked appointments of registration center " + regCenterId);
+			} catch (UncheckedIOException ex) {
+				/* the client went away; the cursor is closed by the DAO */
+				failures.increment();
+				throw ex.getCause();
+			} catch (RuntimeException ex) {
+				/* the status is already sent, so the client sees a truncated export */
+				failures.increment();
+				log.error("sessionId", "idType", "id",
+						"Export of registration center " + regCenterId + " failed: " + ex.getMessage());
+				throw ex;
+			}
+		};
+	}
+
+	private void writeLine(OutputStream out, BookedAppointmentDto appointment) {
+		try {
+			out.write(writer.writeValueAsBytes(appointment));
+			out.write('\n');
+		} catch (IOException ex) {
+			throw new UncheckedIOException(ex);
+		}
+	}
+
+}
@@ -0,0 +1,353 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.exception.ExceptionUtils;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.core.common.dto.AuditRequestDto;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.util.AuditLogUtil;
+
+/**
+ * This class takes audit writes off the request path. Audit records are put on
+ * a bounded queue and written by one background flusher in batches, either
+ * when a batch is full or when the flush interval has passed. When the queue is
+ * full the configured overflow policy applies:
+ * <ul>
+ * <li>BLOCK - the caller waits for room;</li>
+ * <li>DROP - the record is discarded and counted;</li>
+ * <li>SPILL - the record is appended to a local file which is replayed on the
+ * next start.</li>
+ * </ul>
+ * On shutdown the queue is drained for up to the drain timeout and whatever is
+ * left is spilled. Spilled records are replayed under the security context of
+ * the first batch written after the start, and records that fail again stay in
+ * the replay file for the next start.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class BookingAuditWriter {
+
+	public enum OverflowPolicy {
+		BLOCK, DROP, SPILL
+	}
+
+	private Logger log = LoggerConfiguration.logConfig(BookingAuditWriter.class);
+
+	@Autowired
+	private AuditLogUtil auditLogUtil;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.async} from property file
+	 */
+	@Value("${preregistration.booking.audit.async:true}")
+	private boolean async;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.queue-capacity} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.audit.queue-capacity:10000}")
+	private int queueCapacity;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.batch-size} from property file
+	 */
+	@Value("${preregistration.booking.audit.batch-size:100}")
+	private int batchSize;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.flush-interval}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.audit.flush-interval:1000}")
+	private long flushIntervalMillis;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.overflow} from property file
+	 */
+	@Value("${preregistration.booking.audit.overflow:SPILL}")
+	private OverflowPolicy overflowPolicy;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.spill-file} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.audit.spill-file:${java.io.tmpdir}/prereg-booking-audit.spill}")
+	private String spillFile;
+
+	/**
+	 * Reference for ${preregistration.booking.audit.drain-timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.audit.drain-timeout:10000}")
+	private long drainTimeoutMillis;
+
+	private final ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+
+	private BlockingQueue<PendingAudit> queue;
+
+	private Thread flusher;
+
+	private volatile boolean running;
+
+	private Counter written;
+
+	private Counter failed;
+
+	private Counter dropped;
+
+	private Counter spilled;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		written = Counter.builder("prereg.booking.audit").tag("outcome", "written").register(meterRegistry);
+		failed = Counter.builder("prereg.booking.audit").tag("outcome", "failed").register(meterRegistry);
+		dropped = Counter.builder("prereg.booking.audit").tag("outcome", "dropped").register(meterRegistry);
+		spilled = Counter.builder("prereg.booking.audit").tag("outcome", "spilled").register(meterRegistry);
+		if (!async) {
+			return;
+		}
+		queue = new ArrayBlockingQueue<>(queueCapacity);
+		Gauge.builder("prereg.booking.audit.queue.size", queue, BlockingQueue::size).register(meterRegistry);
+		running = true;
+		flusher = new Thread(this::flushLoop, "booking-audit-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	/**
+	 * Queues an audit record, or writes it directly when async audit is off.
+	 *
+	 * @param auditRequestDto audit record
+	 */
+	public void submit(AuditRequestDto auditRequestDto) {
+		if (!async) {
+			write(auditRequestDto);
+			return;
+		}
+		PendingAudit pending = new PendingAudit(auditRequestDto, SecurityContextHolder.getContext());
+		if (running && queue.offer(pending)) {
+			return;
+		}
+		switch (overflowPolicy) {
+		case BLOCK:
+			try {
+				while (running) {
+					if (queue.offer(pending, flushIntervalMillis, TimeUnit.MILLISECONDS)) {
+						return;
+					}
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			spill(auditRequestDto);
+			break;
+		case DROP:
+			dropped.increment();
+			break;
+		default:
+			spill(auditRequestDto);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		if (!async) {
+			return;
+		}
+		running = false;
+		try {
+			flusher.join(drainTimeoutMillis);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+		flusher.interrupt();
+		List<PendingAudit> left = new ArrayList<>();
+		queue.drainTo(left);
+		left.forEach(pending -> spill(pending.audit));
+		if (!left.isEmpty()) {
+			log.warn("sessionId", "idType", "id", left.size() + " audit records spilled to " + spillFile + " on shutdown");
+		}
+	}
+
+	private void flushLoop() {
+		boolean replayPending = true;
+		List<PendingAudit> batch = new ArrayList<>(batchSize);
+		while (running || !queue.isEmpty()) {
+			try {
+				PendingAudit first = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+				while (batch.size() < batchSize && running) {
+					PendingAudit next = queue.poll(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+					if (next == null) {
+						break;
+					}
+					batch.add(next);
+				}
+				queue.drainTo(batch, batchSize - batch.size());
+				writeBatch(batch);
+				if (replayPending) {
+					/* spilled records carry no security context of their own */
+					replayPending = false;
+					replaySpill(batch.get(batch.size() - 1).securityContext);
+				}
+			} catch (InterruptedException ex) {
+				/* shutdown gave up waiting; records still queued are spilled */
+				batch.forEach(pending -> spill(pending.audit));
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void writeBatch(List<PendingAudit> batch) {
+		SecurityContext previous = SecurityContextHolder.getContext();
+		try {
+			for (PendingAudit pending : batch) {
+				SecurityContextHolder.setContext(pending.securityContext);
+				write(pending.audit);
+			}
+		} finally {
+			SecurityContextHolder.setContext(previous);
+		}
+	}
+
+	private boolean write(AuditRequestDto auditRequestDto) {
+		try {
+			auditLogUtil.saveAuditDetails(auditRequestDto);
+			written.increment();
+			return true;
+		} catch (RuntimeException ex) {
+			failed.increment();
+			log.error("sessionId", "idType", "id", "Audit write failed- " + ex.getMessage());
+			log.debug("sessionId", "idType", "id", ExceptionUtils.getStackTrace(ex));
+			return false;
+		}
+	}
+
+	private synchronized void spill(AuditRequestDto auditRequestDto) {
+		try (Writer writer = Files.newBufferedWriter(Paths.get(spillFile), StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+			writer.write(mapper.writeValueAsString(auditRequestDto));
+			writer.write('\n');
+			spilled.increment();
+		} catch (IOException ex) {
+			dropped.increment();
+			log.error("sessionId", "idType", "id", "Audit record could not be spilled- " + ex.getMessage());
+		}
+	}
+
+	private void replaySpill(SecurityContext securityContext) {
+		Path path = Paths.get(spillFile);
+		Path replaying = path.resolveSibling(path.getFileName() + ".replay");
+		int replayed = 0;
+		List<String> unwritten = new ArrayList<>();
+		SecurityContext previous = SecurityContextHolder.getContext();
+		try {
+			if (!Files.exists(replaying)) {
+				if (!Files.exists(path)) {
+					return;
+				}
+				Files.move(path, replaying);
+			}
+			SecurityContextHolder.setContext(securityContext);
+			try (BufferedReader reader = Files.newBufferedReader(replaying, StandardCharsets.UTF_8)) {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.isEmpty()) {
+						continue;
+					}
+					AuditRequestDto audit;
+					try {
+						audit = mapper.readValue(line, AuditRequestDto.class);
+					} catch (JsonProcessingException ex) {
+						/* torn by a crash while spilling */
+						dropped.increment();
+						log.error("sessionId", "idType", "id", "Spilled audit record unreadable- " + ex.getMessage());
+						continue;
+					}
+					if (write(audit)) {
+						replayed++;
+					} else {
+						unwritten.add(line);
+					}
+				}
+			}
+			if (unwritten.isEmpty()) {
+				Files.delete(replaying);
+			} else {
+				/* the replay file is only ever replaced whole, so no record is lost on a crash */
+				Path remaining = replaying.resolveSibling(replaying.getFileName() + ".tmp");
+				Files.write(remaining, unwritten, StandardCharsets.UTF_8);
+				Files.move(remaining, replaying, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+				log.warn("sessionId", "idType", "id",
+						unwritten.size() + " spilled audit records kept in " + replaying + " for the next start");
+			}
+			log.info("sessionId", "idType", "id", replayed + " spilled audit records replayed");
+		} catch (IOException ex) {
+			log.error("sessionId", "idType", "id", "Replay of spilled audit records failed- " + ex.getMessage());
+		} finally {
+			SecurityContextHolder.setContext(previous);
+		}
+	}
+
+	private static final class PendingAudit {
+
+		private final AuditRequestDto audit;
+
+		private final SecurityContext securityContext;
+
+		PendingAudit(AuditRequestDto audit, SecurityContext securityContext) {
+			this.audit = audit;
+			this.securityContext = securityContext;
+		}
+	}
+
+}
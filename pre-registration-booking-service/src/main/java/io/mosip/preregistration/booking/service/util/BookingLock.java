@@ -1,81 +1,102 @@
-/* 
+/*
  * Copyright
- * 
+ *
  */
 package io.mosip.preregistration.booking.service.util;
 
-import org.springframework.stereotype.Component;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Comparator;
+import java.util.Objects;
 
-import lombok.AllArgsConstructor;
 import lombok.Getter;
-import lombok.NoArgsConstructor;
-import lombok.Setter;
 
 /**
- * This class provides the locking object.
- * 
+ * This class identifies one bookable slot, i.e. the unit of mutual exclusion
+ * used by {@link BookingLockManager}. Date and time are kept parsed, so a slot
+ * requested as "09:00:00" and the same slot read back as "09:00" share a lock.
+ *
  * @author Rudra Tripathy
  * @since 1.0.0
  *
  */
-@Component
 @Getter
-@Setter
-@NoArgsConstructor
-@AllArgsConstructor
-public class BookingLock {
+public final class BookingLock implements Comparable<BookingLock> {
 
-	String registrationCenter;
-	String date;
-	String timeslot;
+	private static final Comparator<BookingLock> ORDER = Comparator
+			.comparing(BookingLock::getRegistrationCenter, Comparator.nullsFirst(Comparator.<String>naturalOrder()))
+			.thenComparing(BookingLock::getDate, Comparator.nullsFirst(Comparator.<LocalDate>naturalOrder()))
+			.thenComparing(BookingLock::getTimeslot, Comparator.nullsFirst(Comparator.<LocalTime>naturalOrder()));
+
+	private final String registrationCenter;
+	private final LocalDate date;
+	private final LocalTime timeslot;
+
+	/**
+	 * @param registrationCenter registration center id
+	 * @param date               appointment date (yyyy-MM-dd)
+	 * @param timeslot           slot from time (HH:mm or HH:mm:ss)
+	 */
+	public BookingLock(String registrationCenter, String date, String timeslot) {
+		this(registrationCenter, date == null ? null : LocalDate.parse(date),
+				timeslot == null ? null : LocalTime.parse(timeslot));
+	}
+
+	/**
+	 * @param registrationCenter registration center id
+	 * @param date               appointment date
+	 * @param timeslot           slot from time
+	 */
+	public BookingLock(String registrationCenter, LocalDate date, LocalTime timeslot) {
+		this.registrationCenter = registrationCenter;
+		this.date = date;
+		this.timeslot = timeslot;
+	}
 
-	
 	/*
 	 * (non-Javadoc)
-	 * 
+	 *
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(BookingLock other) {
+		return ORDER.compare(this, other);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
 	 * @see java.lang.Object#hashCode()
 	 */
 	@Override
 	public int hashCode() {
-		return 1;
+		return Objects.hash(registrationCenter, date, timeslot);
 	}
 
 	/*
 	 * (non-Javadoc)
-	 * 
+	 *
 	 * @see java.lang.Object#equals(java.lang.Object)
 	 */
 	@Override
 	public boolean equals(Object obj) {
 		if (this == obj)
 			return true;
-		if (obj == null)
-			return false;
-		if (getClass() != obj.getClass()) {
+		if (obj == null || getClass() != obj.getClass())
 			return false;
-		}
-
 		BookingLock other = (BookingLock) obj;
-		if (date == null) {
-			if (other.date != null)
-				return false;
-		} else if (!date.equals(other.date)) {
-			return false;
-		}
-		if (registrationCenter == null) {
-			if (other.registrationCenter != null)
-				return false;
-		} else if (!registrationCenter.equals(other.registrationCenter)) {
-			return false;
-		}
-		if (timeslot == null) {
-			if (other.timeslot != null)
-				return false;
-		} else if (!timeslot.equals(other.timeslot)) {
-			return false;
-		}
+		return Objects.equals(registrationCenter, other.registrationCenter) && Objects.equals(date, other.date)
+				&& Objects.equals(timeslot, other.timeslot);
+	}
 
-		return true;
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return registrationCenter + "/" + date + "/" + timeslot;
 	}
 
 }
@@ -0,0 +1,208 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.exception.SlotBusyException;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class hands out per-slot locks so that bookings for unrelated slots do
+ * not serialize on one monitor. Locks are fair, created on demand and only
+ * weakly referenced by the registry, so a slot nobody is booking costs nothing
+ * once the lock has been collected.
+ *
+ * @author Rudra Tripathy
+ * @since 1.2.0
+ *
+ */
+@Component
+public class BookingLockManager {
+
+	private Logger log = LoggerConfiguration.logConfig(BookingLockManager.class);
+
+	/**
+	 * Reference for ${preregistration.booking.lock.timeout} from property file
+	 */
+	@Value("${preregistration.booking.lock.timeout:5000}")
+	private long lockTimeoutMillis;
+
+	/**
+	 * Reference for ${preregistration.booking.lock.fair} from property file
+	 */
+	@Value("${preregistration.booking.lock.fair:true}")
+	private boolean fair;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final ConcurrentMap<BookingLock, SlotLockReference> locks = new ConcurrentHashMap<>();
+
+	private final ReferenceQueue<ReentrantLock> collected = new ReferenceQueue<>();
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		Gauge.builder("prereg.booking.lock.registry.size", locks, ConcurrentMap::size)
+				.description("Number of slot locks currently tracked").register(meterRegistry);
+	}
+
+	/**
+	 * Acquires the lock of a single slot.
+	 *
+	 * @param key slot to lock
+	 * @return handle releasing the lock on close
+	 */
+	public SlotLockHandle acquire(BookingLock key) {
+		return acquireAll(Collections.singleton(key));
+	}
+
+	/**
+	 * Acquires the locks of all given slots. Keys are de-duplicated and taken in
+	 * their natural order so two callers locking overlapping sets cannot
+	 * deadlock. Either every lock is held on return or none is; a caller that
+	 * cannot get them in time gets a {@link SlotBusyException}, which says
+	 * nothing about whether the slots are free.
+	 *
+	 * @param keys slots to lock
+	 * @return handle releasing all locks on close
+	 */
+	public SlotLockHandle acquireAll(Collection<BookingLock> keys) {
+		TreeSet<BookingLock> ordered = new TreeSet<>(keys);
+		List<ReentrantLock> held = new ArrayList<>(ordered.size());
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lockTimeoutMillis);
+		try {
+			for (BookingLock key : ordered) {
+				ReentrantLock lock = lockFor(key);
+				long start = System.nanoTime();
+				boolean acquired = lock.tryLock(Math.max(0L, deadline - start), TimeUnit.NANOSECONDS);
+				long waited = System.nanoTime() - start;
+				recordWait(waited, acquired);
+				if (!acquired) {
+					log.warn("sessionId", "idType", "id", "Timed out waiting for booking lock of slot " + key + " after "
+							+ TimeUnit.NANOSECONDS.toMillis(waited) + " ms");
+					throw new SlotBusyException(ErrorCodes.PRG_BOOK_RCI_042.getCode(),
+							ErrorMessages.SLOT_BUSY.getMessage());
+				}
+				held.add(lock);
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			unlockAll(held);
+			throw new SlotBusyException(ErrorCodes.PRG_BOOK_RCI_042.getCode(), ErrorMessages.SLOT_BUSY.getMessage(),
+					ex);
+		} catch (RuntimeException ex) {
+			unlockAll(held);
+			throw ex;
+		}
+		return new SlotLockHandle(held, Timer.builder(BookingMetrics.PHASE_TIMER)
+				.tag("phase", BookingMetrics.Phase.LOCK_HOLD.tag()).tag("outcome", BookingMetrics.SUCCESS)
+				.register(meterRegistry));
+	}
+
+	private ReentrantLock lockFor(BookingLock key) {
+		expungeCollected();
+		while (true) {
+			SlotLockReference current = locks.get(key);
+			ReentrantLock lock = current == null ? null : current.get();
+			if (lock != null) {
+				return lock;
+			}
+			ReentrantLock created = new ReentrantLock(fair);
+			SlotLockReference reference = new SlotLockReference(key, created, collected);
+			boolean installed = current == null ? locks.putIfAbsent(key, reference) == null
+					: locks.replace(key, current, reference);
+			if (installed) {
+				return created;
+			}
+		}
+	}
+
+	private void expungeCollected() {
+		Reference<? extends ReentrantLock> reference;
+		while ((reference = collected.poll()) != null) {
+			SlotLockReference slotReference = (SlotLockReference) reference;
+			locks.remove(slotReference.key, slotReference);
+		}
+	}
+
+	private void recordWait(long waitedNanos, boolean acquired) {
+		Timer.builder(BookingMetrics.PHASE_TIMER).tag("phase", BookingMetrics.Phase.LOCK_WAIT.tag())
+				.tag("outcome", acquired ? BookingMetrics.SUCCESS : "timeout").register(meterRegistry)
+				.record(waitedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private static void unlockAll(List<ReentrantLock> held) {
+		for (int i = held.size() - 1; i >= 0; i--) {
+			held.get(i).unlock();
+		}
+		held.clear();
+	}
+
+	/**
+	 * Handle over the locks taken by one {@link #acquireAll(Collection)} call.
+	 * Must be closed by the thread that acquired it.
+	 */
+	public static final class SlotLockHandle implements AutoCloseable {
+
+		private final List<ReentrantLock> held;
+
+		private final Timer holdTimer;
+
+		private final long acquiredAt = System.nanoTime();
+
+		private SlotLockHandle(List<ReentrantLock> held, Timer holdTimer) {
+			this.held = held;
+			this.holdTimer = holdTimer;
+		}
+
+		@Override
+		public void close() {
+			boolean holding = !held.isEmpty();
+			unlockAll(held);
+			if (holding) {
+				holdTimer.record(System.nanoTime() - acquiredAt, TimeUnit.NANOSECONDS);
+			}
+		}
+	}
+
+	private static final class SlotLockReference extends WeakReference<ReentrantLock> {
+
+		private final BookingLock key;
+
+		SlotLockReference(BookingLock key, ReentrantLock lock, ReferenceQueue<ReentrantLock> queue) {
+			super(lock, queue);
+			this.key = key;
+		}
+	}
+
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import javax.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.mosip.kernel.core.exception.BaseCheckedException;
+import io.mosip.kernel.core.exception.BaseUncheckedException;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+
+/**
+ * This class records where booking time goes. Every meter has a bounded tag
+ * set:
+ * <ul>
+ * <li>{@code prereg.booking.phase} - timer per booking phase and
+ * success/error;</li>
+ * <li>{@code prereg.booking.outcome} - counter per operation and booking
+ * {@link ErrorCodes} value, other codes are reported as "other";</li>
+ * <li>{@code prereg.booking.center.rate} - bookings per minute of the first
+ * centers seen, up to a configured number, the rest are summed under
+ * "other".</li>
+ * </ul>
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class BookingMetrics {
+
+	public static final String PHASE_TIMER = "prereg.booking.phase";
+
+	public static final String SUCCESS = "success";
+
+	public static final String OTHER = "other";
+
+	/**
+	 * Booking phases timed separately.
+	 */
+	public enum Phase {
+		LOCK_WAIT, LOCK_HOLD, STATUS_CALL, MASTER_DATA_CALL, SLOT_CHECK, RESERVATION, AUDIT;
+
+		public String tag() {
+			return name().toLowerCase();
+		}
+	}
+
+	private static final Set<String> BOOKING_ERROR_CODES = Arrays.stream(ErrorCodes.values())
+			.map(ErrorCodes::getCode).collect(Collectors.toSet());
+
+	/**
+	 * Reference for ${preregistration.booking.metrics.max-centers} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.metrics.max-centers:100}")
+	private int maxCenters;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, CenterRate> centerRates = new ConcurrentHashMap<>();
+
+	private CenterRate otherCenters;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		otherCenters = register(OTHER);
+	}
+
+	/**
+	 * Times one phase of a booking.
+	 *
+	 * @param phase  phase being timed
+	 * @param action work of the phase
+	 * @return result of the action
+	 */
+	public <T> T time(Phase phase, Supplier<T> action) {
+		long start = System.nanoTime();
+		String outcome = "error";
+		try {
+			T result = action.get();
+			outcome = SUCCESS;
+			return result;
+		} finally {
+			record(phase, outcome, System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Times one phase of a booking.
+	 *
+	 * @param phase  phase being timed
+	 * @param action work of the phase
+	 */
+	public void time(Phase phase, Runnable action) {
+		time(phase, () -> {
+			action.run();
+			return null;
+		});
+	}
+
+	/**
+	 * @param phase       phase timed
+	 * @param outcome     bounded outcome tag
+	 * @param elapsedNanos time spent
+	 */
+	public void record(Phase phase, String outcome, long elapsedNanos) {
+		Timer.builder(PHASE_TIMER).description("Time spent per booking phase").tag("phase", phase.tag())
+				.tag("outcome", outcome).register(meterRegistry).record(elapsedNanos, TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * Counts the outcome of a booking operation.
+	 *
+	 * @param operation bounded operation name
+	 * @param failure   exception the operation failed with, or null on success
+	 */
+	public void outcome(String operation, Throwable failure) {
+		Counter.builder("prereg.booking.outcome").description("Booking operations by outcome error code")
+				.tag("operation", operation).tag("code", failure == null ? SUCCESS : errorCode(failure))
+				.register(meterRegistry).increment();
+	}
+
+	/**
+	 * Counts one booking towards the booking rate of its center.
+	 *
+	 * @param regCenterId registration center id
+	 */
+	public void booked(String regCenterId) {
+		CenterRate rate = centerRates.get(regCenterId);
+		if (rate == null) {
+			rate = centerRates.size() < maxCenters ? centerRates.computeIfAbsent(regCenterId, this::register)
+					: otherCenters;
+		}
+		rate.increment();
+	}
+
+	private CenterRate register(String regCenterId) {
+		CenterRate rate = new CenterRate();
+		Gauge.builder("prereg.booking.center.rate", rate, CenterRate::perMinute)
+				.description("Bookings during the last full minute").tag("center", regCenterId)
+				.register(meterRegistry);
+		return rate;
+	}
+
+	private static String errorCode(Throwable failure) {
+		String code = null;
+		if (failure instanceof BaseUncheckedException) {
+			code = ((BaseUncheckedException) failure).getErrorCode();
+		} else if (failure instanceof BaseCheckedException) {
+			code = ((BaseCheckedException) failure).getErrorCode();
+		}
+		return code != null && BOOKING_ERROR_CODES.contains(code) ? code : OTHER;
+	}
+
+	/**
+	 * Bookings counted in the current and the previous minute.
+	 */
+	private static final class CenterRate {
+
+		private long minute;
+
+		private long current;
+
+		private long previous;
+
+		synchronized void increment() {
+			roll();
+			current++;
+		}
+
+		synchronized double perMinute() {
+			roll();
+			return previous;
+		}
+
+		private void roll() {
+			long now = TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis());
+			if (now != minute) {
+				previous = now == minute + 1 ? current : 0;
+				current = 0;
+				minute = now;
+			}
+		}
+	}
+
+}
@@ -73,6 +73,7 @@ import io.mosip.preregistration.booking.exception.DemographicGetStatusException;
 import io.mosip.preregistration.booking.exception.InvalidDateTimeFormatException;
 import io.mosip.preregistration.booking.exception.RecordNotFoundException;
 import io.mosip.preregistration.booking.exception.TimeSpanException;
+import io.mosip.preregistration.booking.service.util.BookingMetrics.Phase;
 import io.mosip.preregistration.core.code.StatusCodes;
 import io.mosip.preregistration.core.common.dto.BookingRegistrationDTO;
 import io.mosip.preregistration.core.common.dto.MainRequestDTO;
@@ -107,6 +108,12 @@ public class BookingServiceUtil {
 	@Autowired
 	private RestTemplate restTemplate;
 
+	@Autowired
+	private RegistrationCenterCache registrationCenterCache;
+
+	@Autowired
+	private BookingMetrics bookingMetrics;
+
 	/**
 	 * Reference for ${regCenter.url} from property file
 	 */
@@ -158,11 +165,22 @@ public class BookingServiceUtil {
 	}
 
 	/**
-	 * This method will call kernel service for registration center date.
+	 * This method will give the registration center master data, served from
+	 * {@link RegistrationCenterCache} when possible.
 	 * 
 	 * @return List of RegistrationCenterDto
 	 */
 	public List<RegistrationCenterDto> getRegCenterMasterData(String regCenterId) {
+		return registrationCenterCache.get(regCenterId,
+				id -> bookingMetrics.time(Phase.MASTER_DATA_CALL, () -> fetchRegCenterMasterData(id)));
+	}
+
+	/**
+	 * This method will call kernel service for registration center date.
+	 * 
+	 * @return List of RegistrationCenterDto
+	 */
+	private List<RegistrationCenterDto> fetchRegCenterMasterData(String regCenterId) {
 		log.info("sessionId", "idType", "id", "In callRegCenterDateRestService method of Booking Service Util");
 		List<RegistrationCenterDto> regCenter = null;
 		try {
@@ -0,0 +1,402 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.SlotCalendar.FreeSlot;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+/**
+ * This class finds the earliest free slots of registration centers without
+ * rendering their whole availability window. For each center it keeps a bit
+ * per day of the search horizon, set while the day may still have a free
+ * kiosk; finding the first N slots reads only the days whose bit is set, and
+ * a day read back without a free kiosk gets its bit cleared.
+ * <p>
+ * A center is indexed with one query on its first search. After that every
+ * booking, cancellation or hold change on this node sets the bit of its day
+ * again once its transaction commits, so a day is never skipped while it has
+ * capacity. Changes made on other nodes or by the slot generation job are
+ * picked up when the entry expires.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class NextAvailableSlotIndex {
+
+	private Logger log = LoggerConfiguration.logConfig(NextAvailableSlotIndex.class);
+
+	@Autowired
+	private BookingDAO bookingDAO;
+
+	@Autowired
+	private AvailabilityCache availabilityCache;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.horizon} (days)
+	 * from property file
+	 */
+	@Value("${preregistration.booking.next-available.horizon:60}")
+	private int horizonDays;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.ttl} (seconds)
+	 * from property file
+	 */
+	@Value("${preregistration.booking.next-available.ttl:60}")
+	private long ttlSeconds;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.max-centers} from
+	 * property file
+	 */
+	@Value("${preregistration.booking.next-available.max-centers:2000}")
+	private int maxCenters;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.parallelism} from
+	 * property file
+	 */
+	@Value("${preregistration.booking.next-available.parallelism:8}")
+	private int parallelism;
+
+	/**
+	 * Reference for ${preregistration.booking.next-available.timeout}
+	 * (milliseconds) from property file
+	 */
+	@Value("${preregistration.booking.next-available.timeout:10000}")
+	private long timeoutMillis;
+
+	private final Map<String, FreeDays> entries = new ConcurrentHashMap<>();
+
+	private ThreadPoolExecutor executor;
+
+	private Counter loads;
+
+	private Counter cacheReads;
+
+	private Counter databaseReads;
+
+	private Counter clearedDays;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		loads = Counter.builder("prereg.booking.next-available.loads").register(meterRegistry);
+		cacheReads = Counter.builder("prereg.booking.next-available.day-reads").tag("source", "cache")
+				.register(meterRegistry);
+		databaseReads = Counter.builder("prereg.booking.next-available.day-reads").tag("source", "database")
+				.register(meterRegistry);
+		clearedDays = Counter.builder("prereg.booking.next-available.cleared-days").register(meterRegistry);
+		Gauge.builder("prereg.booking.next-available.centers", entries, Map::size).register(meterRegistry);
+		executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(parallelism * 16), runnable -> {
+					Thread thread = new Thread(runnable, "booking-next-available");
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.allowCoreThreadTimeOut(true);
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Finds the earliest free slots of a center.
+	 *
+	 * @param regCenterId registration center id
+	 * @param fromDate    first day to search
+	 * @param limit       most slots to return
+	 * @return free slots in date and time order
+	 */
+	public List<FreeSlot> earliest(String regCenterId, LocalDate fromDate, int limit) {
+		FreeDays entry = entry(regCenterId, fromDate);
+		List<FreeSlot> found = new ArrayList<>(Math.min(limit, 64));
+		for (int day = entry.next(0); day >= 0 && found.size() < limit; day = entry.next(day + 1)) {
+			found.addAll(freeSlots(regCenterId, entry, day, limit - found.size()));
+		}
+		return found;
+	}
+
+	/**
+	 * Finds the earliest free slots of several centers concurrently. The search
+	 * fails as a whole when the search of one center fails or does not finish in
+	 * time, so that the earliest slots found are never those of some centers
+	 * only.
+	 *
+	 * @param regCenterIds registration center ids, duplicates are searched once
+	 * @param fromDate     first day to search
+	 * @param limit        most slots to return per center
+	 * @return free slots per center in request order
+	 * @throws TableNotAccessibleException when a center was not searched in time
+	 */
+	public Map<String, List<FreeSlot>> earliest(Collection<String> regCenterIds, LocalDate fromDate, int limit) {
+		Set<String> ids = new LinkedHashSet<>(regCenterIds);
+		Map<String, List<FreeSlot>> found = new LinkedHashMap<>();
+		if (ids.size() == 1) {
+			String regCenterId = ids.iterator().next();
+			found.put(regCenterId, earliest(regCenterId, fromDate, limit));
+			return found;
+		}
+		Map<String, Future<List<FreeSlot>>> pending = new LinkedHashMap<>();
+		for (String regCenterId : ids) {
+			pending.put(regCenterId, executor.submit(() -> earliest(regCenterId, fromDate, limit)));
+		}
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		try {
+			for (Map.Entry<String, Future<List<FreeSlot>>> search : pending.entrySet()) {
+				found.put(search.getKey(), await(search.getKey(), search.getValue(), deadline));
+			}
+		} finally {
+			/* nothing left running once the search has failed */
+			for (Future<List<FreeSlot>> future : pending.values()) {
+				future.cancel(true);
+			}
+		}
+		return found;
+	}
+
+	private List<FreeSlot> await(String regCenterId, Future<List<FreeSlot>> future, long deadline) {
+		try {
+			return future.get(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+		} catch (TimeoutException ex) {
+			log.error("sessionId", "idType", "id", "Timed out finding free slots of " + regCenterId);
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new TableNotAccessibleException(ErrorCodes.PRG_BOOK_RCI_016.getCode(),
+					ErrorMessages.AVAILABILITY_TABLE_NOT_ACCESSABLE.getMessage());
+		} catch (ExecutionException ex) {
+			log.error("sessionId", "idType", "id",
+					"Finding free slots of " + regCenterId + " failed- " + ex.getCause().getMessage());
+			if (ex.getCause() instanceof Error) {
+				throw (Error) ex.getCause();
+			}
+			throw (RuntimeException) ex.getCause();
+		}
+	}
+
+	/**
+	 * Records a change of the kiosks of a day. Inside a transaction the change
+	 * is recorded after commit.
+	 *
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 */
+	public void changed(String regCenterId, LocalDate regDate) {
+		if (regCenterId == null || regDate == null) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCommit() {
+					mark(regCenterId, regDate);
+				}
+			});
+		} else {
+			mark(regCenterId, regDate);
+		}
+	}
+
+	/**
+	 * Drops the index of a center, for example after its slots were deleted.
+	 *
+	 * @param regCenterId registration center id
+	 */
+	public void evict(String regCenterId) {
+		if (regCenterId != null) {
+			entries.remove(regCenterId);
+		}
+	}
+
+	private void mark(String regCenterId, LocalDate regDate) {
+		FreeDays entry = entries.get(regCenterId);
+		if (entry != null) {
+			entry.mark(regDate);
+		}
+	}
+
+	private List<FreeSlot> freeSlots(String regCenterId, FreeDays entry, int day, int limit) {
+		LocalDate date = entry.firstDay.plusDays(day);
+		SlotCalendar cached = availabilityCache.peek(regCenterId);
+		if (cached != null && !date.isBefore(cached.getFirstDay()) && !date.isAfter(cached.getLastDay())) {
+			cacheReads.increment();
+			List<FreeSlot> free = cached.freeSlots(date, limit);
+			if (!free.isEmpty()) {
+				return free;
+			}
+		}
+		/* read before the day so that a change committed meanwhile keeps its bit */
+		long version = entry.version();
+		databaseReads.increment();
+		List<SlotAvailabilityView> slots = bookingDAO.findSlotAvailability(regCenterId, date, date);
+		List<FreeSlot> free = SlotCalendar
+				.of(regCenterId, date, date, slots == null ? Collections.emptyList() : slots)
+				.freeSlots(date, limit);
+		if (free.isEmpty() && entry.clear(day, version)) {
+			clearedDays.increment();
+		}
+		return free;
+	}
+
+	private FreeDays entry(String regCenterId, LocalDate fromDate) {
+		while (true) {
+			long now = System.nanoTime();
+			FreeDays entry = entries.get(regCenterId);
+			if (entry != null && entry.firstDay.equals(fromDate) && !entry.isExpired(now)) {
+				load(regCenterId, entry);
+				return entry;
+			}
+			FreeDays fresh = new FreeDays(fromDate, horizonDays,
+					now + TimeUnit.SECONDS.toNanos(ttlSeconds));
+			if (entry == null) {
+				if (entries.size() >= maxCenters) {
+					evictOldest();
+				}
+				if (entries.putIfAbsent(regCenterId, fresh) != null) {
+					continue;
+				}
+			} else if (!entries.replace(regCenterId, entry, fresh)) {
+				continue;
+			}
+			/* registered before loading, so that changes committed meanwhile are marked */
+			load(regCenterId, fresh);
+			return fresh;
+		}
+	}
+
+	private void load(String regCenterId, FreeDays entry) {
+		if (entry.loaded) {
+			return;
+		}
+		synchronized (entry.loadLock) {
+			if (entry.loaded) {
+				return;
+			}
+			LocalDate lastDay = entry.firstDay.plusDays(entry.days - 1L);
+			List<SlotAvailabilityView> slots = bookingDAO.findSlotAvailability(regCenterId, entry.firstDay, lastDay);
+			entry.merge(SlotCalendar
+					.of(regCenterId, entry.firstDay, lastDay, slots == null ? Collections.emptyList() : slots)
+					.freeDays());
+			entry.loaded = true;
+			loads.increment();
+		}
+	}
+
+	private void evictOldest() {
+		entries.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().expiresAt))
+				.ifPresent(e -> entries.remove(e.getKey(), e.getValue()));
+	}
+
+	/**
+	 * Days of one center that may have a free kiosk. Bits are set by loads and
+	 * changes and only cleared when nothing changed while the day was read.
+	 */
+	private static final class FreeDays {
+
+		private final LocalDate firstDay;
+
+		private final int days;
+
+		private final long expiresAt;
+
+		private final Object loadLock = new Object();
+
+		private final BitSet free;
+
+		private long version;
+
+		private volatile boolean loaded;
+
+		FreeDays(LocalDate firstDay, int days, long expiresAt) {
+			this.firstDay = firstDay;
+			this.days = days;
+			this.expiresAt = expiresAt;
+			this.free = new BitSet(days);
+		}
+
+		boolean isExpired(long now) {
+			return now - expiresAt >= 0;
+		}
+
+		synchronized void merge(BitSet days) {
+			free.or(days);
+		}
+
+		synchronized void mark(LocalDate date) {
+			version++;
+			long day = ChronoUnit.DAYS.between(firstDay, date);
+			if (day >= 0 && day < days) {
+				free.set((int) day);
+			}
+		}
+
+		synchronized long version() {
+			return version;
+		}
+
+		synchronized int next(int day) {
+			int next = free.nextSetBit(day);
+			return next < days ? next : -1;
+		}
+
+		synchronized boolean clear(int day, long seen) {
+			if (version != seen) {
+				return false;
+			}
+			free.clear(day);
+			return true;
+		}
+	}
+
+}
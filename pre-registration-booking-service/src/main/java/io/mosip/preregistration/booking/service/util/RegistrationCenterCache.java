@@ -0,0 +1,246 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.dto.RegistrationCenterDto;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+import io.mosip.preregistration.core.exception.MasterDataNotAvailableException;
+
+/**
+ * This class caches registration center master data by center id.
+ * <ul>
+ * <li>an entry older than the refresh interval is still served while it is
+ * reloaded in the background (refresh-ahead);</li>
+ * <li>when the reload fails, whatever the failure, the old entry keeps being
+ * served until it is older than the stale limit (stale-while-revalidate);</li>
+ * <li>ids master data answers it does not know are remembered for a short time
+ * so unknown centers do not cost a remote call each (negative caching). Call
+ * failures such as an expired token or throttling are not remembered;</li>
+ * <li>the number of ids held is bounded, the oldest loaded going first.</li>
+ * </ul>
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class RegistrationCenterCache {
+
+	private Logger log = LoggerConfiguration.logConfig(RegistrationCenterCache.class);
+
+	/**
+	 * Reference for ${preregistration.regcenter.cache.enabled} from property file
+	 */
+	@Value("${preregistration.regcenter.cache.enabled:true}")
+	private boolean enabled;
+
+	/**
+	 * Reference for ${preregistration.regcenter.cache.refresh} (seconds) from
+	 * property file
+	 */
+	@Value("${preregistration.regcenter.cache.refresh:3600}")
+	private long refreshSeconds;
+
+	/**
+	 * Reference for ${preregistration.regcenter.cache.max-stale} (seconds) from
+	 * property file
+	 */
+	@Value("${preregistration.regcenter.cache.max-stale:86400}")
+	private long maxStaleSeconds;
+
+	/**
+	 * Reference for ${preregistration.regcenter.cache.negative-ttl} (seconds)
+	 * from property file
+	 */
+	@Value("${preregistration.regcenter.cache.negative-ttl:300}")
+	private long negativeTtlSeconds;
+
+	/**
+	 * Reference for ${preregistration.regcenter.cache.max-centers} from property
+	 * file
+	 */
+	@Value("${preregistration.regcenter.cache.max-centers:5000}")
+	private int maxCenters;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private final Map<String, CenterEntry> entries = new ConcurrentHashMap<>();
+
+	private final Map<String, Boolean> refreshing = new ConcurrentHashMap<>();
+
+	private ThreadPoolExecutor refresher;
+
+	private Counter hits;
+
+	private Counter misses;
+
+	private Counter staleServed;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		hits = Counter.builder("prereg.booking.regcenter.cache").tag("result", "hit").register(meterRegistry);
+		misses = Counter.builder("prereg.booking.regcenter.cache").tag("result", "miss").register(meterRegistry);
+		staleServed = Counter.builder("prereg.booking.regcenter.cache").tag("result", "stale").register(meterRegistry);
+		refresher = new ThreadPoolExecutor(1, 2, 60L, TimeUnit.SECONDS, new ArrayBlockingQueue<>(256), runnable -> {
+			Thread thread = new Thread(runnable, "regcenter-cache-refresh");
+			thread.setDaemon(true);
+			return thread;
+		}, new ThreadPoolExecutor.AbortPolicy());
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		refresher.shutdownNow();
+	}
+
+	/**
+	 * Returns the master data of a center, loading it through the given loader
+	 * when nothing usable is cached.
+	 *
+	 * @param regCenterId registration center id
+	 * @param loader      remote master data lookup
+	 * @return list of RegistrationCenterDto
+	 */
+	public List<RegistrationCenterDto> get(String regCenterId,
+			Function<String, List<RegistrationCenterDto>> loader) {
+		if (!enabled) {
+			return loader.apply(regCenterId);
+		}
+		long now = System.nanoTime();
+		CenterEntry entry = entries.get(regCenterId);
+		if (entry != null) {
+			if (entry.failure != null) {
+				if (now - entry.loadedAt < TimeUnit.SECONDS.toNanos(negativeTtlSeconds)) {
+					hits.increment();
+					throw entry.failure;
+				}
+			} else if (now - entry.loadedAt < TimeUnit.SECONDS.toNanos(refreshSeconds)) {
+				hits.increment();
+				return entry.centers;
+			} else if (now - entry.loadedAt < TimeUnit.SECONDS.toNanos(maxStaleSeconds)) {
+				staleServed.increment();
+				refreshAsync(regCenterId, loader);
+				return entry.centers;
+			}
+		}
+		misses.increment();
+		return load(regCenterId, loader, null);
+	}
+
+	/**
+	 * @param regCenterId registration center id to drop
+	 * @return true when an entry was present
+	 */
+	public boolean evict(String regCenterId) {
+		return entries.remove(regCenterId) != null;
+	}
+
+	/**
+	 * Drops every cached center.
+	 */
+	public void evictAll() {
+		entries.clear();
+	}
+
+	/**
+	 * @return number of cached centers and negatively cached ids
+	 */
+	public Map<String, Object> stats() {
+		long negative = entries.values().stream().filter(e -> e.failure != null).count();
+		Map<String, Object> stats = new HashMap<>();
+		stats.put("entries", entries.size() - negative);
+		stats.put("negativeEntries", negative);
+		return stats;
+	}
+
+	private List<RegistrationCenterDto> load(String regCenterId, Function<String, List<RegistrationCenterDto>> loader,
+			CenterEntry stale) {
+		try {
+			List<RegistrationCenterDto> centers = loader.apply(regCenterId);
+			put(regCenterId, new CenterEntry(centers, null, System.nanoTime()));
+			return centers;
+		} catch (RuntimeException ex) {
+			if (stale != null) {
+				log.warn("sessionId", "idType", "id", "Master data refresh failed for registration center "
+						+ regCenterId + ", serving cached data- " + ex.getMessage());
+				return stale.centers;
+			}
+			if (ex instanceof MasterDataNotAvailableException) {
+				/* master data answered and does not know the center */
+				put(regCenterId, new CenterEntry(null, ex, System.nanoTime()));
+			}
+			throw ex;
+		}
+	}
+
+	private void put(String regCenterId, CenterEntry entry) {
+		if (entries.size() >= maxCenters && !entries.containsKey(regCenterId)) {
+			entries.entrySet().stream().min(Comparator.comparingLong(e -> e.getValue().loadedAt))
+					.ifPresent(e -> entries.remove(e.getKey()));
+		}
+		entries.put(regCenterId, entry);
+	}
+
+	private void refreshAsync(String regCenterId, Function<String, List<RegistrationCenterDto>> loader) {
+		if (refreshing.putIfAbsent(regCenterId, Boolean.TRUE) != null) {
+			return;
+		}
+		try {
+			refresher.execute(() -> {
+				try {
+					CenterEntry stale = entries.get(regCenterId);
+					load(regCenterId, loader, stale != null && stale.failure == null ? stale : null);
+				} catch (RuntimeException ex) {
+					log.warn("sessionId", "idType", "id",
+							"Background refresh of registration center " + regCenterId + " failed- " + ex.getMessage());
+				} finally {
+					refreshing.remove(regCenterId);
+				}
+			});
+		} catch (RuntimeException ex) {
+			refreshing.remove(regCenterId);
+		}
+	}
+
+	private static final class CenterEntry {
+
+		private final List<RegistrationCenterDto> centers;
+
+		private final RuntimeException failure;
+
+		private final long loadedAt;
+
+		CenterEntry(List<RegistrationCenterDto> centers, RuntimeException failure, long loadedAt) {
+			this.centers = centers;
+			this.failure = failure;
+			this.loadedAt = loadedAt;
+		}
+	}
+
+}
@@ -0,0 +1,408 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.dto.DateTimeDto;
+import io.mosip.preregistration.booking.dto.SlotDto;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+
+/**
+ * This class is a compact availability calendar of one registration center.
+ * Free kiosks are kept in a single day by slot {@code int[]}; the slot start
+ * and end times live in a {@link SlotTimes} table that is shared between all
+ * centers using the same slot layout. A day without slot rows is absent, a day
+ * with exactly one row is a holiday, as in
+ * {@link BookingServiceUtil#slotSetter}.
+ *
+ * @since 1.2.0
+ *
+ */
+public final class SlotCalendar {
+
+	/** Free kiosk value of a slot that has no row on that day. */
+	public static final int NO_SLOT = -1;
+
+	private final String regCenterId;
+
+	private final LocalDate firstDay;
+
+	private final int days;
+
+	private final SlotTimes slotTimes;
+
+	private final int[] freeKiosks;
+
+	private final BitSet presentDays;
+
+	private final BitSet holidays;
+
+	private SlotCalendar(String regCenterId, LocalDate firstDay, int days, SlotTimes slotTimes, int[] freeKiosks,
+			BitSet presentDays, BitSet holidays) {
+		this.regCenterId = regCenterId;
+		this.firstDay = firstDay;
+		this.days = days;
+		this.slotTimes = slotTimes;
+		this.freeKiosks = freeKiosks;
+		this.presentDays = presentDays;
+		this.holidays = holidays;
+	}
+
+	/**
+	 * Builds the calendar of the days from firstDay to lastDay out of slot rows.
+	 * Rows outside the range are ignored.
+	 *
+	 * @param regCenterId registration center id
+	 * @param firstDay    first day of the calendar
+	 * @param lastDay     last day of the calendar
+	 * @param entities    slot rows of the center
+	 * @return calendar
+	 */
+	public static SlotCalendar of(String regCenterId, LocalDate firstDay, LocalDate lastDay,
+			List<? extends SlotAvailabilityView> entities) {
+		int days = (int) ChronoUnit.DAYS.between(firstDay, lastDay) + 1;
+		TreeSet<LocalTime[]> layout = new TreeSet<>(SlotTimes.ORDER);
+		for (SlotAvailabilityView entity : entities) {
+			layout.add(new LocalTime[] { entity.getFromTime(), entity.getToTime() });
+		}
+		SlotTimes slotTimes = SlotTimes.intern(layout);
+		int slots = slotTimes.size();
+		int[] freeKiosks = new int[days * slots];
+		Arrays.fill(freeKiosks, NO_SLOT);
+		int[] rowsPerDay = new int[days];
+		for (SlotAvailabilityView entity : entities) {
+			int day = (int) ChronoUnit.DAYS.between(firstDay, entity.getRegDate());
+			if (day < 0 || day >= days) {
+				continue;
+			}
+			rowsPerDay[day]++;
+			freeKiosks[day * slots + slotTimes.indexOf(entity.getFromTime(), entity.getToTime())] = entity
+					.getAvailableKiosks();
+		}
+		BitSet presentDays = new BitSet(days);
+		BitSet holidays = new BitSet(days);
+		for (int day = 0; day < days; day++) {
+			presentDays.set(day, rowsPerDay[day] > 0);
+			holidays.set(day, rowsPerDay[day] == 1);
+		}
+		return new SlotCalendar(regCenterId, firstDay, days, slotTimes, freeKiosks, presentDays, holidays);
+	}
+
+	/**
+	 * @param lastDay new last day, not after the current one
+	 * @return a calendar covering the days up to lastDay
+	 */
+	public SlotCalendar truncate(LocalDate lastDay) {
+		int newDays = (int) Math.min(days, ChronoUnit.DAYS.between(firstDay, lastDay) + 1);
+		if (newDays == days) {
+			return this;
+		}
+		return new SlotCalendar(regCenterId, firstDay, newDays, slotTimes,
+				Arrays.copyOf(freeKiosks, newDays * slotTimes.size()), presentDays.get(0, newDays),
+				holidays.get(0, newDays));
+	}
+
+	public String getRegCenterId() {
+		return regCenterId;
+	}
+
+	public LocalDate getFirstDay() {
+		return firstDay;
+	}
+
+	public LocalDate getLastDay() {
+		return firstDay.plusDays(days - 1L);
+	}
+
+	/**
+	 * @param date day to look at
+	 * @return true when the center has slot rows that day
+	 */
+	public boolean isPresent(LocalDate date) {
+		int day = dayIndex(date);
+		return day >= 0 && presentDays.get(day);
+	}
+
+	/**
+	 * @param date day to look at
+	 * @return true when the day is a holiday
+	 */
+	public boolean isHoliday(LocalDate date) {
+		int day = dayIndex(date);
+		return day >= 0 && holidays.get(day);
+	}
+
+	/**
+	 * @param date     slot date
+	 * @param fromTime slot start
+	 * @param toTime   slot end
+	 * @return free kiosks of the slot, or {@link #NO_SLOT} when the calendar does
+	 *         not know the slot
+	 */
+	public int freeKiosks(LocalDate date, LocalTime fromTime, LocalTime toTime) {
+		int day = dayIndex(date);
+		int slot = slotTimes.indexOf(fromTime, toTime);
+		if (day < 0 || slot < 0) {
+			return NO_SLOT;
+		}
+		return freeKiosks[day * slotTimes.size() + slot];
+	}
+
+	/**
+	 * Finds the first slot with a free kiosk starting at the given day and time.
+	 *
+	 * @param date  first day to search
+	 * @param after earliest slot start on that day, or null for any
+	 * @return the free slot, or null when the calendar has none
+	 */
+	public FreeSlot nextFree(LocalDate date, LocalTime after) {
+		int slots = slotTimes.size();
+		long startDay = ChronoUnit.DAYS.between(firstDay, date);
+		for (int day = (int) Math.max(0L, startDay); day < days; day++) {
+			for (int slot = 0; slot < slots; slot++) {
+				if (freeKiosks[day * slots + slot] > 0
+						&& (after == null || day > startDay || !slotTimes.getFromTime(slot).isBefore(after))) {
+					return new FreeSlot(firstDay.plusDays(day), slotTimes.getFromTime(slot),
+							slotTimes.getToTime(slot), freeKiosks[day * slots + slot]);
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param date  day to look at
+	 * @param limit most slots to return
+	 * @return the slots of the day with a free kiosk in time order, none on a
+	 *         holiday
+	 */
+	public List<FreeSlot> freeSlots(LocalDate date, int limit) {
+		int day = dayIndex(date);
+		List<FreeSlot> free = new ArrayList<>();
+		if (day < 0 || holidays.get(day)) {
+			return free;
+		}
+		int slots = slotTimes.size();
+		for (int slot = 0; slot < slots && free.size() < limit; slot++) {
+			int kiosks = freeKiosks[day * slots + slot];
+			if (kiosks > 0) {
+				free.add(new FreeSlot(date, slotTimes.getFromTime(slot), slotTimes.getToTime(slot), kiosks));
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * @return offsets from the first day of the working days with at least one
+	 *         free kiosk
+	 */
+	public BitSet freeDays() {
+		int slots = slotTimes.size();
+		BitSet free = new BitSet(days);
+		for (int day = presentDays.nextSetBit(0); day >= 0; day = presentDays.nextSetBit(day + 1)) {
+			if (holidays.get(day)) {
+				continue;
+			}
+			for (int slot = 0; slot < slots; slot++) {
+				if (freeKiosks[day * slots + slot] > 0) {
+					free.set(day);
+					break;
+				}
+			}
+		}
+		return free;
+	}
+
+	/**
+	 * Renders the days with at least one free kiosk the way the availability API
+	 * returns them.
+	 *
+	 * @return availability of the center
+	 */
+	public AvailabilityDto toAvailability() {
+		return toAvailability(firstDay, getLastDay());
+	}
+
+	/**
+	 * Renders the days from fromDate to toDate with at least one free kiosk the
+	 * way the availability API returns them.
+	 *
+	 * @param fromDate first day to render
+	 * @param toDate   last day to render
+	 * @return availability of the center within the days
+	 */
+	public AvailabilityDto toAvailability(LocalDate fromDate, LocalDate toDate) {
+		int slots = slotTimes.size();
+		int from = (int) Math.max(0L, Math.min(days, ChronoUnit.DAYS.between(firstDay, fromDate)));
+		int to = (int) Math.max(-1L, Math.min(days - 1L, ChronoUnit.DAYS.between(firstDay, toDate)));
+		List<DateTimeDto> dateTimeList = new ArrayList<>();
+		for (int day = presentDays.nextSetBit(from); day >= 0 && day <= to; day = presentDays.nextSetBit(day + 1)) {
+			List<SlotDto> slotList = null;
+			for (int slot = 0; slot < slots; slot++) {
+				int free = freeKiosks[day * slots + slot];
+				if (free > 0) {
+					if (slotList == null) {
+						slotList = new ArrayList<>(slots);
+					}
+					SlotDto slotDto = new SlotDto();
+					slotDto.setAvailability(free);
+					slotDto.setFromTime(slotTimes.getFromTime(slot));
+					slotDto.setToTime(slotTimes.getToTime(slot));
+					slotList.add(slotDto);
+				}
+			}
+			if (slotList != null) {
+				DateTimeDto dateTime = new DateTimeDto();
+				dateTime.setDate(firstDay.plusDays(day).toString());
+				dateTime.setHoliday(holidays.get(day));
+				dateTime.setTimeSlots(slotList);
+				dateTimeList.add(dateTime);
+			}
+		}
+		AvailabilityDto availability = new AvailabilityDto();
+		availability.setRegCenterId(regCenterId);
+		availability.setCenterDetails(dateTimeList);
+		return availability;
+	}
+
+	private int dayIndex(LocalDate date) {
+		long day = ChronoUnit.DAYS.between(firstDay, date);
+		return day < 0 || day >= days ? -1 : (int) day;
+	}
+
+	/**
+	 * A slot with free kiosks found by {@link SlotCalendar#nextFree}.
+	 */
+	public static final class FreeSlot {
+
+		private final LocalDate date;
+
+		private final LocalTime fromTime;
+
+		private final LocalTime toTime;
+
+		private final int freeKiosks;
+
+		FreeSlot(LocalDate date, LocalTime fromTime, LocalTime toTime, int freeKiosks) {
+			this.date = date;
+			this.fromTime = fromTime;
+			this.toTime = toTime;
+			this.freeKiosks = freeKiosks;
+		}
+
+		public LocalDate getDate() {
+			return date;
+		}
+
+		public LocalTime getFromTime() {
+			return fromTime;
+		}
+
+		public LocalTime getToTime() {
+			return toTime;
+		}
+
+		public int getFreeKiosks() {
+			return freeKiosks;
+		}
+	}
+
+	/**
+	 * Ordered slot start and end times. Tables are interned, so centers with the
+	 * same slot layout share one instance.
+	 */
+	static final class SlotTimes {
+
+		static final Comparator<LocalTime[]> ORDER = Comparator.<LocalTime[], LocalTime>comparing(times -> times[0])
+				.thenComparing(times -> times[1]);
+
+		private static final Map<SlotTimes, SlotTimes> INTERNED = new ConcurrentHashMap<>();
+
+		private final LocalTime[] fromTimes;
+
+		private final LocalTime[] toTimes;
+
+		private SlotTimes(LocalTime[] fromTimes, LocalTime[] toTimes) {
+			this.fromTimes = fromTimes;
+			this.toTimes = toTimes;
+		}
+
+		static SlotTimes intern(SortedSet<LocalTime[]> layout) {
+			LocalTime[] fromTimes = new LocalTime[layout.size()];
+			LocalTime[] toTimes = new LocalTime[layout.size()];
+			int slot = 0;
+			for (LocalTime[] times : layout) {
+				fromTimes[slot] = times[0];
+				toTimes[slot++] = times[1];
+			}
+			SlotTimes slotTimes = new SlotTimes(fromTimes, toTimes);
+			SlotTimes interned = INTERNED.putIfAbsent(slotTimes, slotTimes);
+			return interned != null ? interned : slotTimes;
+		}
+
+		int size() {
+			return fromTimes.length;
+		}
+
+		int indexOf(LocalTime fromTime, LocalTime toTime) {
+			int low = 0;
+			int high = fromTimes.length - 1;
+			while (low <= high) {
+				int mid = (low + high) >>> 1;
+				int cmp = fromTimes[mid].compareTo(fromTime);
+				if (cmp == 0) {
+					cmp = toTimes[mid].compareTo(toTime);
+				}
+				if (cmp < 0) {
+					low = mid + 1;
+				} else if (cmp > 0) {
+					high = mid - 1;
+				} else {
+					return mid;
+				}
+			}
+			return -1;
+		}
+
+		LocalTime getFromTime(int slot) {
+			return fromTimes[slot];
+		}
+
+		LocalTime getToTime(int slot) {
+			return toTimes[slot];
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) {
+				return true;
+			}
+			if (!(obj instanceof SlotTimes)) {
+				return false;
+			}
+			SlotTimes other = (SlotTimes) obj;
+			return Arrays.equals(fromTimes, other.fromTimes) && Arrays.equals(toTimes, other.toTimes);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * Arrays.hashCode(fromTimes) + Arrays.hashCode(toTimes);
+		}
+	}
+
+}
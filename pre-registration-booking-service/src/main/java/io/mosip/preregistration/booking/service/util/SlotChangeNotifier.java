@@ -0,0 +1,49 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+/**
+ * This class tells the views of the slot availability that the kiosks of a
+ * slot changed: the cached availability of the center, its availability
+ * streams and the next available slot index. Bookings, cancellations and
+ * holds report every slot they touch here once.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class SlotChangeNotifier {
+
+	@Autowired
+	private AvailabilityCache availabilityCache;
+
+	@Autowired
+	private AvailabilityStream availabilityStream;
+
+	@Autowired
+	private NextAvailableSlotIndex nextAvailableSlotIndex;
+
+	/**
+	 * Records a change of the kiosks of a slot. Inside a transaction the views
+	 * are updated after commit.
+	 *
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 */
+	public void slotChanged(String regCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		availabilityCache.evict(regCenterId);
+		availabilityStream.changed(regCenterId, regDate, fromTime, toTime);
+		nextAvailableSlotIndex.changed(regCenterId, regDate);
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeMap;
+
+import lombok.Getter;
+
+/**
+ * This class collects the kiosks a group of bookings takes from and gives back
+ * to each slot, so that a family booking updates every slot it touches once,
+ * by the net number of kiosks, and in the order of {@link BookingLock}. Taking
+ * slot locks and row locks in that one global order keeps family bookings from
+ * deadlocking each other or single bookings.
+ *
+ * @since 1.2.0
+ *
+ */
+public final class SlotDemands {
+
+	private final TreeMap<BookingLock, Demand> demands = new TreeMap<>();
+
+	/**
+	 * Takes one kiosk of the slot.
+	 *
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 * @return kiosks taken from the slot so far, including this one
+	 */
+	public int take(String regCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		Demand demand = demand(regCenterId, regDate, fromTime, toTime);
+		return ++demand.taken;
+	}
+
+	/**
+	 * Gives one kiosk back to the slot.
+	 *
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 */
+	public void giveBack(String regCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		demand(regCenterId, regDate, fromTime, toTime).given++;
+	}
+
+	/**
+	 * @return locks of every slot touched, in lock order
+	 */
+	public Set<BookingLock> locks() {
+		return demands.keySet();
+	}
+
+	/**
+	 * @return demand of every slot touched, in lock order
+	 */
+	public Collection<Demand> demands() {
+		return demands.values();
+	}
+
+	private Demand demand(String regCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+		return demands.computeIfAbsent(new BookingLock(regCenterId, regDate, fromTime),
+				key -> new Demand(regCenterId, regDate, fromTime, toTime));
+	}
+
+	/**
+	 * Kiosks taken from and given back to one slot.
+	 */
+	@Getter
+	public static final class Demand {
+
+		private final String registrationCenterId;
+
+		private final LocalDate regDate;
+
+		private final LocalTime fromTime;
+
+		private final LocalTime toTime;
+
+		private int taken;
+
+		private int given;
+
+		private Demand(String registrationCenterId, LocalDate regDate, LocalTime fromTime, LocalTime toTime) {
+			this.registrationCenterId = registrationCenterId;
+			this.regDate = regDate;
+			this.fromTime = fromTime;
+			this.toTime = toTime;
+		}
+
+		/**
+		 * @return kiosks the slot gains, negative when it loses kiosks
+		 */
+		public int getDelta() {
+			return given - taken;
+		}
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.mosip.kernel.core.logger.spi.Logger;
+import io.mosip.preregistration.booking.entity.SlotHoldEntity;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.exception.OperationNotAllowedException;
+import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.core.config.LoggerConfiguration;
+
+/**
+ * This class manages temporary holds on slots. A hold takes one kiosk from the
+ * slot when the citizen selects it and is confirmed by the booking, which then
+ * only has to consume the hold instead of competing for the kiosk.
+ * <p>
+ * Holds created on this node are expired by a {@link TimerWheel} ticking on a
+ * single sweeper thread, rather than a scheduled task per hold. Holds left by a
+ * node that stopped are expired by a periodic sweep of the hold table. Whether
+ * a kiosk goes to the booking or back to the slot is decided by which of them
+ * deletes the hold row, so a hold expiring while it is confirmed cannot give
+ * its kiosk twice.
+ *
+ * @since 1.2.0
+ *
+ */
+@Component
+public class SlotHoldManager {
+
+	private Logger log = LoggerConfiguration.logConfig(SlotHoldManager.class);
+
+	/**
+	 * Reference for ${preregistration.booking.hold.ttl} (seconds) from property
+	 * file
+	 */
+	@Value("${preregistration.booking.hold.ttl:300}")
+	private long ttlSeconds;
+
+	/**
+	 * Reference for ${preregistration.booking.hold.max-per-user} from property
+	 * file
+	 */
+	@Value("${preregistration.booking.hold.max-per-user:10}")
+	private int maxPerUser;
+
+	/**
+	 * Reference for ${preregistration.booking.hold.tick} (milliseconds) from
+	 * property file
+	 */
+	@Value("${preregistration.booking.hold.tick:1000}")
+	private long tickMillis;
+
+	/**
+	 * Reference for ${preregistration.booking.hold.wheel-size} from property file
+	 */
+	@Value("${preregistration.booking.hold.wheel-size:512}")
+	private int wheelSize;
+
+	/**
+	 * Reference for ${preregistration.booking.hold.recovery-interval} (seconds)
+	 * from property file
+	 */
+	@Value("${preregistration.booking.hold.recovery-interval:60}")
+	private long recoverySeconds;
+
+	@Autowired
+	private BookingDAO bookingDAO;
+
+	@Autowired
+	private SlotChangeNotifier slotChangeNotifier;
+
+	@Autowired(required = false)
+	private MeterRegistry meterRegistry;
+
+	private TimerWheel<SlotHoldEntity> wheel;
+
+	private ScheduledThreadPoolExecutor sweeper;
+
+	private Counter created;
+
+	private Counter confirmed;
+
+	private Counter missed;
+
+	private Counter expired;
+
+	private Counter released;
+
+	@PostConstruct
+	public void init() {
+		if (meterRegistry == null) {
+			meterRegistry = Metrics.globalRegistry;
+		}
+		created = counter("created");
+		confirmed = counter("confirmed");
+		missed = counter("missed");
+		expired = counter("expired");
+		released = counter("released");
+		wheel = new TimerWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+		Gauge.builder("prereg.booking.hold.pending", wheel, TimerWheel::size)
+				.description("Holds of this node waiting for expiry").register(meterRegistry);
+		sweeper = new ScheduledThreadPoolExecutor(1, runnable -> {
+			Thread thread = new Thread(runnable, "slot-hold-sweeper");
+			thread.setDaemon(true);
+			return thread;
+		});
+		sweeper.scheduleWithFixedDelay(this::sweep, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+		if (recoverySeconds > 0) {
+			sweeper.scheduleWithFixedDelay(this::recover, recoverySeconds, recoverySeconds, TimeUnit.SECONDS);
+		}
+	}
+
+	@PreDestroy
+	public void shutdown() {
+		sweeper.shutdownNow();
+	}
+
+	/**
+	 * Takes one kiosk of the slot for the user until the hold expires.
+	 *
+	 * @param userId      user holding the kiosk
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 * @return the hold
+	 */
+	public SlotHoldEntity hold(String userId, String regCenterId, LocalDate regDate, LocalTime fromTime,
+			LocalTime toTime) {
+		/* counted before taking the kiosk, so concurrent requests of one user may pass it by a few */
+		if (bookingDAO.countActiveHolds(userId) >= maxPerUser) {
+			throw new OperationNotAllowedException(ErrorCodes.PRG_BOOK_RCI_037.getCode(),
+					ErrorMessages.TOO_MANY_SLOT_HOLDS.getMessage());
+		}
+		LocalDateTime now = LocalDateTime.now();
+		SlotHoldEntity hold = new SlotHoldEntity();
+		hold.setHoldId(UUID.randomUUID().toString());
+		hold.setUserId(userId);
+		hold.setRegcntrId(regCenterId);
+		hold.setRegDate(regDate);
+		hold.setFromTime(fromTime);
+		hold.setToTime(toTime);
+		hold.setCrDate(now);
+		hold.setExpiresDate(now.plusSeconds(ttlSeconds));
+		SlotHoldEntity saved = bookingDAO.createHold(hold);
+		wheel.schedule(saved, System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(ttlSeconds));
+		created.increment();
+		slotChanged(saved);
+		return saved;
+	}
+
+	/**
+	 * Consumes an active hold inside the booking transaction.
+	 *
+	 * @param holdToken   hold token from the booking request
+	 * @param userId      user booking
+	 * @param regCenterId registration center id
+	 * @param regDate     slot date
+	 * @param fromTime    slot from time
+	 * @param toTime      slot to time
+	 * @return true when the held kiosk is now the booking's; false when the
+	 *         hold is unknown, expired, of another user or of another slot
+	 */
+	public boolean confirm(String holdToken, String userId, String regCenterId, LocalDate regDate,
+			LocalTime fromTime, LocalTime toTime) {
+		boolean consumed = bookingDAO.confirmHold(holdToken, userId, regDate, regCenterId, fromTime, toTime);
+		(consumed ? confirmed : missed).increment();
+		return consumed;
+	}
+
+	/**
+	 * Gives the kiosk of a hold back before it expires.
+	 *
+	 * @param holdToken hold token
+	 * @param userId    user holding the kiosk
+	 * @return the released hold
+	 */
+	public SlotHoldEntity release(String holdToken, String userId) {
+		SlotHoldEntity hold = bookingDAO.releaseHold(holdToken, userId);
+		if (hold == null) {
+			throw new RecordNotFoundException(ErrorCodes.PRG_BOOK_RCI_038.getCode(),
+					ErrorMessages.SLOT_HOLD_NOT_FOUND.getMessage());
+		}
+		released.increment();
+		slotChanged(hold);
+		return hold;
+	}
+
+	/**
+	 * Expires the holds of this node whose time has come.
+	 */
+	public void sweep() {
+		for (SlotHoldEntity hold : wheel.advance(System.currentTimeMillis())) {
+			expire(hold);
+		}
+	}
+
+	/**
+	 * Expires holds left behind by other nodes, one batch per call.
+	 */
+	public void recover() {
+		try {
+			/* holds of running nodes are expired by their own wheel well within this margin */
+			List<SlotHoldEntity> holds = bookingDAO.findExpiredHolds(LocalDateTime.now().minusSeconds(recoverySeconds));
+			for (SlotHoldEntity hold : holds) {
+				expire(hold);
+			}
+		} catch (RuntimeException ex) {
+			log.error("sessionId", "idType", "id", "Failed to look up expired slot holds: " + ex.getMessage());
+		}
+	}
+
+	private void expire(SlotHoldEntity hold) {
+		try {
+			if (bookingDAO.expireHold(hold)) {
+				expired.increment();
+				slotChanged(hold);
+			}
+		} catch (RuntimeException ex) {
+			/* left to the recovery sweep */
+			log.error("sessionId", "idType", "id",
+					"Failed to expire slot hold " + hold.getHoldId() + ": " + ex.getMessage());
+		}
+	}
+
+	private void slotChanged(SlotHoldEntity hold) {
+		slotChangeNotifier.slotChanged(hold.getRegcntrId(), hold.getRegDate(), hold.getFromTime(),
+				hold.getToTime());
+	}
+
+	private Counter counter(String result) {
+		return Counter.builder("prereg.booking.hold").tag("result", result).register(meterRegistry);
+	}
+
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright
+ *
+ */
+package io.mosip.preregistration.booking.service.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Hashed timer wheel. Each entry sits in the bucket of the tick it expires
+ * at, modulo the wheel size, so scheduling is constant time and every tick
+ * only looks at one bucket, whatever the number of pending entries. Entries
+ * expiring more than one turn ahead stay in their bucket until their turn
+ * comes. Entries are not cancelled; callers check on expiry whether the entry
+ * still matters.
+ *
+ * @param <T> type of the scheduled entries
+ * @since 1.2.0
+ *
+ */
+public final class TimerWheel<T> {
+
+	private final long tickMillis;
+
+	private final List<ArrayDeque<Timeout<T>>> buckets;
+
+	private long lastTick;
+
+	private int size;
+
+	/**
+	 * @param tickMillis resolution of the wheel in milliseconds
+	 * @param wheelSize  number of buckets
+	 * @param nowMillis  current time in milliseconds
+	 */
+	public TimerWheel(long tickMillis, int wheelSize, long nowMillis) {
+		if (tickMillis <= 0 || wheelSize <= 0) {
+			throw new IllegalArgumentException("tick and wheel size must be positive");
+		}
+		this.tickMillis = tickMillis;
+		this.buckets = new ArrayList<>(wheelSize);
+		for (int i = 0; i < wheelSize; i++) {
+			buckets.add(new ArrayDeque<>());
+		}
+		this.lastTick = nowMillis / tickMillis;
+	}
+
+	/**
+	 * @param entry          entry to expire
+	 * @param deadlineMillis time the entry expires at, in milliseconds
+	 */
+	public synchronized void schedule(T entry, long deadlineMillis) {
+		/* rounded up so that an entry never expires early, and never in a tick already passed */
+		long tick = Math.max((deadlineMillis + tickMillis - 1) / tickMillis, lastTick + 1);
+		buckets.get(bucket(tick)).add(new Timeout<>(entry, tick));
+		size++;
+	}
+
+	/**
+	 * Moves the wheel to the given time.
+	 *
+	 * @param nowMillis current time in milliseconds
+	 * @return entries expired since the last call, in no particular order
+	 */
+	public synchronized List<T> advance(long nowMillis) {
+		long now = nowMillis / tickMillis;
+		List<T> expired = new ArrayList<>();
+		if (now <= lastTick) {
+			return expired;
+		}
+		/* a wheel left behind for more than one turn visits every bucket once */
+		long from = Math.max(lastTick + 1, now - buckets.size() + 1);
+		for (long tick = from; tick <= now; tick++) {
+			for (Iterator<Timeout<T>> it = buckets.get(bucket(tick)).iterator(); it.hasNext();) {
+				Timeout<T> timeout = it.next();
+				if (timeout.tick <= now) {
+					it.remove();
+					size--;
+					expired.add(timeout.entry);
+				}
+			}
+		}
+		lastTick = now;
+		return expired;
+	}
+
+	/**
+	 * @return number of entries not expired yet
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	private int bucket(long tick) {
+		return (int) Math.floorMod(tick, (long) buckets.size());
+	}
+
+	private static final class Timeout<T> {
+
+		private final T entry;
+
+		private final long tick;
+
+		Timeout(T entry, long tick) {
+			this.entry = entry;
+			this.tick = tick;
+		}
+	}
+
+}
@@ -0,0 +1,101 @@
+package io.mosip.preregistration.booking.test;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+
+/**
+ * Shared fixtures of the slot counter and availability tests: the slots of
+ * one registration center three days ahead, and slot rows kept in a map.
+ */
+public final class SlotFixtures {
+
+	public static final String CENTER = "10001";
+
+	public static final LocalDate DATE = LocalDate.now().plusDays(3);
+
+	public static final LocalTime FROM = LocalTime.of(9, 0);
+
+	public static final LocalTime TO = LocalTime.of(9, 15);
+
+	private SlotFixtures() {
+	}
+
+	/**
+	 * @return slot of {@link #CENTER} on {@link #DATE}, fifteen minutes long
+	 */
+	public static AvailibityEntity slot(LocalTime from, int kiosks) {
+		AvailibityEntity entity = new AvailibityEntity();
+		entity.setRegcntrId(CENTER);
+		entity.setRegDate(DATE);
+		entity.setFromTime(from);
+		entity.setToTime(from.plusMinutes(15));
+		entity.setAvailableKiosks(kiosks);
+		return entity;
+	}
+
+	/**
+	 * @param rows   kiosks left in the slot rows, by from time
+	 * @param writes every number of kiosks written to a slot row
+	 * @return repository reading and writing the rows
+	 */
+	public static BookingAvailabilityRepository slotRepository(Map<LocalTime, Integer> rows, List<Integer> writes) {
+		return slotRepository(rows, writes, () -> {
+		});
+	}
+
+	/**
+	 * @param onWrite run while a slot row is written
+	 */
+	public static BookingAvailabilityRepository slotRepository(Map<LocalTime, Integer> rows, List<Integer> writes,
+			Runnable onWrite) {
+		BookingAvailabilityRepository repository = mock(BookingAvailabilityRepository.class);
+		when(repository.findByRegDateAndRegcntrIdAndFromTimeAndToTime(any(), anyString(), any(), any()))
+				.thenAnswer(invocation -> {
+					Integer kiosks = rows.get(invocation.getArgument(2));
+					if (kiosks == null) {
+						return null;
+					}
+					AvailibityEntity entity = new AvailibityEntity();
+					entity.setAvailableKiosks(kiosks);
+					return entity;
+				});
+		when(repository.setAvailableKiosks(any(), anyString(), any(), any(), anyInt())).thenAnswer(invocation -> {
+			int kiosks = invocation.getArgument(4);
+			writes.add(kiosks);
+			onWrite.run();
+			return rows.replace(invocation.getArgument(2), kiosks) == null ? 0 : 1;
+		});
+		return repository;
+	}
+
+	/**
+	 * Completes the transaction synchronizations registered on this thread as a
+	 * transaction ending with the status would.
+	 */
+	public static void complete(int status) {
+		List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+		if (status == TransactionSynchronization.STATUS_COMMITTED) {
+			synchronizations.forEach(synchronization -> synchronization.beforeCommit(false));
+		}
+		for (TransactionSynchronization synchronization : synchronizations) {
+			if (status == TransactionSynchronization.STATUS_COMMITTED) {
+				synchronization.afterCommit();
+			}
+			synchronization.afterCompletion(status);
+		}
+	}
+}
@@ -0,0 +1,181 @@
+package io.mosip.preregistration.booking.test.repository.impl;
+
+import static io.mosip.preregistration.booking.test.SlotFixtures.CENTER;
+import static io.mosip.preregistration.booking.test.SlotFixtures.DATE;
+import static io.mosip.preregistration.booking.test.SlotFixtures.FROM;
+import static io.mosip.preregistration.booking.test.SlotFixtures.TO;
+import static io.mosip.preregistration.booking.test.SlotFixtures.complete;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slot;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slotRepository;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.hazelcast.config.Config;
+import com.hazelcast.core.Hazelcast;
+import com.hazelcast.core.HazelcastInstance;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.booking.repository.impl.PartitionedSlotCounters;
+
+public class PartitionedSlotCountersTest {
+
+	private static HazelcastInstance hazelcastInstance;
+
+	/** kiosks left in the slot rows, by from time */
+	private final Map<LocalTime, Integer> rows = new ConcurrentHashMap<>();
+
+	private final List<Integer> writes = Collections.synchronizedList(new ArrayList<>());
+
+	private PartitionedSlotCounters counters;
+
+	@BeforeClass
+	public static void startMember() {
+		Config config = new Config("booking-test-" + UUID.randomUUID());
+		config.setProperty("hazelcast.phone.home.enabled", "false");
+		config.getNetworkConfig().getJoin().getMulticastConfig().setEnabled(false);
+		config.getNetworkConfig().getJoin().getTcpIpConfig().setEnabled(false);
+		hazelcastInstance = Hazelcast.newHazelcastInstance(config);
+	}
+
+	@AfterClass
+	public static void stopMember() {
+		hazelcastInstance.shutdown();
+	}
+
+	@Before
+	public void setup() {
+		BookingAvailabilityRepository repository = slotRepository(rows, writes);
+		rows.put(FROM, 3);
+		counters = new PartitionedSlotCounters();
+		ReflectionTestUtils.setField(counters, "hazelcastInstance", hazelcastInstance);
+		ReflectionTestUtils.setField(counters, "bookingAvailabilityRepository", repository);
+		ReflectionTestUtils.setField(counters, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(counters, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(counters, "mapName", "slot-counters-" + UUID.randomUUID());
+		ReflectionTestUtils.setField(counters, "flushIntervalMillis", 3600000L);
+		counters.init();
+	}
+
+	@After
+	public void tearDown() {
+		counters.shutdown();
+	}
+
+	@Test
+	public void kiosksAreCountedByThePartitionAndWrittenOnFlushTest() {
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+		assertFalse(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertEquals(3, rows.get(FROM).intValue());
+
+		counters.flush();
+
+		assertEquals(Collections.singletonList(0), writes);
+		counters.flush();
+		assertEquals(1, writes.size());
+	}
+
+	@Test
+	public void missingSlotIsNotReservedTest() {
+		assertFalse(counters.reserve(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15), 1));
+		assertNull(counters.available(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15)));
+	}
+
+	@Test
+	public void concurrentReservationsNeverOverbookTest() throws Exception {
+		rows.put(FROM, 50);
+		AtomicInteger reserved = new AtomicInteger();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 200; i++) {
+				futures.add(executor.submit(() -> {
+					if (counters.reserve(DATE, CENTER, FROM, TO, 1)) {
+						reserved.incrementAndGet();
+					}
+				}));
+			}
+			for (Future<?> future : futures) {
+				future.get();
+			}
+		} finally {
+			executor.shutdown();
+		}
+		assertEquals(50, reserved.get());
+		assertEquals(0, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void reservationIsGivenBackOnRollbackTest() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+			assertEquals(1, counters.available(DATE, CENTER, FROM, TO).intValue());
+			complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void evictionWritesChangesAndKeepsOtherDaysTest() {
+		LocalDate nextDay = DATE.plusDays(1);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		counters.reserve(nextDay, CENTER, FROM, TO, 2);
+
+		counters.evict(CENTER, DATE, DATE);
+
+		/* the evicted counter is written before it is removed */
+		assertEquals(Collections.singletonList(2), writes);
+		rows.put(FROM, 3);
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+		assertEquals(1, counters.available(nextDay, CENTER, FROM, TO).intValue());
+		counters.flush();
+		assertEquals(Arrays.asList(2, 1), writes);
+	}
+
+	@Test
+	public void readsAreOverlaidWithCountersTest() {
+		LocalTime ten = LocalTime.of(10, 0);
+		AvailibityEntity nine = slot(FROM, 3);
+		AvailibityEntity untouched = slot(ten, 4);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+
+		List<SlotAvailabilityView> overlaid = counters.overlay(CENTER, Arrays.asList(nine, untouched));
+
+		assertEquals(2, overlaid.get(0).getAvailableKiosks());
+		assertSame(untouched, overlaid.get(1));
+	}
+}
@@ -0,0 +1,418 @@
+package io.mosip.preregistration.booking.test.repository.impl;
+
+import static io.mosip.preregistration.booking.test.SlotFixtures.CENTER;
+import static io.mosip.preregistration.booking.test.SlotFixtures.DATE;
+import static io.mosip.preregistration.booking.test.SlotFixtures.FROM;
+import static io.mosip.preregistration.booking.test.SlotFixtures.TO;
+import static io.mosip.preregistration.booking.test.SlotFixtures.complete;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slot;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slotRepository;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.HashOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SetOperations;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.booking.repository.impl.RedisSlotCounters;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+public class RedisSlotCountersTest {
+
+	/** kiosks left in the slot rows, by from time */
+	private final Map<LocalTime, Integer> rows = new ConcurrentHashMap<>();
+
+	private final List<Integer> writes = Collections.synchronizedList(new ArrayList<>());
+
+	/** strings and sets of the Redis server, changed atomically like the scripts */
+	private final Map<String, String> strings = new HashMap<>();
+
+	private final Map<String, Set<String>> sets = new HashMap<>();
+
+	/** last beat of each replica */
+	private final Map<Object, Object> replicas = new HashMap<>();
+
+	/** run while a slot row is written */
+	private Runnable onWrite = () -> {
+	};
+
+	private RedisSlotCounters counters;
+
+	@Before
+	@SuppressWarnings("unchecked")
+	public void setup() {
+		BookingAvailabilityRepository repository = slotRepository(rows, writes, () -> onWrite.run());
+		rows.put(FROM, 3);
+
+		RedisTemplate<String, Object> redisTemplate = mock(RedisTemplate.class);
+		when(redisTemplate.getConnectionFactory()).thenReturn(mock(RedisConnectionFactory.class));
+		counters = new RedisSlotCounters();
+		ReflectionTestUtils.setField(counters, "redisTemplate", redisTemplate);
+		ReflectionTestUtils.setField(counters, "bookingAvailabilityRepository", repository);
+		ReflectionTestUtils.setField(counters, "transactionManager", mock(PlatformTransactionManager.class));
+		ReflectionTestUtils.setField(counters, "meterRegistry", new SimpleMeterRegistry());
+		ReflectionTestUtils.setField(counters, "prefix", "prereg:booking:slot");
+		ReflectionTestUtils.setField(counters, "reconcileIntervalMillis", 3600000L);
+		ReflectionTestUtils.setField(counters, "reconcileBatch", 1000);
+		ReflectionTestUtils.setField(counters, "retentionDays", 2);
+		counters.init();
+		ReflectionTestUtils.setField(counters, "redis", redis());
+	}
+
+	@After
+	public void tearDown() {
+		counters.shutdown();
+	}
+
+	@Test
+	public void kiosksAreCountedInRedisAndReconciledTest() {
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+		assertFalse(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertEquals(3, rows.get(FROM).intValue());
+		assertEquals(0, counters.available(DATE, CENTER, FROM, TO).intValue());
+
+		assertEquals(1, counters.reconcile());
+
+		/* one write for the three changes */
+		assertEquals(Collections.singletonList(0), writes);
+		assertEquals(0, rows.get(FROM).intValue());
+		assertEquals(0, counters.reconcile());
+	}
+
+	@Test
+	public void missingSlotIsNotReservedTest() {
+		assertFalse(counters.reserve(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15), 1));
+		assertNull(counters.available(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15)));
+	}
+
+	@Test(expected = TableNotAccessibleException.class)
+	public void lostCounterIsNotLoadedAgainTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		/* evicted by Redis before its change was reconciled */
+		strings.remove("{prereg:booking:slot:" + CENTER + "}:" + DATE + ":" + FROM.toSecondOfDay() + ":"
+				+ TO.toSecondOfDay());
+
+		counters.available(DATE, CENTER, FROM, TO);
+	}
+
+	@Test
+	public void counterChangedWhileWrittenIsReconciledAgainTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		onWrite = () -> {
+			onWrite = () -> {
+			};
+			counters.reserve(DATE, CENTER, FROM, TO, 1);
+		};
+
+		counters.reconcile();
+		counters.reconcile();
+
+		assertEquals(Arrays.asList(2, 1), writes);
+		assertEquals(1, rows.get(FROM).intValue());
+	}
+
+	@Test
+	public void counterIsKeptUntilWrittenTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		onWrite = () -> {
+			throw new IllegalStateException("database down");
+		};
+		try {
+			counters.reconcile();
+		} catch (IllegalStateException ex) {
+			// taken from the set to reconcile, not written
+		}
+		onWrite = () -> {
+		};
+
+		assertEquals(1, counters.reconcile());
+		assertEquals(2, rows.get(FROM).intValue());
+	}
+
+	@Test
+	public void countersOfStoppedReplicaAreReconciledTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		/* taken by a replica which then died */
+		String reconcileKey = "{prereg:booking:slot:" + CENTER + "}:reconcile";
+		set("{prereg:booking:slot:" + CENTER + "}:processing:stopped").addAll(set(reconcileKey));
+		set(reconcileKey).clear();
+		replicas.put("stopped", String.valueOf(System.currentTimeMillis() - 3600000));
+
+		assertEquals(1, counters.reconcile());
+
+		assertEquals(2, rows.get(FROM).intValue());
+		assertFalse(replicas.containsKey("stopped"));
+	}
+
+	@Test
+	public void reservationIsGivenBackOnRollbackTest() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+			assertEquals(1, counters.available(DATE, CENTER, FROM, TO).intValue());
+			complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void releaseIsAppliedOnCommitTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 3);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.release(DATE, CENTER, FROM, TO, 1));
+			/* not handed out before the cancellation is committed */
+			assertFalse(counters.reserve(DATE, CENTER, FROM, TO, 1));
+			complete(TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void evictionWritesChangesAndKeepsOtherDaysTest() {
+		LocalDate nextDay = DATE.plusDays(1);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		counters.reserve(nextDay, CENTER, FROM, TO, 2);
+
+		counters.evict(CENTER, DATE, DATE);
+
+		/* the evicted counter is written before it is deleted */
+		assertEquals(Collections.singletonList(2), writes);
+		rows.put(FROM, 3);
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+		assertEquals(1, counters.available(nextDay, CENTER, FROM, TO).intValue());
+		/* only the counter of the next day is left to reconcile */
+		assertEquals(1, counters.reconcile());
+		assertEquals(Arrays.asList(2, 1), writes);
+	}
+
+	@Test
+	public void centersAreTaggedApartTest() {
+		String other = "10002";
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		counters.reserve(DATE, other, FROM, TO, 2);
+
+		Set<String> tags = new HashSet<>();
+		for (String key : strings.keySet()) {
+			tags.add(key.substring(0, key.indexOf('}') + 1));
+		}
+		assertEquals(new HashSet<>(Arrays.asList("{prereg:booking:slot:" + CENTER + "}",
+				"{prereg:booking:slot:" + other + "}")), tags);
+		/* each center is reconciled from a set of its own */
+		assertEquals(2, counters.reconcile());
+		assertEquals(new HashSet<>(Arrays.asList(2, 1)), new HashSet<>(writes));
+	}
+
+	@Test
+	public void readsAreOverlaidWithCountersTest() {
+		LocalTime ten = LocalTime.of(10, 0);
+		AvailibityEntity nine = slot(FROM, 3);
+		AvailibityEntity untouched = slot(ten, 4);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+
+		List<SlotAvailabilityView> overlaid = counters.overlay(CENTER, Arrays.asList(nine, untouched));
+
+		assertEquals(2, overlaid.get(0).getAvailableKiosks());
+		assertEquals(FROM, overlaid.get(0).getFromTime());
+		assertSame(untouched, overlaid.get(1));
+	}
+
+	/** a template answering the commands and scripts from the maps */
+	@SuppressWarnings("unchecked")
+	private StringRedisTemplate redis() {
+		StringRedisTemplate redis = mock(StringRedisTemplate.class);
+		ValueOperations<String, String> values = mock(ValueOperations.class);
+		SetOperations<String, String> members = mock(SetOperations.class);
+		HashOperations<String, Object, Object> beats = mock(HashOperations.class);
+		when(redis.opsForValue()).thenReturn(values);
+		when(redis.opsForSet()).thenReturn(members);
+		when(redis.<Object, Object>opsForHash()).thenReturn(beats);
+		when(values.get(anyString())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				return strings.get(invocation.getArgument(0));
+			}
+		});
+		when(values.multiGet(anyCollection())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				List<String> found = new ArrayList<>();
+				for (String key : (Collection<String>) invocation.getArgument(0)) {
+					found.add(strings.get(key));
+				}
+				return found;
+			}
+		});
+		when(members.members(anyString())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				return new HashSet<>(set(invocation.getArgument(0)));
+			}
+		});
+		when(members.add(anyString(), any())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				Object[] arguments = invocation.getArguments();
+				for (int i = 1; i < arguments.length; i++) {
+					set(invocation.getArgument(0)).add((String) arguments[i]);
+				}
+				return (long) arguments.length - 1;
+			}
+		});
+		doAnswer(invocation -> {
+			synchronized (strings) {
+				replicas.put(invocation.getArgument(1), invocation.getArgument(2));
+				return null;
+			}
+		}).when(beats).put(anyString(), any(), any());
+		when(beats.entries(anyString())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				return new HashMap<>(replicas);
+			}
+		});
+		when(beats.delete(anyString(), any())).thenAnswer(invocation -> {
+			synchronized (strings) {
+				return replicas.remove(invocation.getArgument(1)) == null ? 0L : 1L;
+			}
+		});
+		doAnswer(invocation -> {
+			synchronized (strings) {
+				return script(invocation.getArgument(0), invocation.getArgument(1), invocation.getArguments());
+			}
+		}).when(redis).execute(any(RedisScript.class), anyList(), any());
+		doAnswer(invocation -> {
+			synchronized (strings) {
+				return script(invocation.getArgument(0), invocation.getArgument(1), invocation.getArguments());
+			}
+		}).when(redis).execute(any(RedisScript.class), anyList());
+		return redis;
+	}
+
+	private Object script(RedisScript<?> script, List<String> keys, Object[] arguments) {
+		String text = script.getScriptAsString();
+		String key = keys.get(0);
+		/* Redis Cluster rejects scripts whose keys are in different hash slots */
+		for (String other : keys) {
+			assertEquals(key.substring(0, key.indexOf('}') + 1), other.substring(0, other.indexOf('}') + 1));
+		}
+		if (text.startsWith("-- reserve")) {
+			if (!strings.containsKey(key)) {
+				return -1;
+			}
+			long available = Long.parseLong(strings.get(key)) - Long.parseLong((String) arguments[2]);
+			if (available < 0) {
+				return -2;
+			}
+			set(keys.get(1)).add(key);
+			strings.put(key, String.valueOf(available));
+			return available;
+		}
+		if (text.startsWith("-- release")) {
+			if (!strings.containsKey(key)) {
+				return -1;
+			}
+			long available = Long.parseLong(strings.get(key)) + Long.parseLong((String) arguments[2]);
+			set(keys.get(1)).add(key);
+			strings.put(key, String.valueOf(available));
+			return available;
+		}
+		if (text.startsWith("-- load")) {
+			if (strings.containsKey(key)) {
+				return 1;
+			}
+			if (Long.parseLong((String) arguments[3]) <= System.currentTimeMillis() / 1000) {
+				return 0;
+			}
+			if (set(keys.get(1)).contains(key)) {
+				return -2;
+			}
+			strings.put(key, (String) arguments[2]);
+			set(keys.get(1)).add(key);
+			return 1;
+		}
+		if (text.startsWith("-- evict")) {
+			long kept = 0;
+			for (int i = 2; i < keys.size(); i++) {
+				String available = strings.get(keys.get(i));
+				if (available == null || available.equals(arguments[i])) {
+					strings.remove(keys.get(i));
+					set(key).remove(keys.get(i));
+					set(keys.get(1)).remove(keys.get(i));
+				} else {
+					kept++;
+				}
+			}
+			return kept;
+		}
+		if (text.startsWith("-- claim")) {
+			Iterator<String> iterator = set(key).iterator();
+			for (int i = 0; iterator.hasNext() && i < Integer.parseInt((String) arguments[2]); i++) {
+				set(keys.get(1)).add(iterator.next());
+				iterator.remove();
+			}
+			return new ArrayList<>(set(keys.get(1)));
+		}
+		if (text.startsWith("-- requeue")) {
+			Set<String> processing = set(keys.get(1));
+			long requeued = processing.size();
+			set(key).addAll(processing);
+			sets.remove(keys.get(1));
+			return requeued;
+		}
+		long changed = 0;
+		for (int i = 2; i < keys.size(); i++) {
+			String available = strings.get(keys.get(i));
+			if (available != null && !available.equals(arguments[i])) {
+				set(key).add(keys.get(i));
+				changed++;
+			}
+		}
+		sets.remove(keys.get(1));
+		return changed;
+	}
+
+	private Set<String> set(String key) {
+		return sets.computeIfAbsent(key, name -> new LinkedHashSet<>());
+	}
+}
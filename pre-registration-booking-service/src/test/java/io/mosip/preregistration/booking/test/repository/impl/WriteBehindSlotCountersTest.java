@@ -0,0 +1,240 @@
+package io.mosip.preregistration.booking.test.repository.impl;
+
+import static io.mosip.preregistration.booking.test.SlotFixtures.CENTER;
+import static io.mosip.preregistration.booking.test.SlotFixtures.DATE;
+import static io.mosip.preregistration.booking.test.SlotFixtures.FROM;
+import static io.mosip.preregistration.booking.test.SlotFixtures.TO;
+import static io.mosip.preregistration.booking.test.SlotFixtures.complete;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slot;
+import static io.mosip.preregistration.booking.test.SlotFixtures.slotRepository;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Mockito.mock;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository;
+import io.mosip.preregistration.booking.repository.impl.WriteBehindSlotCounters;
+
+public class WriteBehindSlotCountersTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	/** kiosks left in the slot rows, by from time */
+	private final Map<LocalTime, Integer> rows = new ConcurrentHashMap<>();
+
+	private final List<Integer> writes = Collections.synchronizedList(new ArrayList<>());
+
+	private BookingAvailabilityRepository repository;
+
+	private String journal;
+
+	private WriteBehindSlotCounters counters;
+
+	private SimpleMeterRegistry registry;
+
+	@Before
+	public void setup() throws IOException {
+		repository = slotRepository(rows, writes);
+		journal = folder.getRoot().toPath().resolve("slots.journal").toString();
+		rows.put(FROM, 3);
+		counters = start(4096);
+	}
+
+	@After
+	public void tearDown() {
+		counters.shutdown();
+	}
+
+	@Test
+	public void kiosksAreCountedInMemoryAndWrittenOnFlushTest() {
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+		assertFalse(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		assertEquals(3, rows.get(FROM).intValue());
+		assertEquals(0, counters.available(DATE, CENTER, FROM, TO).intValue());
+
+		counters.flush();
+
+		/* one write for the three changes */
+		assertEquals(Collections.singletonList(0), writes);
+		assertEquals(0, rows.get(FROM).intValue());
+		counters.flush();
+		assertEquals(1, writes.size());
+	}
+
+	@Test
+	public void missingSlotIsNotReservedTest() {
+		assertFalse(counters.reserve(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15), 1));
+		assertNull(counters.available(DATE, CENTER, LocalTime.of(17, 0), LocalTime.of(17, 15)));
+	}
+
+	@Test
+	public void journalIsReplayedOnRestartTest() throws IOException {
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+
+		/* stopped without flushing, its journal lock going with the process */
+		((FileChannel) ReflectionTestUtils.getField(counters, "lockChannel")).close();
+		WriteBehindSlotCounters restarted = start(4096);
+		try {
+			assertEquals(Collections.singletonList(1), writes);
+			assertEquals(1, restarted.available(DATE, CENTER, FROM, TO).intValue());
+		} finally {
+			restarted.shutdown();
+		}
+	}
+
+	@Test
+	public void reservationIsGivenBackOnRollbackTest() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 2));
+			assertEquals(1, counters.available(DATE, CENTER, FROM, TO).intValue());
+			complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void releaseIsAppliedOnCommitTest() {
+		counters.reserve(DATE, CENTER, FROM, TO, 3);
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.release(DATE, CENTER, FROM, TO, 1));
+			/* not handed out before the cancellation is committed */
+			assertFalse(counters.reserve(DATE, CENTER, FROM, TO, 1));
+			complete(TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		assertEquals(1, counters.available(DATE, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void reservationsAreForcedTogetherBeforeCommitTest() {
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+			assertEquals(0, syncs(), 0);
+			complete(TransactionSynchronization.STATUS_COMMITTED);
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+		/* the first force covers both reservations */
+		assertEquals(1, syncs(), 0);
+	}
+
+	@Test
+	public void fullJournalIsFlushedBeforeAppendingTest() throws IOException {
+		counters.shutdown();
+		rows.put(FROM, 1000);
+		journal = folder.getRoot().toPath().resolve("small.journal").toString();
+		counters = start(256);
+		for (int i = 0; i < 1000; i++) {
+			assertTrue(counters.reserve(DATE, CENTER, FROM, TO, 1));
+		}
+		counters.flush();
+		assertEquals(0, rows.get(FROM).intValue());
+		assertTrue(writes.size() > 1);
+	}
+
+	@Test
+	public void journalIsOwnedByOneNodeTest() throws IOException {
+		try {
+			start(4096).shutdown();
+			fail();
+		} catch (IllegalStateException ex) {
+			/* the running counters hold the journal */
+		}
+	}
+
+	@Test
+	public void journalMustBeConfiguredTest() throws IOException {
+		journal = "";
+		try {
+			start(4096).shutdown();
+			fail();
+		} catch (IllegalStateException ex) {
+			/* no temporary default */
+		}
+	}
+
+	@Test
+	public void evictionKeepsOtherDaysTest() {
+		LocalDate nextDay = DATE.plusDays(1);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+		counters.reserve(nextDay, CENTER, FROM, TO, 2);
+
+		counters.evict(CENTER, DATE, DATE);
+
+		/* written before they were dropped */
+		assertEquals(2, writes.size());
+		rows.put(FROM, 3);
+		assertEquals(3, counters.available(DATE, CENTER, FROM, TO).intValue());
+		assertEquals(1, counters.available(nextDay, CENTER, FROM, TO).intValue());
+	}
+
+	@Test
+	public void readsAreOverlaidWithCountersTest() {
+		LocalTime ten = LocalTime.of(10, 0);
+		rows.put(ten, 4);
+		AvailibityEntity nine = slot(FROM, 3);
+		AvailibityEntity untouched = slot(ten, 4);
+		counters.reserve(DATE, CENTER, FROM, TO, 1);
+
+		List<SlotAvailabilityView> overlaid = counters.overlay(CENTER, Arrays.asList(nine, untouched));
+
+		assertEquals(2, overlaid.get(0).getAvailableKiosks());
+		assertEquals(FROM, overlaid.get(0).getFromTime());
+		assertSame(untouched, overlaid.get(1));
+	}
+
+	private double syncs() {
+		return registry.find("prereg.booking.write-behind.journal-syncs").counter().count();
+	}
+
+	private WriteBehindSlotCounters start(int segmentSize) throws IOException {
+		WriteBehindSlotCounters started = new WriteBehindSlotCounters();
+		ReflectionTestUtils.setField(started, "bookingAvailabilityRepository", repository);
+		ReflectionTestUtils.setField(started, "transactionManager", mock(PlatformTransactionManager.class));
+		registry = new SimpleMeterRegistry();
+		ReflectionTestUtils.setField(started, "meterRegistry", registry);
+		ReflectionTestUtils.setField(started, "journalFile", journal);
+		ReflectionTestUtils.setField(started, "segmentSize", segmentSize);
+		ReflectionTestUtils.setField(started, "flushIntervalMillis", 3600000L);
+		ReflectionTestUtils.setField(started, "appendTimeoutMillis", 5000L);
+		started.init();
+		return started;
+	}
+}
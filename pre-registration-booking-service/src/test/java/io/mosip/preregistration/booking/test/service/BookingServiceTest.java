@@ -428,6 +428,8 @@ public class BookingServiceTest {
 		Mockito.when(serviceUtil.getRegCenterMasterData("10001")).thenReturn(centerList);
 		Mockito.when(bookingDAO.findAvailability(Mockito.anyString(), Mockito.any(), Mockito.any()))
 				.thenReturn(entityList);
+		Mockito.when(bookingDAO.findSlotAvailability(Mockito.anyString(), Mockito.any(), Mockito.any()))
+				.thenReturn(new ArrayList<>(entityList));
 		MainResponseDTO<AvailabilityDto> responseDto = service.getAvailability("10001");
 		logger.info("Response " + responseDto);
 		assertEquals("10001", responseDto.getResponse().getRegCenterId());
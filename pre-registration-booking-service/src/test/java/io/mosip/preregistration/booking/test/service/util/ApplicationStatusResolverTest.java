@@ -0,0 +1,60 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.preregistration.booking.exception.DemographicGetStatusException;
+import io.mosip.preregistration.booking.service.util.ApplicationStatusResolver;
+import io.mosip.preregistration.booking.service.util.ApplicationStatusResolver.StatusLookup;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+
+public class ApplicationStatusResolverTest {
+
+	private ApplicationStatusResolver resolver;
+
+	private BookingServiceUtil serviceUtil;
+
+	@Before
+	public void setup() {
+		serviceUtil = Mockito.mock(BookingServiceUtil.class);
+		resolver = new ApplicationStatusResolver();
+		ReflectionTestUtils.setField(resolver, "serviceUtil", serviceUtil);
+		ReflectionTestUtils.setField(resolver, "parallelism", 4);
+		ReflectionTestUtils.setField(resolver, "timeoutMillis", 1000L);
+		resolver.init();
+	}
+
+	@After
+	public void tearDown() {
+		resolver.shutdown();
+	}
+
+	@Test
+	public void resolveAllStatusesTest() {
+		Mockito.when(serviceUtil.getApplicationBookingStatus("1")).thenReturn("Pending_Appointment");
+		Mockito.when(serviceUtil.getApplicationBookingStatus("2")).thenReturn("Booked");
+		Map<String, StatusLookup> statuses = resolver.resolve(Arrays.asList("1", "2", "1"));
+		assertEquals(2, statuses.size());
+		assertEquals("Pending_Appointment", statuses.get("1").get());
+		assertEquals("Booked", statuses.get("2").get());
+		Mockito.verify(serviceUtil, Mockito.times(1)).getApplicationBookingStatus("1");
+	}
+
+	@Test(expected = DemographicGetStatusException.class)
+	public void failureIsRaisedForItsIdTest() {
+		Mockito.when(serviceUtil.getApplicationBookingStatus("1")).thenReturn("Pending_Appointment");
+		Mockito.when(serviceUtil.getApplicationBookingStatus("2"))
+				.thenThrow(new DemographicGetStatusException("PRG_PAM_APP_005", "No data found"));
+		Map<String, StatusLookup> statuses = resolver.resolve(Arrays.asList("1", "2"));
+		assertEquals("Pending_Appointment", statuses.get("1").get());
+		statuses.get("2").get();
+	}
+}
@@ -0,0 +1,111 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.service.util.AvailabilityCache;
+import io.mosip.preregistration.booking.service.util.SlotCalendar;
+
+public class AvailabilityCacheTest {
+
+	private static final String CENTER = "10001";
+
+	private AvailabilityCache availabilityCache;
+
+	private LocalDate fromDate = LocalDate.of(2030, 1, 1);
+
+	@Before
+	public void setup() {
+		availabilityCache = new AvailabilityCache();
+		ReflectionTestUtils.setField(availabilityCache, "enabled", true);
+		ReflectionTestUtils.setField(availabilityCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(availabilityCache, "maxCenters", 2);
+		ReflectionTestUtils.setField(availabilityCache, "meterRegistry", new SimpleMeterRegistry());
+		availabilityCache.init();
+	}
+
+	@Test
+	public void servesCalendarUntilCenterChangesTest() {
+		SlotCalendar calendar = calendar(CENTER);
+		availabilityCache.put(CENTER, fromDate, availabilityCache.version(CENTER), calendar);
+
+		assertSame(calendar, availabilityCache.get(CENTER, fromDate));
+		assertSame(calendar, availabilityCache.peek(CENTER));
+		assertNull(availabilityCache.get(CENTER, fromDate.plusDays(1)));
+
+		long version = availabilityCache.version(CENTER);
+		availabilityCache.evict(CENTER);
+		assertNotEquals(version, availabilityCache.version(CENTER));
+		assertNull(availabilityCache.get(CENTER, fromDate));
+		assertNull(availabilityCache.peek(CENTER));
+	}
+
+	@Test
+	public void calendarReadBeforeChangeIsNotKeptTest() {
+		long version = availabilityCache.version(CENTER);
+		availabilityCache.evict(CENTER);
+
+		availabilityCache.put(CENTER, fromDate, version, calendar(CENTER));
+
+		assertNull(availabilityCache.get(CENTER, fromDate));
+	}
+
+	@Test
+	public void calendarReadBeforeCommitIsNotKeptTest() {
+		long version;
+		TransactionSynchronizationManager.initSynchronization();
+		try {
+			availabilityCache.evict(CENTER);
+			/* a reader loads before the booking commits */
+			version = availabilityCache.version(CENTER);
+			for (TransactionSynchronization synchronization : TransactionSynchronizationManager
+					.getSynchronizations()) {
+				synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+			}
+		} finally {
+			TransactionSynchronizationManager.clearSynchronization();
+		}
+
+		availabilityCache.put(CENTER, fromDate, version, calendar(CENTER));
+
+		assertNull(availabilityCache.get(CENTER, fromDate));
+	}
+
+	@Test
+	public void centersAreBoundedTest() {
+		for (String center : new String[] { "10001", "10002", "10003" }) {
+			availabilityCache.put(center, fromDate, availabilityCache.version(center), calendar(center));
+		}
+
+		assertTrue(availabilityCache.peek("10001") == null || availabilityCache.peek("10002") == null);
+		assertEquals("10003", availabilityCache.peek("10003").getRegCenterId());
+	}
+
+	@Test
+	public void evictAllDropsEveryCenterTest() {
+		availabilityCache.put(CENTER, fromDate, availabilityCache.version(CENTER), calendar(CENTER));
+		long version = availabilityCache.version("10002");
+
+		availabilityCache.evictAll();
+
+		assertNull(availabilityCache.get(CENTER, fromDate));
+		assertNotEquals(version, availabilityCache.version("10002"));
+	}
+
+	private SlotCalendar calendar(String center) {
+		return SlotCalendar.of(center, fromDate, fromDate.plusDays(6), Collections.emptyList());
+	}
+}
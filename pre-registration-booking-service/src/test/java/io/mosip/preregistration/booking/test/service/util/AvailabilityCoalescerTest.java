@@ -0,0 +1,144 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.service.util.AvailabilityCoalescer;
+import io.mosip.preregistration.booking.service.util.SlotCalendar;
+
+public class AvailabilityCoalescerTest {
+
+	private static final int CALLERS = 8;
+
+	private AvailabilityCoalescer coalescer;
+
+	private SimpleMeterRegistry registry;
+
+	private ExecutorService executor;
+
+	private LocalDate fromDate = LocalDate.of(2030, 1, 1);
+
+	private LocalDate endDate = LocalDate.of(2030, 1, 7);
+
+	private SlotCalendar calendar = SlotCalendar.of("10001", fromDate, endDate, Collections.emptyList());
+
+	@Before
+	public void setup() {
+		registry = new SimpleMeterRegistry();
+		coalescer = new AvailabilityCoalescer();
+		ReflectionTestUtils.setField(coalescer, "meterRegistry", registry);
+		ReflectionTestUtils.setField(coalescer, "timeoutMillis", 5000L);
+		ReflectionTestUtils.setField(coalescer, "maxCenters", 10);
+		coalescer.init();
+		executor = Executors.newFixedThreadPool(CALLERS);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void concurrentCallersShareOneComputationTest() throws Exception {
+		AtomicInteger computations = new AtomicInteger();
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<SlotCalendar>> results = submitAll(() -> {
+			computations.incrementAndGet();
+			await(release);
+			return calendar;
+		});
+		waitForCallers();
+		assertEquals(CALLERS, inFlight(), 0.0);
+		release.countDown();
+		for (Future<SlotCalendar> result : results) {
+			assertSame(calendar, result.get(5, TimeUnit.SECONDS));
+		}
+		assertEquals(1, computations.get());
+		assertEquals(CALLERS - 1, registry.find("prereg.booking.availability.coalesced").counter().count(), 0.0);
+		assertEquals(0, inFlight(), 0.0);
+	}
+
+	@Test
+	public void failureIsSharedTest() throws Exception {
+		CountDownLatch release = new CountDownLatch(1);
+		List<Future<SlotCalendar>> results = submitAll(() -> {
+			await(release);
+			throw new RecordNotFoundException("PRG_BOOK_RCI_015", "no slots");
+		});
+		waitForCallers();
+		release.countDown();
+		for (Future<SlotCalendar> result : results) {
+			try {
+				result.get(5, TimeUnit.SECONDS);
+			} catch (ExecutionException ex) {
+				assertTrue(ex.getCause() instanceof RecordNotFoundException);
+				continue;
+			}
+			throw new AssertionError("expected the computation failure");
+		}
+	}
+
+	@Test
+	public void laterCallerComputesAgainTest() {
+		AtomicInteger computations = new AtomicInteger();
+		coalescer.load("10001", fromDate, endDate, () -> {
+			computations.incrementAndGet();
+			return calendar;
+		});
+		coalescer.load("10001", fromDate, endDate, () -> {
+			computations.incrementAndGet();
+			return calendar;
+		});
+		assertEquals(2, computations.get());
+	}
+
+	private List<Future<SlotCalendar>> submitAll(Supplier<SlotCalendar> loader) {
+		List<Future<SlotCalendar>> results = new ArrayList<>();
+		for (int i = 0; i < CALLERS; i++) {
+			results.add(executor.submit(() -> coalescer.load("10001", fromDate, endDate, loader)));
+		}
+		return results;
+	}
+
+	private void waitForCallers() throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (inFlight() < CALLERS && System.currentTimeMillis() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	private double inFlight() {
+		Gauge gauge = registry.find("prereg.booking.availability.inflight").tag("center", "10001").gauge();
+		return gauge == null ? 0 : gauge.value();
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
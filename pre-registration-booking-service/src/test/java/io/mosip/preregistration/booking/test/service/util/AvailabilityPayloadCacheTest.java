@@ -0,0 +1,128 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.dto.AvailabilityDto;
+import io.mosip.preregistration.booking.service.util.AvailabilityCache;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache;
+import io.mosip.preregistration.booking.service.util.AvailabilityPayloadCache.AvailabilityPayload;
+import io.mosip.preregistration.core.common.dto.ExceptionJSONInfoDTO;
+import io.mosip.preregistration.core.common.dto.MainResponseDTO;
+
+public class AvailabilityPayloadCacheTest {
+
+	private static final String CENTER = "10001";
+
+	private static final String RESPONSETIME = "2030-01-01T10:00:00.000Z";
+
+	private AvailabilityCache availabilityCache;
+
+	private AvailabilityPayloadCache payloadCache;
+
+	private ObjectMapper objectMapper = new ObjectMapper();
+
+	private LocalDate fromDate = LocalDate.of(2030, 1, 1);
+
+	@Before
+	public void setup() {
+		SimpleMeterRegistry registry = new SimpleMeterRegistry();
+		availabilityCache = new AvailabilityCache();
+		ReflectionTestUtils.setField(availabilityCache, "enabled", true);
+		ReflectionTestUtils.setField(availabilityCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(availabilityCache, "maxCenters", 10);
+		ReflectionTestUtils.setField(availabilityCache, "meterRegistry", registry);
+		availabilityCache.init();
+
+		payloadCache = new AvailabilityPayloadCache();
+		ReflectionTestUtils.setField(payloadCache, "enabled", true);
+		ReflectionTestUtils.setField(payloadCache, "ttlSeconds", 30L);
+		ReflectionTestUtils.setField(payloadCache, "maxCenters", 10);
+		ReflectionTestUtils.setField(payloadCache, "availabilityCache", availabilityCache);
+		ReflectionTestUtils.setField(payloadCache, "objectMapper", objectMapper);
+		ReflectionTestUtils.setField(payloadCache, "meterRegistry", registry);
+		payloadCache.init();
+	}
+
+	@Test
+	public void servesPayloadUntilCenterChangesTest() throws Exception {
+		MainResponseDTO<AvailabilityDto> response = response();
+		long version = payloadCache.version(CENTER);
+		AvailabilityPayload payload = payloadCache.put(CENTER, fromDate, version, response);
+
+		assertEquals(payload.getEtag(), payloadCache.get(CENTER, fromDate, RESPONSETIME).getEtag());
+		assertNull(payloadCache.get(CENTER, fromDate.plusDays(1), RESPONSETIME));
+		assertArrayEquals(objectMapper.writeValueAsBytes(response), payload.getBody());
+
+		availabilityCache.evict(CENTER);
+		assertNull(payloadCache.get(CENTER, fromDate, RESPONSETIME));
+	}
+
+	@Test
+	public void changeDuringComputationIsNotServedTest() {
+		long version = payloadCache.version(CENTER);
+		availabilityCache.evict(CENTER);
+		payloadCache.put(CENTER, fromDate, version, response());
+		assertNull(payloadCache.get(CENTER, fromDate, RESPONSETIME));
+	}
+
+	@Test
+	public void cachedPayloadCarriesResponsetimeOfRequestTest() throws Exception {
+		MainResponseDTO<AvailabilityDto> response = response();
+		payloadCache.put(CENTER, fromDate, payloadCache.version(CENTER), response);
+
+		AvailabilityPayload payload = payloadCache.get(CENTER, fromDate, "2030-01-01T10:00:30.000Z");
+
+		response.setResponsetime("2030-01-01T10:00:30.000Z");
+		assertArrayEquals(objectMapper.writeValueAsBytes(response), payload.getBody());
+	}
+
+	@Test
+	public void etagMatchingTest() {
+		AvailabilityPayload payload = payloadCache.put(CENTER, fromDate, payloadCache.version(CENTER), response());
+		String etag = payload.getEtag();
+		assertNotNull(etag);
+		assertEquals(etag, payloadCache.put(CENTER, fromDate, payloadCache.version(CENTER), response()).getEtag());
+		assertTrue(payload.matches(etag));
+		assertTrue(payload.matches("\"other\", W/" + etag));
+		assertTrue(payload.matches("*"));
+		assertFalse(payload.matches("\"other\""));
+		assertFalse(payload.matches(null));
+	}
+
+	@Test
+	public void errorResponseIsNotCachedTest() {
+		MainResponseDTO<AvailabilityDto> response = new MainResponseDTO<>();
+		response.setErrors(new ArrayList<>(Collections.singletonList(
+				new ExceptionJSONInfoDTO("PRG_BOOK_RCI_015", "No time slots are assigned to that registration center"))));
+		AvailabilityPayload payload = payloadCache.put(CENTER, fromDate, payloadCache.version(CENTER), response);
+		assertNull(payload.getEtag());
+		assertFalse(payload.matches("*"));
+		assertNull(payloadCache.get(CENTER, fromDate, RESPONSETIME));
+	}
+
+	private MainResponseDTO<AvailabilityDto> response() {
+		AvailabilityDto availability = new AvailabilityDto();
+		availability.setRegCenterId(CENTER);
+		availability.setCenterDetails(new ArrayList<>());
+		MainResponseDTO<AvailabilityDto> response = new MainResponseDTO<>();
+		response.setResponsetime(RESPONSETIME);
+		response.setResponse(availability);
+		return response;
+	}
+}
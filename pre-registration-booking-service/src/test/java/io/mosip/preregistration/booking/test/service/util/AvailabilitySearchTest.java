@@ -0,0 +1,101 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.errorcodes.ErrorMessages;
+import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.service.util.AvailabilitySearch;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+public class AvailabilitySearchTest {
+
+	private BookingServiceUtil serviceUtil;
+
+	private AvailabilitySearch search;
+
+	@Before
+	public void setup() {
+		serviceUtil = mock(BookingServiceUtil.class);
+		search = new AvailabilitySearch();
+		ReflectionTestUtils.setField(search, "serviceUtil", serviceUtil);
+		ReflectionTestUtils.setField(search, "parallelism", 4);
+		ReflectionTestUtils.setField(search, "timeoutMillis", 2000L);
+		search.init();
+	}
+
+	@After
+	public void tearDown() {
+		search.shutdown();
+	}
+
+	@Test
+	public void centersAreValidatedOnceTest() {
+		when(serviceUtil.isValidRegCenter("10001")).thenReturn(true);
+		when(serviceUtil.isValidRegCenter("10002")).thenReturn(true);
+
+		search.validate(Arrays.asList("10001", "10002", "10001"));
+
+		verify(serviceUtil, times(1)).isValidRegCenter("10001");
+		verify(serviceUtil, times(1)).isValidRegCenter("10002");
+	}
+
+	@Test(expected = RecordNotFoundException.class)
+	public void invalidCenterFailsTheSearchTest() {
+		when(serviceUtil.isValidRegCenter("10001")).thenReturn(true);
+		when(serviceUtil.isValidRegCenter("99999")).thenThrow(new RecordNotFoundException(
+				ErrorCodes.PRG_BOOK_RCI_035.getCode(), ErrorMessages.REG_CENTER_ID_NOT_FOUND.getMessage()));
+
+		search.validate(Arrays.asList("10001", "99999"));
+	}
+
+	@Test
+	public void centersAreLookedUpConcurrentlyInRequestOrderTest() {
+		CountDownLatch started = new CountDownLatch(3);
+		Map<String, String> found = search.search(Arrays.asList("10003", "10001", "10002"), regCenterId -> {
+			started.countDown();
+			try {
+				/* only returns when all three lookups run at the same time */
+				assertTrue(started.await(1, TimeUnit.SECONDS));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			return "availability of " + regCenterId;
+		});
+
+		assertEquals(Arrays.asList("10003", "10001", "10002"), new ArrayList<>(found.keySet()));
+		assertEquals("availability of 10001", found.get("10001"));
+	}
+
+	@Test(expected = TableNotAccessibleException.class)
+	public void slowCenterTimesTheSearchOutTest() {
+		ReflectionTestUtils.setField(search, "timeoutMillis", 100L);
+		search.search(Arrays.asList("10001", "10002"), regCenterId -> {
+			if (regCenterId.equals("10002")) {
+				try {
+					Thread.sleep(5000);
+				} catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			return regCenterId;
+		});
+	}
+}
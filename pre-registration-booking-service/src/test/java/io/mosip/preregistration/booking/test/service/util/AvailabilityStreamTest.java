@@ -0,0 +1,217 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static io.mosip.preregistration.booking.test.SlotFixtures.CENTER;
+import static io.mosip.preregistration.booking.test.SlotFixtures.DATE;
+import static io.mosip.preregistration.booking.test.SlotFixtures.FROM;
+import static io.mosip.preregistration.booking.test.SlotFixtures.TO;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.IOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.dto.AvailabilityChangeDto;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.AvailabilityStream;
+import io.mosip.preregistration.booking.test.SlotFixtures;
+
+public class AvailabilityStreamTest {
+
+	private AvailabilityStream stream;
+
+	private BookingDAO bookingDAO;
+
+	@Before
+	public void setup() {
+		bookingDAO = mock(BookingDAO.class);
+		stream = new AvailabilityStream();
+		ReflectionTestUtils.setField(stream, "enabled", true);
+		ReflectionTestUtils.setField(stream, "maxConnections", 2);
+		ReflectionTestUtils.setField(stream, "bufferLimit", 2);
+		ReflectionTestUtils.setField(stream, "timeoutMillis", 60000L);
+		ReflectionTestUtils.setField(stream, "heartbeatSeconds", 3600L);
+		ReflectionTestUtils.setField(stream, "flushMillis", 3600000L);
+		ReflectionTestUtils.setField(stream, "reconcileSeconds", 0L);
+		ReflectionTestUtils.setField(stream, "senderThreads", 2);
+		ReflectionTestUtils.setField(stream, "displayDays", 7L);
+		ReflectionTestUtils.setField(stream, "availabilityOffset", 0);
+		ReflectionTestUtils.setField(stream, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(stream, "meterRegistry", new SimpleMeterRegistry());
+		stream.init();
+	}
+
+	@After
+	public void tearDown() {
+		stream.shutdown();
+	}
+
+	@Test
+	public void sendsChangedSlotToCenterSubscribersTest() throws Exception {
+		RecordingEmitter watching = new RecordingEmitter();
+		RecordingEmitter other = new RecordingEmitter();
+		assertTrue(stream.subscribe(CENTER, watching));
+		assertTrue(stream.subscribe("10002", other));
+		slot(3);
+
+		stream.changed(CENTER, DATE, FROM, TO);
+		stream.changed(CENTER, DATE, FROM, TO);
+		stream.flush();
+		await(() -> watching.changes().size() == 1);
+
+		AvailabilityChangeDto change = watching.changes().get(0);
+		assertEquals(CENTER, change.getRegistrationCenterId());
+		assertEquals(DATE.toString(), change.getRegDate());
+		assertEquals("09:00", change.getSlotFromTime());
+		assertEquals(3, change.getAvailability());
+		assertTrue(other.changes().isEmpty());
+
+		/* unchanged kiosks are not sent again */
+		stream.changed(CENTER, DATE, FROM, TO);
+		stream.flush();
+		slot(2);
+		stream.changed(CENTER, DATE, FROM, TO);
+		stream.flush();
+		await(() -> watching.changes().size() == 2);
+		assertEquals(2, watching.changes().get(1).getAvailability());
+	}
+
+	@Test
+	public void reconcileSendsChangesOfOtherNodesTest() throws Exception {
+		RecordingEmitter emitter = new RecordingEmitter();
+		window(5);
+		assertTrue(stream.subscribe(CENTER, emitter));
+		stream.reconcile();
+		window(4);
+		stream.reconcile();
+		await(() -> !emitter.changes().isEmpty());
+		assertEquals(1, emitter.changes().size());
+		assertEquals(4, emitter.changes().get(0).getAvailability());
+	}
+
+	@Test
+	public void slowClientGetsResyncTest() throws Exception {
+		RecordingEmitter emitter = new RecordingEmitter();
+		emitter.block();
+		assertTrue(stream.subscribe(CENTER, emitter));
+		await(emitter::isBlocked);
+		for (int i = 0; i < 4; i++) {
+			slot(LocalTime.of(10 + i, 0), 5);
+			stream.changed(CENTER, DATE, LocalTime.of(10 + i, 0), LocalTime.of(10 + i, 15));
+		}
+		stream.flush();
+		emitter.release();
+
+		await(() -> emitter.resyncs() == 1 && emitter.changes().size() == 2);
+		assertEquals(LocalTime.of(12, 0).toString(), emitter.changes().get(0).getSlotFromTime());
+	}
+
+	@Test
+	public void connectionLimitTest() {
+		assertTrue(stream.subscribe(CENTER, new RecordingEmitter()));
+		assertTrue(stream.subscribe(CENTER, new RecordingEmitter()));
+		assertFalse(stream.subscribe(CENTER, new RecordingEmitter()));
+	}
+
+	private void slot(int kiosks) {
+		slot(FROM, kiosks);
+	}
+
+	private void slot(LocalTime from, int kiosks) {
+		when(bookingDAO.findAvailableKiosks(eq(DATE), eq(CENTER), eq(from), any())).thenReturn(kiosks);
+	}
+
+	private void window(int kiosks) {
+		List<SlotAvailabilityView> entities = new ArrayList<>(Collections.singletonList(SlotFixtures.slot(FROM, kiosks)));
+		when(bookingDAO.findSlotAvailability(eq(CENTER), any(), any())).thenReturn(entities);
+	}
+
+	private static void await(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + 5000;
+		while (!condition.getAsBoolean()) {
+			if (System.currentTimeMillis() > deadline) {
+				throw new AssertionError("condition not met in time");
+			}
+			Thread.sleep(5);
+		}
+	}
+
+	/**
+	 * Emitter keeping what is sent to it; can hold the sender to act as a slow
+	 * client.
+	 */
+	private static class RecordingEmitter extends SseEmitter {
+
+		private final List<Object> sent = new CopyOnWriteArrayList<>();
+
+		private volatile CountDownLatch gate = new CountDownLatch(0);
+
+		private volatile boolean blocked;
+
+		void block() {
+			gate = new CountDownLatch(1);
+		}
+
+		void release() {
+			gate.countDown();
+		}
+
+		boolean isBlocked() {
+			return blocked;
+		}
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			blocked = true;
+			try {
+				gate.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+			blocked = false;
+			for (DataWithMediaType data : builder.build()) {
+				sent.add(data.getData());
+			}
+		}
+
+		List<AvailabilityChangeDto> changes() {
+			List<AvailabilityChangeDto> changes = new ArrayList<>();
+			for (Object data : sent) {
+				if (data instanceof AvailabilityChangeDto) {
+					changes.add((AvailabilityChangeDto) data);
+				}
+			}
+			return changes;
+		}
+
+		int resyncs() {
+			int resyncs = 0;
+			for (Object data : sent) {
+				if (data instanceof String && ((String) data).contains("event:" + AvailabilityStream.RESYNC_EVENT)) {
+					resyncs++;
+				}
+			}
+			return resyncs;
+		}
+	}
+}
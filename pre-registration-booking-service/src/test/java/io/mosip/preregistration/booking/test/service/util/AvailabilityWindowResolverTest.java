@@ -0,0 +1,186 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Time;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.preregistration.booking.dto.DateTimeDto;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.AvailabilityWindowResolver;
+import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.booking.service.util.SlotCalendar;
+import io.mosip.preregistration.booking.service.util.SlotCalendar.FreeSlot;
+
+/**
+ * Compares the single query availability window with the former query per
+ * holiday extension loop on an H2 database. Their timings are compared by
+ * BookingDAOBenchmark.
+ */
+public class AvailabilityWindowResolverTest {
+
+	private static final String CENTER = "10001";
+
+	private static final LocalDate FROM_DATE = LocalDate.of(2030, 12, 16);
+
+	private static final LocalDate END_DATE = FROM_DATE.plusDays(6);
+
+	private static Connection connection;
+
+	private static CountingDAO bookingDAO;
+
+	private static BookingServiceUtil serviceUtil;
+
+	private static AvailabilityWindowResolver resolver;
+
+	@BeforeClass
+	public static void setup() throws SQLException {
+		connection = DriverManager.getConnection("jdbc:h2:mem:availabilitywindow;DB_CLOSE_DELAY=-1", "sa", "");
+		try (Statement statement = connection.createStatement()) {
+			statement.execute("CREATE TABLE reg_available_slot (regcntr_id VARCHAR(10), availability_date DATE, "
+					+ "slot_from_time TIME, slot_to_time TIME, available_kiosks INT, "
+					+ "PRIMARY KEY (regcntr_id, availability_date, slot_from_time))");
+		}
+		try (PreparedStatement insert = connection
+				.prepareStatement("INSERT INTO reg_available_slot VALUES (?, ?, ?, ?, ?)")) {
+			for (int day = 0; day < 60; day++) {
+				LocalDate date = FROM_DATE.plusDays(day);
+				/* weekends plus the year end break are holidays with a single row */
+				boolean holiday = date.getDayOfWeek() == DayOfWeek.SATURDAY
+						|| date.getDayOfWeek() == DayOfWeek.SUNDAY
+						|| (date.getMonthValue() == 12 && date.getDayOfMonth() >= 24 && date.getDayOfMonth() <= 26);
+				int slots = holiday ? 1 : 20;
+				for (int slot = 0; slot < slots; slot++) {
+					LocalTime from = LocalTime.of(9, 0).plusMinutes(15L * slot);
+					insert.setString(1, CENTER);
+					insert.setDate(2, Date.valueOf(date));
+					insert.setTime(3, Time.valueOf(from));
+					insert.setTime(4, Time.valueOf(from.plusMinutes(15)));
+					insert.setInt(5, holiday ? 0 : 4);
+					insert.addBatch();
+				}
+			}
+			insert.executeBatch();
+		}
+		bookingDAO = new CountingDAO();
+		serviceUtil = new BookingServiceUtil();
+		resolver = new AvailabilityWindowResolver();
+		ReflectionTestUtils.setField(resolver, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(resolver, "lookaheadDays", -1L);
+	}
+
+	@AfterClass
+	public static void tearDown() throws SQLException {
+		connection.close();
+	}
+
+	@Test
+	public void singleQueryMatchesLoopTest() {
+		bookingDAO.queries = 0;
+		List<DateTimeDto> expected = loop(FROM_DATE, END_DATE);
+		int loopQueries = bookingDAO.queries;
+
+		bookingDAO.queries = 0;
+		List<DateTimeDto> actual = resolver.resolve(CENTER, FROM_DATE, END_DATE).toAvailability().getCenterDetails();
+
+		assertEquals(expected.toString(), actual.toString());
+		assertEquals(1, bookingDAO.queries);
+		/* the window ends on a weekend, extended query by query */
+		assertTrue(loopQueries > 1);
+	}
+
+	@Test
+	public void calendarLookupTest() {
+		SlotCalendar calendar = resolver.resolve(CENTER, FROM_DATE, END_DATE);
+		assertEquals(4, calendar.freeKiosks(FROM_DATE, LocalTime.of(9, 0), LocalTime.of(9, 15)));
+		assertEquals(SlotCalendar.NO_SLOT, calendar.freeKiosks(FROM_DATE, LocalTime.of(9, 0), LocalTime.of(9, 30)));
+		/* Saturday 21st is a holiday without free kiosks */
+		FreeSlot next = calendar.nextFree(LocalDate.of(2030, 12, 20), LocalTime.of(13, 50));
+		assertEquals(LocalDate.of(2030, 12, 23), next.getDate());
+		assertEquals(LocalTime.of(9, 0), next.getFromTime());
+	}
+
+	/** The query per holiday extension loop getAvailability used before. */
+	private static List<DateTimeDto> loop(LocalDate fromDate, LocalDate endDate) {
+		List<DateTimeDto> dateTimeList = new ArrayList<>();
+		int noOfHoliday = getSlot(dateTimeList, bookingDAO.findAvailability(CENTER, fromDate, endDate));
+		while (noOfHoliday > 0) {
+			fromDate = endDate.plusDays(1);
+			endDate = endDate.plusDays(noOfHoliday);
+			noOfHoliday = getSlot(dateTimeList, bookingDAO.findAvailability(CENTER, fromDate, endDate));
+		}
+		return dateTimeList;
+	}
+
+	private static int getSlot(List<DateTimeDto> dateTimeList, List<AvailibityEntity> availableEntity) {
+		Map<LocalDate, List<AvailibityEntity>> result = availableEntity.stream().collect(
+				Collectors.groupingBy(AvailibityEntity::getRegDate, TreeMap::new, Collectors.toList()));
+		int noOfHoliday = 0;
+		for (Entry<LocalDate, List<AvailibityEntity>> entity : result.entrySet()) {
+			noOfHoliday += serviceUtil.slotSetter(entity.getKey(), dateTimeList, new DateTimeDto(), entity.getValue());
+		}
+		return noOfHoliday;
+	}
+
+	private static class CountingDAO extends BookingDAO {
+
+		private int queries;
+
+		@Override
+		public List<SlotAvailabilityView> findSlotAvailability(String regcntrId, LocalDate startDate,
+				LocalDate endDate) {
+			return new ArrayList<>(findAvailability(regcntrId, startDate, endDate));
+		}
+
+		@Override
+		public List<AvailibityEntity> findAvailability(String regcntrId, LocalDate starteDate, LocalDate endDate) {
+			queries++;
+			List<AvailibityEntity> entities = new ArrayList<>();
+			try (PreparedStatement select = connection.prepareStatement(
+					"SELECT regcntr_id, availability_date, slot_from_time, slot_to_time, available_kiosks "
+							+ "FROM reg_available_slot WHERE regcntr_id = ? AND availability_date >= ? "
+							+ "AND availability_date <= ? ORDER BY slot_from_time ASC")) {
+				select.setString(1, regcntrId);
+				select.setDate(2, Date.valueOf(starteDate));
+				select.setDate(3, Date.valueOf(endDate));
+				try (ResultSet rs = select.executeQuery()) {
+					while (rs.next()) {
+						AvailibityEntity entity = new AvailibityEntity();
+						entity.setRegcntrId(rs.getString(1));
+						entity.setRegDate(rs.getDate(2).toLocalDate());
+						entity.setFromTime(rs.getTime(3).toLocalTime());
+						entity.setToTime(rs.getTime(4).toLocalTime());
+						entity.setAvailableKiosks(rs.getInt(5));
+						entities.add(entity);
+					}
+				}
+			} catch (SQLException ex) {
+				throw new IllegalStateException(ex);
+			}
+			return entities;
+		}
+	}
+}
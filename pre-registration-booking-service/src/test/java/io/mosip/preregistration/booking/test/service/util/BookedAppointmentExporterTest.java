@@ -0,0 +1,115 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.function.Consumer;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.dto.BookedAppointmentDto;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.BookedAppointmentExporter;
+
+public class BookedAppointmentExporterTest {
+
+	private static final LocalDate FROM = LocalDate.of(2030, 1, 1);
+
+	private static final LocalDate TO = LocalDate.of(2030, 1, 31);
+
+	private BookedAppointmentExporter exporter;
+
+	private BookingDAO bookingDAO;
+
+	private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Before
+	public void setup() {
+		bookingDAO = mock(BookingDAO.class);
+		exporter = new BookedAppointmentExporter();
+		ReflectionTestUtils.setField(exporter, "bufferSize", 16);
+		ReflectionTestUtils.setField(exporter, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(exporter, "objectMapper", new ObjectMapper());
+		ReflectionTestUtils.setField(exporter, "meterRegistry", registry);
+		exporter.init();
+	}
+
+	@Test
+	public void writesOneLinePerAppointmentTest() throws Exception {
+		when(bookingDAO.exportBookedAppointments(eq("10001"), eq(FROM), eq(TO), isNull(), isNull(), isNull(),
+				eq(Long.MAX_VALUE), any())).thenAnswer(invocation -> {
+					Consumer<BookedAppointmentDto> consumer = invocation.getArgument(7);
+					consumer.accept(appointment("11111111111111", 9));
+					consumer.accept(appointment("22222222222222", 10));
+					return 2L;
+				});
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export("10001", FROM, TO, null, null, null, Long.MAX_VALUE).writeTo(out);
+
+		String[] lines = new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n");
+		assertEquals(2, lines.length);
+		BookedAppointmentDto first = new ObjectMapper().readValue(lines[0], BookedAppointmentDto.class);
+		assertEquals("11111111111111", first.getPreRegistrationId());
+		assertEquals("2030-01-05", first.getRegDate());
+		assertEquals("09:00", first.getSlotFromTime());
+		assertEquals("09:15", first.getSlotToTime());
+		assertEquals(2, registry.find("prereg.booking.export.rows").counter().count(), 0.0);
+	}
+
+	@Test
+	public void resumesAfterKeysetTest() throws Exception {
+		LocalTime nine = LocalTime.of(9, 0);
+		when(bookingDAO.exportBookedAppointments(eq("10001"), eq(FROM), eq(TO), eq(FROM.plusDays(4)), eq(nine),
+				eq("11111111111111"), eq(1L), any())).thenAnswer(invocation -> {
+					Consumer<BookedAppointmentDto> consumer = invocation.getArgument(7);
+					consumer.accept(appointment("22222222222222", 10));
+					return 1L;
+				});
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		exporter.export("10001", FROM, TO, FROM.plusDays(4), nine, "11111111111111", 1).writeTo(out);
+
+		assertEquals(1, new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n").length);
+	}
+
+	@Test(expected = IOException.class)
+	public void clientGoneEndsExportTest() throws Exception {
+		when(bookingDAO.exportBookedAppointments(any(), any(), any(), any(), any(), any(), anyLong(), any()))
+				.thenAnswer(invocation -> {
+					Consumer<BookedAppointmentDto> consumer = invocation.getArgument(7);
+					consumer.accept(appointment("11111111111111", 9));
+					return 1L;
+				});
+		OutputStream broken = new OutputStream() {
+
+			@Override
+			public void write(int b) throws IOException {
+				throw new IOException("connection reset");
+			}
+		};
+		try {
+			exporter.export("10001", FROM, TO, null, null, null, Long.MAX_VALUE).writeTo(broken);
+		} finally {
+			assertEquals(1, registry.find("prereg.booking.export.failures").counter().count(), 0.0);
+		}
+	}
+
+	private static BookedAppointmentDto appointment(String preId, int hour) {
+		return new BookedAppointmentDto(preId, FROM.plusDays(4), LocalTime.of(hour, 0), LocalTime.of(hour, 15));
+	}
+}
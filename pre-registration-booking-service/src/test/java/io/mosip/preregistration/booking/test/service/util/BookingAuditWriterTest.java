@@ -0,0 +1,200 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.service.util.BookingAuditWriter;
+import io.mosip.preregistration.booking.service.util.BookingAuditWriter.OverflowPolicy;
+import io.mosip.preregistration.core.common.dto.AuditRequestDto;
+import io.mosip.preregistration.core.util.AuditLogUtil;
+
+public class BookingAuditWriterTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	/** authentication each audit record was written under, by event id */
+	private final Map<String, Object> writtenAs = new ConcurrentHashMap<>();
+
+	/** held by the first write until released */
+	private final CountDownLatch release = new CountDownLatch(1);
+
+	private AuditLogUtil auditLogUtil;
+
+	private Path spillFile;
+
+	private BookingAuditWriter auditWriter;
+
+	@Before
+	public void setup() {
+		auditLogUtil = mock(AuditLogUtil.class);
+		spillFile = folder.getRoot().toPath().resolve("audit.spill");
+	}
+
+	@After
+	public void tearDown() {
+		release.countDown();
+		if (auditWriter != null) {
+			auditWriter.shutdown();
+		}
+		SecurityContextHolder.clearContext();
+	}
+
+	@Test
+	public void blockPolicyWaitsForRoomTest() throws InterruptedException {
+		start(OverflowPolicy.BLOCK, true);
+		fillQueue();
+		Thread caller = new Thread(() -> auditWriter.submit(audit("3")));
+		caller.start();
+
+		caller.join(200);
+		assertTrue(caller.isAlive());
+		release.countDown();
+		caller.join(5000);
+
+		assertFalse(caller.isAlive());
+		verify(auditLogUtil, timeout(5000).times(3)).saveAuditDetails(any());
+	}
+
+	@Test
+	public void dropPolicyDiscardsRecordTest() {
+		start(OverflowPolicy.DROP, true);
+		fillQueue();
+
+		auditWriter.submit(audit("3"));
+		release.countDown();
+
+		verify(auditLogUtil, timeout(5000).times(2)).saveAuditDetails(any());
+		assertEquals(1.0, count("dropped"), 0.0);
+		assertFalse(Files.exists(spillFile));
+	}
+
+	@Test
+	public void spillPolicyAppendsRecordToFileTest() throws IOException {
+		start(OverflowPolicy.SPILL, true);
+		fillQueue();
+
+		auditWriter.submit(audit("3"));
+
+		List<String> spilled = Files.readAllLines(spillFile, StandardCharsets.UTF_8);
+		assertEquals(1, spilled.size());
+		assertTrue(spilled.get(0).contains("\"3\""));
+		assertEquals(1.0, count("spilled"), 0.0);
+	}
+
+	@Test
+	public void queueIsDrainedOnShutdownTest() {
+		start(OverflowPolicy.SPILL, false);
+		for (int i = 0; i < 50; i++) {
+			auditWriter.submit(audit(String.valueOf(i)));
+		}
+
+		auditWriter.shutdown();
+		auditWriter = null;
+
+		verify(auditLogUtil, times(50)).saveAuditDetails(any());
+		assertFalse(Files.exists(spillFile));
+	}
+
+	@Test
+	public void spilledRecordsAreReplayedUnderLiveContextTest() throws IOException {
+		ObjectMapper mapper = new ObjectMapper().findAndRegisterModules();
+		Files.write(spillFile, Arrays.asList(mapper.writeValueAsString(audit("spilled")),
+				mapper.writeValueAsString(audit("fail"))), StandardCharsets.UTF_8);
+		Authentication user = new TestingAuthenticationToken("user", "password");
+		SecurityContext context = SecurityContextHolder.createEmptyContext();
+		context.setAuthentication(user);
+		SecurityContextHolder.setContext(context);
+		start(OverflowPolicy.SPILL, false);
+
+		auditWriter.submit(audit("live"));
+		verify(auditLogUtil, timeout(5000).times(3)).saveAuditDetails(any());
+		auditWriter.shutdown();
+		auditWriter = null;
+
+		assertSame(user, writtenAs.get("live"));
+		assertSame(user, writtenAs.get("spilled"));
+		/* the record that failed again is kept for the next start */
+		List<String> kept = Files.readAllLines(spillFile.resolveSibling("audit.spill.replay"), StandardCharsets.UTF_8);
+		assertEquals(1, kept.size());
+		assertTrue(kept.get(0).contains("\"fail\""));
+	}
+
+	private void start(OverflowPolicy overflowPolicy, boolean holdFirstWrite) {
+		doAnswer(invocation -> {
+			AuditRequestDto audit = invocation.getArgument(0);
+			if (holdFirstWrite && "1".equals(audit.getEventId())) {
+				release.await(5, TimeUnit.SECONDS);
+			}
+			if ("fail".equals(audit.getEventId())) {
+				throw new IllegalStateException("audit manager unavailable");
+			}
+			Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+			writtenAs.put(audit.getEventId(), authentication == null ? "none" : authentication);
+			return null;
+		}).when(auditLogUtil).saveAuditDetails(any());
+		auditWriter = new BookingAuditWriter();
+		ReflectionTestUtils.setField(auditWriter, "auditLogUtil", auditLogUtil);
+		ReflectionTestUtils.setField(auditWriter, "meterRegistry", registry);
+		ReflectionTestUtils.setField(auditWriter, "async", true);
+		ReflectionTestUtils.setField(auditWriter, "queueCapacity", holdFirstWrite ? 1 : 100);
+		ReflectionTestUtils.setField(auditWriter, "batchSize", 100);
+		ReflectionTestUtils.setField(auditWriter, "flushIntervalMillis", 50L);
+		ReflectionTestUtils.setField(auditWriter, "overflowPolicy", overflowPolicy);
+		ReflectionTestUtils.setField(auditWriter, "spillFile", spillFile.toString());
+		ReflectionTestUtils.setField(auditWriter, "drainTimeoutMillis", 5000L);
+		auditWriter.init();
+	}
+
+	/** leaves the flusher held in the first write and the one-record queue full */
+	private void fillQueue() {
+		auditWriter.submit(audit("1"));
+		verify(auditLogUtil, timeout(5000)).saveAuditDetails(any());
+		auditWriter.submit(audit("2"));
+	}
+
+	private double count(String outcome) {
+		return registry.get("prereg.booking.audit").tag("outcome", outcome).counter().count();
+	}
+
+	private static AuditRequestDto audit(String eventId) {
+		AuditRequestDto audit = new AuditRequestDto();
+		audit.setEventId(eventId);
+		return audit;
+	}
+}
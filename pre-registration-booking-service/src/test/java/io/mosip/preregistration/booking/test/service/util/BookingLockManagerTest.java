@@ -0,0 +1,121 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.mosip.preregistration.booking.exception.SlotBusyException;
+import io.mosip.preregistration.booking.service.util.BookingLock;
+import io.mosip.preregistration.booking.service.util.BookingLockManager;
+import io.mosip.preregistration.booking.service.util.BookingLockManager.SlotLockHandle;
+
+public class BookingLockManagerTest {
+
+	private BookingLockManager lockManager;
+
+	private ExecutorService executor;
+
+	private BookingLock slotA = new BookingLock("10001", "2030-01-01", "09:00");
+
+	private BookingLock slotB = new BookingLock("10001", "2030-01-01", "09:15");
+
+	@Before
+	public void setup() {
+		lockManager = new BookingLockManager();
+		ReflectionTestUtils.setField(lockManager, "lockTimeoutMillis", 200L);
+		ReflectionTestUtils.setField(lockManager, "fair", true);
+		lockManager.init();
+		executor = Executors.newFixedThreadPool(2);
+	}
+
+	@After
+	public void tearDown() {
+		executor.shutdownNow();
+	}
+
+	@Test
+	public void unrelatedSlotsDoNotBlockTest() throws Exception {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> {
+			try (SlotLockHandle handle = lockManager.acquire(slotA)) {
+				locked.countDown();
+				release.await();
+			}
+			return null;
+		});
+		assertTrue(locked.await(1, TimeUnit.SECONDS));
+		Future<Boolean> other = executor.submit(() -> {
+			try (SlotLockHandle handle = lockManager.acquire(slotB)) {
+				return true;
+			}
+		});
+		assertTrue(other.get(1, TimeUnit.SECONDS));
+		release.countDown();
+	}
+
+	@Test(expected = SlotBusyException.class)
+	public void sameSlotTimesOutTest() throws Throwable {
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> {
+			try (SlotLockHandle handle = lockManager.acquire(slotA)) {
+				locked.countDown();
+				release.await();
+			}
+			return null;
+		});
+		assertTrue(locked.await(1, TimeUnit.SECONDS));
+		try {
+			lockManager.acquireAll(Arrays.asList(slotB, new BookingLock("10001", "2030-01-01", "09:00")));
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test(expected = SlotBusyException.class)
+	public void requestedAndStoredTimesShareTheLockTest() throws Throwable {
+		assertEquals(slotA, new BookingLock("10001", LocalDate.of(2030, 1, 1), LocalTime.of(9, 0)));
+		CountDownLatch locked = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		executor.submit(() -> {
+			try (SlotLockHandle handle = lockManager.acquire(new BookingLock("10001", "2030-01-01", "09:00:00"))) {
+				locked.countDown();
+				release.await();
+			}
+			return null;
+		});
+		assertTrue(locked.await(1, TimeUnit.SECONDS));
+		try {
+			lockManager.acquire(slotA);
+		} finally {
+			release.countDown();
+		}
+	}
+
+	@Test
+	public void locksAreReleasedOnCloseTest() throws Exception {
+		try (SlotLockHandle handle = lockManager.acquireAll(Arrays.asList(slotB, slotA))) {
+			// held
+		}
+		Future<Boolean> other = executor.submit(() -> {
+			try (SlotLockHandle handle = lockManager.acquire(slotA)) {
+				return true;
+			}
+		});
+		assertTrue(other.get(1, TimeUnit.SECONDS));
+	}
+}
@@ -0,0 +1,69 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.errorcodes.ErrorCodes;
+import io.mosip.preregistration.booking.exception.AvailablityNotFoundException;
+import io.mosip.preregistration.booking.service.util.BookingMetrics;
+import io.mosip.preregistration.booking.service.util.BookingMetrics.Phase;
+
+public class BookingMetricsTest {
+
+	private BookingMetrics metrics;
+
+	private SimpleMeterRegistry registry;
+
+	@Before
+	public void setup() {
+		registry = new SimpleMeterRegistry();
+		metrics = new BookingMetrics();
+		ReflectionTestUtils.setField(metrics, "meterRegistry", registry);
+		ReflectionTestUtils.setField(metrics, "maxCenters", 2);
+		metrics.init();
+	}
+
+	@Test
+	public void phaseOutcomeTest() {
+		assertEquals("ok", metrics.time(Phase.STATUS_CALL, () -> "ok"));
+		try {
+			metrics.time(Phase.RESERVATION, () -> {
+				throw new IllegalStateException();
+			});
+		} catch (IllegalStateException ex) {
+			// expected
+		}
+		assertEquals(1, registry.find(BookingMetrics.PHASE_TIMER).tag("phase", "status_call")
+				.tag("outcome", BookingMetrics.SUCCESS).timer().count());
+		assertEquals(1, registry.find(BookingMetrics.PHASE_TIMER).tag("phase", "reservation").tag("outcome", "error")
+				.timer().count());
+	}
+
+	@Test
+	public void errorCodeTagIsBoundedTest() {
+		metrics.outcome("book", new AvailablityNotFoundException(ErrorCodes.PRG_BOOK_RCI_002.getCode(), "slot"));
+		metrics.outcome("book", new AvailablityNotFoundException("PRG_UNKNOWN_999", "unknown"));
+		metrics.outcome("book", new NullPointerException());
+		assertEquals(1.0, registry.find("prereg.booking.outcome").tag("code", ErrorCodes.PRG_BOOK_RCI_002.getCode())
+				.counter().count(), 0.0);
+		assertEquals(2.0,
+				registry.find("prereg.booking.outcome").tag("code", BookingMetrics.OTHER).counter().count(), 0.0);
+	}
+
+	@Test
+	public void centerTagIsBoundedTest() {
+		metrics.booked("10001");
+		metrics.booked("10002");
+		metrics.booked("10003");
+		metrics.booked("10004");
+		assertNotNull(registry.find("prereg.booking.center.rate").tag("center", "10002").gauge());
+		assertNull(registry.find("prereg.booking.center.rate").tag("center", "10003").gauge());
+		assertEquals(3, registry.find("prereg.booking.center.rate").gauges().size());
+	}
+}
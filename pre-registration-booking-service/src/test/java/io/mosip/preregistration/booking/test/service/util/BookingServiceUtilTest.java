@@ -67,6 +67,7 @@ import io.mosip.preregistration.booking.repository.BookingAvailabilityRepository
 import io.mosip.preregistration.booking.repository.RegistrationBookingRepository;
 import io.mosip.preregistration.booking.repository.impl.BookingDAO;
 import io.mosip.preregistration.booking.service.util.BookingServiceUtil;
+import io.mosip.preregistration.booking.service.util.RegistrationCenterCache;
 import io.mosip.preregistration.core.common.dto.BookingRegistrationDTO;
 import io.mosip.preregistration.core.common.dto.ExceptionJSONInfoDTO;
 import io.mosip.preregistration.core.common.dto.MainRequestDTO;
@@ -100,6 +101,9 @@ public class BookingServiceUtilTest {
 	@Autowired
 	private BookingServiceUtil serviceUtil;
 
+	@Autowired
+	private RegistrationCenterCache registrationCenterCache;
+
 	@MockBean
 	private BookingDAO bookingDAO;
 
@@ -123,6 +127,7 @@ public class BookingServiceUtilTest {
 
 	@Before
 	public void setup() throws Exception {
+		registrationCenterCache.evictAll();
 
 		String date3 = "2016-11-09 00:20:00";
 		String date4 = "2016-11-09 13:00:00";
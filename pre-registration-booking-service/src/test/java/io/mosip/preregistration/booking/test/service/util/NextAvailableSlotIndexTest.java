@@ -0,0 +1,197 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.entity.AvailibityEntity;
+import io.mosip.preregistration.booking.entity.SlotAvailabilityView;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.AvailabilityCache;
+import io.mosip.preregistration.booking.service.util.NextAvailableSlotIndex;
+import io.mosip.preregistration.booking.service.util.SlotCalendar.FreeSlot;
+import io.mosip.preregistration.core.exception.TableNotAccessibleException;
+
+public class NextAvailableSlotIndexTest {
+
+	private static final String CENTER = "10001";
+
+	private static final String OTHER_CENTER = "10002";
+
+	private static final LocalDate FROM_DATE = LocalDate.of(2030, 1, 7);
+
+	private static final LocalTime NINE = LocalTime.of(9, 0);
+
+	private static final LocalTime TEN = LocalTime.of(10, 0);
+
+	private final List<AvailibityEntity> rows = new ArrayList<>();
+
+	/** centers whose slot rows cannot be read */
+	private final Set<String> unreadable = new HashSet<>();
+
+	private SimpleMeterRegistry registry;
+
+	private NextAvailableSlotIndex index;
+
+	@Before
+	public void setup() {
+		registry = new SimpleMeterRegistry();
+		BookingDAO bookingDAO = mock(BookingDAO.class);
+		when(bookingDAO.findSlotAvailability(anyString(), any(), any())).thenAnswer(invocation -> {
+			String regCenterId = invocation.getArgument(0);
+			LocalDate from = invocation.getArgument(1);
+			LocalDate to = invocation.getArgument(2);
+			if (unreadable.contains(regCenterId)) {
+				throw new TableNotAccessibleException("PRG_BOOK_RCI_016", "not accessible");
+			}
+			return rows.stream()
+					.filter(row -> row.getRegcntrId().equals(regCenterId) && !row.getRegDate().isBefore(from)
+							&& !row.getRegDate().isAfter(to))
+					.map(SlotAvailabilityView.class::cast).collect(Collectors.toList());
+		});
+		index = new NextAvailableSlotIndex();
+		ReflectionTestUtils.setField(index, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(index, "availabilityCache", new AvailabilityCache());
+		ReflectionTestUtils.setField(index, "meterRegistry", registry);
+		ReflectionTestUtils.setField(index, "horizonDays", 30);
+		ReflectionTestUtils.setField(index, "ttlSeconds", 60L);
+		ReflectionTestUtils.setField(index, "maxCenters", 100);
+		ReflectionTestUtils.setField(index, "parallelism", 2);
+		ReflectionTestUtils.setField(index, "timeoutMillis", 5000L);
+		index.init();
+	}
+
+	@After
+	public void tearDown() {
+		index.shutdown();
+	}
+
+	@Test
+	public void fullDaysAreSkippedTest() {
+		slot(CENTER, 0, NINE, 0);
+		slot(CENTER, 0, TEN, 0);
+		slot(CENTER, 1, NINE, 0);
+		slot(CENTER, 1, TEN, 0);
+		slot(CENTER, 4, NINE, 0);
+		slot(CENTER, 4, TEN, 2);
+		slot(CENTER, 5, NINE, 1);
+
+		List<FreeSlot> free = index.earliest(CENTER, FROM_DATE, 1);
+
+		assertEquals(1, free.size());
+		assertEquals(FROM_DATE.plusDays(4), free.get(0).getDate());
+		assertEquals(TEN, free.get(0).getFromTime());
+		assertEquals(2, free.get(0).getFreeKiosks());
+		assertEquals(1.0, registry.find("prereg.booking.next-available.loads").counter().count(), 0.0);
+		assertEquals(1.0, databaseReads(), 0.0);
+	}
+
+	@Test
+	public void slotsAreCollectedOverSeveralDaysTest() {
+		slot(CENTER, 2, NINE, 1);
+		slot(CENTER, 2, TEN, 0);
+		slot(CENTER, 3, NINE, 3);
+		slot(CENTER, 3, TEN, 1);
+
+		List<FreeSlot> free = index.earliest(CENTER, FROM_DATE, 3);
+
+		assertEquals(3, free.size());
+		assertEquals(FROM_DATE.plusDays(2), free.get(0).getDate());
+		assertEquals(FROM_DATE.plusDays(3), free.get(1).getDate());
+		assertEquals(NINE, free.get(1).getFromTime());
+		assertEquals(TEN, free.get(2).getFromTime());
+	}
+
+	@Test
+	public void dayFoundFullIsClearedUntilChangedTest() {
+		AvailibityEntity first = slot(CENTER, 0, NINE, 1);
+		slot(CENTER, 0, TEN, 0);
+		slot(CENTER, 6, NINE, 1);
+		slot(CENTER, 6, TEN, 0);
+		assertEquals(FROM_DATE, index.earliest(CENTER, FROM_DATE, 1).get(0).getDate());
+
+		/* booked on another node: the day is read once more and then skipped */
+		first.setAvailableKiosks(0);
+		assertEquals(FROM_DATE.plusDays(6), index.earliest(CENTER, FROM_DATE, 1).get(0).getDate());
+		assertEquals(1.0, registry.find("prereg.booking.next-available.cleared-days").counter().count(), 0.0);
+		double reads = databaseReads();
+		assertEquals(FROM_DATE.plusDays(6), index.earliest(CENTER, FROM_DATE, 1).get(0).getDate());
+		assertEquals(reads + 1, databaseReads(), 0.0);
+
+		/* cancelled here: the day is found again */
+		first.setAvailableKiosks(1);
+		index.changed(CENTER, FROM_DATE);
+		assertEquals(FROM_DATE, index.earliest(CENTER, FROM_DATE, 1).get(0).getDate());
+	}
+
+	@Test
+	public void holidaysAreNotOfferedTest() {
+		slot(CENTER, 0, NINE, 4);
+		slot(CENTER, 1, NINE, 2);
+		slot(CENTER, 1, TEN, 2);
+
+		List<FreeSlot> free = index.earliest(CENTER, FROM_DATE, 5);
+
+		assertEquals(2, free.size());
+		assertTrue(free.stream().allMatch(slot -> slot.getDate().equals(FROM_DATE.plusDays(1))));
+	}
+
+	@Test
+	public void centersAreSearchedTogetherTest() {
+		slot(CENTER, 3, NINE, 1);
+		slot(CENTER, 3, TEN, 1);
+		slot(OTHER_CENTER, 1, NINE, 1);
+		slot(OTHER_CENTER, 1, TEN, 0);
+
+		Map<String, List<FreeSlot>> free = index.earliest(Arrays.asList(OTHER_CENTER, CENTER, OTHER_CENTER),
+				FROM_DATE, 2);
+
+		assertEquals(Arrays.asList(OTHER_CENTER, CENTER), new ArrayList<>(free.keySet()));
+		assertEquals(1, free.get(OTHER_CENTER).size());
+		assertEquals(FROM_DATE.plusDays(1), free.get(OTHER_CENTER).get(0).getDate());
+		assertEquals(2, free.get(CENTER).size());
+	}
+
+	@Test(expected = TableNotAccessibleException.class)
+	public void searchFailsWhenOneCenterFailsTest() {
+		slot(CENTER, 3, NINE, 1);
+		slot(OTHER_CENTER, 1, NINE, 1);
+		unreadable.add(OTHER_CENTER);
+
+		index.earliest(Arrays.asList(CENTER, OTHER_CENTER), FROM_DATE, 2);
+	}
+
+	private double databaseReads() {
+		return registry.find("prereg.booking.next-available.day-reads").tag("source", "database").counter().count();
+	}
+
+	private AvailibityEntity slot(String regCenterId, int day, LocalTime from, int kiosks) {
+		AvailibityEntity entity = new AvailibityEntity();
+		entity.setRegcntrId(regCenterId);
+		entity.setRegDate(FROM_DATE.plusDays(day));
+		entity.setFromTime(from);
+		entity.setToTime(from.plusMinutes(15));
+		entity.setAvailableKiosks(kiosks);
+		rows.add(entity);
+		return entity;
+	}
+}
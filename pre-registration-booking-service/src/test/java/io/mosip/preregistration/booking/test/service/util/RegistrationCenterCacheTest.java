@@ -0,0 +1,146 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.dto.RegistrationCenterDto;
+import io.mosip.preregistration.booking.service.util.RegistrationCenterCache;
+import io.mosip.preregistration.core.exception.MasterDataNotAvailableException;
+import io.mosip.preregistration.core.exception.RestCallException;
+
+public class RegistrationCenterCacheTest {
+
+	private static final String CENTER = "10001";
+
+	private final List<RegistrationCenterDto> centers = Collections.singletonList(new RegistrationCenterDto());
+
+	private final AtomicInteger calls = new AtomicInteger();
+
+	private RegistrationCenterCache cache;
+
+	@Before
+	public void setup() {
+		cache = new RegistrationCenterCache();
+		ReflectionTestUtils.setField(cache, "enabled", true);
+		ReflectionTestUtils.setField(cache, "refreshSeconds", 3600L);
+		ReflectionTestUtils.setField(cache, "maxStaleSeconds", 86400L);
+		ReflectionTestUtils.setField(cache, "negativeTtlSeconds", 300L);
+		ReflectionTestUtils.setField(cache, "maxCenters", 2);
+		ReflectionTestUtils.setField(cache, "meterRegistry", new SimpleMeterRegistry());
+		cache.init();
+	}
+
+	@After
+	public void tearDown() {
+		cache.shutdown();
+	}
+
+	@Test
+	public void centerIsLoadedOnceTest() {
+		Function<String, List<RegistrationCenterDto>> loader = loader(null);
+
+		assertSame(centers, cache.get(CENTER, loader));
+		assertSame(centers, cache.get(CENTER, loader));
+
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void staleCenterIsServedWhileRefreshedTest() throws InterruptedException {
+		ReflectionTestUtils.setField(cache, "refreshSeconds", 0L);
+		cache.get(CENTER, loader(null));
+
+		assertSame(centers, cache.get(CENTER, loader(null)));
+		awaitRefresh();
+
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void failedRefreshKeepsStaleCenterTest() throws InterruptedException {
+		ReflectionTestUtils.setField(cache, "refreshSeconds", 0L);
+		cache.get(CENTER, loader(null));
+
+		/* an expired self token during refresh-ahead */
+		assertSame(centers, cache.get(CENTER, loader(new RestCallException("PRG_BOOK_RCI_020", "forbidden"))));
+		awaitRefresh();
+		assertSame(centers, cache.get(CENTER, loader(new MasterDataNotAvailableException("PRG_BOOK_RCI_020",
+				"Master data not found"))));
+		awaitRefresh();
+
+		assertSame(centers, cache.get(CENTER, loader(null)));
+	}
+
+	@Test
+	public void unknownCenterIsNegativelyCachedTest() {
+		MasterDataNotAvailableException notFound = new MasterDataNotAvailableException("PRG_BOOK_RCI_020",
+				"Master data not found");
+		Function<String, List<RegistrationCenterDto>> loader = loader(notFound);
+
+		for (int i = 0; i < 2; i++) {
+			try {
+				cache.get(CENTER, loader);
+				fail();
+			} catch (MasterDataNotAvailableException ex) {
+				assertSame(notFound, ex);
+			}
+		}
+
+		assertEquals(1, calls.get());
+	}
+
+	@Test
+	public void callFailureIsNotCachedTest() {
+		try {
+			cache.get(CENTER, loader(new RestCallException("PRG_BOOK_RCI_020", "too many requests")));
+			fail();
+		} catch (RestCallException ex) {
+			/* retried on the next read */
+		}
+
+		assertSame(centers, cache.get(CENTER, loader(null)));
+		assertEquals(2, calls.get());
+	}
+
+	@Test
+	public void centersAreBoundedTest() {
+		for (String center : new String[] { "10001", "10002", "10003" }) {
+			cache.get(center, loader(null));
+		}
+
+		assertEquals(2L, cache.stats().get("entries"));
+	}
+
+	private Function<String, List<RegistrationCenterDto>> loader(RuntimeException failure) {
+		return id -> {
+			calls.incrementAndGet();
+			if (failure != null) {
+				throw failure;
+			}
+			return centers;
+		};
+	}
+
+	@SuppressWarnings("unchecked")
+	private void awaitRefresh() throws InterruptedException {
+		Map<String, Boolean> refreshing = (Map<String, Boolean>) ReflectionTestUtils.getField(cache, "refreshing");
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!refreshing.isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+
+import io.mosip.preregistration.booking.service.util.BookingLock;
+import io.mosip.preregistration.booking.service.util.SlotDemands;
+import io.mosip.preregistration.booking.service.util.SlotDemands.Demand;
+
+public class SlotDemandsTest {
+
+	private static final LocalDate DATE = LocalDate.of(2030, 1, 1);
+
+	private static final LocalTime NINE = LocalTime.of(9, 0);
+
+	private static final LocalTime TEN = LocalTime.of(10, 0);
+
+	@Test
+	public void entriesOfOneSlotAreGroupedTest() {
+		SlotDemands demands = new SlotDemands();
+		assertEquals(1, demands.take("10001", DATE, NINE, NINE.plusMinutes(15)));
+		assertEquals(2, demands.take("10001", DATE, NINE, NINE.plusMinutes(15)));
+		assertEquals(3, demands.take("10001", DATE, NINE, NINE.plusMinutes(15)));
+
+		assertEquals(1, demands.demands().size());
+		Demand demand = demands.demands().iterator().next();
+		assertEquals(3, demand.getTaken());
+		assertEquals(-3, demand.getDelta());
+	}
+
+	@Test
+	public void slotsFollowLockOrderTest() {
+		SlotDemands demands = new SlotDemands();
+		demands.take("10002", DATE, NINE, NINE.plusMinutes(15));
+		demands.take("10001", DATE.plusDays(1), NINE, NINE.plusMinutes(15));
+		demands.take("10001", DATE, TEN, TEN.plusMinutes(15));
+		demands.giveBack("10001", DATE, NINE, NINE.plusMinutes(15));
+
+		List<BookingLock> expected = Arrays.asList(new BookingLock("10001", "2030-01-01", "09:00"),
+				new BookingLock("10001", "2030-01-01", "10:00"), new BookingLock("10001", "2030-01-02", "09:00"),
+				new BookingLock("10002", "2030-01-01", "09:00"));
+		assertEquals(expected, new ArrayList<>(demands.locks()));
+		List<Integer> deltas = new ArrayList<>();
+		for (Demand demand : demands.demands()) {
+			deltas.add(demand.getDelta());
+		}
+		assertEquals(Arrays.asList(1, -1, -1, -1), deltas);
+	}
+
+	@Test
+	public void rebookWithinOneSlotCancelsOutTest() {
+		SlotDemands demands = new SlotDemands();
+		demands.giveBack("10001", DATE, NINE, NINE.plusMinutes(15));
+		demands.take("10001", DATE, NINE, NINE.plusMinutes(15));
+		assertEquals(0, demands.demands().iterator().next().getDelta());
+	}
+}
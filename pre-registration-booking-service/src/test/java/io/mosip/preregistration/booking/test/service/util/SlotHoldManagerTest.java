@@ -0,0 +1,100 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static io.mosip.preregistration.booking.test.SlotFixtures.CENTER;
+import static io.mosip.preregistration.booking.test.SlotFixtures.DATE;
+import static io.mosip.preregistration.booking.test.SlotFixtures.FROM;
+import static io.mosip.preregistration.booking.test.SlotFixtures.TO;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.mosip.preregistration.booking.entity.SlotHoldEntity;
+import io.mosip.preregistration.booking.exception.OperationNotAllowedException;
+import io.mosip.preregistration.booking.exception.RecordNotFoundException;
+import io.mosip.preregistration.booking.repository.impl.BookingDAO;
+import io.mosip.preregistration.booking.service.util.SlotChangeNotifier;
+import io.mosip.preregistration.booking.service.util.SlotHoldManager;
+
+public class SlotHoldManagerTest {
+
+	private SlotHoldManager holdManager;
+
+	private BookingDAO bookingDAO;
+
+	private SlotChangeNotifier slotChangeNotifier;
+
+	private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	@Before
+	public void setup() {
+		bookingDAO = mock(BookingDAO.class);
+		slotChangeNotifier = mock(SlotChangeNotifier.class);
+		when(bookingDAO.createHold(any())).thenAnswer(invocation -> invocation.getArgument(0));
+		holdManager = new SlotHoldManager();
+		ReflectionTestUtils.setField(holdManager, "ttlSeconds", 0L);
+		ReflectionTestUtils.setField(holdManager, "maxPerUser", 2);
+		ReflectionTestUtils.setField(holdManager, "tickMillis", 10L);
+		ReflectionTestUtils.setField(holdManager, "wheelSize", 64);
+		ReflectionTestUtils.setField(holdManager, "recoverySeconds", 0L);
+		ReflectionTestUtils.setField(holdManager, "bookingDAO", bookingDAO);
+		ReflectionTestUtils.setField(holdManager, "slotChangeNotifier", slotChangeNotifier);
+		ReflectionTestUtils.setField(holdManager, "meterRegistry", registry);
+		holdManager.init();
+	}
+
+	@After
+	public void tearDown() {
+		holdManager.shutdown();
+	}
+
+	@Test
+	public void expiredHoldGivesKioskBackTest() {
+		when(bookingDAO.expireHold(any())).thenReturn(true);
+		SlotHoldEntity hold = holdManager.hold("user", CENTER, DATE, FROM, TO);
+
+		assertEquals("user", hold.getUserId());
+		verify(bookingDAO).createHold(hold);
+		verify(bookingDAO, timeout(2000)).expireHold(hold);
+		verify(slotChangeNotifier, timeout(2000).times(2)).slotChanged(CENTER, DATE, FROM, TO);
+		assertEquals(1, registry.find("prereg.booking.hold").tag("result", "expired").counter().count(), 0.0);
+	}
+
+	@Test
+	public void confirmedHoldIsNotGivenBackTest() throws Exception {
+		when(bookingDAO.confirmHold(any(), eq("user"), eq(DATE), eq(CENTER), eq(FROM), eq(TO))).thenReturn(true);
+		/* the confirming booking deleted the hold row */
+		when(bookingDAO.expireHold(any())).thenReturn(false);
+		SlotHoldEntity hold = holdManager.hold("user", CENTER, DATE, FROM, TO);
+
+		assertEquals(true, holdManager.confirm(hold.getHoldId(), "user", CENTER, DATE, FROM, TO));
+		verify(bookingDAO, timeout(2000)).expireHold(hold);
+		verify(slotChangeNotifier, times(1)).slotChanged(CENTER, DATE, FROM, TO);
+	}
+
+	@Test(expected = OperationNotAllowedException.class)
+	public void holdLimitTest() {
+		when(bookingDAO.countActiveHolds("user")).thenReturn(2L);
+		try {
+			holdManager.hold("user", CENTER, DATE, FROM, TO);
+		} finally {
+			verify(bookingDAO, never()).createHold(any());
+		}
+	}
+
+	@Test(expected = RecordNotFoundException.class)
+	public void releaseUnknownHoldTest() {
+		holdManager.release("unknown", "user");
+	}
+}
@@ -0,0 +1,53 @@
+package io.mosip.preregistration.booking.test.service.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import org.junit.Test;
+
+import io.mosip.preregistration.booking.service.util.TimerWheel;
+
+public class TimerWheelTest {
+
+	@Test
+	public void expiresAtDeadlineNotBeforeTest() {
+		TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+		wheel.schedule("hold", 250);
+		assertTrue(wheel.advance(299).isEmpty());
+		assertEquals(Collections.singletonList("hold"), wheel.advance(300));
+		assertEquals(0, wheel.size());
+	}
+
+	@Test
+	public void entriesBeyondOneTurnWaitForTheirTurnTest() {
+		TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+		wheel.schedule("late", 1000);
+		wheel.schedule("early", 200);
+		assertEquals(Collections.singletonList("early"), wheel.advance(300));
+		assertTrue(wheel.advance(900).isEmpty());
+		assertEquals(1, wheel.size());
+		assertEquals(Collections.singletonList("late"), wheel.advance(1000));
+	}
+
+	@Test
+	public void wheelLeftBehindExpiresEverythingDueTest() {
+		TimerWheel<String> wheel = new TimerWheel<>(100, 8, 0);
+		wheel.schedule("a", 100);
+		wheel.schedule("b", 750);
+		wheel.schedule("c", 5000);
+		wheel.schedule("d", 9000);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c")), new HashSet<>(wheel.advance(6000)));
+		assertEquals(Collections.singletonList("d"), wheel.advance(9000));
+	}
+
+	@Test
+	public void pastDeadlineExpiresOnNextTickTest() {
+		TimerWheel<String> wheel = new TimerWheel<>(100, 8, 1000);
+		wheel.schedule("past", 500);
+		assertEquals(Collections.singletonList("past"), wheel.advance(1100));
+	}
+}